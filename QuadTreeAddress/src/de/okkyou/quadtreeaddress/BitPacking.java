@@ -0,0 +1,77 @@
+package de.okkyou.quadtreeaddress;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs unsigned values of a fixed bit width into consecutive longs, the lowest bits first, so a
+ * value is read with at most two reads of a buffer.
+ */
+final class BitPacking {
+
+  private BitPacking() {
+    // static operations only
+  }
+
+  /**
+   * Returns the number of bits of the largest of the unsigned values.
+   */
+  static int width(final long[] values, final int count) {
+    long bits = 0;
+    for (int i = 0; i < count; i++) {
+      bits |= values[i];
+    }
+    return Long.SIZE - Long.numberOfLeadingZeros(bits);
+  }
+
+  /**
+   * Returns the number of longs of the packed values.
+   */
+  static int words(final int count, final int width) {
+    return (int) ((((long) count * width) + Long.SIZE - 1) >>> 6);
+  }
+
+  /**
+   * Writes the packed values at the position of the buffer.
+   */
+  static void pack(final long[] values, final int count, final int width, final ByteBuffer out) {
+    long word = 0;
+    int bits = 0;
+    for (int i = 0; (i < count) && (width > 0); i++) {
+      final long value = values[i];
+      word |= value << bits;
+      bits += width;
+      if (bits >= Long.SIZE) {
+        out.putLong(word);
+        bits -= Long.SIZE;
+        // The upper bits of the value that did not fit into the word
+        word = (bits == 0) ? 0 : (value >>> (width - bits));
+      }
+    }
+    if (bits > 0) {
+      out.putLong(word);
+    }
+  }
+
+  /**
+   * Reads a packed value.
+   *
+   * @param buffer the buffer
+   * @param position the position of the packed values within the buffer
+   * @param index the index of the value
+   * @param width the bit width of the values
+   */
+  static long get(final ByteBuffer buffer, final int position, final int index,
+      final int width) {
+    if (width == 0) {
+      return 0;
+    }
+    final long bit = (long) index * width;
+    final int word = position + ((int) (bit >>> 6) * Long.BYTES);
+    final int shift = (int) bit & (Long.SIZE - 1);
+    long value = buffer.getLong(word) >>> shift;
+    if ((shift + width) > Long.SIZE) {
+      value |= buffer.getLong(word + Long.BYTES) << (Long.SIZE - shift);
+    }
+    return (width == Long.SIZE) ? value : (value & ((1L << width) - 1));
+  }
+}
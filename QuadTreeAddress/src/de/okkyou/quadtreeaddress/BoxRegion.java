@@ -0,0 +1,86 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * A latitude and longitude rectangle including its borders. If the western border is east of the
+ * eastern border, the rectangle crosses the antimeridian and consists of two longitude intervals.
+ */
+final class BoxRegion implements CellRegion {
+
+  private final int north;
+  private final int south;
+  private final int west;
+  private final int east;
+  private final boolean crossesAntimeridian;
+
+  BoxRegion(final int north, final int south, final int west, final int east) {
+    QuadKeys.checkPosition(north, west);
+    QuadKeys.checkPosition(south, east);
+    if (north < south) {
+      throw new IllegalArgumentException(
+          "Northern border " + north + " is south of southern border " + south);
+    }
+    this.north = north;
+    this.south = south;
+    // Touching intervals around the antimeridian cover all longitudes
+    if ((long) west == ((long) east + 1)) {
+      this.west = Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE;
+      this.east = Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE;
+    } else {
+      this.west = west;
+      this.east = east;
+    }
+    this.crossesAntimeridian = this.west > this.east;
+  }
+
+  @Override
+  public int classify(final int upperLatitude, final int lowerLatitude, final int leftLongitude,
+      final int rightLongitude) {
+    final long upperExclusive =
+        BoxRegion.exclusive(upperLatitude, Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE);
+    final long rightExclusive =
+        BoxRegion.exclusive(rightLongitude, Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE);
+    if (!BoxRegion.intersects(lowerLatitude, upperExclusive, this.south, this.north)) {
+      return CellRegion.OUTSIDE;
+    }
+    final boolean latitudeInside =
+        BoxRegion.isInside(lowerLatitude, upperExclusive, this.south, this.north);
+
+    final boolean longitudeIntersects;
+    final boolean longitudeInside;
+    if (this.crossesAntimeridian) {
+      longitudeIntersects = BoxRegion.intersects(leftLongitude, rightExclusive, this.west,
+          Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE)
+          || BoxRegion.intersects(leftLongitude, rightExclusive,
+              Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, this.east);
+      longitudeInside = BoxRegion.isInside(leftLongitude, rightExclusive, this.west,
+          Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE)
+          || BoxRegion.isInside(leftLongitude, rightExclusive,
+              Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, this.east);
+    } else {
+      longitudeIntersects = BoxRegion.intersects(leftLongitude, rightExclusive, this.west,
+          this.east);
+      longitudeInside = BoxRegion.isInside(leftLongitude, rightExclusive, this.west, this.east);
+    }
+    if (!longitudeIntersects) {
+      return CellRegion.OUTSIDE;
+    }
+    return (latitudeInside && longitudeInside) ? CellRegion.INSIDE : CellRegion.PARTIAL;
+  }
+
+  /**
+   * The upper threshold of a QuadTree is exclusive, unless it is the maximum.
+   */
+  private static long exclusive(final int upper, final int max) {
+    return (upper == max) ? (upper + 1L) : upper;
+  }
+
+  private static boolean intersects(final int lower, final long upperExclusive, final int min,
+      final int max) {
+    return (lower <= max) && (upperExclusive > min);
+  }
+
+  private static boolean isInside(final int lower, final long upperExclusive, final int min,
+      final int max) {
+    return (lower >= min) && (upperExclusive <= (max + 1L));
+  }
+}
@@ -0,0 +1,34 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * A region that can be covered by QuadTrees, see {@link RegionCoverer}. The region only has to
+ * tell how the borders of a QuadTree relate to it. A QuadTree contains the latitudes from its lower
+ * (inclusive) to its upper threshold (exclusive unless it is the maximum), the same applies to the
+ * longitudes.
+ */
+interface CellRegion {
+
+  /**
+   * The QuadTree does not intersect the region.
+   */
+  int OUTSIDE = 0;
+
+  /**
+   * The QuadTree intersects the region, but is not completely within it.
+   */
+  int PARTIAL = 1;
+
+  /**
+   * The QuadTree is completely within the region.
+   */
+  int INSIDE = 2;
+
+  /**
+   * Returns the relation of the QuadTree with the given borders to the region. It may return
+   * {@link #PARTIAL} instead of {@link #OUTSIDE} or {@link #INSIDE} if the exact relation is
+   * expensive, at the cost of a larger covering.
+   *
+   * @return {@link #OUTSIDE}, {@link #PARTIAL} or {@link #INSIDE}
+   */
+  int classify(int upperLatitude, int lowerLatitude, int leftLongitude, int rightLongitude);
+}
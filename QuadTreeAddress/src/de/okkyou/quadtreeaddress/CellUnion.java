@@ -0,0 +1,429 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * An immutable set of QuadTrees of mixed depths. The QuadTrees are stored as sorted linear keys,
+ * see {@link LinearQuadKeys}, so each of them covers a range of leaf keys and the set operations
+ * merge the ranges of both sets in a single pass.
+ * </p>
+ *
+ * <p>
+ * A union is always normalized: descendants of contained QuadTrees are removed and four complete
+ * siblings are replaced by their parent, recursively. Two unions that cover the same area are
+ * therefore equal.
+ * </p>
+ */
+public final class CellUnion {
+
+  /**
+   * The union without any QuadTree.
+   */
+  public static final CellUnion EMPTY = new CellUnion(new long[0]);
+
+  // Normalized linear keys in ascending order
+  private final long[] cells;
+
+  private CellUnion(final long[] cells) {
+    this.cells = cells;
+  }
+
+  /**
+   * Creates a normalized union of the given QuadTrees.
+   *
+   * @param keys the packed keys in any order. Must be valid, duplicates are allowed
+   * @return the union
+   * @throws IllegalArgumentException if a key is invalid
+   */
+  public static CellUnion of(final long... keys) {
+    final long[] linearKeys = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      linearKeys[i] = LinearQuadKeys.fromQuadKey(keys[i]);
+    }
+    return CellUnion.normalize(linearKeys);
+  }
+
+  /**
+   * Creates a normalized union of the given QuadTrees.
+   *
+   * @param linearKeys the linear keys in any order. Must be valid, duplicates are allowed
+   * @return the union
+   * @throws IllegalArgumentException if a linear key is invalid
+   */
+  public static CellUnion fromLinearKeys(final long... linearKeys) {
+    final long[] copy = linearKeys.clone();
+    for (final long linearKey : copy) {
+      LinearQuadKeys.checkLinearKey(linearKey);
+    }
+    return CellUnion.normalize(copy);
+  }
+
+  /**
+   * Creates a normalized union of the given QuadTrees, e.g. the result of
+   * {@link QuadTreeAddress#getNeighbors()}.
+   *
+   * @param quadTrees the QuadTrees in letter representation. Must not be null
+   * @return the union
+   * @throws IllegalArgumentException if a QuadTree is invalid
+   * @throws NullPointerException if the collection or a QuadTree is null
+   */
+  public static CellUnion fromQuadTrees(final Collection<String> quadTrees) {
+    final long[] linearKeys = new long[quadTrees.size()];
+    int i = 0;
+    for (final String quadTree : quadTrees) {
+      linearKeys[i++] =
+          LinearQuadKeys.fromQuadKey(QuadKeyText.parse(Objects.requireNonNull(quadTree)));
+    }
+    return CellUnion.normalize(linearKeys);
+  }
+
+  /**
+   * Returns the number of QuadTrees of the normalized union.
+   *
+   * @return the number of QuadTrees
+   */
+  public int size() {
+    return this.cells.length;
+  }
+
+  public boolean isEmpty() {
+    return this.cells.length == 0;
+  }
+
+  /**
+   * Returns the QuadTrees of the union.
+   *
+   * @return the packed keys in the order of {@link LinearQuadKeys}
+   */
+  public long[] toArray() {
+    final long[] keys = new long[this.cells.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = LinearQuadKeys.toQuadKey(this.cells[i]);
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the QuadTrees of the union.
+   *
+   * @return the linear keys in ascending order
+   */
+  public long[] toLinearKeys() {
+    return this.cells.clone();
+  }
+
+  /**
+   * Returns the QuadTrees of the union.
+   *
+   * @return the QuadTrees in letter representation in the order of {@link LinearQuadKeys}
+   */
+  public List<String> toQuadTrees() {
+    final List<String> quadTrees = new ArrayList<>(this.cells.length);
+    for (final long cell : this.cells) {
+      quadTrees.add(QuadKeyText.toString(LinearQuadKeys.toQuadKey(cell)));
+    }
+    return quadTrees;
+  }
+
+  /**
+   * Returns the union of both sets.
+   *
+   * @param other the other union. Must not be null
+   * @return the QuadTrees that are in this or the other union
+   */
+  public CellUnion union(final CellUnion other) {
+    final RangeBuilder builder = new RangeBuilder(this.cells.length + other.cells.length);
+    int i = 0;
+    int j = 0;
+    while ((i < this.cells.length) || (j < other.cells.length)) {
+      final long cell;
+      if ((j == other.cells.length)
+          || ((i < this.cells.length) && (this.cells[i] < other.cells[j]))) {
+        cell = this.cells[i++];
+      } else {
+        cell = other.cells[j++];
+      }
+      builder.add(CellUnion.start(cell), CellUnion.end(cell));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the intersection of both sets.
+   *
+   * @param other the other union. Must not be null
+   * @return the QuadTrees that are in this and the other union
+   */
+  public CellUnion intersection(final CellUnion other) {
+    final RangeBuilder builder =
+        new RangeBuilder(Math.max(this.cells.length, other.cells.length));
+    int i = 0;
+    int j = 0;
+    while ((i < this.cells.length) && (j < other.cells.length)) {
+      final long end = CellUnion.end(this.cells[i]);
+      final long otherEnd = CellUnion.end(other.cells[j]);
+      final long start = Math.max(CellUnion.start(this.cells[i]), CellUnion.start(other.cells[j]));
+      if (start <= Math.min(end, otherEnd)) {
+        builder.add(start, Math.min(end, otherEnd));
+      }
+      if (end < otherEnd) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the difference of both sets.
+   *
+   * @param other the union to subtract. Must not be null
+   * @return the QuadTrees that are in this but not in the other union
+   */
+  public CellUnion difference(final CellUnion other) {
+    final RangeBuilder builder = new RangeBuilder(this.cells.length);
+    int j = 0;
+    for (final long cell : this.cells) {
+      long start = CellUnion.start(cell);
+      final long end = CellUnion.end(cell);
+      while ((j < other.cells.length) && (CellUnion.start(other.cells[j]) <= end)) {
+        final long otherStart = CellUnion.start(other.cells[j]);
+        final long otherEnd = CellUnion.end(other.cells[j]);
+        if (otherEnd < start) {
+          j++;
+          continue;
+        }
+        if (otherStart > start) {
+          builder.add(start, otherStart - 1);
+        }
+        start = otherEnd + 1;
+        if (otherEnd > end) {
+          // The subtracted QuadTree may also overlap the next QuadTree of this union
+          break;
+        }
+        j++;
+      }
+      if (start <= end) {
+        builder.add(start, end);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Checks if every QuadTree of the other union is within this union.
+   *
+   * @param other the other union. Must not be null
+   * @return true if the other union is a subset
+   */
+  public boolean contains(final CellUnion other) {
+    int i = 0;
+    for (final long cell : other.cells) {
+      final long start = CellUnion.start(cell);
+      while ((i < this.cells.length) && (CellUnion.end(this.cells[i]) < start)) {
+        i++;
+      }
+      if ((i == this.cells.length) || (CellUnion.start(this.cells[i]) > start)
+          || (CellUnion.end(this.cells[i]) < CellUnion.end(cell))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if both unions have a QuadTree in common.
+   *
+   * @param other the other union. Must not be null
+   * @return true if the intersection is not empty
+   */
+  public boolean intersects(final CellUnion other) {
+    int i = 0;
+    int j = 0;
+    while ((i < this.cells.length) && (j < other.cells.length)) {
+      final long end = CellUnion.end(this.cells[i]);
+      final long otherEnd = CellUnion.end(other.cells[j]);
+      if (Math.max(CellUnion.start(this.cells[i]), CellUnion.start(other.cells[j]))
+          <= Math.min(end, otherEnd)) {
+        return true;
+      }
+      if (end < otherEnd) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the QuadTree is within this union.
+   *
+   * @param key the packed key. Must be valid
+   * @return true if the QuadTree or one of its ancestors is part of the union
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public boolean contains(final long key) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    final int index = this.floor(linearKey);
+    return (index >= 0) && (CellUnion.end(this.cells[index]) >= CellUnion.end(linearKey));
+  }
+
+  /**
+   * Checks if the QuadTree intersects this union.
+   *
+   * @param key the packed key. Must be valid
+   * @return true if the QuadTree, one of its ancestors or descendants is part of the union
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public boolean intersects(final long key) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    final int index = this.floor(linearKey);
+    if ((index >= 0) && (CellUnion.end(this.cells[index]) >= CellUnion.start(linearKey))) {
+      return true;
+    }
+    return ((index + 1) < this.cells.length)
+        && (CellUnion.start(this.cells[index + 1]) <= CellUnion.end(linearKey));
+  }
+
+  /**
+   * Checks if the position is within this union.
+   *
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @return true if a QuadTree of the union contains the position
+   * @throws IllegalArgumentException if the position is invalid
+   */
+  public boolean contains(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    final long leaf = LinearQuadKeys.encode(latitudeInTenthMicroDegree,
+        longitudeInTenthMicroDegree, QuadTreeAddress.MAX_DEPTH);
+    final int index = this.floor(leaf);
+    return (index >= 0) && (CellUnion.end(this.cells[index]) >= CellUnion.start(leaf));
+  }
+
+  /**
+   * Checks if the position is within this union.
+   *
+   * @param point the position. Must not be null
+   * @return true if a QuadTree of the union contains the position
+   * @throws NullPointerException if point is null
+   */
+  public boolean contains(final Wgs84Point point) {
+    return this.contains(point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.cells);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null) {
+      return false;
+    }
+    if (this.getClass() != obj.getClass()) {
+      return false;
+    }
+    final CellUnion other = (CellUnion) obj;
+    return Arrays.equals(this.cells, other.cells);
+  }
+
+  @Override
+  public String toString() {
+    return "CellUnion " + this.toQuadTrees();
+  }
+
+  /**
+   * Returns the index of the last cell whose linear key is not greater than the given one, or -1.
+   */
+  private int floor(final long linearKey) {
+    final int index = Arrays.binarySearch(this.cells, linearKey);
+    return (index >= 0) ? index : (-index - 2);
+  }
+
+  /**
+   * Returns the path of the first leaf within the QuadTree.
+   */
+  private static long start(final long linearKey) {
+    return linearKey >>> LinearQuadKeys.PATH_SHIFT;
+  }
+
+  /**
+   * Returns the path of the last leaf within the QuadTree.
+   */
+  private static long end(final long linearKey) {
+    return (linearKey >>> LinearQuadKeys.PATH_SHIFT)
+        | LinearQuadKeys.belowDepthMask(LinearQuadKeys.depthOf(linearKey));
+  }
+
+  private static CellUnion normalize(final long[] linearKeys) {
+    Arrays.sort(linearKeys);
+    final RangeBuilder builder = new RangeBuilder(linearKeys.length);
+    for (final long linearKey : linearKeys) {
+      builder.add(CellUnion.start(linearKey), CellUnion.end(linearKey));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Merges overlapping and adjacent ranges of leaf paths and splits them into the fewest
+   * QuadTrees. The largest QuadTree that starts at a path and fits into the range is always taken,
+   * so descendants and complete siblings cannot remain.
+   */
+  private static final class RangeBuilder {
+
+    private final LongList cells;
+    private long start = -1;
+    private long end = -1;
+
+    RangeBuilder(final int capacity) {
+      this.cells = new LongList(capacity);
+    }
+
+    /**
+     * Adds a range, which must not start before the previously added range.
+     */
+    void add(final long start, final long end) {
+      if ((this.start >= 0) && (start <= (this.end + 1))) {
+        this.end = Math.max(this.end, end);
+        return;
+      }
+      this.flush();
+      this.start = start;
+      this.end = end;
+    }
+
+    CellUnion build() {
+      this.flush();
+      return this.cells.isEmpty() ? CellUnion.EMPTY : new CellUnion(this.cells.toArray());
+    }
+
+    private void flush() {
+      long path = this.start;
+      while ((path >= 0) && (path <= this.end)) {
+        int levels = (path == 0) ? QuadTreeAddress.MAX_DEPTH
+            : Math.min(QuadTreeAddress.MAX_DEPTH, Long.numberOfTrailingZeros(path) / 2);
+        while ((path + (1L << (2 * levels)) - 1) > this.end) {
+          levels--;
+        }
+        this.cells
+            .add((path << LinearQuadKeys.PATH_SHIFT) | (QuadTreeAddress.MAX_DEPTH - levels));
+        path += 1L << (2 * levels);
+      }
+      this.start = -1;
+      this.end = -1;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * Covers circles on the earth with QuadTrees of mixed depths, see {@link RegionCoverer}. A circle
+ * contains all positions whose great-circle distance to its center is at most its radius, so it is
+ * not distorted by the grid near the poles and may extend across the antimeridian.
+ * </p>
+ *
+ * <p>
+ * The maximum depth is selected from the radius, see {@link #getMaxDepth(double)}, so small and
+ * large circles need a similar number of QuadTrees.
+ * </p>
+ */
+public final class CircleCoverer {
+
+  /**
+   * The mean radius of the earth in meter.
+   */
+  public static final double EARTH_RADIUS_METER = 6371008.8;
+
+  private static final double MERIDIAN_METER = Math.PI * CircleCoverer.EARTH_RADIUS_METER;
+
+  private final int maxCells;
+
+  /**
+   * Creates a coverer.
+   *
+   * @param maxCells the number of QuadTrees the covering should not exceed. Must be positive
+   * @throws IllegalArgumentException if maxCells is not positive
+   */
+  public CircleCoverer(final int maxCells) {
+    if (maxCells < 1) {
+      throw new IllegalArgumentException("Invalid maximum number of cells: " + maxCells);
+    }
+    this.maxCells = maxCells;
+  }
+
+  public int getMaxCells() {
+    return this.maxCells;
+  }
+
+  /**
+   * Returns the smallest depth whose QuadTrees are at most half the radius high, so about 50
+   * QuadTrees of this depth cover the circle.
+   *
+   * @param radiusInMeter the radius. Must not be negative
+   * @return the depth within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @throws IllegalArgumentException if the radius is negative, infinite or NaN
+   */
+  public static int getMaxDepth(final double radiusInMeter) {
+    CircleCoverer.checkRadius(radiusInMeter);
+    int depth = 0;
+    double height = CircleCoverer.MERIDIAN_METER;
+    while ((depth < QuadTreeAddress.MAX_DEPTH) && (height > (radiusInMeter / 2))) {
+      height /= 2;
+      depth++;
+    }
+    return depth;
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees that contain every position within the radius around the
+   * center.
+   *
+   * @param center the center. Must not be null
+   * @param radiusInMeter the radius. Must not be negative
+   * @return the packed keys in the order of {@link LinearQuadKeys}
+   * @throws IllegalArgumentException if the radius is negative, infinite or NaN
+   * @throws NullPointerException if center is null
+   */
+  public long[] cover(final Wgs84Point center, final double radiusInMeter) {
+    Objects.requireNonNull(center);
+    return this.cover(center.getLatitudeInTenthMicroDegree(),
+        center.getLongitudeInTenthMicroDegree(), radiusInMeter);
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees that contain every position within the radius around the
+   * center.
+   *
+   * @param latitudeInTenthMicroDegree the latitude of the center
+   * @param longitudeInTenthMicroDegree the longitude of the center
+   * @param radiusInMeter the radius. Must not be negative
+   * @return the packed keys in the order of {@link LinearQuadKeys}
+   * @throws IllegalArgumentException if the center is out of range or the radius is negative,
+   *         infinite or NaN
+   */
+  public long[] cover(final int latitudeInTenthMicroDegree, final int longitudeInTenthMicroDegree,
+      final double radiusInMeter) {
+    final int maxDepth = CircleCoverer.getMaxDepth(radiusInMeter);
+    final CircleRegion region = new CircleRegion(latitudeInTenthMicroDegree,
+        longitudeInTenthMicroDegree, radiusInMeter / CircleCoverer.EARTH_RADIUS_METER);
+    return new RegionCoverer(0, maxDepth, this.maxCells).getCovering(region);
+  }
+
+  /**
+   * Returns the great-circle distance between two positions.
+   *
+   * @param point a position. Must not be null
+   * @param otherPoint another position. Must not be null
+   * @return the distance in meter
+   * @throws NullPointerException if a position is null
+   */
+  public static double getDistance(final Wgs84Point point, final Wgs84Point otherPoint) {
+    return CircleRegion.distance(CircleRegion.toRadian(point.getLatitudeInTenthMicroDegree()),
+        CircleRegion.toRadian(point.getLongitudeInTenthMicroDegree()),
+        CircleRegion.toRadian(otherPoint.getLatitudeInTenthMicroDegree()),
+        CircleRegion.toRadian(otherPoint.getLongitudeInTenthMicroDegree()))
+        * CircleCoverer.EARTH_RADIUS_METER;
+  }
+
+  private static void checkRadius(final double radiusInMeter) {
+    if (!(radiusInMeter >= 0) || Double.isInfinite(radiusInMeter)) {
+      throw new IllegalArgumentException("Invalid radius: " + radiusInMeter);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * A spherical cap: all positions whose great-circle distance to the center is at most the radius.
+ * Distances are angles in radians on the unit sphere, so the region does not depend on the radius
+ * of the earth.
+ * </p>
+ *
+ * <p>
+ * A QuadTree is classified by the minimum and maximum distance of its rectangle to the center. The
+ * nearest position of a rectangle lies on one of its meridian borders, unless the center is within
+ * its longitudes. The farthest position is the nearest position to the antipode of the center, so
+ * both are found with the same calculation. The haversine formula is periodic in the longitude,
+ * which handles the antimeridian, and the poles are the ends of the meridian borders.
+ * </p>
+ */
+final class CircleRegion implements CellRegion {
+
+  private static final double TENTH_MICRO_DEGREE_TO_RADIAN = Math.PI / 1800000000.0;
+
+  // Tolerance against rounding, so that positions at the radius are never missed
+  private static final double EPSILON = 1e-12;
+
+  private final double latitude;
+  private final double longitude;
+  private final double radius;
+
+  private final double antipodeLatitude;
+  private final double antipodeLongitude;
+
+  CircleRegion(final int latitude, final int longitude, final double radius) {
+    QuadKeys.checkPosition(latitude, longitude);
+    if (!(radius >= 0) || Double.isInfinite(radius)) {
+      throw new IllegalArgumentException("Invalid radius: " + radius);
+    }
+    this.latitude = CircleRegion.toRadian(latitude);
+    this.longitude = CircleRegion.toRadian(longitude);
+    this.radius = radius;
+    this.antipodeLatitude = -this.latitude;
+    this.antipodeLongitude =
+        (this.longitude > 0) ? (this.longitude - Math.PI) : (this.longitude + Math.PI);
+  }
+
+  @Override
+  public int classify(final int upperLatitude, final int lowerLatitude, final int leftLongitude,
+      final int rightLongitude) {
+    final double upper = CircleRegion.toRadian(upperLatitude);
+    final double lower = CircleRegion.toRadian(lowerLatitude);
+    final double left = CircleRegion.toRadian(leftLongitude);
+    final double right = CircleRegion.toRadian(rightLongitude);
+    final double minDistance =
+        CircleRegion.minDistance(this.latitude, this.longitude, upper, lower, left, right);
+    if (minDistance > (this.radius + CircleRegion.EPSILON)) {
+      return CellRegion.OUTSIDE;
+    }
+    final double maxDistance = Math.PI - CircleRegion.minDistance(this.antipodeLatitude,
+        this.antipodeLongitude, upper, lower, left, right);
+    return (maxDistance < (this.radius - CircleRegion.EPSILON)) ? CellRegion.INSIDE
+        : CellRegion.PARTIAL;
+  }
+
+  /**
+   * Returns the great-circle distance between two positions in radians.
+   */
+  static double distance(final double latitude, final double longitude,
+      final double otherLatitude, final double otherLongitude) {
+    final double latitudeSin = Math.sin((otherLatitude - latitude) / 2);
+    final double longitudeSin = Math.sin((otherLongitude - longitude) / 2);
+    final double h = (latitudeSin * latitudeSin)
+        + (Math.cos(latitude) * Math.cos(otherLatitude) * longitudeSin * longitudeSin);
+    return 2 * Math.asin(Math.sqrt(Math.min(1, h)));
+  }
+
+  static double toRadian(final int tenthMicroDegree) {
+    return tenthMicroDegree * CircleRegion.TENTH_MICRO_DEGREE_TO_RADIAN;
+  }
+
+  /**
+   * Returns the distance from the position to the nearest position of the rectangle.
+   */
+  private static double minDistance(final double latitude, final double longitude,
+      final double upper, final double lower, final double left, final double right) {
+    if ((longitude >= left) && (longitude <= right)) {
+      if (latitude > upper) {
+        return latitude - upper;
+      }
+      return (latitude < lower) ? (lower - latitude) : 0;
+    }
+    return Math.min(CircleRegion.meridianDistance(latitude, longitude, left, upper, lower),
+        CircleRegion.meridianDistance(latitude, longitude, right, upper, lower));
+  }
+
+  /**
+   * Returns the distance from the position to the nearest position of a meridian between two
+   * latitudes. Within a quarter of the sphere the distance along the meridian has a single minimum,
+   * beyond it the distance decreases towards the nearer pole, so the ends suffice.
+   */
+  private static double meridianDistance(final double latitude, final double longitude,
+      final double meridian, final double upper, final double lower) {
+    final double cosine = Math.cos(meridian - longitude);
+    double distance = Math.min(CircleRegion.distance(latitude, longitude, upper, meridian),
+        CircleRegion.distance(latitude, longitude, lower, meridian));
+    if (cosine > 0) {
+      final double nearest = Math.atan(Math.tan(latitude) / cosine);
+      if ((nearest > lower) && (nearest < upper)) {
+        distance = Math.min(distance,
+            CircleRegion.distance(latitude, longitude, nearest, meridian));
+      }
+    }
+    return distance;
+  }
+}
@@ -0,0 +1,506 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A read-only file of points with a timestamp and an id each, sorted by their leaf QuadTrees and
+ * stored column by column for scans. The points are split into blocks of up to
+ * {@value #BLOCK_ROWS} rows, and the smallest and the largest key of each block are kept in
+ * memory. Each block is mapped into memory on its own, so a query only reads the blocks whose key
+ * range intersects the QuadTree or the rectangle.
+ * </p>
+ *
+ * <p>
+ * The file consists of the following sections, all numbers are big-endian:
+ * </p>
+ * <ul>
+ * <li>A header of {@value #HEADER_SIZE} bytes: the magic number {@code 0x51544346} ("QTCF"), the
+ * version, the number of rows, the number of blocks, the maximum number of rows of a block and the
+ * file position of the directory.</li>
+ * <li>The blocks one after another. A block starts with its number of rows followed by five
+ * columns: the paths of the leaf keys, see {@link LinearQuadKeys}, the latitudes and longitudes,
+ * the timestamps and the ids. A column consists of a base, the bit width of its values and the
+ * values bit-packed into longs. The key column stores the differences to the previous path and
+ * the first path as its base. The latitudes and longitudes are stored as the distance to the
+ * south-western corner of their leaf QuadTree, and all columns but the keys as the difference to
+ * their smallest value as the base, so points that are close to each other need few bits.</li>
+ * <li>The directory: for each block the smallest and the largest linear leaf key, its file
+ * position, its length and its number of rows.</li>
+ * </ul>
+ *
+ * <p>
+ * Each block must be smaller than 2 GB. The mapped memory is released when the file becomes
+ * unreachable.
+ * </p>
+ */
+public final class ColumnarPointFile {
+
+  /**
+   * Size of the header in bytes.
+   */
+  public static final int HEADER_SIZE = 32;
+
+  /**
+   * Version of the file format written by {@link Writer}.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Maximum number of rows of a block.
+   */
+  public static final int BLOCK_ROWS = 1 << 16;
+
+  private static final int MAGIC = 0x51544346;
+  private static final int DIRECTORY_ENTRY_SIZE =
+      Long.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final int BLOCK_HEADER_SIZE = Long.BYTES;
+  private static final int COLUMN_HEADER_SIZE = Long.BYTES + Long.BYTES;
+  private static final int COLUMNS = 5;
+  private static final int KEYS = 0;
+  private static final int LATITUDES = 1;
+  private static final int LONGITUDES = 2;
+  private static final int TIMESTAMPS = 3;
+  private static final int IDS = 4;
+  private static final int BOX_RANGES = 16;
+
+  private final long rowCount;
+  private final long[] minKeys;
+  private final long[] maxKeys;
+  private final ByteBuffer[] blocks;
+
+  private ColumnarPointFile(final long rowCount, final long[] minKeys, final long[] maxKeys,
+      final ByteBuffer[] blocks) {
+    this.rowCount = rowCount;
+    this.minKeys = minKeys;
+    this.maxKeys = maxKeys;
+    this.blocks = blocks;
+  }
+
+  /**
+   * Opens a columnar point file and maps its blocks into memory.
+   *
+   * @param file the file written by a {@link Writer}. Must not be null
+   * @return the columnar point file
+   * @throws IOException if the file cannot be read, is no columnar point file, has another version
+   *         or is truncated
+   */
+  public static ColumnarPointFile open(final Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize < ColumnarPointFile.HEADER_SIZE) {
+        throw new IOException("No columnar point file: " + file);
+      }
+      final ByteBuffer header =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, ColumnarPointFile.HEADER_SIZE);
+      if (header.getInt() != ColumnarPointFile.MAGIC) {
+        throw new IOException("No columnar point file: " + file);
+      }
+      final int version = header.getInt();
+      if (version != ColumnarPointFile.VERSION) {
+        throw new IOException("Unsupported columnar point file version " + version + ": " + file);
+      }
+      final long rowCount = header.getLong();
+      final int blockCount = header.getInt();
+      final int blockRows = header.getInt();
+      final long directoryPosition = header.getLong();
+      if ((rowCount < 0) || (blockCount < 0) || (blockRows <= 0)
+          || (blockRows > ColumnarPointFile.BLOCK_ROWS)) {
+        throw new IOException("Corrupt columnar point file header: " + file);
+      }
+      final ByteBuffer directory = ColumnarPointFile.map(channel, fileSize, directoryPosition,
+          (long) blockCount * ColumnarPointFile.DIRECTORY_ENTRY_SIZE);
+      final long[] minKeys = new long[blockCount];
+      final long[] maxKeys = new long[blockCount];
+      final ByteBuffer[] blocks = new ByteBuffer[blockCount];
+      long rows = 0;
+      for (int i = 0; i < blockCount; i++) {
+        minKeys[i] = directory.getLong();
+        maxKeys[i] = directory.getLong();
+        final long position = directory.getLong();
+        final int length = directory.getInt();
+        final int blockRowCount = directory.getInt();
+        blocks[i] = ColumnarPointFile.map(channel, fileSize, position, length);
+        if ((blockRowCount <= 0) || (blockRowCount > blockRows) || (minKeys[i] > maxKeys[i])
+            || ((i > 0) && (minKeys[i] < maxKeys[i - 1]))
+            || (length < ColumnarPointFile.BLOCK_HEADER_SIZE)
+            || (blocks[i].getInt(0) != blockRowCount)) {
+          throw new IOException("Corrupt columnar point file block " + i + ": " + file);
+        }
+        rows += blockRowCount;
+      }
+      if (rows != rowCount) {
+        throw new IOException("Corrupt columnar point file header: " + file);
+      }
+      return new ColumnarPointFile(rowCount, minKeys, maxKeys, blocks);
+    }
+  }
+
+  private static ByteBuffer map(final FileChannel channel, final long fileSize,
+      final long position, final long length) throws IOException {
+    if ((position < ColumnarPointFile.HEADER_SIZE) || (length < 0)
+        || (length > Integer.MAX_VALUE) || ((position + length) > fileSize)) {
+      throw new IOException("Truncated or corrupt columnar point file section at " + position);
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the number of rows
+   */
+  public long size() {
+    return this.rowCount;
+  }
+
+  /**
+   * Returns the number of blocks.
+   *
+   * @return the number of blocks
+   */
+  public int getBlockCount() {
+    return this.blocks.length;
+  }
+
+  /**
+   * Returns the smallest linear leaf key of a block.
+   *
+   * @param block the block within [0, {@link #getBlockCount()})
+   * @return the linear leaf key
+   * @throws IndexOutOfBoundsException if block is out of range
+   */
+  public long getBlockMinKey(final int block) {
+    Objects.checkIndex(block, this.blocks.length);
+    return this.minKeys[block];
+  }
+
+  /**
+   * Returns the largest linear leaf key of a block.
+   *
+   * @param block the block within [0, {@link #getBlockCount()})
+   * @return the linear leaf key
+   * @throws IndexOutOfBoundsException if block is out of range
+   */
+  public long getBlockMaxKey(final int block) {
+    Objects.checkIndex(block, this.blocks.length);
+    return this.maxKeys[block];
+  }
+
+  /**
+   * Passes the rows within the QuadTree to the visitor.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param visitor receives the rows in the order of their keys. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public void forEach(final long key, final RowVisitor visitor) {
+    Objects.requireNonNull(visitor);
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    this.forEach(new long[] {LinearQuadKeys.getLeafMin(linearKey),
+        LinearQuadKeys.getLeafMax(linearKey)}, null, visitor);
+  }
+
+  /**
+   * Passes the rows within the QuadTree to the visitor.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param visitor receives the rows in the order of their keys. Must not be null
+   */
+  public void forEach(final QuadTreeAddress quadTree, final RowVisitor visitor) {
+    this.forEach(quadTree.toNumberRepresentation(), visitor);
+  }
+
+  /**
+   * Passes the rows within the rectangle to the visitor. Unlike the keys, the positions of the
+   * rows are exact, so no row outside of the rectangle is passed.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @param visitor receives the rows in the order of their keys. Must not be null
+   * @throws IllegalArgumentException if a border is out of range or north is south of south
+   */
+  public void forEachInBox(final int north, final int south, final int west, final int east,
+      final RowVisitor visitor) {
+    Objects.requireNonNull(visitor);
+    final long[] ranges =
+        QuadKeyRanges.getRanges(north, south, west, east, ColumnarPointFile.BOX_RANGES);
+    this.forEach(ranges, new int[] {north, south, west, east}, visitor);
+  }
+
+  /**
+   * Scans the blocks that intersect the ranges of leaf keys.
+   *
+   * @param ranges the inclusive first and last leaf key of each range in ascending order
+   * @param borders the rectangle the rows must be within, or null
+   */
+  private void forEach(final long[] ranges, final int[] borders, final RowVisitor visitor) {
+    int range = 0;
+    for (int block = 0; block < this.blocks.length; block++) {
+      while ((range < ranges.length) && (ranges[range + 1] < this.minKeys[block])) {
+        range += 2;
+      }
+      if (range >= ranges.length) {
+        return;
+      }
+      if (ranges[range] <= this.maxKeys[block]) {
+        ColumnarPointFile.scan(this.blocks[block], ranges, range, borders, visitor);
+      }
+    }
+  }
+
+  private static void scan(final ByteBuffer block, final long[] ranges, final int firstRange,
+      final int[] borders, final RowVisitor visitor) {
+    final int rows = block.getInt(0);
+    final long[] bases = new long[ColumnarPointFile.COLUMNS];
+    final int[] widths = new int[ColumnarPointFile.COLUMNS];
+    final int[] positions = new int[ColumnarPointFile.COLUMNS];
+    int position = ColumnarPointFile.BLOCK_HEADER_SIZE;
+    for (int column = 0; column < ColumnarPointFile.COLUMNS; column++) {
+      bases[column] = block.getLong(position);
+      widths[column] = block.getInt(position + Long.BYTES);
+      positions[column] = position + ColumnarPointFile.COLUMN_HEADER_SIZE;
+      position = positions[column] + (BitPacking.words(rows, widths[column]) * Long.BYTES);
+    }
+
+    int range = firstRange;
+    long path = bases[ColumnarPointFile.KEYS];
+    for (int row = 0; row < rows; row++) {
+      path += BitPacking.get(block, positions[ColumnarPointFile.KEYS], row,
+          widths[ColumnarPointFile.KEYS]);
+      final long leafKey = (path << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH;
+      while ((range < ranges.length) && (ranges[range + 1] < leafKey)) {
+        range += 2;
+      }
+      if (range >= ranges.length) {
+        return;
+      }
+      if (leafKey < ranges[range]) {
+        continue;
+      }
+      final int latitude = QuadGrid.rowToLowerLatitude(QuadGrid.compact(path >>> 1),
+          QuadGrid.DEPTH) + (int) ColumnarPointFile.get(block, ColumnarPointFile.LATITUDES, row,
+              bases, widths, positions);
+      final int longitude = QuadGrid.columnToLeftLongitude(QuadGrid.compact(path),
+          QuadGrid.DEPTH) + (int) ColumnarPointFile.get(block, ColumnarPointFile.LONGITUDES, row,
+              bases, widths, positions);
+      if ((borders != null) && !ColumnarPointFile.isInBox(latitude, longitude, borders)) {
+        continue;
+      }
+      visitor.visit(leafKey, latitude, longitude,
+          ColumnarPointFile.get(block, ColumnarPointFile.TIMESTAMPS, row, bases, widths,
+              positions),
+          ColumnarPointFile.get(block, ColumnarPointFile.IDS, row, bases, widths, positions));
+    }
+  }
+
+  private static long get(final ByteBuffer block, final int column, final int row,
+      final long[] bases, final int[] widths, final int[] positions) {
+    return bases[column] + BitPacking.get(block, positions[column], row, widths[column]);
+  }
+
+  private static boolean isInBox(final int latitude, final int longitude, final int[] borders) {
+    if ((latitude > borders[0]) || (latitude < borders[1])) {
+      return false;
+    }
+    if (borders[2] <= borders[3]) {
+      return (longitude >= borders[2]) && (longitude <= borders[3]);
+    }
+    // The rectangle crosses the antimeridian
+    return (longitude >= borders[2]) || (longitude <= borders[3]);
+  }
+
+  /**
+   * Receives the rows of a query.
+   */
+  @FunctionalInterface
+  public interface RowVisitor {
+
+    /**
+     * Receives a row.
+     *
+     * @param leafKey the linear leaf key of the row
+     * @param latitudeInTenthMicroDegree the latitude
+     * @param longitudeInTenthMicroDegree the longitude
+     * @param timestamp the timestamp
+     * @param id the id
+     */
+    void visit(long leafKey, int latitudeInTenthMicroDegree, int longitudeInTenthMicroDegree,
+        long timestamp, long id);
+  }
+
+  /**
+   * Writes a columnar point file. The rows are added in ascending order of their leaf keys and the
+   * file is complete after {@link #close()}. Only the rows of the current block are kept on the
+   * heap, each block is encoded and written when it is full.
+   */
+  public static final class Writer implements Closeable {
+
+    private final FileChannel channel;
+    private final long[][] columns = new long[ColumnarPointFile.COLUMNS][];
+    private final LongList directory = new LongList();
+    private int rows;
+    private long rowCount;
+    private long lastPath = -1;
+    private boolean closed;
+
+    /**
+     * Creates the file or replaces an existing one.
+     *
+     * @param file the path of the columnar point file. Must not be null
+     * @throws IOException if the file cannot be created
+     */
+    public Writer(final Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      this.channel.position(ColumnarPointFile.HEADER_SIZE);
+      for (int column = 0; column < ColumnarPointFile.COLUMNS; column++) {
+        this.columns[column] = new long[ColumnarPointFile.BLOCK_ROWS];
+      }
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param timestamp the timestamp
+     * @param id the id
+     * @return this writer
+     * @throws IllegalArgumentException if the position is invalid or its leaf key is smaller than
+     *         the key of the previous row
+     * @throws IllegalStateException if the writer is closed
+     * @throws IOException if a full block cannot be written
+     */
+    public Writer add(final int latitudeInTenthMicroDegree,
+        final int longitudeInTenthMicroDegree, final long timestamp, final long id)
+        throws IOException {
+      if (this.closed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+      QuadKeys.checkPosition(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree);
+      final int row = QuadGrid.latitudeToRow(latitudeInTenthMicroDegree);
+      final int column = QuadGrid.longitudeToColumn(longitudeInTenthMicroDegree);
+      final long path = (QuadGrid.spread(row) << 1) | QuadGrid.spread(column);
+      if (path < this.lastPath) {
+        throw new IllegalArgumentException("Position " + latitudeInTenthMicroDegree + ", "
+            + longitudeInTenthMicroDegree + " is in a leaf before the leaf of the previous row");
+      }
+      this.lastPath = path;
+      this.columns[ColumnarPointFile.KEYS][this.rows] = path;
+      this.columns[ColumnarPointFile.LATITUDES][this.rows] =
+          latitudeInTenthMicroDegree - QuadGrid.rowToLowerLatitude(row, QuadGrid.DEPTH);
+      this.columns[ColumnarPointFile.LONGITUDES][this.rows] =
+          longitudeInTenthMicroDegree - QuadGrid.columnToLeftLongitude(column, QuadGrid.DEPTH);
+      this.columns[ColumnarPointFile.TIMESTAMPS][this.rows] = timestamp;
+      this.columns[ColumnarPointFile.IDS][this.rows] = id;
+      this.rows++;
+      if (this.rows == ColumnarPointFile.BLOCK_ROWS) {
+        this.writeBlock();
+      }
+      return this;
+    }
+
+    /**
+     * Writes the last block, the directory and the header and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      try {
+        if (this.rows > 0) {
+          this.writeBlock();
+        }
+        final long directoryPosition = this.channel.position();
+        final int blockCount = this.directory.size() / 5;
+        final ByteBuffer entries =
+            ByteBuffer.allocate(blockCount * ColumnarPointFile.DIRECTORY_ENTRY_SIZE);
+        for (int i = 0; i < this.directory.size(); i += 5) {
+          entries.putLong(this.directory.get(i)).putLong(this.directory.get(i + 1))
+              .putLong(this.directory.get(i + 2)).putInt((int) this.directory.get(i + 3))
+              .putInt((int) this.directory.get(i + 4));
+        }
+        this.write(entries.flip());
+
+        final ByteBuffer header = ByteBuffer.allocate(ColumnarPointFile.HEADER_SIZE);
+        header.putInt(ColumnarPointFile.MAGIC).putInt(ColumnarPointFile.VERSION)
+            .putLong(this.rowCount).putInt(blockCount).putInt(ColumnarPointFile.BLOCK_ROWS)
+            .putLong(directoryPosition).flip();
+        this.channel.position(0);
+        this.write(header);
+        this.channel.force(true);
+      } finally {
+        this.channel.close();
+      }
+    }
+
+    private void writeBlock() throws IOException {
+      final long[] paths = this.columns[ColumnarPointFile.KEYS];
+      final long firstPath = paths[0];
+      final long lastPath = paths[this.rows - 1];
+      for (int i = this.rows - 1; i > 0; i--) {
+        paths[i] -= paths[i - 1];
+      }
+      paths[0] = 0;
+
+      final long[] bases = new long[ColumnarPointFile.COLUMNS];
+      final int[] widths = new int[ColumnarPointFile.COLUMNS];
+      int length = ColumnarPointFile.BLOCK_HEADER_SIZE;
+      for (int column = 0; column < ColumnarPointFile.COLUMNS; column++) {
+        bases[column] = (column == ColumnarPointFile.KEYS) ? firstPath
+            : Writer.subtractMin(this.columns[column], this.rows);
+        widths[column] = BitPacking.width(this.columns[column], this.rows);
+        length += ColumnarPointFile.COLUMN_HEADER_SIZE
+            + (BitPacking.words(this.rows, widths[column]) * Long.BYTES);
+      }
+      final ByteBuffer block = ByteBuffer.allocate(length);
+      block.putInt(this.rows).putInt(0);
+      for (int column = 0; column < ColumnarPointFile.COLUMNS; column++) {
+        block.putLong(bases[column]).putInt(widths[column]).putInt(0);
+        BitPacking.pack(this.columns[column], this.rows, widths[column], block);
+      }
+
+      this.directory.add((firstPath << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH);
+      this.directory.add((lastPath << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH);
+      this.directory.add(this.channel.position());
+      this.directory.add(length);
+      this.directory.add(this.rows);
+      this.write(block.flip());
+      this.rowCount += this.rows;
+      this.rows = 0;
+    }
+
+    /**
+     * Subtracts the smallest value from the values and returns it.
+     */
+    private static long subtractMin(final long[] values, final int count) {
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < count; i++) {
+        min = Math.min(min, values[i]);
+      }
+      for (int i = 0; i < count; i++) {
+        values[i] -= min;
+      }
+      return min;
+    }
+
+    private void write(final ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+        this.channel.write(source);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * A mutable index of points with a unique long id each that may be used by many threads at once.
+ * The points are kept in a lock-free skip list ordered by their linear leaf keys, see
+ * {@link LinearQuadKeys}, so the points within a QuadTree form a contiguous run of the list.
+ * </p>
+ *
+ * <p>
+ * Queries never block. They are weakly consistent: a query that runs concurrently with updates
+ * sees every point that was neither inserted, moved nor removed during the query. A point that
+ * moves during the query may be seen at its old position, its new position, both or neither,
+ * because the query scans the keys in ascending order once. Updates of the same id are
+ * serialized, updates of different ids run concurrently.
+ * </p>
+ */
+public final class ConcurrentPointIndex {
+
+  private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+  private final ConcurrentHashMap<Long, Entry> entriesById = new ConcurrentHashMap<>();
+
+  /**
+   * Inserts a point.
+   *
+   * @param id the id of the point
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @return true if the point was inserted, false if the index already contains the id
+   * @throws IllegalArgumentException if the position is invalid
+   */
+  public boolean insert(final long id, final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    final Entry entry = new Entry(ConcurrentPointIndex.toLeafKey(latitudeInTenthMicroDegree,
+        longitudeInTenthMicroDegree), id);
+    return this.entriesById.computeIfAbsent(id, key -> {
+      this.entries.add(entry);
+      return entry;
+    }) == entry;
+  }
+
+  /**
+   * Inserts a point.
+   *
+   * @param id the id of the point
+   * @param point the position. Must not be null
+   * @return true if the point was inserted, false if the index already contains the id
+   */
+  public boolean insert(final long id, final Wgs84Point point) {
+    return this.insert(id, point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree());
+  }
+
+  /**
+   * Moves a point to a new position.
+   *
+   * @param id the id of the point
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @return true if the point was moved, false if the index does not contain the id
+   * @throws IllegalArgumentException if the position is invalid
+   */
+  public boolean move(final long id, final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    final long leafKey = ConcurrentPointIndex.toLeafKey(latitudeInTenthMicroDegree,
+        longitudeInTenthMicroDegree);
+    return this.entriesById.computeIfPresent(id, (key, entry) -> {
+      if (entry.leafKey == leafKey) {
+        return entry;
+      }
+      // Insert before removing, so the point is never absent from the list
+      final Entry moved = new Entry(leafKey, id);
+      this.entries.add(moved);
+      this.entries.remove(entry);
+      return moved;
+    }) != null;
+  }
+
+  /**
+   * Moves a point to a new position.
+   *
+   * @param id the id of the point
+   * @param point the position. Must not be null
+   * @return true if the point was moved, false if the index does not contain the id
+   */
+  public boolean move(final long id, final Wgs84Point point) {
+    return this.move(id, point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree());
+  }
+
+  /**
+   * Removes a point.
+   *
+   * @param id the id of the point
+   * @return true if the point was removed, false if the index does not contain the id
+   */
+  public boolean remove(final long id) {
+    final boolean[] removed = new boolean[1];
+    this.entriesById.computeIfPresent(id, (key, entry) -> {
+      this.entries.remove(entry);
+      removed[0] = true;
+      return null;
+    });
+    return removed[0];
+  }
+
+  /**
+   * Returns the number of points. The result is an estimate while updates are running.
+   *
+   * @return the number of points
+   */
+  public int size() {
+    return this.entriesById.size();
+  }
+
+  /**
+   * Returns the linear leaf key of the point.
+   *
+   * @param id the id of the point
+   * @return the linear leaf key or {@link QuadKeys#NO_KEY} if the index does not contain the id
+   */
+  public long getLeafKey(final long id) {
+    final Entry entry = this.entriesById.get(id);
+    return (entry == null) ? QuadKeys.NO_KEY : entry.leafKey;
+  }
+
+  /**
+   * Returns the number of points within the QuadTree. Needs time linear in the number of points.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the number of points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public int count(final long key) {
+    final int[] count = new int[1];
+    this.forEach(key, id -> count[0]++);
+    return count[0];
+  }
+
+  /**
+   * Returns the ids of the points within the QuadTree.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the ids in the order of the keys of the points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public long[] getIds(final long key) {
+    final LongList result = new LongList();
+    this.forEach(key, result::add);
+    return result.toArray();
+  }
+
+  /**
+   * Passes the ids of the points within the QuadTree to the consumer.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param consumer receives the ids in the order of the keys of the points. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public void forEach(final long key, final LongConsumer consumer) {
+    Objects.requireNonNull(consumer);
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    final Entry first = new Entry(LinearQuadKeys.getLeafMin(linearKey), Long.MIN_VALUE);
+    final Entry last = new Entry(LinearQuadKeys.getLeafMax(linearKey), Long.MAX_VALUE);
+    for (final Entry entry : this.entries.subSet(first, true, last, true)) {
+      consumer.accept(entry.id);
+    }
+  }
+
+  /**
+   * Passes the ids of the points within the QuadTree to the consumer.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param consumer receives the ids in the order of the keys of the points. Must not be null
+   */
+  public void forEach(final QuadTreeAddress quadTree, final LongConsumer consumer) {
+    this.forEach(quadTree.toNumberRepresentation(), consumer);
+  }
+
+  private static long toLeafKey(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    return LinearQuadKeys.encode(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree,
+        QuadTreeAddress.MAX_DEPTH);
+  }
+
+  /**
+   * A point ordered by its leaf key and then by its id, so points at the same leaf are distinct.
+   */
+  private static final class Entry implements Comparable<Entry> {
+
+    private final long leafKey;
+    private final long id;
+
+    private Entry(final long leafKey, final long id) {
+      this.leafKey = leafKey;
+      this.id = id;
+    }
+
+    @Override
+    public int compareTo(final Entry other) {
+      final int comparison = Long.compare(this.leafKey, other.leafKey);
+      return (comparison != 0) ? comparison : Long.compare(this.id, other.id);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * Converts packed keys, see {@link QuadKeys}, into Hilbert keys. A Hilbert key has the layout of
+ * {@link LinearQuadKeys}, but the 4 children of each QuadTree are ordered along the Hilbert curve
+ * instead of {@value QuadTreeAddress#I}, {@value QuadTreeAddress#II}, {@value QuadTreeAddress#III}
+ * and {@value QuadTreeAddress#IV}. Consecutive QuadTrees of the same depth therefore always share
+ * a border, and ancestors still sort before their descendants.
+ * </p>
+ *
+ * <p>
+ * The curve starts in the north western and ends in the north eastern QuadTree of the 1st depth.
+ * The conversion is a state machine with 4 orientations that looks up 4 depths per step.
+ * </p>
+ */
+public final class HilbertQuadKeys {
+
+  private static final int PATH_SHIFT = 5;
+  private static final int LEVELS_PER_STEP = 4;
+  private static final int BITS_PER_STEP = 2 * HilbertQuadKeys.LEVELS_PER_STEP;
+  private static final int STEP_MASK = (1 << HilbertQuadKeys.BITS_PER_STEP) - 1;
+  // The path is padded with zero sectors to a multiple of the step
+  private static final int PADDING_BITS = 4;
+  private static final int PADDED_BITS =
+      (2 * QuadTreeAddress.MAX_DEPTH) + HilbertQuadKeys.PADDING_BITS;
+
+  /**
+   * Indexed by the orientation and the sectors of 4 depths. Each entry contains the resulting
+   * orientation above the 4 converted sectors.
+   */
+  private static final short[] TO_HILBERT = HilbertQuadKeys.createTable(true);
+  private static final short[] FROM_HILBERT = HilbertQuadKeys.createTable(false);
+
+  private HilbertQuadKeys() {
+    // static operations only
+  }
+
+  /**
+   * Converts the packed key into a Hilbert key.
+   *
+   * @param key the packed key. Must be valid
+   * @return the Hilbert key
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long fromQuadKey(final long key) {
+    return HilbertQuadKeys.fromLinearKey(LinearQuadKeys.fromQuadKey(key));
+  }
+
+  /**
+   * Converts the Hilbert key back into a packed key.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the packed key
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static long toQuadKey(final long hilbertKey) {
+    return LinearQuadKeys.toQuadKey(HilbertQuadKeys.toLinearKey(hilbertKey));
+  }
+
+  /**
+   * Converts the linear key, see {@link LinearQuadKeys}, into a Hilbert key.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return the Hilbert key
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static long fromLinearKey(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    return HilbertQuadKeys.convert(linearKey, HilbertQuadKeys.TO_HILBERT);
+  }
+
+  /**
+   * Converts the Hilbert key into a linear key, see {@link LinearQuadKeys}.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the linear key
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static long toLinearKey(final long hilbertKey) {
+    HilbertQuadKeys.checkHilbertKey(hilbertKey);
+    return HilbertQuadKeys.convert(hilbertKey, HilbertQuadKeys.FROM_HILBERT);
+  }
+
+  /**
+   * Returns the Hilbert key of the QuadTree with given depth that contains the given position.
+   *
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param depth the depth of the QuadTree. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the Hilbert key
+   * @throws IllegalArgumentException if the position or the depth is invalid
+   */
+  public static long encode(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree, final int depth) {
+    return HilbertQuadKeys.fromQuadKey(
+        QuadKeys.encode(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree, depth));
+  }
+
+  /**
+   * Returns the Hilbert key of the QuadTree with given depth that contains the given position.
+   *
+   * @param latitudeInDegree the latitude, see {@link QuadKeys#encode(double, double, int)}
+   * @param longitudeInDegree the longitude, see {@link QuadKeys#encode(double, double, int)}
+   * @param depth the depth of the QuadTree. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the Hilbert key
+   * @throws IllegalArgumentException if the position or the depth is invalid
+   */
+  public static long encode(final double latitudeInDegree, final double longitudeInDegree,
+      final int depth) {
+    return HilbertQuadKeys
+        .fromQuadKey(QuadKeys.encode(latitudeInDegree, longitudeInDegree, depth));
+  }
+
+  /**
+   * Returns the Hilbert key of the QuadTree at the given position of the curve.
+   *
+   * @param index the position of the QuadTree along the curve. Must be within [0, 4^depth)
+   * @param depth the depth of the QuadTree. Must be within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the Hilbert key
+   * @throws IllegalArgumentException if index or depth is out of range
+   */
+  public static long fromIndex(final long index, final int depth) {
+    if ((depth < 0) || (depth > QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+    if ((index < 0) || (index > QuadKeys.sectorsMask(depth))) {
+      throw new IllegalArgumentException("Invalid index " + index + " for depth " + depth);
+    }
+    final long path = index << (2 * (QuadTreeAddress.MAX_DEPTH - depth));
+    return (path << HilbertQuadKeys.PATH_SHIFT) | depth;
+  }
+
+  /**
+   * Returns the position of the QuadTree along the curve of its depth.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the index within [0, 4^depth)
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static long getIndex(final long hilbertKey) {
+    HilbertQuadKeys.checkHilbertKey(hilbertKey);
+    final int depth = LinearQuadKeys.depthOf(hilbertKey);
+    return hilbertKey >>> (HilbertQuadKeys.PATH_SHIFT + (2 * (QuadTreeAddress.MAX_DEPTH - depth)));
+  }
+
+  /**
+   * Checks if the given long is a valid Hilbert key. The unused bits and all sector bits below the
+   * depth have to be zero.
+   *
+   * @param hilbertKey the Hilbert key to check
+   * @return false if the Hilbert key has not the expected form
+   */
+  public static boolean isValid(final long hilbertKey) {
+    return LinearQuadKeys.isValid(hilbertKey);
+  }
+
+  /**
+   * Returns the depth of the Hilbert key.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the depth within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static int getDepth(final long hilbertKey) {
+    HilbertQuadKeys.checkHilbertKey(hilbertKey);
+    return LinearQuadKeys.depthOf(hilbertKey);
+  }
+
+  /**
+   * Returns the Hilbert key of the first QuadTree at {@value QuadTreeAddress#MAX_DEPTH} within the
+   * given QuadTree, see {@link LinearQuadKeys#getLeafMin(long)}.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the smallest Hilbert leaf key within the QuadTree
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static long getLeafMin(final long hilbertKey) {
+    HilbertQuadKeys.checkHilbertKey(hilbertKey);
+    return LinearQuadKeys.getLeafMin(hilbertKey);
+  }
+
+  /**
+   * Returns the Hilbert key of the last QuadTree at {@value QuadTreeAddress#MAX_DEPTH} within the
+   * given QuadTree, see {@link LinearQuadKeys#getLeafMax(long)}.
+   *
+   * @param hilbertKey the Hilbert key. Must be valid
+   * @return the largest Hilbert leaf key within the QuadTree
+   * @throws IllegalArgumentException if the Hilbert key is invalid
+   */
+  public static long getLeafMax(final long hilbertKey) {
+    HilbertQuadKeys.checkHilbertKey(hilbertKey);
+    return LinearQuadKeys.getLeafMax(hilbertKey);
+  }
+
+  /**
+   * Converts the path of a valid key with the given table. The sectors below the depth are cleared,
+   * since the padding sectors are converted as well.
+   */
+  private static long convert(final long key, final short[] table) {
+    final int depth = LinearQuadKeys.depthOf(key);
+    final long padded = (key >>> HilbertQuadKeys.PATH_SHIFT) << HilbertQuadKeys.PADDING_BITS;
+    long converted = 0;
+    int orientation = 0;
+    for (int shift = HilbertQuadKeys.PADDED_BITS - HilbertQuadKeys.BITS_PER_STEP; shift >= 0;
+        shift -= HilbertQuadKeys.BITS_PER_STEP) {
+      final int entry = table[(orientation << HilbertQuadKeys.BITS_PER_STEP)
+          | (int) ((padded >>> shift) & HilbertQuadKeys.STEP_MASK)];
+      converted = (converted << HilbertQuadKeys.BITS_PER_STEP)
+          | (entry & HilbertQuadKeys.STEP_MASK);
+      orientation = entry >>> HilbertQuadKeys.BITS_PER_STEP;
+    }
+    final long path = (converted >>> HilbertQuadKeys.PADDING_BITS)
+        & ~LinearQuadKeys.belowDepthMask(depth);
+    return (path << HilbertQuadKeys.PATH_SHIFT) | depth;
+  }
+
+  private static void checkHilbertKey(final long hilbertKey) {
+    if (!HilbertQuadKeys.isValid(hilbertKey)) {
+      throw new IllegalArgumentException("Invalid Hilbert key: " + hilbertKey);
+    }
+  }
+
+  /**
+   * <p>
+   * Creates the conversion table for 4 depths. The orientation consists of a complement bit (bit 0)
+   * that mirrors row and column and a swap bit (bit 1) that exchanges them. Both commute, so the
+   * orientation of the next depth is the current one combined with the rotation of the sector.
+   * </p>
+   *
+   * <p>
+   * With x as column and y as row of the oriented sector, the Hilbert digit is (3 * x) ^ y. The
+   * lower sectors are swapped if y is 0 and additionally mirrored if x is 1.
+   * </p>
+   */
+  private static short[] createTable(final boolean toHilbert) {
+    final int orientations = 4;
+    final short[] table = new short[orientations << HilbertQuadKeys.BITS_PER_STEP];
+    for (int start = 0; start < orientations; start++) {
+      for (int input = 0; input <= HilbertQuadKeys.STEP_MASK; input++) {
+        int orientation = start;
+        int output = 0;
+        for (int level = HilbertQuadKeys.LEVELS_PER_STEP - 1; level >= 0; level--) {
+          final int value = (input >>> (2 * level)) & (int) QuadKeys.SECTOR_MASK;
+          final boolean complement = (orientation & 1) != 0;
+          final boolean swap = (orientation & 2) != 0;
+          final int x;
+          final int y;
+          if (toHilbert) {
+            final int column = (value & 1) ^ (complement ? 1 : 0);
+            final int row = (value >>> 1) ^ (complement ? 1 : 0);
+            x = swap ? row : column;
+            y = swap ? column : row;
+            output = (output << 2) | ((3 * x) ^ y);
+          } else {
+            x = value >>> 1;
+            y = (value ^ x) & 1;
+            final int column = (swap ? y : x) ^ (complement ? 1 : 0);
+            final int row = (swap ? x : y) ^ (complement ? 1 : 0);
+            output = (output << 2) | (row << 1) | column;
+          }
+          if (y == 0) {
+            orientation ^= (x == 1) ? 3 : 2;
+          }
+        }
+        table[(start << HilbertQuadKeys.BITS_PER_STEP) | input] =
+            (short) ((orientation << HilbertQuadKeys.BITS_PER_STEP) | output);
+      }
+    }
+    return table;
+  }
+}
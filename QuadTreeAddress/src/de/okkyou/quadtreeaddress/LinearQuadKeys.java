@@ -0,0 +1,195 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * Converts packed keys, see {@link QuadKeys}, into linear keys whose numeric order matches the
+ * hierarchy of the QuadTrees. A linear key is interpreted as follows:
+ * </p>
+ *
+ * <table border="1">
+ * <tr>
+ * <td>63 - 57</td>
+ * <td>56 - 55</td>
+ * <td>54 - 53</td>
+ * <td>...</td>
+ * <td>6 - 5</td>
+ * <td>4 - 0</td>
+ * </tr>
+ * <tr>
+ * <td>unused</td>
+ * <td>Sector of 1st depth</td>
+ * <td>Sector of 2nd depth</td>
+ * <td>...</td>
+ * <td>Sector of 26th depth</td>
+ * <td>depth</td>
+ * </tr>
+ * </table>
+ *
+ * <p>
+ * Sectors below the depth are zero. An ancestor therefore sorts before all its descendants, and a
+ * QuadTree with all its descendants covers exactly the range from its own linear key to
+ * {@link #getLeafMax(long)}. This turns the containment query of a sorted store into a single range
+ * scan.
+ * </p>
+ */
+public final class LinearQuadKeys {
+
+  static final int PATH_SHIFT = 5;
+  private static final long DEPTH_MASK = (1L << LinearQuadKeys.PATH_SHIFT) - 1;
+  private static final int PATH_BITS = 2 * QuadTreeAddress.MAX_DEPTH;
+  private static final long PAIR_MASK = 0x5555555555555555L;
+
+  private LinearQuadKeys() {
+    // static operations only
+  }
+
+  /**
+   * Converts the packed key into a linear key.
+   *
+   * @param key the packed key. Must be valid
+   * @return the linear key
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long fromQuadKey(final long key) {
+    QuadKeys.checkKey(key);
+    final long path = LinearQuadKeys.reverseSectors(QuadKeys.sectorsOf(key));
+    return (path << LinearQuadKeys.PATH_SHIFT) | QuadKeys.depthOf(key);
+  }
+
+  /**
+   * Converts the linear key back into a packed key.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return the packed key
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static long toQuadKey(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    return QuadKeys.pack(LinearQuadKeys.reverseSectors(linearKey >>> LinearQuadKeys.PATH_SHIFT),
+        LinearQuadKeys.depthOf(linearKey));
+  }
+
+  /**
+   * Returns the linear key of the QuadTree with given depth that contains the given position.
+   *
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param depth the depth of the QuadTree. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the linear key
+   * @throws IllegalArgumentException if the position or the depth is invalid
+   */
+  public static long encode(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree, final int depth) {
+    return LinearQuadKeys.fromQuadKey(
+        QuadKeys.encode(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree, depth));
+  }
+
+  /**
+   * Checks if the given long is a valid linear key. The unused bits and all sector bits below the
+   * depth have to be zero.
+   *
+   * @param linearKey the linear key to check
+   * @return false if the linear key has not the expected form
+   */
+  public static boolean isValid(final long linearKey) {
+    final long path = linearKey >>> LinearQuadKeys.PATH_SHIFT;
+    final int depth = LinearQuadKeys.depthOf(linearKey);
+    return ((path >>> LinearQuadKeys.PATH_BITS) == 0) && (depth <= QuadTreeAddress.MAX_DEPTH)
+        && ((path & LinearQuadKeys.belowDepthMask(depth)) == 0);
+  }
+
+  /**
+   * Returns the depth of the linear key.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return the depth within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static int getDepth(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    return LinearQuadKeys.depthOf(linearKey);
+  }
+
+  /**
+   * Returns the linear key of the first QuadTree at {@value QuadTreeAddress#MAX_DEPTH} within the
+   * given QuadTree.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return the smallest linear leaf key within the QuadTree
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static long getLeafMin(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    return (linearKey & ~LinearQuadKeys.DEPTH_MASK) | QuadTreeAddress.MAX_DEPTH;
+  }
+
+  /**
+   * Returns the linear key of the last QuadTree at {@value QuadTreeAddress#MAX_DEPTH} within the
+   * given QuadTree. No linear key of a QuadTree outside of the given QuadTree lies between the
+   * given linear key and the returned one.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return the largest linear leaf key within the QuadTree
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static long getLeafMax(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    final long path = (linearKey >>> LinearQuadKeys.PATH_SHIFT)
+        | LinearQuadKeys.belowDepthMask(LinearQuadKeys.depthOf(linearKey));
+    return (path << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH;
+  }
+
+  /**
+   * Returns the range of linear leaf keys within the given QuadTree.
+   *
+   * @param linearKey the linear key. Must be valid
+   * @return an array with {@link #getLeafMin(long)} and {@link #getLeafMax(long)}
+   * @throws IllegalArgumentException if the linear key is invalid
+   */
+  public static long[] toLeafRange(final long linearKey) {
+    return new long[] {LinearQuadKeys.getLeafMin(linearKey), LinearQuadKeys.getLeafMax(linearKey)};
+  }
+
+  /**
+   * Checks if the other QuadTree is within the QuadTree or equal to it.
+   *
+   * @param linearKey the linear key of the containing QuadTree. Must be valid
+   * @param otherLinearKey the linear key of the QuadTree to check. Must be valid
+   * @return true if otherLinearKey lies between linearKey and its {@link #getLeafMax(long)}
+   * @throws IllegalArgumentException if a linear key is invalid
+   */
+  public static boolean contains(final long linearKey, final long otherLinearKey) {
+    LinearQuadKeys.checkLinearKey(otherLinearKey);
+    return (otherLinearKey >= linearKey)
+        && (otherLinearKey <= LinearQuadKeys.getLeafMax(linearKey));
+  }
+
+  static int depthOf(final long linearKey) {
+    return (int) (linearKey & LinearQuadKeys.DEPTH_MASK);
+  }
+
+  /**
+   * Mask of the path bits below the given depth.
+   */
+  static long belowDepthMask(final int depth) {
+    return (1L << (2 * (QuadTreeAddress.MAX_DEPTH - depth))) - 1;
+  }
+
+  /**
+   * Reverses the order of the {@value QuadTreeAddress#MAX_DEPTH} sectors, so the sector of the 1st
+   * depth moves from the lowest to the highest bits and vice versa.
+   */
+  static long reverseSectors(final long sectors) {
+    final long reversed = Long.reverse(sectors);
+    // Long.reverse also reversed the two bits of each sector
+    final long swapped = ((reversed >>> 1) & LinearQuadKeys.PAIR_MASK)
+        | ((reversed & LinearQuadKeys.PAIR_MASK) << 1);
+    return swapped >>> (Long.SIZE - LinearQuadKeys.PATH_BITS);
+  }
+
+  static void checkLinearKey(final long linearKey) {
+    if (!LinearQuadKeys.isValid(linearKey)) {
+      throw new IllegalArgumentException("Invalid linear key: " + linearKey);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * Operations on sorted long arrays with a parallel array of values, so large indexes need neither
+ * boxing nor an array of pairs.
+ */
+final class LongArrays {
+
+  private static final int INSERTION_SORT_SIZE = 32;
+
+  private LongArrays() {
+    // static operations only
+  }
+
+  /**
+   * Sorts the keys in ascending order and moves each value along with its key. The order of equal
+   * keys is not preserved.
+   */
+  static void sort(final long[] keys, final long[] values, final int from, final int to) {
+    int low = from;
+    int high = to;
+    while ((high - low) > LongArrays.INSERTION_SORT_SIZE) {
+      final long pivot = LongArrays.median(keys[low], keys[(low + high) >>> 1], keys[high - 1]);
+      int i = low;
+      int j = high - 1;
+      while (i <= j) {
+        while (keys[i] < pivot) {
+          i++;
+        }
+        while (keys[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          LongArrays.swap(keys, values, i, j);
+          i++;
+          j--;
+        }
+      }
+      // Recurse into the smaller part, so the stack depth stays logarithmic
+      if ((j - low) < (high - i)) {
+        LongArrays.sort(keys, values, low, j + 1);
+        low = i;
+      } else {
+        LongArrays.sort(keys, values, i, high);
+        high = j + 1;
+      }
+    }
+    for (int i = low + 1; i < high; i++) {
+      final long key = keys[i];
+      final long value = values[i];
+      int j = i - 1;
+      while ((j >= low) && (keys[j] > key)) {
+        keys[j + 1] = keys[j];
+        values[j + 1] = values[j];
+        j--;
+      }
+      keys[j + 1] = key;
+      values[j + 1] = value;
+    }
+  }
+
+  /**
+   * Returns the first index within [from, to) whose key is not smaller than the given key, or to.
+   */
+  static int lowerBound(final long[] keys, final int from, final int to, final long key) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (keys[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static long median(final long first, final long second, final long third) {
+    return Math.max(Math.min(first, second), Math.min(Math.max(first, second), third));
+  }
+
+  private static void swap(final long[] keys, final long[] values, final int i, final int j) {
+    final long key = keys[i];
+    keys[i] = keys[j];
+    keys[j] = key;
+    final long value = values[i];
+    values[i] = values[j];
+    values[j] = value;
+  }
+}
@@ -0,0 +1,62 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive longs, so collecting keys does not box each of them.
+ */
+final class LongList {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] values;
+  private int size;
+
+  LongList() {
+    this(LongList.DEFAULT_CAPACITY);
+  }
+
+  LongList(final int capacity) {
+    this.values = new long[Math.max(1, capacity)];
+  }
+
+  void add(final long value) {
+    if (this.size == this.values.length) {
+      this.values = Arrays.copyOf(this.values, 2 * this.values.length);
+    }
+    this.values[this.size++] = value;
+  }
+
+  long get(final int index) {
+    if (index >= this.size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of size " + this.size);
+    }
+    return this.values[index];
+  }
+
+  /**
+   * Removes and returns the last value.
+   */
+  long removeLast() {
+    if (this.size == 0) {
+      throw new IndexOutOfBoundsException("List is empty");
+    }
+    return this.values[--this.size];
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  void clear() {
+    this.size = 0;
+  }
+
+  long[] toArray() {
+    return Arrays.copyOf(this.values, this.size);
+  }
+}
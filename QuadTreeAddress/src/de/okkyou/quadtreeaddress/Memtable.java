@@ -0,0 +1,108 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The records of a {@link PointStore} that are not yet written to a segment, sorted in a skip list.
+ * Written by one thread at a time, read by any number of threads.
+ */
+final class Memtable {
+
+  // Marks a deletion, compared by identity
+  private static final byte[] DELETED = new byte[0];
+
+  // Approximate heap size of a record without its payload
+  private static final int RECORD_OVERHEAD = 96;
+
+  private final ConcurrentSkipListMap<Key, byte[]> records = new ConcurrentSkipListMap<>();
+  private final long sequence;
+  private volatile long sizeInBytes;
+
+  /**
+   * Creates an empty memtable.
+   *
+   * @param sequence the sequence number of the write-ahead log and the segment of the memtable
+   */
+  Memtable(final long sequence) {
+    this.sequence = sequence;
+  }
+
+  long sequence() {
+    return this.sequence;
+  }
+
+  boolean isEmpty() {
+    return this.records.isEmpty();
+  }
+
+  long sizeInBytes() {
+    return this.sizeInBytes;
+  }
+
+  /**
+   * Adds a record.
+   *
+   * @param payload the payload or null for a deletion
+   */
+  void put(final long leafKey, final long id, final byte[] payload) {
+    this.records.put(new Key(leafKey, id), (payload == null) ? Memtable.DELETED : payload);
+    this.sizeInBytes += Memtable.RECORD_OVERHEAD + ((payload == null) ? 0 : payload.length);
+  }
+
+  /**
+   * Returns a cursor over the records from the given key and id up to the given key.
+   */
+  StoreCursor cursor(final long fromLeafKey, final long fromId, final long toLeafKey) {
+    final Iterator<Map.Entry<Key, byte[]>> iterator = this.records
+        .subMap(new Key(fromLeafKey, fromId), true, new Key(toLeafKey, Long.MAX_VALUE), true)
+        .entrySet().iterator();
+    return new StoreCursor() {
+
+      private Map.Entry<Key, byte[]> current;
+
+      @Override
+      public boolean next() {
+        if (!iterator.hasNext()) {
+          return false;
+        }
+        this.current = iterator.next();
+        return true;
+      }
+
+      @Override
+      public long leafKey() {
+        return this.current.getKey().leafKey;
+      }
+
+      @Override
+      public long id() {
+        return this.current.getKey().id;
+      }
+
+      @Override
+      public byte[] payload() {
+        final byte[] payload = this.current.getValue();
+        return (payload == Memtable.DELETED) ? null : payload;
+      }
+    };
+  }
+
+  private static final class Key implements Comparable<Key> {
+
+    private final long leafKey;
+    private final long id;
+
+    private Key(final long leafKey, final long id) {
+      this.leafKey = leafKey;
+      this.id = id;
+    }
+
+    @Override
+    public int compareTo(final Key other) {
+      final int comparison = Long.compare(this.leafKey, other.leafKey);
+      return (comparison != 0) ? comparison : Long.compare(this.id, other.id);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges cursors into one with a k-way merge. The cursors are given from the newest to the oldest
+ * one; of several records with the same key and id only the one of the newest cursor is returned.
+ */
+final class MergingCursor implements StoreCursor {
+
+  private final PriorityQueue<Source> queue = new PriorityQueue<>();
+  private final boolean keepDeletions;
+  private long leafKey;
+  private long id;
+  private byte[] payload;
+
+  /**
+   * Creates a cursor over the given cursors, which must not have been moved yet.
+   *
+   * @param cursors the cursors from the newest to the oldest one
+   * @param keepDeletions true to return deletions, false to skip them
+   */
+  MergingCursor(final List<StoreCursor> cursors, final boolean keepDeletions)
+      throws IOException {
+    this.keepDeletions = keepDeletions;
+    for (int i = 0; i < cursors.size(); i++) {
+      this.advance(new Source(cursors.get(i), i));
+    }
+  }
+
+  @Override
+  public boolean next() throws IOException {
+    while (!this.queue.isEmpty()) {
+      final Source newest = this.queue.poll();
+      this.leafKey = newest.cursor.leafKey();
+      this.id = newest.cursor.id();
+      this.payload = newest.cursor.payload();
+      // Older records with the same key and id are overwritten
+      while (!this.queue.isEmpty() && (this.queue.peek().cursor.leafKey() == this.leafKey)
+          && (this.queue.peek().cursor.id() == this.id)) {
+        this.advance(this.queue.poll());
+      }
+      this.advance(newest);
+      if ((this.payload != null) || this.keepDeletions) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public long leafKey() {
+    return this.leafKey;
+  }
+
+  @Override
+  public long id() {
+    return this.id;
+  }
+
+  @Override
+  public byte[] payload() {
+    return this.payload;
+  }
+
+  private void advance(final Source source) throws IOException {
+    if (source.cursor.next()) {
+      this.queue.add(source);
+    }
+  }
+
+  /**
+   * A cursor and its age, so the newest of equal records comes first.
+   */
+  private static final class Source implements Comparable<Source> {
+
+    private final StoreCursor cursor;
+    private final int age;
+
+    private Source(final StoreCursor cursor, final int age) {
+      this.cursor = cursor;
+      this.age = age;
+    }
+
+    @Override
+    public int compareTo(final Source other) {
+      int comparison = Long.compare(this.cursor.leafKey(), other.cursor.leafKey());
+      if (comparison == 0) {
+        comparison = Long.compare(this.cursor.id(), other.cursor.id());
+      }
+      return (comparison != 0) ? comparison : Integer.compare(this.age, other.age);
+    }
+  }
+}
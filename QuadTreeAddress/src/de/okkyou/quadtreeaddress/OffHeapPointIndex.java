@@ -0,0 +1,342 @@
+package de.okkyou.quadtreeaddress;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A read-only index of points with a payload of fixed size each, stored outside of the Java heap.
+ * The garbage collector sees a few buffer objects per block instead of an object per point, so
+ * large indexes neither slow down the collection nor need heap space.
+ * </p>
+ *
+ * <p>
+ * The points are sorted by their linear leaf keys, see {@link LinearQuadKeys}, and split into
+ * blocks of {@link #BLOCK_SIZE} points. Each block is a direct {@link ByteBuffer} with the keys
+ * followed by the payloads, and the last block only has the size of its points. The first key of
+ * each block is kept in a small array on the heap, so a lookup binary searches that array and then
+ * the keys of a single block.
+ * </p>
+ *
+ * <p>
+ * The memory of the blocks is released when the index becomes unreachable. It is limited by
+ * {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size.
+ * </p>
+ */
+public final class OffHeapPointIndex {
+
+  /**
+   * Number of points per block.
+   */
+  public static final int BLOCK_SIZE = 1 << OffHeapPointIndex.BLOCK_SHIFT;
+
+  /**
+   * Maximum size of a payload in bytes, so a block stays below 2 GB.
+   */
+  public static final int MAX_PAYLOAD_SIZE = 1 << 14;
+
+  private static final int KEY_SIZE = Long.BYTES;
+  private static final int BLOCK_SHIFT = 16;
+  private static final int MIN_BLOCK_CAPACITY = 64;
+
+  private final ByteBuffer[] blocks;
+  private final long[] firstKeys;
+  private final long size;
+  private final int payloadSize;
+
+  private OffHeapPointIndex(final ByteBuffer[] blocks, final long[] firstKeys, final long size,
+      final int payloadSize) {
+    this.blocks = blocks;
+    this.firstKeys = firstKeys;
+    this.size = size;
+    this.payloadSize = payloadSize;
+  }
+
+  /**
+   * Returns the number of points.
+   *
+   * @return the number of points
+   */
+  public long size() {
+    return this.size;
+  }
+
+  public int getPayloadSize() {
+    return this.payloadSize;
+  }
+
+  /**
+   * Returns the linear leaf key of the point at the given position of the index.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @return the linear leaf key
+   * @throws IndexOutOfBoundsException if index is out of range
+   */
+  public long getLeafKey(final long index) {
+    this.checkIndex(index);
+    return this.keyAt(index);
+  }
+
+  /**
+   * Copies the payload of the point at the given position of the index.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @param target receives the payload at its beginning. Must not be shorter than the payload
+   * @throws IndexOutOfBoundsException if index is out of range or target is too short
+   */
+  public void getPayload(final long index, final byte[] target) {
+    this.checkIndex(index);
+    final int block = (int) (index >>> OffHeapPointIndex.BLOCK_SHIFT);
+    final int offset =
+        this.payloadOffset(block, (int) index & (OffHeapPointIndex.BLOCK_SIZE - 1));
+    this.blocks[block].duplicate().position(offset).get(target, 0, this.payloadSize);
+  }
+
+  /**
+   * Returns the number of points within the QuadTree.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the number of points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public long count(final long key) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    return this.lowerBound(LinearQuadKeys.getLeafMax(linearKey) + 1)
+        - this.lowerBound(LinearQuadKeys.getLeafMin(linearKey));
+  }
+
+  /**
+   * Passes the points within the QuadTree to the visitor.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param visitor receives the points in the order of their keys. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public void forEach(final long key, final Visitor visitor) {
+    Objects.requireNonNull(visitor);
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    final long last = LinearQuadKeys.getLeafMax(linearKey);
+    for (long i = this.lowerBound(LinearQuadKeys.getLeafMin(linearKey)); i < this.size; i++) {
+      final long leafKey = this.keyAt(i);
+      if (leafKey > last) {
+        return;
+      }
+      final int block = (int) (i >>> OffHeapPointIndex.BLOCK_SHIFT);
+      visitor.visit(leafKey, this.blocks[block],
+          this.payloadOffset(block, (int) i & (OffHeapPointIndex.BLOCK_SIZE - 1)));
+    }
+  }
+
+  /**
+   * Passes the points within the QuadTree to the visitor.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param visitor receives the points in the order of their keys. Must not be null
+   */
+  public void forEach(final QuadTreeAddress quadTree, final Visitor visitor) {
+    this.forEach(quadTree.toNumberRepresentation(), visitor);
+  }
+
+  /**
+   * Returns the first position whose key is not smaller than the given key, or the size.
+   */
+  private long lowerBound(final long leafKey) {
+    // The last block whose first key is smaller holds the position, or it is the next block start
+    final int next = LongArrays.lowerBound(this.firstKeys, 0, this.firstKeys.length, leafKey);
+    if (next == 0) {
+      return 0;
+    }
+    final int block = next - 1;
+    final ByteBuffer keys = this.blocks[block];
+    int low = 0;
+    int high = this.blockSize(block);
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (keys.getLong(middle * OffHeapPointIndex.KEY_SIZE) < leafKey) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return ((long) block << OffHeapPointIndex.BLOCK_SHIFT) + low;
+  }
+
+  private long keyAt(final long index) {
+    return this.blocks[(int) (index >>> OffHeapPointIndex.BLOCK_SHIFT)]
+        .getLong(((int) index & (OffHeapPointIndex.BLOCK_SIZE - 1)) * OffHeapPointIndex.KEY_SIZE);
+  }
+
+  private int blockSize(final int block) {
+    return (block < (this.blocks.length - 1)) ? OffHeapPointIndex.BLOCK_SIZE
+        : (int) (this.size - ((long) block << OffHeapPointIndex.BLOCK_SHIFT));
+  }
+
+  private int payloadOffset(final int block, final int indexInBlock) {
+    return (this.blockSize(block) * OffHeapPointIndex.KEY_SIZE)
+        + (indexInBlock * this.payloadSize);
+  }
+
+  private void checkIndex(final long index) {
+    if ((index < 0) || (index >= this.size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of size " + this.size);
+    }
+  }
+
+  /**
+   * Receives the points of a query without copying their payloads.
+   */
+  @FunctionalInterface
+  public interface Visitor {
+
+    /**
+     * Receives a point.
+     *
+     * @param leafKey the linear leaf key of the point
+     * @param block the read-only block of the point. Must only be read with absolute methods and
+     *        must not be retained
+     * @param payloadOffset the position of the payload within the block
+     */
+    void visit(long leafKey, ByteBuffer block, int payloadOffset);
+  }
+
+  /**
+   * Writes points in ascending order of their leaf keys into blocks outside of the heap, e.g. in
+   * the order of a {@link PointIndex}. Only the first key of each block is kept on the heap. The
+   * block being written doubles its capacity when it is full, and {@link #build()} shrinks the
+   * last block to its points.
+   */
+  public static final class Builder {
+
+    private final int payloadSize;
+    private final List<ByteBuffer> blocks = new ArrayList<>();
+    private final LongList firstKeys = new LongList();
+    private ByteBuffer block;
+    // Number of points the block has space for
+    private int capacity;
+    private long size;
+    private long lastKey = Long.MIN_VALUE;
+
+    /**
+     * Creates a builder.
+     *
+     * @param payloadSize the size of each payload in bytes within [0, {@link #MAX_PAYLOAD_SIZE}]
+     * @throws IllegalArgumentException if payloadSize is out of range
+     */
+    public Builder(final int payloadSize) {
+      if ((payloadSize < 0) || (payloadSize > OffHeapPointIndex.MAX_PAYLOAD_SIZE)) {
+        throw new IllegalArgumentException("Invalid payload size: " + payloadSize);
+      }
+      this.payloadSize = payloadSize;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param linearLeafKey the linear leaf key of the point. Must not be smaller than the key of
+     *        the previous point
+     * @param payload the payload. Must have the payload size
+     * @return this builder
+     * @throws IllegalArgumentException if the key is no valid leaf key or smaller than the previous
+     *         one, or the payload has another size
+     */
+    public Builder add(final long linearLeafKey, final byte[] payload) {
+      if (!LinearQuadKeys.isValid(linearLeafKey)
+          || (LinearQuadKeys.getDepth(linearLeafKey) != QuadTreeAddress.MAX_DEPTH)) {
+        throw new IllegalArgumentException("No leaf key: " + linearLeafKey);
+      }
+      if (linearLeafKey < this.lastKey) {
+        throw new IllegalArgumentException(
+            "Key " + linearLeafKey + " is smaller than the previous key " + this.lastKey);
+      }
+      if (payload.length != this.payloadSize) {
+        throw new IllegalArgumentException("Invalid payload length: " + payload.length);
+      }
+      final int indexInBlock = (int) this.size & (OffHeapPointIndex.BLOCK_SIZE - 1);
+      if (indexInBlock == 0) {
+        this.block = null;
+        this.capacity = 0;
+        this.blocks.add(null);
+        this.firstKeys.add(linearLeafKey);
+      }
+      if (indexInBlock == this.capacity) {
+        this.resize(indexInBlock, (this.capacity == 0) ? OffHeapPointIndex.MIN_BLOCK_CAPACITY
+            : Math.min(2 * this.capacity, OffHeapPointIndex.BLOCK_SIZE));
+      }
+      this.block.putLong(indexInBlock * OffHeapPointIndex.KEY_SIZE, linearLeafKey);
+      this.block.position((this.capacity * OffHeapPointIndex.KEY_SIZE)
+          + (indexInBlock * this.payloadSize));
+      this.block.put(payload);
+      this.lastKey = linearLeafKey;
+      this.size++;
+      return this;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param payload the payload. Must have the payload size
+     * @return this builder
+     * @throws IllegalArgumentException if the position is invalid, its key is smaller than the
+     *         previous one or the payload has another size
+     */
+    public Builder add(final int latitudeInTenthMicroDegree,
+        final int longitudeInTenthMicroDegree, final byte[] payload) {
+      return this.add(LinearQuadKeys.encode(latitudeInTenthMicroDegree,
+          longitudeInTenthMicroDegree, QuadTreeAddress.MAX_DEPTH), payload);
+    }
+
+    public long size() {
+      return this.size;
+    }
+
+    /**
+     * Moves the points of the current block into a new block with space for the given number of
+     * points.
+     */
+    private void resize(final int count, final int newCapacity) {
+      final ByteBuffer resized = ByteBuffer.allocateDirect(
+          newCapacity * (OffHeapPointIndex.KEY_SIZE + this.payloadSize));
+      if (this.block != null) {
+        final int payloadsPosition = this.capacity * OffHeapPointIndex.KEY_SIZE;
+        resized.put(this.block.duplicate().position(0)
+            .limit(count * OffHeapPointIndex.KEY_SIZE));
+        resized.position(newCapacity * OffHeapPointIndex.KEY_SIZE);
+        resized.put(this.block.duplicate().position(payloadsPosition)
+            .limit(payloadsPosition + (count * this.payloadSize)));
+      }
+      this.block = resized;
+      this.capacity = newCapacity;
+      this.blocks.set(this.blocks.size() - 1, resized);
+    }
+
+    /**
+     * Hands the written blocks over to an index. The builder is empty afterwards.
+     *
+     * @return the index
+     */
+    public OffHeapPointIndex build() {
+      final int lastBlockSize =
+          (int) (this.size - ((long) (this.blocks.size() - 1) << OffHeapPointIndex.BLOCK_SHIFT));
+      if ((this.block != null) && (lastBlockSize < this.capacity)) {
+        this.resize(lastBlockSize, lastBlockSize);
+      }
+      final ByteBuffer[] readOnlyBlocks = new ByteBuffer[this.blocks.size()];
+      for (int i = 0; i < readOnlyBlocks.length; i++) {
+        readOnlyBlocks[i] = this.blocks.get(i).asReadOnlyBuffer();
+      }
+      final OffHeapPointIndex index = new OffHeapPointIndex(readOnlyBlocks,
+          this.firstKeys.toArray(), this.size, this.payloadSize);
+      this.blocks.clear();
+      this.firstKeys.clear();
+      this.block = null;
+      this.capacity = 0;
+      this.size = 0;
+      this.lastKey = Long.MIN_VALUE;
+      return index;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * A read-only index of points with a long id each. The linear leaf keys of the points, see
+ * {@link LinearQuadKeys}, and the ids are stored in two parallel arrays sorted by key, so a point
+ * needs 16 bytes and no object.
+ * </p>
+ *
+ * <p>
+ * The points within a QuadTree form a contiguous run of the arrays and are found with two binary
+ * searches. A rectangle is decomposed into a few key ranges, see {@link QuadKeyRanges}, and keys
+ * outside the rectangle are skipped with a binary search for the next key within it.
+ * </p>
+ */
+public final class PointIndex {
+
+  private static final int BOX_RANGES = 16;
+
+  // Linear leaf keys in ascending order and the ids of the same points
+  private final long[] keys;
+  private final long[] ids;
+
+  private PointIndex(final long[] keys, final long[] ids) {
+    this.keys = keys;
+    this.ids = ids;
+  }
+
+  /**
+   * Builds an index of the given points.
+   *
+   * @param latitudes the latitudes in tenth micro degree. Must not be null
+   * @param longitudes the longitudes in tenth micro degree. Must have the same length
+   * @param ids the ids of the points. Must have the same length
+   * @return the index
+   * @throws IllegalArgumentException if the lengths differ or a position is invalid
+   * @throws NullPointerException if an array is null
+   */
+  public static PointIndex build(final int[] latitudes, final int[] longitudes, final long[] ids) {
+    if ((latitudes.length != longitudes.length) || (latitudes.length != ids.length)) {
+      throw new IllegalArgumentException("Number of latitudes, longitudes and ids differ");
+    }
+    final Builder builder = new Builder(latitudes.length);
+    for (int i = 0; i < latitudes.length; i++) {
+      builder.add(latitudes[i], longitudes[i], ids[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the number of points.
+   *
+   * @return the number of points
+   */
+  public int size() {
+    return this.keys.length;
+  }
+
+  /**
+   * Returns the linear leaf key of the point at the given position of the index.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @return the linear leaf key
+   * @throws ArrayIndexOutOfBoundsException if index is out of range
+   */
+  public long getLeafKey(final int index) {
+    return this.keys[index];
+  }
+
+  /**
+   * Returns the id of the point at the given position of the index.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @return the id
+   * @throws ArrayIndexOutOfBoundsException if index is out of range
+   */
+  public long getId(final int index) {
+    return this.ids[index];
+  }
+
+  /**
+   * Returns the number of points within the QuadTree.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the number of points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public int count(final long key) {
+    final int first = this.firstIndex(key);
+    return this.endIndex(key, first) - first;
+  }
+
+  /**
+   * Returns the ids of the points within the QuadTree.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the ids in the order of the keys of the points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public long[] getIds(final long key) {
+    final int first = this.firstIndex(key);
+    return Arrays.copyOfRange(this.ids, first, this.endIndex(key, first));
+  }
+
+  /**
+   * Passes the ids of the points within the QuadTree to the consumer.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param consumer receives the ids in the order of the keys of the points. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public void forEach(final long key, final LongConsumer consumer) {
+    Objects.requireNonNull(consumer);
+    final int first = this.firstIndex(key);
+    final int end = this.endIndex(key, first);
+    for (int i = first; i < end; i++) {
+      consumer.accept(this.ids[i]);
+    }
+  }
+
+  /**
+   * Passes the ids of the points within the QuadTree to the consumer.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param consumer receives the ids in the order of the keys of the points. Must not be null
+   */
+  public void forEach(final QuadTreeAddress quadTree, final LongConsumer consumer) {
+    this.forEach(quadTree.toNumberRepresentation(), consumer);
+  }
+
+  /**
+   * Returns the ids of the points within the rectangle. Points in the same leaf QuadTree as a
+   * border of the rectangle may be slightly outside.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return the ids in the order of the keys of the points
+   * @throws IllegalArgumentException if a border is out of range or north is south of south
+   */
+  public long[] getIdsInBox(final int north, final int south, final int west, final int east) {
+    final LongList result = new LongList();
+    this.forEachInBox(north, south, west, east, result::add);
+    return result.toArray();
+  }
+
+  /**
+   * Passes the ids of the points within the rectangle to the consumer. Points in the same leaf
+   * QuadTree as a border of the rectangle may be slightly outside.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @param consumer receives the ids in the order of the keys of the points. Must not be null
+   * @throws IllegalArgumentException if a border is out of range or north is south of south
+   */
+  public void forEachInBox(final int north, final int south, final int west, final int east,
+      final LongConsumer consumer) {
+    Objects.requireNonNull(consumer);
+    final int[] box = QuadKeyRanges.toBox(north, south, west, east);
+    final long[] ranges =
+        QuadKeyRanges.getRanges(north, south, west, east, PointIndex.BOX_RANGES);
+    int i = 0;
+    for (int r = 0; r < ranges.length; r += 2) {
+      final long last = ranges[r + 1];
+      i = LongArrays.lowerBound(this.keys, i, this.keys.length, ranges[r]);
+      while ((i < this.keys.length) && (this.keys[i] <= last)) {
+        final long path = this.keys[i] >>> LinearQuadKeys.PATH_SHIFT;
+        if (QuadKeyRanges.isInBox(path, box)) {
+          consumer.accept(this.ids[i]);
+          i++;
+          continue;
+        }
+        final long next = QuadKeyRanges.nextInBox(path, box);
+        if (next < 0) {
+          return;
+        }
+        i = LongArrays.lowerBound(this.keys, i, this.keys.length,
+            (next << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH);
+      }
+    }
+  }
+
+  private int firstIndex(final long key) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    return LongArrays.lowerBound(this.keys, 0, this.keys.length,
+        LinearQuadKeys.getLeafMin(linearKey));
+  }
+
+  private int endIndex(final long key, final int first) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    return LongArrays.lowerBound(this.keys, first, this.keys.length,
+        LinearQuadKeys.getLeafMax(linearKey) + 1);
+  }
+
+  /**
+   * Collects points for a {@link PointIndex}. The index takes over the collected arrays, so
+   * building needs no more memory than the index itself if the expected size is exact.
+   */
+  public static final class Builder {
+
+    private long[] keys;
+    private long[] ids;
+    private int size;
+
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * Creates a builder.
+     *
+     * @param expectedSize the expected number of points. Must not be negative
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public Builder(final int expectedSize) {
+      if (expectedSize < 0) {
+        throw new IllegalArgumentException("Invalid expected size: " + expectedSize);
+      }
+      this.keys = new long[expectedSize];
+      this.ids = new long[expectedSize];
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param id the id of the point
+     * @return this builder
+     * @throws IllegalArgumentException if the position is invalid
+     */
+    public Builder add(final int latitudeInTenthMicroDegree,
+        final int longitudeInTenthMicroDegree, final long id) {
+      final long key = LinearQuadKeys.encode(latitudeInTenthMicroDegree,
+          longitudeInTenthMicroDegree, QuadTreeAddress.MAX_DEPTH);
+      if (this.size == this.keys.length) {
+        final int capacity = Math.max(16, 2 * this.size);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.ids = Arrays.copyOf(this.ids, capacity);
+      }
+      this.keys[this.size] = key;
+      this.ids[this.size] = id;
+      this.size++;
+      return this;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param point the position. Must not be null
+     * @param id the id of the point
+     * @return this builder
+     */
+    public Builder add(final Wgs84Point point, final long id) {
+      return this.add(point.getLatitudeInTenthMicroDegree(),
+          point.getLongitudeInTenthMicroDegree(), id);
+    }
+
+    public int size() {
+      return this.size;
+    }
+
+    /**
+     * Sorts the collected points into an index. The builder is empty afterwards.
+     *
+     * @return the index
+     */
+    public PointIndex build() {
+      final long[] sortedKeys = (this.size == this.keys.length) ? this.keys
+          : Arrays.copyOf(this.keys, this.size);
+      final long[] sortedIds = (this.size == this.ids.length) ? this.ids
+          : Arrays.copyOf(this.ids, this.size);
+      LongArrays.sort(sortedKeys, sortedIds, 0, this.size);
+      this.keys = new long[0];
+      this.ids = new long[0];
+      this.size = 0;
+      return new PointIndex(sortedKeys, sortedIds);
+    }
+  }
+}
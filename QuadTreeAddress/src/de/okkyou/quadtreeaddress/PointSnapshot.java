@@ -0,0 +1,424 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A read-only index of points with a payload of any size each, stored in a file that is mapped
+ * into memory. Opening a snapshot only maps the file and checks its header, so queries can start
+ * immediately and the operating system loads the pages on demand.
+ * </p>
+ *
+ * <p>
+ * The file consists of the following sections, all numbers are big-endian:
+ * </p>
+ * <ul>
+ * <li>A header of {@value #HEADER_SIZE} bytes: the magic number {@code 0x51544153} ("QTAS"), the
+ * version, the number of points, the depth of the directory and the file positions of the
+ * sections below as longs.</li>
+ * <li>The payloads one after another.</li>
+ * <li>The linear leaf keys of the points in ascending order, see {@link LinearQuadKeys}.</li>
+ * <li>The position of each payload within the payload section and the length of the section.</li>
+ * <li>The directory: for each QuadTree at the directory depth in the order of its linear key, the
+ * number of points in preceding QuadTrees, and the number of points. A lookup reads the run of
+ * the QuadTree of a key from the directory and binary searches only within it.</li>
+ * </ul>
+ *
+ * <p>
+ * Each section must be smaller than 2 GB, so a snapshot holds fewer than 2^28 points and less
+ * than 2 GB of payloads. The mapped memory is released when the snapshot becomes unreachable.
+ * </p>
+ */
+public final class PointSnapshot {
+
+  /**
+   * Size of the header in bytes.
+   */
+  public static final int HEADER_SIZE = 64;
+
+  /**
+   * Version of the file format written by {@link Writer}.
+   */
+  public static final int VERSION = 1;
+
+  private static final int MAGIC = 0x51544153;
+  private static final int DIRECTORY_DEPTH = 8;
+  // The payload positions including the length of the section must fit into a mapped section
+  private static final int MAX_SIZE = (Integer.MAX_VALUE / Long.BYTES) - 1;
+
+  private final int size;
+  private final int directoryShift;
+  private final LongBuffer keys;
+  private final LongBuffer offsets;
+  private final ByteBuffer payloads;
+  private final LongBuffer directory;
+
+  private PointSnapshot(final int size, final int directoryDepth, final LongBuffer keys,
+      final LongBuffer offsets, final ByteBuffer payloads, final LongBuffer directory) {
+    this.size = size;
+    this.directoryShift = LinearQuadKeys.PATH_SHIFT
+        + (2 * (QuadTreeAddress.MAX_DEPTH - directoryDepth));
+    this.keys = keys;
+    this.offsets = offsets;
+    this.payloads = payloads;
+    this.directory = directory;
+  }
+
+  /**
+   * Maps a snapshot file into memory.
+   *
+   * @param file the file written by a {@link Writer}. Must not be null
+   * @return the snapshot
+   * @throws IOException if the file cannot be read, is no snapshot, has another version or is
+   *         truncated
+   */
+  public static PointSnapshot open(final Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize < PointSnapshot.HEADER_SIZE) {
+        throw new IOException("No snapshot: " + file);
+      }
+      final ByteBuffer header =
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, PointSnapshot.HEADER_SIZE);
+      if (header.getInt() != PointSnapshot.MAGIC) {
+        throw new IOException("No snapshot: " + file);
+      }
+      final int version = header.getInt();
+      if (version != PointSnapshot.VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + file);
+      }
+      final long size = header.getLong();
+      final int directoryDepth = header.getInt();
+      header.getInt();
+      final long payloadsPosition = header.getLong();
+      final long keysPosition = header.getLong();
+      final long offsetsPosition = header.getLong();
+      final long directoryPosition = header.getLong();
+      if ((size < 0) || (size > (Integer.MAX_VALUE / Long.BYTES)) || (directoryDepth < 0)
+          || (directoryDepth > PointSnapshot.DIRECTORY_DEPTH)) {
+        throw new IOException("Corrupt snapshot header: " + file);
+      }
+      final long directorySize = (1L << (2 * directoryDepth)) + 1;
+      final LongBuffer keys = PointSnapshot
+          .map(channel, fileSize, keysPosition, size * Long.BYTES).asLongBuffer();
+      final LongBuffer offsets = PointSnapshot
+          .map(channel, fileSize, offsetsPosition, (size + 1) * Long.BYTES).asLongBuffer();
+      final ByteBuffer payloads =
+          PointSnapshot.map(channel, fileSize, payloadsPosition, offsets.get((int) size));
+      final LongBuffer directory = PointSnapshot
+          .map(channel, fileSize, directoryPosition, directorySize * Long.BYTES).asLongBuffer();
+      return new PointSnapshot((int) size, directoryDepth, keys, offsets, payloads, directory);
+    }
+  }
+
+  private static ByteBuffer map(final FileChannel channel, final long fileSize,
+      final long position, final long length) throws IOException {
+    if ((position < PointSnapshot.HEADER_SIZE) || (length < 0) || (length > Integer.MAX_VALUE)
+        || ((position + length) > fileSize)) {
+      throw new IOException("Truncated or corrupt snapshot section at " + position);
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+  }
+
+  /**
+   * Returns the number of points.
+   *
+   * @return the number of points
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the linear leaf key of the point at the given position of the snapshot.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @return the linear leaf key
+   * @throws IndexOutOfBoundsException if index is out of range
+   */
+  public long getLeafKey(final int index) {
+    Objects.checkIndex(index, this.size);
+    return this.keys.get(index);
+  }
+
+  /**
+   * Returns the payload of the point at the given position of the snapshot.
+   *
+   * @param index the position within [0, {@link #size()})
+   * @return a read-only view of the mapped payload
+   * @throws IndexOutOfBoundsException if index is out of range
+   */
+  public ByteBuffer getPayload(final int index) {
+    Objects.checkIndex(index, this.size);
+    final int offset = (int) this.offsets.get(index);
+    return this.payloads.duplicate().position(offset)
+        .limit((int) this.offsets.get(index + 1)).slice();
+  }
+
+  /**
+   * Returns the number of points within the QuadTree.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @return the number of points
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public int count(final long key) {
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    return this.lowerBound(LinearQuadKeys.getLeafMax(linearKey) + 1)
+        - this.lowerBound(LinearQuadKeys.getLeafMin(linearKey));
+  }
+
+  /**
+   * Passes the points within the QuadTree to the visitor.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param visitor receives the points in the order of their keys. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public void forEach(final long key, final Visitor visitor) {
+    Objects.requireNonNull(visitor);
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    final int end = this.lowerBound(LinearQuadKeys.getLeafMax(linearKey) + 1);
+    for (int i = this.lowerBound(LinearQuadKeys.getLeafMin(linearKey)); i < end; i++) {
+      final int offset = (int) this.offsets.get(i);
+      visitor.visit(this.keys.get(i), this.payloads, offset,
+          (int) this.offsets.get(i + 1) - offset);
+    }
+  }
+
+  /**
+   * Passes the points within the QuadTree to the visitor.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param visitor receives the points in the order of their keys. Must not be null
+   */
+  public void forEach(final QuadTreeAddress quadTree, final Visitor visitor) {
+    this.forEach(quadTree.toNumberRepresentation(), visitor);
+  }
+
+  /**
+   * Returns the first position whose key is not smaller than the given leaf key, or the size.
+   */
+  private int lowerBound(final long leafKey) {
+    final long prefix = leafKey >>> this.directoryShift;
+    if (prefix >= (this.directory.limit() - 1)) {
+      return this.size;
+    }
+    int low = (int) this.directory.get((int) prefix);
+    int high = (int) this.directory.get((int) prefix + 1);
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (this.keys.get(middle) < leafKey) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Receives the points of a query without copying their payloads.
+   */
+  @FunctionalInterface
+  public interface Visitor {
+
+    /**
+     * Receives a point.
+     *
+     * @param leafKey the linear leaf key of the point
+     * @param payloads the read-only payloads of the snapshot. Must only be read with absolute
+     *        methods and must not be retained
+     * @param offset the position of the payload within payloads
+     * @param length the length of the payload
+     */
+    void visit(long leafKey, ByteBuffer payloads, int offset, int length);
+  }
+
+  /**
+   * Writes a snapshot file. The points are added in ascending order of their leaf keys, e.g. in
+   * the order of a {@link PointIndex}, and the file is complete after {@link #close()}. The
+   * payloads are written as they are added, the keys and payload positions are kept on the heap
+   * until closing.
+   */
+  public static final class Writer implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(Writer.BUFFER_SIZE);
+    private final LongList keys = new LongList();
+    private final LongList offsets = new LongList();
+    private long payloadsSize;
+    private boolean closed;
+
+    /**
+     * Creates the file or replaces an existing one.
+     *
+     * @param file the path of the snapshot. Must not be null
+     * @throws IOException if the file cannot be created
+     */
+    public Writer(final Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+      this.channel.position(PointSnapshot.HEADER_SIZE);
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param linearLeafKey the linear leaf key of the point. Must not be smaller than the key of
+     *        the previous point
+     * @param payload the payload. Must not be null
+     * @return this writer
+     * @throws IllegalArgumentException if the key is no valid leaf key or smaller than the previous
+     *         one
+     * @throws IllegalStateException if the writer is closed, or the snapshot would exceed the
+     *         number of points or the size of the payloads of a snapshot
+     * @throws IOException if the payload cannot be written
+     */
+    public Writer add(final long linearLeafKey, final byte[] payload) throws IOException {
+      if (this.closed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+      if (!LinearQuadKeys.isValid(linearLeafKey)
+          || (LinearQuadKeys.getDepth(linearLeafKey) != QuadTreeAddress.MAX_DEPTH)) {
+        throw new IllegalArgumentException("No leaf key: " + linearLeafKey);
+      }
+      if (!this.keys.isEmpty() && (linearLeafKey < this.keys.get(this.keys.size() - 1))) {
+        throw new IllegalArgumentException("Key " + linearLeafKey
+            + " is smaller than the previous key " + this.keys.get(this.keys.size() - 1));
+      }
+      if (this.keys.size() >= PointSnapshot.MAX_SIZE) {
+        throw new IllegalStateException("Snapshot is full with " + this.keys.size() + " points");
+      }
+      if ((this.payloadsSize + payload.length) > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Payloads exceed 2 GB with a payload of " + payload.length
+            + " bytes");
+      }
+      if (payload.length > this.buffer.remaining()) {
+        this.flush();
+      }
+      if (payload.length > this.buffer.capacity()) {
+        this.write(ByteBuffer.wrap(payload));
+      } else {
+        this.buffer.put(payload);
+      }
+      this.keys.add(linearLeafKey);
+      this.offsets.add(this.payloadsSize);
+      this.payloadsSize += payload.length;
+      return this;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+     * @param payload the payload. Must not be null
+     * @return this writer
+     * @throws IllegalArgumentException if the position is invalid or its key is smaller than the
+     *         previous one
+     * @throws IllegalStateException if the writer is closed, or the snapshot would exceed the
+     *         number of points or the size of the payloads of a snapshot
+     * @throws IOException if the payload cannot be written
+     */
+    public Writer add(final int latitudeInTenthMicroDegree,
+        final int longitudeInTenthMicroDegree, final byte[] payload) throws IOException {
+      return this.add(LinearQuadKeys.encode(latitudeInTenthMicroDegree,
+          longitudeInTenthMicroDegree, QuadTreeAddress.MAX_DEPTH), payload);
+    }
+
+    /**
+     * Writes the keys, the payload positions, the directory and the header and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      try {
+        this.flush();
+        // Align the following sections to longs
+        this.write(ByteBuffer.allocate((int) (-this.channel.position() & (Long.BYTES - 1))));
+        final long keysPosition = this.channel.position();
+        this.writeLongs(this.keys, -1);
+        final long offsetsPosition = this.channel.position();
+        this.writeLongs(this.offsets, this.payloadsSize);
+        final long directoryPosition = this.channel.position();
+        this.writeLongs(this.directory(), -1);
+
+        final ByteBuffer header = ByteBuffer.allocate(PointSnapshot.HEADER_SIZE);
+        header.putInt(PointSnapshot.MAGIC).putInt(PointSnapshot.VERSION)
+            .putLong(this.keys.size()).putInt(PointSnapshot.DIRECTORY_DEPTH).putInt(0)
+            .putLong(PointSnapshot.HEADER_SIZE).putLong(keysPosition).putLong(offsetsPosition)
+            .putLong(directoryPosition).clear();
+        this.channel.position(0);
+        this.write(header);
+        this.channel.force(true);
+      } finally {
+        this.channel.close();
+      }
+    }
+
+    /**
+     * Returns the number of points preceding each QuadTree at the directory depth and the number of
+     * points.
+     */
+    private LongList directory() {
+      final int shift = LinearQuadKeys.PATH_SHIFT
+          + (2 * (QuadTreeAddress.MAX_DEPTH - PointSnapshot.DIRECTORY_DEPTH));
+      final int prefixes = 1 << (2 * PointSnapshot.DIRECTORY_DEPTH);
+      final LongList directory = new LongList(prefixes + 1);
+      int i = 0;
+      for (long prefix = 0; prefix <= prefixes; prefix++) {
+        while ((i < this.keys.size()) && ((this.keys.get(i) >>> shift) < prefix)) {
+          i++;
+        }
+        directory.add(i);
+      }
+      return directory;
+    }
+
+    /**
+     * Writes the values and the final value unless it is negative.
+     */
+    private void writeLongs(final LongList values, final long finalValue) throws IOException {
+      for (int i = 0; i < values.size(); i++) {
+        if (this.buffer.remaining() < Long.BYTES) {
+          this.flush();
+        }
+        this.buffer.putLong(values.get(i));
+      }
+      if (finalValue >= 0) {
+        if (this.buffer.remaining() < Long.BYTES) {
+          this.flush();
+        }
+        this.buffer.putLong(finalValue);
+      }
+      this.flush();
+    }
+
+    private void flush() throws IOException {
+      this.buffer.flip();
+      this.write(this.buffer);
+      this.buffer.clear();
+    }
+
+    private void write(final ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+        this.channel.write(source);
+      }
+    }
+  }
+}
@@ -0,0 +1,665 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * A persistent store of point records in a directory, structured as a log-structured merge tree.
+ * A record is identified by the linear leaf key of its point, see {@link LinearQuadKeys}, and a
+ * long id, and has a payload of up to {@link #MAX_PAYLOAD_SIZE} bytes. Records with the same leaf
+ * key are stored next to each other, so the records within a QuadTree are read with a single range
+ * scan. Moving a point means deleting its record and putting it at the new leaf key.
+ * </p>
+ *
+ * <p>
+ * A write is appended to a write-ahead log and put into a sorted memtable in memory. A full
+ * memtable is written to an immutable segment file in the background and its log is deleted.
+ * Writes wait while {@value #MAX_FLUSHING_MEMTABLES} full memtables are not written yet, so a slow
+ * disk cannot fill the heap. The segments form levels: flushed memtables are on level 0, and as
+ * soon as a level holds {@link #COMPACTION_FAN_IN} segments they are merged into one segment of
+ * the next level on a separate background thread, so long merges do not delay flushes. A read
+ * merges the memtables and the segments that overlap its key range with a k-way merge, in which
+ * newer records overwrite older ones.
+ * </p>
+ *
+ * <p>
+ * Writes are serialized, reads run concurrently with each other and with writes. A read sees the
+ * writes that completed before it started and may or may not see writes that complete during it.
+ * After a crash, the store contains every write that completed before the last {@link #sync()}
+ * and usually the later ones, since each write is passed to the operating system immediately.
+ * </p>
+ *
+ * <p>
+ * A failure of the write-ahead log or of the background work is permanent: all further writes
+ * throw an {@link IOException}, since records behind a damaged one would not be replayed. Reads
+ * keep working, and opening the store again recovers the writes that completed.
+ * </p>
+ */
+public final class PointStore implements Closeable {
+
+  /**
+   * Maximum size of a payload in bytes.
+   */
+  public static final int MAX_PAYLOAD_SIZE = 1 << 20;
+
+  /**
+   * Default size of a memtable in bytes before it is written to a segment.
+   */
+  public static final long DEFAULT_MEMTABLE_SIZE = 64L << 20;
+
+  /**
+   * Number of segments of a level that are merged into one segment of the next level.
+   */
+  public static final int COMPACTION_FAN_IN = 4;
+
+  /**
+   * Number of full memtables waiting to be written to segments at which writes wait.
+   */
+  public static final int MAX_FLUSHING_MEMTABLES = 2;
+
+  static final String TEMPORARY_SUFFIX = ".tmp";
+
+  private static final String LOG_PREFIX = "wal-";
+  private static final String LOG_SUFFIX = ".log";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+
+  private final Path directory;
+  private final long memtableSize;
+  // Flushes run in the order of the memtables, compactions must not delay them
+  private final ExecutorService flushExecutor;
+  private final ExecutorService compactionExecutor;
+  // Read locked by reads, write locked before segments are closed
+  private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+  private volatile State state;
+  private volatile IOException failure;
+  // Guarded by this, null after the log failed
+  private WriteAheadLog log;
+  private long nextSequence;
+  private boolean closed;
+
+  private PointStore(final Path directory, final long memtableSize, final State state,
+      final long nextSequence) throws IOException {
+    this.directory = directory;
+    this.memtableSize = memtableSize;
+    this.state = state;
+    this.nextSequence = nextSequence;
+    this.log = new WriteAheadLog(this.logPath(state.memtable.sequence()));
+    this.flushExecutor = PointStore.newExecutor("PointStore flush " + directory);
+    this.compactionExecutor = PointStore.newExecutor("PointStore compaction " + directory);
+  }
+
+  private static ExecutorService newExecutor(final String name) {
+    return Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Opens the store in the directory with the {@link #DEFAULT_MEMTABLE_SIZE}.
+   *
+   * @param directory the directory of the store. Is created if it does not exist
+   * @return the store
+   * @throws IOException if the directory cannot be read or contains a damaged segment
+   */
+  public static PointStore open(final Path directory) throws IOException {
+    return PointStore.open(directory, PointStore.DEFAULT_MEMTABLE_SIZE);
+  }
+
+  /**
+   * Opens the store in the directory. Records of write-ahead logs that were not written to a
+   * segment before the store was closed or crashed are written to segments first.
+   *
+   * @param directory the directory of the store. Is created if it does not exist
+   * @param memtableSize the size of a memtable in bytes before it is written to a segment. Must be
+   *        positive
+   * @return the store
+   * @throws IllegalArgumentException if memtableSize is not positive
+   * @throws IOException if the directory cannot be read or contains a damaged segment
+   */
+  public static PointStore open(final Path directory, final long memtableSize)
+      throws IOException {
+    if (memtableSize <= 0) {
+      throw new IllegalArgumentException("Invalid memtable size: " + memtableSize);
+    }
+    Files.createDirectories(directory);
+    for (final Path temporary : PointStore.list(directory, "", PointStore.TEMPORARY_SUFFIX)) {
+      Files.delete(temporary);
+    }
+
+    final List<StoreSegment> segments = new ArrayList<>();
+    for (final Path path : PointStore.list(directory, PointStore.SEGMENT_PREFIX,
+        PointStore.SEGMENT_SUFFIX)) {
+      segments.add(StoreSegment.open(path));
+    }
+    // A crash during a compaction may leave segments whose records are also in the merged one
+    final List<StoreSegment> merged = new ArrayList<>();
+    for (final StoreSegment segment : segments) {
+      if (segments.stream().anyMatch(other -> (other != segment) && other.covers(segment))) {
+        segment.close();
+        Files.delete(segment.path());
+      } else {
+        merged.add(segment);
+      }
+    }
+    merged.sort(Comparator.comparingLong(StoreSegment::maxSequence).reversed());
+    long nextSequence = merged.isEmpty() ? 0 : (merged.get(0).maxSequence() + 1);
+
+    // Logs of memtables that were not written to a segment
+    final List<Path> logs =
+        PointStore.list(directory, PointStore.LOG_PREFIX, PointStore.LOG_SUFFIX);
+    logs.sort(Comparator.comparingLong(PointStore::sequenceOf));
+    for (final Path path : logs) {
+      final long sequence = PointStore.sequenceOf(path);
+      if (merged.stream().noneMatch(segment -> (segment.minSequence() <= sequence)
+          && (segment.maxSequence() >= sequence))) {
+        final Memtable memtable = new Memtable(sequence);
+        WriteAheadLog.replay(path, memtable);
+        final StoreSegment segment = StoreSegment.write(
+            PointStore.segmentPath(directory, sequence, sequence),
+            memtable.cursor(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE), 0, sequence,
+            sequence);
+        if (segment != null) {
+          merged.add(0, segment);
+        }
+      }
+      Files.delete(path);
+      nextSequence = Math.max(nextSequence, sequence + 1);
+    }
+
+    final PointStore store = new PointStore(directory, memtableSize,
+        new State(new Memtable(nextSequence), Collections.emptyList(), merged), nextSequence + 1);
+    store.compactionExecutor.execute(store::compact);
+    return store;
+  }
+
+  /**
+   * Puts a record and overwrites an existing record with the same key and id.
+   *
+   * @param linearLeafKey the linear leaf key of the point
+   * @param id the id of the record
+   * @param payload the payload of at most {@link #MAX_PAYLOAD_SIZE} bytes. Must not be null
+   * @throws IllegalArgumentException if the key is no valid leaf key or the payload is too large
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if the write-ahead log or a segment cannot be written, or the thread is
+   *         interrupted while waiting for a flush
+   */
+  public void put(final long linearLeafKey, final long id, final byte[] payload)
+      throws IOException {
+    if (payload.length > PointStore.MAX_PAYLOAD_SIZE) {
+      throw new IllegalArgumentException("Payload too large: " + payload.length);
+    }
+    this.write(linearLeafKey, id, payload);
+  }
+
+  /**
+   * Puts a record and overwrites an existing record with the same position and id.
+   *
+   * @param latitudeInTenthMicroDegree the latitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param longitudeInTenthMicroDegree the longitude, see {@link QuadKeys#encode(int, int, int)}
+   * @param id the id of the record
+   * @param payload the payload of at most {@link #MAX_PAYLOAD_SIZE} bytes. Must not be null
+   * @throws IllegalArgumentException if the position is invalid or the payload is too large
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if the write-ahead log or a segment cannot be written, or the thread is
+   *         interrupted while waiting for a flush
+   */
+  public void put(final int latitudeInTenthMicroDegree, final int longitudeInTenthMicroDegree,
+      final long id, final byte[] payload) throws IOException {
+    this.put(LinearQuadKeys.encode(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree,
+        QuadTreeAddress.MAX_DEPTH), id, payload);
+  }
+
+  /**
+   * Deletes a record if it exists.
+   *
+   * @param linearLeafKey the linear leaf key of the point
+   * @param id the id of the record
+   * @throws IllegalArgumentException if the key is no valid leaf key
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if the write-ahead log or a segment cannot be written, or the thread is
+   *         interrupted while waiting for a flush
+   */
+  public void delete(final long linearLeafKey, final long id) throws IOException {
+    this.write(linearLeafKey, id, null);
+  }
+
+  private synchronized void write(final long linearLeafKey, final long id, final byte[] payload)
+      throws IOException {
+    if (!LinearQuadKeys.isValid(linearLeafKey)
+        || (LinearQuadKeys.getDepth(linearLeafKey) != QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("No leaf key: " + linearLeafKey);
+    }
+    this.checkOpen();
+    while (this.state.flushing.size() >= PointStore.MAX_FLUSHING_MEMTABLES) {
+      try {
+        this.wait();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a flush");
+      }
+      this.checkOpen();
+    }
+    try {
+      this.log.append(linearLeafKey, id, payload);
+    } catch (final IOException e) {
+      this.failLog(e);
+      throw e;
+    }
+    final Memtable memtable = this.state.memtable;
+    memtable.put(linearLeafKey, id, payload);
+    if (memtable.sizeInBytes() >= this.memtableSize) {
+      this.rotate();
+    }
+  }
+
+  /**
+   * Replaces the full memtable by an empty one and writes it to a segment in the background.
+   */
+  private synchronized void rotate() throws IOException {
+    final State current = this.state;
+    final Memtable flushing = current.memtable;
+    final Memtable memtable = new Memtable(this.nextSequence++);
+    final WriteAheadLog nextLog = new WriteAheadLog(this.logPath(memtable.sequence()));
+    this.log.close();
+    this.log = nextLog;
+    this.state = new State(memtable, PointStore.prepend(flushing, current.flushing),
+        current.segments);
+    this.flushExecutor.execute(() -> this.flush(flushing));
+  }
+
+  private void flush(final Memtable memtable) {
+    try {
+      final long sequence = memtable.sequence();
+      final StoreSegment segment = StoreSegment.write(
+          PointStore.segmentPath(this.directory, sequence, sequence),
+          memtable.cursor(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE), 0, sequence, sequence);
+      synchronized (this) {
+        final State current = this.state;
+        final List<Memtable> flushing = new ArrayList<>(current.flushing);
+        flushing.remove(memtable);
+        // Memtables are flushed in order, so the segment is newer than all others
+        this.state = new State(current.memtable, flushing,
+            (segment == null) ? current.segments : PointStore.prepend(segment, current.segments));
+        this.notifyAll();
+      }
+      Files.delete(this.logPath(sequence));
+      this.compactionExecutor.execute(this::compact);
+    } catch (final IOException e) {
+      synchronized (this) {
+        this.failure = e;
+        // Writes waiting for the flush fail now
+        this.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Merges the segments of the lowest level with at least {@link #COMPACTION_FAN_IN} segments
+   * until no level has that many. Runs on the compaction thread only.
+   */
+  private void compact() {
+    try {
+      while (true) {
+        final List<StoreSegment> segments = this.state.segments;
+        final List<StoreSegment> inputs = PointStore.selectCompaction(segments);
+        if (inputs.isEmpty()) {
+          return;
+        }
+        // Deletions can be dropped if no older segment contains records they delete
+        final boolean includesOldest = inputs.contains(segments.get(segments.size() - 1));
+        final List<StoreCursor> cursors = new ArrayList<>();
+        long minSequence = Long.MAX_VALUE;
+        long maxSequence = Long.MIN_VALUE;
+        for (final StoreSegment input : inputs) {
+          cursors.add(input.cursor(Long.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE));
+          minSequence = Math.min(minSequence, input.minSequence());
+          maxSequence = Math.max(maxSequence, input.maxSequence());
+        }
+        final StoreSegment merged = StoreSegment.write(
+            PointStore.segmentPath(this.directory, minSequence, maxSequence),
+            new MergingCursor(cursors, !includesOldest), inputs.get(0).level() + 1, minSequence,
+            maxSequence);
+        synchronized (this) {
+          final List<StoreSegment> replaced = new ArrayList<>(this.state.segments);
+          final int position = replaced.indexOf(inputs.get(0));
+          replaced.removeAll(inputs);
+          if (merged != null) {
+            replaced.add(position, merged);
+          }
+          this.state = new State(this.state.memtable, this.state.flushing, replaced);
+        }
+        // Wait for the reads of the inputs
+        this.segmentLock.writeLock().lock();
+        try {
+          for (final StoreSegment input : inputs) {
+            input.close();
+          }
+        } finally {
+          this.segmentLock.writeLock().unlock();
+        }
+        for (final StoreSegment input : inputs) {
+          Files.delete(input.path());
+        }
+      }
+    } catch (final IOException e) {
+      this.failure = e;
+    }
+  }
+
+  /**
+   * Returns the segments of the lowest level with at least {@link #COMPACTION_FAN_IN} segments.
+   * Merged segments take the place of their inputs, so the levels increase from the newest to the
+   * oldest segment and the segments of a level are adjacent.
+   */
+  private static List<StoreSegment> selectCompaction(final List<StoreSegment> segments) {
+    int first = 0;
+    while (first < segments.size()) {
+      int end = first;
+      while ((end < segments.size())
+          && (segments.get(end).level() == segments.get(first).level())) {
+        end++;
+      }
+      if ((end - first) >= PointStore.COMPACTION_FAN_IN) {
+        return segments.subList(first, end);
+      }
+      first = end;
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the payload of a record.
+   *
+   * @param linearLeafKey the linear leaf key of the point
+   * @param id the id of the record
+   * @return the payload or null if the store contains no such record
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if a segment cannot be read
+   */
+  public byte[] get(final long linearLeafKey, final long id) throws IOException {
+    final byte[][] payload = new byte[1][];
+    this.scan(linearLeafKey, id, linearLeafKey, (leafKey, recordId, recordPayload) -> {
+      if ((leafKey == linearLeafKey) && (recordId == id)) {
+        payload[0] = recordPayload;
+      }
+      return false;
+    });
+    return payload[0];
+  }
+
+  /**
+   * Passes the records within the QuadTree to the visitor.
+   *
+   * @param key the packed key of the QuadTree. Must be valid
+   * @param visitor receives the records in the order of their leaf keys and ids. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if a segment cannot be read
+   */
+  public void forEach(final long key, final Visitor visitor) throws IOException {
+    Objects.requireNonNull(visitor);
+    final long linearKey = LinearQuadKeys.fromQuadKey(key);
+    this.scan(LinearQuadKeys.getLeafMin(linearKey), Long.MIN_VALUE,
+        LinearQuadKeys.getLeafMax(linearKey), (leafKey, id, payload) -> {
+          visitor.visit(leafKey, id, payload);
+          return true;
+        });
+  }
+
+  /**
+   * Passes the records within the QuadTree to the visitor.
+   *
+   * @param quadTree the QuadTree. Must not be null
+   * @param visitor receives the records in the order of their leaf keys and ids. Must not be null
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if a segment cannot be read
+   */
+  public void forEach(final QuadTreeAddress quadTree, final Visitor visitor) throws IOException {
+    this.forEach(quadTree.toNumberRepresentation(), visitor);
+  }
+
+  private void scan(final long fromLeafKey, final long fromId, final long toLeafKey,
+      final Scanner scanner) throws IOException {
+    this.segmentLock.readLock().lock();
+    try {
+      final State current = this.state;
+      if (current == null) {
+        throw new IllegalStateException("Store is closed");
+      }
+      final List<StoreCursor> cursors = new ArrayList<>();
+      cursors.add(current.memtable.cursor(fromLeafKey, fromId, toLeafKey));
+      for (final Memtable memtable : current.flushing) {
+        cursors.add(memtable.cursor(fromLeafKey, fromId, toLeafKey));
+      }
+      for (final StoreSegment segment : current.segments) {
+        cursors.add(segment.cursor(fromLeafKey, fromId, toLeafKey));
+      }
+      final MergingCursor cursor = new MergingCursor(cursors, false);
+      while (cursor.next() && scanner.accept(cursor.leafKey(), cursor.id(), cursor.payload())) {
+        // Continue until the scanner stops
+      }
+    } finally {
+      this.segmentLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes the records of the write-ahead log to the disk.
+   *
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if the log cannot be written
+   */
+  public synchronized void sync() throws IOException {
+    this.checkOpen();
+    try {
+      this.log.sync();
+    } catch (final IOException e) {
+      this.failLog(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Rejects all further writes. The log is closed without writing its buffer, which may hold the
+   * rest of the failed record.
+   */
+  private void failLog(final IOException e) {
+    this.failure = e;
+    try {
+      this.log.abort();
+    } catch (final IOException suppressed) {
+      e.addSuppressed(suppressed);
+    }
+    this.log = null;
+  }
+
+  /**
+   * Writes the memtable to a segment and waits until all background work is done.
+   *
+   * @throws IllegalStateException if the store is closed
+   * @throws IOException if a segment cannot be written or the thread is interrupted
+   */
+  public void flush() throws IOException {
+    synchronized (this) {
+      this.checkOpen();
+      if (!this.state.memtable.isEmpty()) {
+        this.rotate();
+      }
+    }
+    try {
+      this.flushExecutor.submit(() -> {
+        // Runs after all flushes submitted before
+      }).get();
+      this.compactionExecutor.submit(() -> {
+        // Runs after all compactions submitted before, including those of the flushes
+      }).get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the flush");
+    } catch (final ExecutionException e) {
+      throw new IOException(e.getCause());
+    }
+    this.checkFailure();
+  }
+
+  /**
+   * Returns the number of segment files.
+   *
+   * @return the number of segments
+   */
+  public int getSegmentCount() {
+    final State current = this.state;
+    return (current == null) ? 0 : current.segments.size();
+  }
+
+  /**
+   * Waits for the background work and closes the store. The records of the memtable remain in the
+   * write-ahead log and are written to a segment when the store is opened again.
+   *
+   * @throws IOException if the log cannot be closed or the thread is interrupted
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      // Writes waiting for a flush fail now
+      this.notifyAll();
+      if (this.log != null) {
+        this.log.close();
+      }
+    }
+    try {
+      // Flushes submit compactions, so the flushes end first
+      this.flushExecutor.shutdown();
+      this.flushExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      this.compactionExecutor.shutdown();
+      this.compactionExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the background work");
+    }
+    this.segmentLock.writeLock().lock();
+    try {
+      for (final StoreSegment segment : this.state.segments) {
+        segment.close();
+      }
+      this.state = null;
+    } finally {
+      this.segmentLock.writeLock().unlock();
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (this.closed) {
+      throw new IllegalStateException("Store is closed");
+    }
+    this.checkFailure();
+  }
+
+  private void checkFailure() throws IOException {
+    final IOException backgroundFailure = this.failure;
+    if (backgroundFailure != null) {
+      throw new IOException("Write-ahead log, flush or compaction failed", backgroundFailure);
+    }
+  }
+
+  private Path logPath(final long sequence) {
+    return this.directory.resolve(
+        PointStore.LOG_PREFIX + String.format("%019d", sequence) + PointStore.LOG_SUFFIX);
+  }
+
+  private static Path segmentPath(final Path directory, final long minSequence,
+      final long maxSequence) {
+    return directory.resolve(PointStore.SEGMENT_PREFIX
+        + String.format("%019d-%019d", minSequence, maxSequence) + PointStore.SEGMENT_SUFFIX);
+  }
+
+  private static long sequenceOf(final Path log) {
+    final String name = log.getFileName().toString();
+    return Long.parseLong(name.substring(PointStore.LOG_PREFIX.length(),
+        name.length() - PointStore.LOG_SUFFIX.length()));
+  }
+
+  private static List<Path> list(final Path directory, final String prefix, final String suffix)
+      throws IOException {
+    final Predicate<String> matches = name -> name.startsWith(prefix) && name.endsWith(suffix);
+    final List<Path> paths = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+        path -> matches.test(path.getFileName().toString()))) {
+      stream.forEach(paths::add);
+    }
+    return paths;
+  }
+
+  private static <T> List<T> prepend(final T element, final List<T> list) {
+    final List<T> result = new ArrayList<>(list.size() + 1);
+    result.add(element);
+    result.addAll(list);
+    return result;
+  }
+
+  /**
+   * Receives the records of a query.
+   */
+  @FunctionalInterface
+  public interface Visitor {
+
+    /**
+     * Receives a record.
+     *
+     * @param leafKey the linear leaf key of the point
+     * @param id the id of the record
+     * @param payload the payload
+     */
+    void visit(long leafKey, long id, byte[] payload);
+  }
+
+  /**
+   * Receives the records of a scan until it returns false.
+   */
+  @FunctionalInterface
+  private interface Scanner {
+
+    boolean accept(long leafKey, long id, byte[] payload);
+  }
+
+  /**
+   * The memtables and segments from the newest to the oldest one. Replaced as a whole, so a read
+   * sees a consistent set.
+   */
+  private static final class State {
+
+    private final Memtable memtable;
+    private final List<Memtable> flushing;
+    private final List<StoreSegment> segments;
+
+    private State(final Memtable memtable, final List<Memtable> flushing,
+        final List<StoreSegment> segments) {
+      this.memtable = memtable;
+      this.flushing = flushing;
+      this.segments = segments;
+    }
+  }
+}
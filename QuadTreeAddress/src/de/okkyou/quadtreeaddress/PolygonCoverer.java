@@ -0,0 +1,75 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * Covers polygons with QuadTrees of mixed depths, see {@link RegionCoverer}. A polygon consists of
+ * rings of vertices that are combined with the even-odd rule, so a ring within another ring is a
+ * hole and separate rings form a multipolygon. Each ring is closed from its last to its first
+ * vertex, and its edges are straight lines in latitude and longitude. Polygons crossing the
+ * antimeridian have to be split into one ring on each side.
+ * </p>
+ *
+ * <p>
+ * Each QuadTree is classified against the edges that intersect its bounding box, so matching a
+ * point against the covering becomes a key lookup.
+ * </p>
+ */
+public final class PolygonCoverer {
+
+  private final RegionCoverer coverer;
+
+  /**
+   * Creates a coverer.
+   *
+   * @param minDepth the minimum depth of the QuadTrees. Must be within [0, maxDepth]
+   * @param maxDepth the maximum depth of the QuadTrees. Must be within [minDepth,
+   *        {@value QuadTreeAddress#MAX_DEPTH}]
+   * @param maxCells the number of QuadTrees the covering should not exceed. Must be positive
+   * @throws IllegalArgumentException if a parameter is out of range
+   */
+  public PolygonCoverer(final int minDepth, final int maxDepth, final int maxCells) {
+    this.coverer = new RegionCoverer(minDepth, maxDepth, maxCells);
+  }
+
+  /**
+   * Covers the polygon given by the coordinates of its rings.
+   *
+   * @param ringLatitudes the latitudes of the vertices of each ring in tenth micro degree. Must not
+   *        be null and each ring must have at least 3 vertices
+   * @param ringLongitudes the longitudes of the vertices of each ring in tenth micro degree with
+   *        the same lengths as the latitudes. Must not be null
+   * @return the interior and the boundary QuadTrees
+   * @throws IllegalArgumentException if a position is invalid, there is no ring or the lengths do
+   *         not match
+   * @throws NullPointerException if an array is null
+   */
+  public RegionCovering cover(final int[][] ringLatitudes, final int[][] ringLongitudes) {
+    return this.coverer.getSeparateCovering(new PolygonRegion(ringLatitudes, ringLongitudes));
+  }
+
+  /**
+   * Covers the polygon given by the vertices of its rings.
+   *
+   * @param rings the vertices of each ring. Must not be null and each ring must have at least 3
+   *        vertices
+   * @return the interior and the boundary QuadTrees
+   * @throws IllegalArgumentException if there is no ring or a ring has less than 3 vertices
+   * @throws NullPointerException if a ring or vertex is null
+   */
+  public RegionCovering cover(final Wgs84Point[]... rings) {
+    final int[][] latitudes = new int[rings.length][];
+    final int[][] longitudes = new int[rings.length][];
+    for (int r = 0; r < rings.length; r++) {
+      latitudes[r] = new int[rings[r].length];
+      longitudes[r] = new int[rings[r].length];
+      for (int v = 0; v < rings[r].length; v++) {
+        final Wgs84Point vertex = Objects.requireNonNull(rings[r][v]);
+        latitudes[r][v] = vertex.getLatitudeInTenthMicroDegree();
+        longitudes[r][v] = vertex.getLongitudeInTenthMicroDegree();
+      }
+    }
+    return this.cover(latitudes, longitudes);
+  }
+}
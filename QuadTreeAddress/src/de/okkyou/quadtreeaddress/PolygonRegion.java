@@ -0,0 +1,172 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * A region bounded by rings of vertices with the even-odd rule, so a ring within another ring is a
+ * hole and separate rings form a multipolygon. The edges are straight lines in latitude and
+ * longitude, each ring is closed from its last to its first vertex.
+ * </p>
+ *
+ * <p>
+ * A QuadTree is on the border if an edge intersects its closed rectangle. Otherwise the rectangle
+ * is completely inside or outside, which is decided by the center of the rectangle.
+ * </p>
+ */
+final class PolygonRegion implements CellRegion {
+
+  // Edges as parallel arrays of their end points and bounding boxes
+  private final double[] startLatitudes;
+  private final double[] startLongitudes;
+  private final double[] endLatitudes;
+  private final double[] endLongitudes;
+  private final int[] minLatitudes;
+  private final int[] maxLatitudes;
+  private final int[] minLongitudes;
+  private final int[] maxLongitudes;
+  private final int edgeCount;
+
+  private final int north;
+  private final int south;
+  private final int west;
+  private final int east;
+
+  PolygonRegion(final int[][] ringLatitudes, final int[][] ringLongitudes) {
+    if (ringLatitudes.length != ringLongitudes.length) {
+      throw new IllegalArgumentException("Number of latitude and longitude rings differ");
+    }
+    if (ringLatitudes.length == 0) {
+      throw new IllegalArgumentException("Polygon has no ring");
+    }
+    int edges = 0;
+    for (int r = 0; r < ringLatitudes.length; r++) {
+      if (ringLatitudes[r].length != ringLongitudes[r].length) {
+        throw new IllegalArgumentException("Ring " + r + " has different numbers of coordinates");
+      }
+      if (ringLatitudes[r].length < 3) {
+        throw new IllegalArgumentException("Ring " + r + " has less than 3 vertices");
+      }
+      for (int v = 0; v < ringLatitudes[r].length; v++) {
+        QuadKeys.checkPosition(ringLatitudes[r][v], ringLongitudes[r][v]);
+      }
+      edges += ringLatitudes[r].length;
+    }
+
+    this.edgeCount = edges;
+    this.startLatitudes = new double[edges];
+    this.startLongitudes = new double[edges];
+    this.endLatitudes = new double[edges];
+    this.endLongitudes = new double[edges];
+    this.minLatitudes = new int[edges];
+    this.maxLatitudes = new int[edges];
+    this.minLongitudes = new int[edges];
+    this.maxLongitudes = new int[edges];
+    int north = Integer.MIN_VALUE;
+    int south = Integer.MAX_VALUE;
+    int west = Integer.MAX_VALUE;
+    int east = Integer.MIN_VALUE;
+    int edge = 0;
+    for (int r = 0; r < ringLatitudes.length; r++) {
+      final int[] latitudes = ringLatitudes[r];
+      final int[] longitudes = ringLongitudes[r];
+      for (int v = 0; v < latitudes.length; v++) {
+        final int next = (v + 1) % latitudes.length;
+        this.startLatitudes[edge] = latitudes[v];
+        this.startLongitudes[edge] = longitudes[v];
+        this.endLatitudes[edge] = latitudes[next];
+        this.endLongitudes[edge] = longitudes[next];
+        this.minLatitudes[edge] = Math.min(latitudes[v], latitudes[next]);
+        this.maxLatitudes[edge] = Math.max(latitudes[v], latitudes[next]);
+        this.minLongitudes[edge] = Math.min(longitudes[v], longitudes[next]);
+        this.maxLongitudes[edge] = Math.max(longitudes[v], longitudes[next]);
+        north = Math.max(north, latitudes[v]);
+        south = Math.min(south, latitudes[v]);
+        west = Math.min(west, longitudes[v]);
+        east = Math.max(east, longitudes[v]);
+        edge++;
+      }
+    }
+    this.north = north;
+    this.south = south;
+    this.west = west;
+    this.east = east;
+  }
+
+  @Override
+  public int classify(final int upperLatitude, final int lowerLatitude, final int leftLongitude,
+      final int rightLongitude) {
+    if ((lowerLatitude > this.north) || (upperLatitude < this.south)
+        || (leftLongitude > this.east) || (rightLongitude < this.west)) {
+      return CellRegion.OUTSIDE;
+    }
+    for (int i = 0; i < this.edgeCount; i++) {
+      if ((this.minLatitudes[i] <= upperLatitude) && (this.maxLatitudes[i] >= lowerLatitude)
+          && (this.minLongitudes[i] <= rightLongitude)
+          && (this.maxLongitudes[i] >= leftLongitude)
+          && this.intersects(i, upperLatitude, lowerLatitude, leftLongitude, rightLongitude)) {
+        return CellRegion.PARTIAL;
+      }
+    }
+    final double centerLatitude = ((double) upperLatitude + lowerLatitude) / 2;
+    final double centerLongitude = ((double) leftLongitude + rightLongitude) / 2;
+    return this.contains(centerLatitude, centerLongitude) ? CellRegion.INSIDE
+        : CellRegion.OUTSIDE;
+  }
+
+  /**
+   * Checks if the position is inside by counting the edges that cross the meridian north of it.
+   */
+  boolean contains(final double latitude, final double longitude) {
+    boolean inside = false;
+    for (int i = 0; i < this.edgeCount; i++) {
+      final double startLongitude = this.startLongitudes[i];
+      final double endLongitude = this.endLongitudes[i];
+      if ((startLongitude > longitude) != (endLongitude > longitude)) {
+        final double crossing = this.startLatitudes[i]
+            + (((longitude - startLongitude) / (endLongitude - startLongitude))
+                * (this.endLatitudes[i] - this.startLatitudes[i]));
+        if (crossing > latitude) {
+          inside = !inside;
+        }
+      }
+    }
+    return inside;
+  }
+
+  /**
+   * Clips the edge against the closed rectangle (Liang-Barsky).
+   */
+  private boolean intersects(final int edge, final double upper, final double lower,
+      final double left, final double right) {
+    final double x = this.startLongitudes[edge];
+    final double y = this.startLatitudes[edge];
+    final double dx = this.endLongitudes[edge] - x;
+    final double dy = this.endLatitudes[edge] - y;
+    final double[] range = {0, 1};
+    return PolygonRegion.clip(-dx, x - left, range) && PolygonRegion.clip(dx, right - x, range)
+        && PolygonRegion.clip(-dy, y - lower, range) && PolygonRegion.clip(dy, upper - y, range);
+  }
+
+  /**
+   * Narrows the parameter range of the edge to the side of one border. Returns false if nothing is
+   * left.
+   */
+  private static boolean clip(final double denominator, final double numerator,
+      final double[] range) {
+    if (denominator == 0) {
+      return numerator >= 0;
+    }
+    final double t = numerator / denominator;
+    if (denominator < 0) {
+      if (t > range[1]) {
+        return false;
+      }
+      range[0] = Math.max(range[0], t);
+    } else {
+      if (t < range[0]) {
+        return false;
+      }
+      range[1] = Math.min(range[1], t);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,326 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Covers polylines like routes with the QuadTrees of one depth that the line passes through. Each
+ * segment is a straight line in latitude and longitude and is traversed from cell to cell over the
+ * rows and columns of the grid, so the work is proportional to the number of QuadTrees and not to
+ * the length of the line. A segment whose longitudes are more than 180 degree apart crosses the
+ * antimeridian.
+ * </p>
+ *
+ * <p>
+ * A buffer widens the line to a corridor. Every QuadTree of the line is dilated by whole rows and
+ * columns, enough that the corridor contains every position within the buffer of a QuadTree of the
+ * line. Near the poles the columns are wider in degree but narrower in meter, so more of them are
+ * added.
+ * </p>
+ */
+public final class PolylineCoverer {
+
+  private static final double LATITUDE_RANGE = 2.0 * Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE;
+  private static final double LONGITUDE_RANGE = 2.0 * Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE;
+
+  private final int depth;
+  private final int cells;
+
+  /**
+   * Creates a coverer.
+   *
+   * @param depth the depth of the QuadTrees. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @throws IllegalArgumentException if depth is out of range
+   */
+  public PolylineCoverer(final int depth) {
+    QuadKeys.checkEncodeDepth(depth);
+    this.depth = depth;
+    this.cells = 1 << depth;
+  }
+
+  public int getDepth() {
+    return this.depth;
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees the line passes through.
+   *
+   * @param vertices the vertices of the line. Must not be null or empty
+   * @return the distinct packed keys in the order of {@link LinearQuadKeys}
+   * @throws IllegalArgumentException if there is no vertex
+   * @throws NullPointerException if the array or a vertex is null
+   */
+  public long[] cover(final Wgs84Point... vertices) {
+    return this.cover(vertices, 0);
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees of the corridor around the line.
+   *
+   * @param vertices the vertices of the line. Must not be null or empty
+   * @param bufferInMeter the width of the corridor on each side of the line. Must not be negative
+   * @return the distinct packed keys in the order of {@link LinearQuadKeys}
+   * @throws IllegalArgumentException if there is no vertex or the buffer is negative, infinite or
+   *         NaN
+   * @throws NullPointerException if the array or a vertex is null
+   */
+  public long[] cover(final Wgs84Point[] vertices, final double bufferInMeter) {
+    final int[] latitudes = new int[vertices.length];
+    final int[] longitudes = new int[vertices.length];
+    for (int i = 0; i < vertices.length; i++) {
+      final Wgs84Point vertex = Objects.requireNonNull(vertices[i]);
+      latitudes[i] = vertex.getLatitudeInTenthMicroDegree();
+      longitudes[i] = vertex.getLongitudeInTenthMicroDegree();
+    }
+    return this.cover(latitudes, longitudes, bufferInMeter);
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees of the corridor around the line.
+   *
+   * @param latitudes the latitudes of the vertices in tenth micro degree. Must not be null or empty
+   * @param longitudes the longitudes of the vertices in tenth micro degree with the same length as
+   *        the latitudes. Must not be null
+   * @param bufferInMeter the width of the corridor on each side of the line. Must not be negative
+   * @return the distinct packed keys in the order of {@link LinearQuadKeys}
+   * @throws IllegalArgumentException if a position is invalid, there is no vertex, the lengths do
+   *         not match or the buffer is negative, infinite or NaN
+   * @throws NullPointerException if an array is null
+   */
+  public long[] cover(final int[] latitudes, final int[] longitudes, final double bufferInMeter) {
+    if (latitudes.length != longitudes.length) {
+      throw new IllegalArgumentException("Number of latitudes and longitudes differ");
+    }
+    if (latitudes.length == 0) {
+      throw new IllegalArgumentException("Line has no vertex");
+    }
+    if (!(bufferInMeter >= 0) || Double.isInfinite(bufferInMeter)) {
+      throw new IllegalArgumentException("Invalid buffer: " + bufferInMeter);
+    }
+    for (int i = 0; i < latitudes.length; i++) {
+      QuadKeys.checkPosition(latitudes[i], longitudes[i]);
+    }
+
+    final Corridor corridor =
+        new Corridor(this.depth, bufferInMeter / CircleCoverer.EARTH_RADIUS_METER);
+    final int shift = QuadGrid.DEPTH - this.depth;
+    int row = QuadGrid.latitudeToRow(latitudes[0]) >> shift;
+    int column = QuadGrid.longitudeToColumn(longitudes[0]) >> shift;
+    corridor.add(row, column);
+    for (int i = 1; i < latitudes.length; i++) {
+      final int nextRow = QuadGrid.latitudeToRow(latitudes[i]) >> shift;
+      final int nextColumn = QuadGrid.longitudeToColumn(longitudes[i]) >> shift;
+      this.traverse(corridor, latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i],
+          row, column, nextRow, nextColumn);
+      row = nextRow;
+      column = nextColumn;
+    }
+    return corridor.toKeys();
+  }
+
+  /**
+   * Adds the QuadTrees between the start and the end cell of the segment, stepping to the row or
+   * column whose border the segment crosses first (Amanatides and Woo). Every step moves towards
+   * the end cell, so it is reached after exactly as many steps as rows and columns are between.
+   */
+  private void traverse(final Corridor corridor, final int startLatitude,
+      final int startLongitude, final int endLatitude, final int endLongitude, final int startRow,
+      final int startColumn, final int endRow, final int endColumn) {
+    // Segments across the antimeridian continue beyond the last or before the first column
+    final long longitudeDifference = (long) endLongitude - startLongitude;
+    final int wrap;
+    if (longitudeDifference > Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE) {
+      wrap = -this.cells;
+    } else if (longitudeDifference < -Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE) {
+      wrap = this.cells;
+    } else {
+      wrap = 0;
+    }
+    final int lastColumn = endColumn + wrap;
+    final double startX = this.toX(startLongitude);
+    final double startY = this.toY(startLatitude);
+    final double endX = this.toX(endLongitude) + wrap;
+    final double endY = this.toY(endLatitude);
+
+    final double dx = endX - startX;
+    final double dy = endY - startY;
+    final int columnStep = Integer.signum(lastColumn - startColumn);
+    final int rowStep = Integer.signum(endRow - startRow);
+    final double columnDelta = (dx == 0) ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+    final double rowDelta = (dy == 0) ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+    double nextColumnCrossing = PolylineCoverer.firstCrossing(startX, startColumn, columnStep, dx);
+    double nextRowCrossing = PolylineCoverer.firstCrossing(startY, startRow, rowStep, dy);
+
+    int row = startRow;
+    int column = startColumn;
+    final int steps = Math.abs(endRow - startRow) + Math.abs(lastColumn - startColumn);
+    for (int i = 0; i < steps; i++) {
+      if ((row != endRow)
+          && ((column == lastColumn) || (nextRowCrossing < nextColumnCrossing))) {
+        row += rowStep;
+        nextRowCrossing += rowDelta;
+      } else {
+        column += columnStep;
+        nextColumnCrossing += columnDelta;
+      }
+      corridor.add(row, Math.floorMod(column, this.cells));
+    }
+  }
+
+  /**
+   * Returns the fraction of the segment at which it leaves the start cell in one dimension.
+   */
+  private static double firstCrossing(final double start, final int cell, final int step,
+      final double delta) {
+    if (step == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    final double border = (step > 0) ? (cell + 1) : cell;
+    return Math.max(0, (border - start) / delta);
+  }
+
+  private double toX(final int longitude) {
+    return ((longitude - (double) Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE)
+        / PolylineCoverer.LONGITUDE_RANGE) * this.cells;
+  }
+
+  private double toY(final int latitude) {
+    return ((Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE - (double) latitude)
+        / PolylineCoverer.LATITUDE_RANGE) * this.cells;
+  }
+
+  /**
+   * Collects the QuadTrees of the line and dilates them by the buffer. The dilation is done for the
+   * rows first and then for the columns of each row, so each QuadTree of the line adds only a few
+   * positions and the columns of a row are merged into intervals.
+   */
+  private static final class Corridor {
+
+    private final int depth;
+    private final int cells;
+    private final double buffer;
+    private final int rowRadius;
+    // Row in the upper and column in the lower half
+    private final LongList positions = new LongList();
+
+    Corridor(final int depth, final double buffer) {
+      this.depth = depth;
+      this.cells = 1 << depth;
+      this.buffer = buffer;
+      this.rowRadius = (buffer == 0) ? 0
+          : (int) Math.min(this.cells, Math.ceil(buffer / (Math.PI / this.cells)));
+    }
+
+    void add(final int row, final int column) {
+      this.positions.add(((long) row << Integer.SIZE) | column);
+    }
+
+    /**
+     * Returns the distinct keys in linear order.
+     */
+    long[] toKeys() {
+      final long[] line = Corridor.distinct(this.positions.toArray());
+      final LongList keys = new LongList(line.length);
+      if (this.rowRadius == 0) {
+        for (final long position : line) {
+          keys.add(QuadKeys.fromValidRowAndColumn(Corridor.row(position),
+              Corridor.column(position), this.depth));
+        }
+      } else {
+        this.dilate(line, keys);
+      }
+
+      final long[] linearKeys = new long[keys.size()];
+      for (int i = 0; i < linearKeys.length; i++) {
+        linearKeys[i] = LinearQuadKeys.fromQuadKey(keys.get(i));
+      }
+      final long[] result = Corridor.distinct(linearKeys);
+      for (int i = 0; i < result.length; i++) {
+        result[i] = LinearQuadKeys.toQuadKey(result[i]);
+      }
+      return result;
+    }
+
+    private void dilate(final long[] line, final LongList keys) {
+      final LongList rows = new LongList(line.length * ((2 * this.rowRadius) + 1));
+      for (final long position : line) {
+        final int row = Corridor.row(position);
+        final int firstRow = Math.max(0, row - this.rowRadius);
+        final int lastRow = Math.min(this.cells - 1, row + this.rowRadius);
+        for (int r = firstRow; r <= lastRow; r++) {
+          rows.add(((long) r << Integer.SIZE) | Corridor.column(position));
+        }
+      }
+
+      final long[] dilated = Corridor.distinct(rows.toArray());
+      int i = 0;
+      while (i < dilated.length) {
+        final int row = Corridor.row(dilated[i]);
+        // The positions of a row come from the rows around it, the most poleward needs most columns
+        final int columnRadius =
+            Math.max(this.columnRadius(Math.max(0, row - this.rowRadius)),
+                this.columnRadius(Math.min(this.cells - 1, row + this.rowRadius)));
+        int first = Corridor.column(dilated[i]) - columnRadius;
+        int last = Corridor.column(dilated[i]) + columnRadius;
+        for (i++; (i < dilated.length) && (Corridor.row(dilated[i]) == row); i++) {
+          final int column = Corridor.column(dilated[i]);
+          if ((column - columnRadius) > (last + 1)) {
+            this.addColumns(keys, row, first, last);
+            first = column - columnRadius;
+          }
+          last = column + columnRadius;
+        }
+        this.addColumns(keys, row, first, last);
+      }
+    }
+
+    private void addColumns(final LongList keys, final int row, final int first, final int last) {
+      final int end = Math.min(last, (first + this.cells) - 1);
+      for (int column = first; column <= end; column++) {
+        keys.add(
+            QuadKeys.fromValidRowAndColumn(row, Math.floorMod(column, this.cells), this.depth));
+      }
+    }
+
+    /**
+     * Returns the number of columns on each side that contain every position within the buffer of
+     * the row. At the latitude lat the longitudes within the distance d differ by at most
+     * asin(sin d / cos lat), or arbitrarily if sin d is at least cos lat.
+     */
+    private int columnRadius(final int row) {
+      final double upper = (Math.PI / 2) - ((Math.PI * row) / this.cells);
+      final double lower = upper - (Math.PI / this.cells);
+      final double cosine = Math.cos(Math.max(Math.abs(upper), Math.abs(lower)));
+      final double sine = Math.sin(Math.min(this.buffer, Math.PI / 2));
+      if (sine >= cosine) {
+        return this.cells / 2;
+      }
+      final double longitudes = Math.asin(sine / cosine);
+      return (int) Math.min(this.cells / 2,
+          Math.ceil(longitudes / ((2 * Math.PI) / this.cells)));
+    }
+
+    private static int row(final long position) {
+      return (int) (position >>> Integer.SIZE);
+    }
+
+    private static int column(final long position) {
+      return (int) position;
+    }
+
+    /**
+     * Sorts the values and removes duplicates.
+     */
+    private static long[] distinct(final long[] values) {
+      Arrays.sort(values);
+      int count = 0;
+      for (int i = 0; i < values.length; i++) {
+        if ((i == 0) || (values[i] != values[i - 1])) {
+          values[count++] = values[i];
+        }
+      }
+      return Arrays.copyOf(values, count);
+    }
+  }
+}
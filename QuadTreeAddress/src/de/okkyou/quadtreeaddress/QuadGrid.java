@@ -0,0 +1,211 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * Maps latitudes and longitudes to the row and column of a QuadTree at {@value #DEPTH} and back in
+ * constant time. The thresholds of the QuadTree are the integer middles of the upper and lower
+ * threshold, so they are not exactly equidistant. Down to a cell extent of {@value #CELL} tenth
+ * micro degree (depth 9 for latitudes, depth 10 for longitudes) the bisection is exact. Below,
+ * every cell is split identically, so the thresholds within such a cell are stored once as
+ * correction against the exact grid. The correction is at most 4 tenth micro degree.
+ * </p>
+ *
+ * <p>
+ * Rows are counted from north to south and columns from west to east, so the row bit is the lower
+ * left bit and the column bit the upper right bit of a sector.
+ * </p>
+ */
+final class QuadGrid {
+
+  static final int DEPTH = QuadTreeAddress.MAX_DEPTH;
+  static final int CELL = 3515625;
+
+  private static final int MAX_INDEX = (1 << QuadGrid.DEPTH) - 1;
+  private static final int LAT_FINE_DEPTH = 17;
+  private static final int LON_FINE_DEPTH = 16;
+  private static final int FINE_CELLS = 1 << QuadGrid.LAT_FINE_DEPTH;
+
+  /**
+   * Difference between the exact fine grid and the bisected thresholds of a cell with extent
+   * {@value #CELL} where all thresholds are rounded down.
+   */
+  private static final byte[] CORRECTION = QuadGrid.createCorrection();
+
+  private QuadGrid() {
+    // static operations only
+  }
+
+  /**
+   * Returns the row of the given latitude at {@value #DEPTH}. The row of a smaller depth is the
+   * returned row shifted by the difference of the depths.
+   */
+  static int latitudeToRow(final int latitudeInTenthMicroDegree) {
+    return QuadGrid.MAX_INDEX - QuadGrid.toIndex(latitudeInTenthMicroDegree,
+        Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE, QuadGrid.LAT_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the column of the given longitude at {@value #DEPTH}. The column of a smaller depth is
+   * the returned column shifted by the difference of the depths.
+   */
+  static int longitudeToColumn(final int longitudeInTenthMicroDegree) {
+    return QuadGrid.toIndex(longitudeInTenthMicroDegree,
+        Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, QuadGrid.LON_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the northern threshold of the given row at the given depth.
+   */
+  static int rowToUpperLatitude(final int row, final int depth) {
+    return QuadGrid.toThreshold(((1 << depth) - row) << (QuadGrid.DEPTH - depth),
+        Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE, QuadGrid.LAT_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the southern threshold of the given row at the given depth.
+   */
+  static int rowToLowerLatitude(final int row, final int depth) {
+    return QuadGrid.toThreshold(((1 << depth) - row - 1) << (QuadGrid.DEPTH - depth),
+        Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE, QuadGrid.LAT_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the western threshold of the given column at the given depth.
+   */
+  static int columnToLeftLongitude(final int column, final int depth) {
+    return QuadGrid.toThreshold(column << (QuadGrid.DEPTH - depth),
+        Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, QuadGrid.LON_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the eastern threshold of the given column at the given depth.
+   */
+  static int columnToRightLongitude(final int column, final int depth) {
+    return QuadGrid.toThreshold((column + 1) << (QuadGrid.DEPTH - depth),
+        Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, QuadGrid.LON_FINE_DEPTH);
+  }
+
+  /**
+   * Returns the sector bits of the given row and column at {@value #DEPTH}. The sector of the 1st
+   * depth is stored in the lowest bits, so the bits have to be masked to get a smaller depth.
+   */
+  static long toSectors(final int row, final int column) {
+    final int shift = Integer.SIZE - QuadGrid.DEPTH;
+    return (QuadGrid.spread(Integer.reverse(row) >>> shift) << 1)
+        | QuadGrid.spread(Integer.reverse(column) >>> shift);
+  }
+
+  /**
+   * Returns the row of the given sector bits with the given depth.
+   */
+  static int toRow(final long sectors, final int depth) {
+    if (depth == 0) {
+      return 0;
+    }
+    return Integer.reverse(QuadGrid.compact(sectors >>> 1)) >>> (Integer.SIZE - depth);
+  }
+
+  /**
+   * Returns the column of the given sector bits with the given depth.
+   */
+  static int toColumn(final long sectors, final int depth) {
+    if (depth == 0) {
+      return 0;
+    }
+    return Integer.reverse(QuadGrid.compact(sectors)) >>> (Integer.SIZE - depth);
+  }
+
+  /**
+   * Moves the lower 32 bits to the even bits.
+   */
+  static long spread(final int value) {
+    long x = value & 0xFFFFFFFFL;
+    x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+    x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+    x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    x = (x | (x << 2)) & 0x3333333333333333L;
+    x = (x | (x << 1)) & 0x5555555555555555L;
+    return x;
+  }
+
+  /**
+   * Collects the even bits into the lower 32 bits. Reverse operation of {@link #spread(int)}.
+   */
+  static int compact(final long value) {
+    long x = value & 0x5555555555555555L;
+    x = (x | (x >>> 1)) & 0x3333333333333333L;
+    x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+    x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+    x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+    x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+    return (int) x;
+  }
+
+  /**
+   * Returns the index counted from the minimum at {@value #DEPTH}. A value on a threshold belongs
+   * to the upper cell, the maximum to the last cell.
+   */
+  private static int toIndex(final int value, final int min, final int fineDepth) {
+    final int fineCells = 1 << fineDepth;
+    final long relative = (long) value - min;
+
+    final int coarse = (int) Math.min(relative / QuadGrid.CELL, (QuadGrid.MAX_INDEX >>> fineDepth));
+    final int lower = (int) (min + ((long) coarse * QuadGrid.CELL));
+    final int offset = value - lower;
+    final boolean roundedDown = lower >= 0;
+
+    // The exact grid deviates from the thresholds by less than a cell, so one step corrects it
+    int fine = (int) Math.min(((long) offset << fineDepth) / QuadGrid.CELL, fineCells - 1);
+    if (offset < QuadGrid.fineOffset(fine, fineDepth, roundedDown)) {
+      fine--;
+    } else if (((fine + 1) < fineCells)
+        && (offset >= QuadGrid.fineOffset(fine + 1, fineDepth, roundedDown))) {
+      fine++;
+    }
+    return (coarse << fineDepth) | fine;
+  }
+
+  /**
+   * Returns the lower threshold of the given index counted from the minimum at {@value #DEPTH}.
+   * The index after the last cell returns the maximum.
+   */
+  private static int toThreshold(final int index, final int min, final int fineDepth) {
+    final int lower = (int) (min + ((long) (index >>> fineDepth) * QuadGrid.CELL));
+    final int fine = index & ((1 << fineDepth) - 1);
+    return lower + QuadGrid.fineOffset(fine, fineDepth, lower >= 0);
+  }
+
+  /**
+   * Returns the offset of the fine threshold within its cell of extent {@value #CELL}. Thresholds
+   * are truncated towards zero, so they are rounded down in the positive and up in the negative
+   * half of the axis.
+   */
+  private static int fineOffset(final int fine, final int fineDepth, final boolean roundedDown) {
+    final int index = fine << (QuadGrid.LAT_FINE_DEPTH - fineDepth);
+    if (roundedDown) {
+      return QuadGrid.roundedDownOffset(index);
+    }
+    return QuadGrid.CELL - QuadGrid.roundedDownOffset(QuadGrid.FINE_CELLS - index);
+  }
+
+  private static int roundedDownOffset(final int index) {
+    return (int) (((long) index * QuadGrid.CELL) >>> QuadGrid.LAT_FINE_DEPTH)
+        - QuadGrid.CORRECTION[index];
+  }
+
+  private static byte[] createCorrection() {
+    final int[] thresholds = new int[QuadGrid.FINE_CELLS + 1];
+    thresholds[QuadGrid.FINE_CELLS] = QuadGrid.CELL;
+    for (int step = QuadGrid.FINE_CELLS / 2; step > 0; step /= 2) {
+      for (int i = step; i < QuadGrid.FINE_CELLS; i += 2 * step) {
+        thresholds[i] = (thresholds[i - step] + thresholds[i + step]) / 2;
+      }
+    }
+    final byte[] correction = new byte[QuadGrid.FINE_CELLS + 1];
+    for (int i = 0; i <= QuadGrid.FINE_CELLS; i++) {
+      correction[i] = (byte) ((((long) i * QuadGrid.CELL) >>> QuadGrid.LAT_FINE_DEPTH)
+          - thresholds[i]);
+    }
+    return correction;
+  }
+}
@@ -0,0 +1,145 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * Encodes and decodes arrays of positions and packed keys, see {@link QuadKeys}. The results are
+ * identical to calling {@link QuadKeys#encode(int, int, int)} and the border getters per element,
+ * but neither a {@link Wgs84Point} nor a {@link QuadTreeAddress} is created.
+ * </p>
+ *
+ * <p>
+ * Every operation first validates the whole input and then converts it in a separate loop, so
+ * nothing is written to the target if an element is invalid.
+ * </p>
+ */
+public final class QuadKeyBatch {
+
+  private QuadKeyBatch() {
+    // static operations only
+  }
+
+  /**
+   * Encodes the positions into packed keys of the given depth.
+   *
+   * @param latitudesInTenthMicroDegree the latitudes. Must not be null and every latitude must be
+   *        within [{@value Wgs84Point#MIN_LATITUDE_TENTH_MICRO_DEGREE},
+   *        {@value Wgs84Point#MAX_LATITUDE_TENTH_MICRO_DEGREE}]
+   * @param longitudesInTenthMicroDegree the longitudes with the same length as the latitudes. Must
+   *        not be null and every longitude must be within
+   *        [{@value Wgs84Point#MIN_LONGITUDE_TENTH_MICRO_DEGREE},
+   *        {@value Wgs84Point#MAX_LONGITUDE_TENTH_MICRO_DEGREE}]
+   * @param depth the depth of the QuadTrees. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @param target receives the packed key of each position at the same index. Must not be null and
+   *        at least as long as the latitudes
+   * @throws IllegalArgumentException if a position or the depth is invalid or the lengths do not
+   *         match
+   * @throws NullPointerException if an array is null
+   */
+  public static void encode(final int[] latitudesInTenthMicroDegree,
+      final int[] longitudesInTenthMicroDegree, final int depth, final long[] target) {
+    QuadKeys.checkEncodeDepth(depth);
+    final int length = latitudesInTenthMicroDegree.length;
+    QuadKeyBatch.checkLength(longitudesInTenthMicroDegree.length, length);
+    QuadKeyBatch.checkTargetLength(target.length, length);
+    for (int i = 0; i < length; i++) {
+      QuadKeys.checkPosition(latitudesInTenthMicroDegree[i], longitudesInTenthMicroDegree[i]);
+    }
+
+    final long mask = QuadKeys.sectorsMask(depth);
+    final long packedDepth = QuadKeys.pack(0, depth);
+    for (int i = 0; i < length; i++) {
+      final long sectors = QuadGrid.toSectors(
+          QuadGrid.latitudeToRow(latitudesInTenthMicroDegree[i]),
+          QuadGrid.longitudeToColumn(longitudesInTenthMicroDegree[i]));
+      target[i] = packedDepth | (sectors & mask);
+    }
+  }
+
+  /**
+   * Decodes the packed keys into the borders of their QuadTrees, see
+   * {@link QuadKeys#getUpperLatitude(long)}, {@link QuadKeys#getLowerLatitude(long)},
+   * {@link QuadKeys#getLeftLongitude(long)} and {@link QuadKeys#getRightLongitude(long)}.
+   *
+   * @param keys the packed keys. Must not be null and every key must be valid
+   * @param upperLatitudes receives the northern borders. Must not be null and at least as long as
+   *        keys
+   * @param lowerLatitudes receives the southern borders. Must not be null and at least as long as
+   *        keys
+   * @param leftLongitudes receives the western borders. Must not be null and at least as long as
+   *        keys
+   * @param rightLongitudes receives the eastern borders. Must not be null and at least as long as
+   *        keys
+   * @throws IllegalArgumentException if a key is invalid or a target is too short
+   * @throws NullPointerException if an array is null
+   */
+  public static void decodeBounds(final long[] keys, final int[] upperLatitudes,
+      final int[] lowerLatitudes, final int[] leftLongitudes, final int[] rightLongitudes) {
+    final int length = keys.length;
+    QuadKeyBatch.checkTargetLength(upperLatitudes.length, length);
+    QuadKeyBatch.checkTargetLength(lowerLatitudes.length, length);
+    QuadKeyBatch.checkTargetLength(leftLongitudes.length, length);
+    QuadKeyBatch.checkTargetLength(rightLongitudes.length, length);
+    QuadKeyBatch.checkKeys(keys);
+
+    for (int i = 0; i < length; i++) {
+      final int depth = QuadKeys.depthOf(keys[i]);
+      final long sectors = QuadKeys.sectorsOf(keys[i]);
+      final int row = QuadGrid.toRow(sectors, depth);
+      final int column = QuadGrid.toColumn(sectors, depth);
+      upperLatitudes[i] = QuadGrid.rowToUpperLatitude(row, depth);
+      lowerLatitudes[i] = QuadGrid.rowToLowerLatitude(row, depth);
+      leftLongitudes[i] = QuadGrid.columnToLeftLongitude(column, depth);
+      rightLongitudes[i] = QuadGrid.columnToRightLongitude(column, depth);
+    }
+  }
+
+  /**
+   * Decodes the packed keys into the centers of their QuadTrees, see
+   * {@link QuadKeys#getCenterLatitude(long)} and {@link QuadKeys#getCenterLongitude(long)}.
+   *
+   * @param keys the packed keys. Must not be null and every key must be valid
+   * @param latitudes receives the center latitudes. Must not be null and at least as long as keys
+   * @param longitudes receives the center longitudes. Must not be null and at least as long as
+   *        keys
+   * @throws IllegalArgumentException if a key is invalid or a target is too short
+   * @throws NullPointerException if an array is null
+   */
+  public static void decodeCenters(final long[] keys, final int[] latitudes,
+      final int[] longitudes) {
+    final int length = keys.length;
+    QuadKeyBatch.checkTargetLength(latitudes.length, length);
+    QuadKeyBatch.checkTargetLength(longitudes.length, length);
+    QuadKeyBatch.checkKeys(keys);
+
+    for (int i = 0; i < length; i++) {
+      final int depth = QuadKeys.depthOf(keys[i]);
+      final long sectors = QuadKeys.sectorsOf(keys[i]);
+      final int row = QuadGrid.toRow(sectors, depth);
+      final int column = QuadGrid.toColumn(sectors, depth);
+      latitudes[i] = QuadKeys.middle(QuadGrid.rowToUpperLatitude(row, depth),
+          QuadGrid.rowToLowerLatitude(row, depth));
+      longitudes[i] = QuadKeys.middle(QuadGrid.columnToRightLongitude(column, depth),
+          QuadGrid.columnToLeftLongitude(column, depth));
+    }
+  }
+
+  private static void checkKeys(final long[] keys) {
+    for (final long key : keys) {
+      QuadKeys.checkKey(key);
+    }
+  }
+
+  private static void checkLength(final int length, final int expectedLength) {
+    if (length != expectedLength) {
+      throw new IllegalArgumentException(
+          "Length " + length + " does not match expected length " + expectedLength);
+    }
+  }
+
+  private static void checkTargetLength(final int length, final int requiredLength) {
+    if (length < requiredLength) {
+      throw new IllegalArgumentException(
+          "Target length " + length + " is shorter than " + requiredLength);
+    }
+  }
+}
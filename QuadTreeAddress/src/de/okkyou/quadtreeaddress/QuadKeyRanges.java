@@ -0,0 +1,279 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * <p>
+ * Decomposes latitude and longitude rectangles into ranges of linear leaf keys, see
+ * {@link LinearQuadKeys}. The sectors of a linear key interleave the row bits (south) and the
+ * column bits (east) of the leaf from the highest to the lowest depth, so leaf keys in ascending
+ * order follow the Z-order curve. A store sorted by leaf keys answers a rectangle query by
+ * scanning only the returned ranges.
+ * </p>
+ *
+ * <p>
+ * The ranges are bounded in number and may contain leaves outside the rectangle. A cursor can skip
+ * them with {@link #nextInBox(long, int, int, int, int)}, which finds the next leaf key within the
+ * rectangle (BIGMIN), and {@link #previousInBox(long, int, int, int, int)} (LITMAX).
+ * </p>
+ *
+ * <p>
+ * The rectangles include their borders. A rectangle crosses the antimeridian if west is greater
+ * than east.
+ * </p>
+ */
+public final class QuadKeyRanges {
+
+  // Path bits of the rows, which are the upper bits of the sectors
+  private static final long ROW_BITS = 0xAAAAAAAAAAAAAL;
+  private static final long COLUMN_BITS = QuadKeyRanges.ROW_BITS >>> 1;
+  private static final int PATH_BITS = 2 * QuadTreeAddress.MAX_DEPTH;
+
+  private QuadKeyRanges() {
+    // static operations only
+  }
+
+  /**
+   * Returns ranges of linear leaf keys that contain every leaf within the rectangle. Adjacent
+   * ranges are merged.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @param maxRanges the number of ranges that should not be exceeded. Must be positive
+   * @return the inclusive first and last leaf key of each range one after another in ascending
+   *         order
+   * @throws IllegalArgumentException if a border is out of range, north is south of south or
+   *         maxRanges is not positive
+   */
+  public static long[] getRanges(final int north, final int south, final int west, final int east,
+      final int maxRanges) {
+    final long[] covering = new RegionCoverer(0, QuadTreeAddress.MAX_DEPTH, maxRanges)
+        .getCovering(north, south, west, east);
+    final LongList ranges = new LongList(2 * covering.length);
+    for (final long key : covering) {
+      final long linearKey = LinearQuadKeys.fromQuadKey(key);
+      final long first = LinearQuadKeys.getLeafMin(linearKey);
+      final long last = LinearQuadKeys.getLeafMax(linearKey);
+      if (!ranges.isEmpty()
+          && (ranges.get(ranges.size() - 1) == (first - (1L << LinearQuadKeys.PATH_SHIFT)))) {
+        ranges.removeLast();
+      } else {
+        ranges.add(first);
+      }
+      ranges.add(last);
+    }
+    return ranges.toArray();
+  }
+
+  /**
+   * Checks if the leaf is within the rectangle.
+   *
+   * @param linearKey the linear key of a leaf. Must be valid
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return true if the leaf contains a position of the rectangle
+   * @throws IllegalArgumentException if the key is no valid leaf key, a border is out of range or
+   *         north is south of south
+   */
+  public static boolean isInBox(final long linearKey, final int north, final int south,
+      final int west, final int east) {
+    return QuadKeyRanges.isInBox(QuadKeyRanges.toPath(linearKey),
+        QuadKeyRanges.toBox(north, south, west, east));
+  }
+
+  /**
+   * Returns the smallest leaf key within the rectangle that is not smaller than the given key
+   * (BIGMIN).
+   *
+   * @param linearKey the linear key of a leaf. Must be valid
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return the linear leaf key or {@link QuadKeys#NO_KEY} if no leaf of the rectangle follows
+   * @throws IllegalArgumentException if the key is no valid leaf key, a border is out of range or
+   *         north is south of south
+   */
+  public static long nextInBox(final long linearKey, final int north, final int south,
+      final int west, final int east) {
+    return QuadKeyRanges.toLeafKey(QuadKeyRanges.nextInBox(QuadKeyRanges.toPath(linearKey),
+        QuadKeyRanges.toBox(north, south, west, east)));
+  }
+
+  /**
+   * Returns the largest leaf key within the rectangle that is not greater than the given key
+   * (LITMAX).
+   *
+   * @param linearKey the linear key of a leaf. Must be valid
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return the linear leaf key or {@link QuadKeys#NO_KEY} if no leaf of the rectangle precedes
+   * @throws IllegalArgumentException if the key is no valid leaf key, a border is out of range or
+   *         north is south of south
+   */
+  public static long previousInBox(final long linearKey, final int north, final int south,
+      final int west, final int east) {
+    final long path = QuadKeyRanges.toPath(linearKey);
+    final int[] box = QuadKeyRanges.toBox(north, south, west, east);
+    long previous = QuadKeyRanges.litMax(path, box[0], box[1], box[2], box[3]);
+    if (box.length > 4) {
+      previous = Math.max(previous, QuadKeyRanges.litMax(path, box[0], box[1], box[4], box[5]));
+    }
+    return QuadKeyRanges.toLeafKey(previous);
+  }
+
+  /**
+   * Checks if the leaf path is within the box of {@link #toBox(int, int, int, int)}.
+   */
+  static boolean isInBox(final long path, final int[] box) {
+    final int row = QuadGrid.compact(path >>> 1);
+    final int column = QuadGrid.compact(path);
+    return (row >= box[0]) && (row <= box[1])
+        && (((column >= box[2]) && (column <= box[3]))
+            || ((box.length > 4) && (column >= box[4]) && (column <= box[5])));
+  }
+
+  /**
+   * Returns the smallest leaf path within the box of {@link #toBox(int, int, int, int)} that is not
+   * smaller than the given path, or -1.
+   */
+  static long nextInBox(final long path, final int[] box) {
+    final long next = QuadKeyRanges.bigMin(path, box[0], box[1], box[2], box[3]);
+    if (box.length == 4) {
+      return next;
+    }
+    final long other = QuadKeyRanges.bigMin(path, box[0], box[1], box[4], box[5]);
+    return ((next < 0) || ((other >= 0) && (other < next))) ? other : next;
+  }
+
+  /**
+   * Returns the smallest path of the box that is not smaller than the given path, or -1. The bits
+   * are examined from the highest one. Where the path leaves the box, the box is split at the bit
+   * into a lower and an upper half, and the search continues in the half of the path.
+   */
+  static long bigMin(final long path, final int firstRow, final int lastRow,
+      final int firstColumn, final int lastColumn) {
+    long min = QuadKeyRanges.interleave(firstRow, firstColumn);
+    long max = QuadKeyRanges.interleave(lastRow, lastColumn);
+    long bigMin = -1;
+    for (int bit = QuadKeyRanges.PATH_BITS - 1; bit >= 0; bit--) {
+      final long mask = 1L << bit;
+      final boolean pathBit = (path & mask) != 0;
+      final boolean minBit = (min & mask) != 0;
+      final boolean maxBit = (max & mask) != 0;
+      if (!pathBit && !minBit && maxBit) {
+        bigMin = QuadKeyRanges.loadOnes(min, bit);
+        max = QuadKeyRanges.loadZeros(max, bit);
+      } else if (!pathBit && minBit) {
+        return min;
+      } else if (pathBit && !maxBit) {
+        return bigMin;
+      } else if (pathBit && !minBit) {
+        min = QuadKeyRanges.loadOnes(min, bit);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * Returns the largest path of the box that is not greater than the given path, or -1. Mirrors
+   * {@link #bigMin(long, int, int, int, int)}.
+   */
+  static long litMax(final long path, final int firstRow, final int lastRow,
+      final int firstColumn, final int lastColumn) {
+    long min = QuadKeyRanges.interleave(firstRow, firstColumn);
+    long max = QuadKeyRanges.interleave(lastRow, lastColumn);
+    long litMax = -1;
+    for (int bit = QuadKeyRanges.PATH_BITS - 1; bit >= 0; bit--) {
+      final long mask = 1L << bit;
+      final boolean pathBit = (path & mask) != 0;
+      final boolean minBit = (min & mask) != 0;
+      final boolean maxBit = (max & mask) != 0;
+      if (!pathBit && !minBit && maxBit) {
+        max = QuadKeyRanges.loadZeros(max, bit);
+      } else if (!pathBit && minBit) {
+        return litMax;
+      } else if (pathBit && !maxBit) {
+        return max;
+      } else if (pathBit && !minBit) {
+        litMax = QuadKeyRanges.loadZeros(max, bit);
+        min = QuadKeyRanges.loadOnes(min, bit);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * Sets the bit and clears the lower bits of the same dimension, the smallest path of the upper
+   * half.
+   */
+  private static long loadOnes(final long value, final int bit) {
+    final long dimension = QuadKeyRanges.dimensionBelow(bit);
+    return (value & ~dimension) | (1L << bit);
+  }
+
+  /**
+   * Clears the bit and sets the lower bits of the same dimension, the largest path of the lower
+   * half.
+   */
+  private static long loadZeros(final long value, final int bit) {
+    final long dimension = QuadKeyRanges.dimensionBelow(bit);
+    return (value | dimension) & ~(1L << bit);
+  }
+
+  /**
+   * Mask of the bits of the same dimension from the given bit downwards.
+   */
+  private static long dimensionBelow(final int bit) {
+    final long dimension =
+        ((bit & 1) == 1) ? QuadKeyRanges.ROW_BITS : QuadKeyRanges.COLUMN_BITS;
+    return dimension & ((2L << bit) - 1);
+  }
+
+  private static long interleave(final int row, final int column) {
+    return (QuadGrid.spread(row) << 1) | QuadGrid.spread(column);
+  }
+
+  /**
+   * Returns the rows and one or two column intervals of the rectangle at the leaf depth.
+   */
+  static int[] toBox(final int north, final int south, final int west, final int east) {
+    QuadKeys.checkPosition(north, west);
+    QuadKeys.checkPosition(south, east);
+    if (north < south) {
+      throw new IllegalArgumentException(
+          "Northern border " + north + " is south of southern border " + south);
+    }
+    final int firstRow = QuadGrid.latitudeToRow(north);
+    final int lastRow = QuadGrid.latitudeToRow(south);
+    final int maxColumn = (1 << QuadGrid.DEPTH) - 1;
+    // Touching intervals around the antimeridian cover all longitudes, see BoxRegion
+    if ((long) west == ((long) east + 1)) {
+      return new int[] {firstRow, lastRow, 0, maxColumn};
+    }
+    final int firstColumn = QuadGrid.longitudeToColumn(west);
+    final int lastColumn = QuadGrid.longitudeToColumn(east);
+    if (west <= east) {
+      return new int[] {firstRow, lastRow, firstColumn, lastColumn};
+    }
+    // Crossing the antimeridian even if both borders are within the same column
+    return new int[] {firstRow, lastRow, firstColumn, maxColumn, 0, lastColumn};
+  }
+
+  private static long toPath(final long linearKey) {
+    LinearQuadKeys.checkLinearKey(linearKey);
+    if (LinearQuadKeys.depthOf(linearKey) != QuadTreeAddress.MAX_DEPTH) {
+      throw new IllegalArgumentException("No leaf key: " + linearKey);
+    }
+    return linearKey >>> LinearQuadKeys.PATH_SHIFT;
+  }
+
+  private static long toLeafKey(final long path) {
+    return (path < 0) ? QuadKeys.NO_KEY
+        : ((path << LinearQuadKeys.PATH_SHIFT) | QuadTreeAddress.MAX_DEPTH);
+  }
+}
@@ -0,0 +1,259 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * Generates the QuadTrees around a packed key on the grid of its depth, see {@link QuadKeys}. The
+ * ring with radius k contains all QuadTrees that are exactly k rows or columns away, the disk with
+ * radius k all rings from 0 to k. Ring 0 is the key itself.
+ * </p>
+ *
+ * <p>
+ * The handling of antimeridian and poles is the same as for {@link QuadKeys#getNeighbors(long,
+ * long[], int)}. The columns wrap around, and a column is counted in the ring of its shortest
+ * distance, so no QuadTree is generated twice. The rows are clamped, so rings crossing a pole are
+ * cut off. Each ring is generated clockwise, starting at its north western corner.
+ * </p>
+ */
+public final class QuadKeyRings {
+
+  /**
+   * The maximum radius, so that {@link #getDiskSize(int)} still fits in an int.
+   */
+  public static final int MAX_RADIUS = 23169;
+
+  private QuadKeyRings() {
+    // static operations only
+  }
+
+  /**
+   * Returns the maximum number of QuadTrees of the ring with the given radius.
+   *
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @return the number of QuadTrees if neither antimeridian nor poles cut the ring
+   * @throws IllegalArgumentException if radius is out of range
+   */
+  public static int getRingSize(final int radius) {
+    QuadKeyRings.checkRadius(radius);
+    return (radius == 0) ? 1 : (8 * radius);
+  }
+
+  /**
+   * Returns the maximum number of QuadTrees of the disk with the given radius.
+   *
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @return the number of QuadTrees if neither antimeridian nor poles cut the disk
+   * @throws IllegalArgumentException if radius is out of range
+   */
+  public static int getDiskSize(final int radius) {
+    QuadKeyRings.checkRadius(radius);
+    final int side = (2 * radius) + 1;
+    return side * side;
+  }
+
+  /**
+   * Writes the packed keys of the ring with the given radius into the given array.
+   *
+   * @param key the packed key of the center. Must be valid
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the first QuadTree within target. There must be space for
+   *        {@link #getRingSize(int)} QuadTrees
+   * @return the number of written QuadTrees
+   * @throws IllegalArgumentException if key or radius is invalid
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int getRing(final long key, final int radius, final long[] target,
+      final int offset) {
+    QuadKeys.checkKey(key);
+    QuadKeyRings.checkSpace(target, offset, QuadKeyRings.getRingSize(radius));
+    final Cursor cursor = new Cursor(key, radius, radius);
+    int count = 0;
+    while (cursor.advance()) {
+      target[offset + count] = cursor.current;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Writes the packed keys of the disk with the given radius ring by ring into the given array.
+   *
+   * @param key the packed key of the center. Must be valid
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the first QuadTree within target. There must be space for
+   *        {@link #getDiskSize(int)} QuadTrees
+   * @return the number of written QuadTrees
+   * @throws IllegalArgumentException if key or radius is invalid
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int getDisk(final long key, final int radius, final long[] target,
+      final int offset) {
+    QuadKeys.checkKey(key);
+    QuadKeyRings.checkSpace(target, offset, QuadKeyRings.getDiskSize(radius));
+    final Cursor cursor = new Cursor(key, 0, radius);
+    int count = 0;
+    while (cursor.advance()) {
+      target[offset + count] = cursor.current;
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Passes the packed keys of the disk with the given radius ring by ring to the given consumer.
+   *
+   * @param key the packed key of the center. Must be valid
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @param consumer receives the QuadTrees. Must not be null
+   * @throws IllegalArgumentException if key or radius is invalid
+   * @throws NullPointerException if consumer is null
+   */
+  public static void forEachInDisk(final long key, final int radius,
+      final LongConsumer consumer) {
+    QuadKeys.checkKey(key);
+    QuadKeyRings.checkRadius(radius);
+    Objects.requireNonNull(consumer);
+    final Cursor cursor = new Cursor(key, 0, radius);
+    while (cursor.advance()) {
+      consumer.accept(cursor.current);
+    }
+  }
+
+  /**
+   * Returns a lazy iterator over the packed keys of the disk with the given radius ring by ring.
+   * Besides the iterator no objects are created.
+   *
+   * @param key the packed key of the center. Must be valid
+   * @param radius the radius within [0, {@value #MAX_RADIUS}]
+   * @return the iterator
+   * @throws IllegalArgumentException if key or radius is invalid
+   */
+  public static PrimitiveIterator.OfLong diskIterator(final long key, final int radius) {
+    QuadKeys.checkKey(key);
+    QuadKeyRings.checkRadius(radius);
+    return new DiskIterator(new Cursor(key, 0, radius));
+  }
+
+  private static void checkRadius(final int radius) {
+    if ((radius < 0) || (radius > QuadKeyRings.MAX_RADIUS)) {
+      throw new IllegalArgumentException("Invalid radius: " + radius);
+    }
+  }
+
+  private static void checkSpace(final long[] target, final int offset, final int size) {
+    if ((offset < 0) || (offset > (target.length - size))) {
+      throw new IndexOutOfBoundsException("No space for " + size + " keys at offset " + offset);
+    }
+  }
+
+  /**
+   * Walks the perimeters of the rings from the first to the last radius and skips positions beyond
+   * the poles and columns that belong to a smaller ring after wrapping around.
+   */
+  private static final class Cursor {
+
+    private final int depth;
+    private final int row;
+    private final int column;
+    private final int rows;
+    private final int lastRadius;
+
+    private int radius;
+    private int position;
+    private long current;
+
+    private Cursor(final long key, final int firstRadius, final int lastRadius) {
+      this.depth = QuadKeys.depthOf(key);
+      this.row = QuadGrid.toRow(QuadKeys.sectorsOf(key), this.depth);
+      this.column = QuadGrid.toColumn(QuadKeys.sectorsOf(key), this.depth);
+      this.rows = 1 << this.depth;
+      // Beyond this radius all rows are cut off and all columns are reached by smaller rings
+      final int maxRowDistance = Math.max(this.row, this.rows - 1 - this.row);
+      final int maxUsefulRadius = Math.max(maxRowDistance, this.rows / 2);
+      this.lastRadius = Math.min(lastRadius, maxUsefulRadius);
+      this.radius = firstRadius;
+      this.position = -1;
+    }
+
+    private boolean advance() {
+      while (this.radius <= this.lastRadius) {
+        this.position++;
+        if (this.radius == 0) {
+          if (this.position == 0) {
+            this.current = QuadKeys.fromValidRowAndColumn(this.row, this.column, this.depth);
+            return true;
+          }
+        } else if (this.position < (8 * this.radius)) {
+          if (this.moveToPosition()) {
+            return true;
+          }
+          continue;
+        }
+        this.radius++;
+        this.position = -1;
+      }
+      return false;
+    }
+
+    private boolean moveToPosition() {
+      final int side = 2 * this.radius;
+      final int rowOffset;
+      final int columnOffset;
+      if (this.position < side) {
+        rowOffset = -this.radius;
+        columnOffset = -this.radius + this.position;
+      } else if (this.position < (2 * side)) {
+        rowOffset = -this.radius + (this.position - side);
+        columnOffset = this.radius;
+      } else if (this.position < (3 * side)) {
+        rowOffset = this.radius;
+        columnOffset = this.radius - (this.position - (2 * side));
+      } else {
+        rowOffset = this.radius - (this.position - (3 * side));
+        columnOffset = -this.radius;
+      }
+      final int neighborRow = this.row + rowOffset;
+      if ((neighborRow < 0) || (neighborRow >= this.rows)
+          || !QuadKeys.isDistinctColumnOffset(columnOffset, this.rows)) {
+        return false;
+      }
+      this.current = QuadKeys.fromValidRowAndColumn(neighborRow,
+          (this.column + columnOffset) & (this.rows - 1), this.depth);
+      return true;
+    }
+  }
+
+  private static final class DiskIterator implements PrimitiveIterator.OfLong {
+
+    private final Cursor cursor;
+    private boolean hasNext;
+
+    private DiskIterator(final Cursor cursor) {
+      this.cursor = cursor;
+      this.hasNext = cursor.advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.hasNext;
+    }
+
+    @Override
+    public long nextLong() {
+      if (!this.hasNext) {
+        throw new NoSuchElementException();
+      }
+      final long next = this.cursor.current;
+      this.hasNext = this.cursor.advance();
+      return next;
+    }
+  }
+}
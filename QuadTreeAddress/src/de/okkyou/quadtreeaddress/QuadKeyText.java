@@ -0,0 +1,278 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * Converts packed keys, see {@link QuadKeys}, to the letter representation of
+ * {@link QuadTreeAddress#getQuadTree()} and back without creating intermediate Strings. The letters
+ * are written into caller provided arrays or builders and parsed from any {@link CharSequence} or
+ * ASCII byte range.
+ * </p>
+ *
+ * <p>
+ * The letters are looked up per byte of the key, so each step writes the letters of 4 depths.
+ * </p>
+ */
+public final class QuadKeyText {
+
+  /**
+   * The maximum length of the letter representation, the start char and one letter per depth.
+   */
+  public static final int MAX_LENGTH = QuadTreeAddress.MAX_DEPTH + 1;
+
+  private static final int SECTORS_PER_BYTE = 4;
+  private static final int BYTE_MASK = 0xFF;
+
+  /**
+   * The letters of the 4 sectors stored in a byte of the key, the lowest sector first.
+   */
+  private static final char[] LETTERS = QuadKeyText.createLetters();
+  private static final byte[] ASCII_LETTERS = QuadKeyText.createAsciiLetters();
+
+  private QuadKeyText() {
+    // static operations only
+  }
+
+  /**
+   * Returns the length of the letter representation of the given key.
+   *
+   * @param key the packed key. Must be valid
+   * @return the depth of key plus one for the start char
+   * @throws IllegalArgumentException if key is invalid
+   */
+  public static int getLength(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.depthOf(key) + 1;
+  }
+
+  /**
+   * Writes the letter representation of the given key into the given array.
+   *
+   * @param key the packed key. Must be valid
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the start char within target. There must be space for
+   *        {@link #getLength(long)} chars
+   * @return the number of written chars
+   * @throws IllegalArgumentException if key is invalid
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int write(final long key, final char[] target, final int offset) {
+    final int length = QuadKeyText.getLength(key);
+    Objects.checkFromIndexSize(offset, length, target.length);
+    target[offset] = QuadTreeAddress.START_CHAR;
+    final long sectors = QuadKeys.sectorsOf(key);
+    int position = offset + 1;
+    for (int depth = 0; depth < (length - 1); depth += QuadKeyText.SECTORS_PER_BYTE) {
+      final int letters = QuadKeyText.SECTORS_PER_BYTE
+          * ((int) (sectors >>> (2 * depth)) & QuadKeyText.BYTE_MASK);
+      final int count = Math.min(QuadKeyText.SECTORS_PER_BYTE, length - 1 - depth);
+      System.arraycopy(QuadKeyText.LETTERS, letters, target, position, count);
+      position += count;
+    }
+    return length;
+  }
+
+  /**
+   * Writes the letter representation of the given key as ASCII into the given array.
+   *
+   * @param key the packed key. Must be valid
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the start char within target. There must be space for
+   *        {@link #getLength(long)} bytes
+   * @return the number of written bytes
+   * @throws IllegalArgumentException if key is invalid
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int write(final long key, final byte[] target, final int offset) {
+    final int length = QuadKeyText.getLength(key);
+    Objects.checkFromIndexSize(offset, length, target.length);
+    target[offset] = (byte) QuadTreeAddress.START_CHAR;
+    final long sectors = QuadKeys.sectorsOf(key);
+    int position = offset + 1;
+    for (int depth = 0; depth < (length - 1); depth += QuadKeyText.SECTORS_PER_BYTE) {
+      final int letters = QuadKeyText.SECTORS_PER_BYTE
+          * ((int) (sectors >>> (2 * depth)) & QuadKeyText.BYTE_MASK);
+      final int count = Math.min(QuadKeyText.SECTORS_PER_BYTE, length - 1 - depth);
+      System.arraycopy(QuadKeyText.ASCII_LETTERS, letters, target, position, count);
+      position += count;
+    }
+    return length;
+  }
+
+  /**
+   * Appends the letter representation of the given key to the given builder.
+   *
+   * @param key the packed key. Must be valid
+   * @param target the builder to append to. Must not be null
+   * @return target
+   * @throws IllegalArgumentException if key is invalid
+   * @throws NullPointerException if target is null
+   */
+  public static StringBuilder append(final long key, final StringBuilder target) {
+    final int length = QuadKeyText.getLength(key);
+    target.append(QuadTreeAddress.START_CHAR);
+    final long sectors = QuadKeys.sectorsOf(key);
+    for (int depth = 0; depth < (length - 1); depth += QuadKeyText.SECTORS_PER_BYTE) {
+      final int letters = QuadKeyText.SECTORS_PER_BYTE
+          * ((int) (sectors >>> (2 * depth)) & QuadKeyText.BYTE_MASK);
+      final int count = Math.min(QuadKeyText.SECTORS_PER_BYTE, length - 1 - depth);
+      target.append(QuadKeyText.LETTERS, letters, count);
+    }
+    return target;
+  }
+
+  /**
+   * Returns the letter representation of the given key.
+   *
+   * @param key the packed key. Must be valid
+   * @return the QuadTree String
+   * @throws IllegalArgumentException if key is invalid
+   */
+  public static String toString(final long key) {
+    final char[] chars = new char[QuadKeyText.getLength(key)];
+    QuadKeyText.write(key, chars, 0);
+    return new String(chars);
+  }
+
+  /**
+   * Parses the given letter representation.
+   *
+   * @param text the QuadTree String. Must not be null
+   * @return the packed key
+   * @throws IllegalArgumentException if text is no valid QuadTree, see
+   *         {@link QuadTreeAddress#isValid(String)}
+   * @throws NullPointerException if text is null
+   */
+  public static long parse(final CharSequence text) {
+    return QuadKeyText.parse(text, 0, text.length());
+  }
+
+  /**
+   * Parses the letter representation within the given range.
+   *
+   * @param text contains the QuadTree. Must not be null
+   * @param start the index of the start char
+   * @param end the index behind the last letter
+   * @return the packed key
+   * @throws IllegalArgumentException if the range contains no valid QuadTree
+   * @throws NullPointerException if text is null
+   * @throws IndexOutOfBoundsException if the range is not within text
+   */
+  public static long parse(final CharSequence text, final int start, final int end) {
+    return QuadKeyText.checkParsed(QuadKeyText.tryParse(text, start, end));
+  }
+
+  /**
+   * Parses the ASCII letter representation within the given range.
+   *
+   * @param bytes contains the QuadTree. Must not be null
+   * @param offset the index of the start char
+   * @param length the number of bytes including the start char
+   * @return the packed key
+   * @throws IllegalArgumentException if the range contains no valid QuadTree
+   * @throws NullPointerException if bytes is null
+   * @throws IndexOutOfBoundsException if the range is not within bytes
+   */
+  public static long parse(final byte[] bytes, final int offset, final int length) {
+    return QuadKeyText.checkParsed(QuadKeyText.tryParse(bytes, offset, length));
+  }
+
+  /**
+   * Parses the given letter representation. Unlike {@link #parse(CharSequence)} it does not throw
+   * on malformed input.
+   *
+   * @param text the QuadTree String. Must not be null
+   * @return the packed key or {@link QuadKeys#NO_KEY} if text is no valid QuadTree
+   * @throws NullPointerException if text is null
+   */
+  public static long tryParse(final CharSequence text) {
+    return QuadKeyText.tryParse(text, 0, text.length());
+  }
+
+  /**
+   * Parses the letter representation within the given range. Unlike
+   * {@link #parse(CharSequence, int, int)} it does not throw on malformed input.
+   *
+   * @param text contains the QuadTree. Must not be null
+   * @param start the index of the start char
+   * @param end the index behind the last letter
+   * @return the packed key or {@link QuadKeys#NO_KEY} if the range contains no valid QuadTree
+   * @throws NullPointerException if text is null
+   * @throws IndexOutOfBoundsException if the range is not within text
+   */
+  public static long tryParse(final CharSequence text, final int start, final int end) {
+    Objects.checkFromToIndex(start, end, text.length());
+    final int depth = end - start - 1;
+    if ((depth < 0) || (depth > QuadTreeAddress.MAX_DEPTH)
+        || (text.charAt(start) != QuadTreeAddress.START_CHAR)) {
+      return QuadKeys.NO_KEY;
+    }
+    long sectors = 0;
+    for (int i = 0; i < depth; i++) {
+      final int sector = text.charAt(start + 1 + i) - QuadTreeAddress.I;
+      if ((sector & ~QuadKeys.SECTOR_MASK) != 0) {
+        return QuadKeys.NO_KEY;
+      }
+      sectors |= (long) sector << (2 * i);
+    }
+    return QuadKeys.pack(sectors, depth);
+  }
+
+  /**
+   * Parses the ASCII letter representation within the given range. Unlike
+   * {@link #parse(byte[], int, int)} it does not throw on malformed input.
+   *
+   * @param bytes contains the QuadTree. Must not be null
+   * @param offset the index of the start char
+   * @param length the number of bytes including the start char
+   * @return the packed key or {@link QuadKeys#NO_KEY} if the range contains no valid QuadTree
+   * @throws NullPointerException if bytes is null
+   * @throws IndexOutOfBoundsException if the range is not within bytes
+   */
+  public static long tryParse(final byte[] bytes, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    final int depth = length - 1;
+    if ((depth < 0) || (depth > QuadTreeAddress.MAX_DEPTH)
+        || (bytes[offset] != QuadTreeAddress.START_CHAR)) {
+      return QuadKeys.NO_KEY;
+    }
+    long sectors = 0;
+    for (int i = 0; i < depth; i++) {
+      final int sector = bytes[offset + 1 + i] - QuadTreeAddress.I;
+      if ((sector & ~QuadKeys.SECTOR_MASK) != 0) {
+        return QuadKeys.NO_KEY;
+      }
+      sectors |= (long) sector << (2 * i);
+    }
+    return QuadKeys.pack(sectors, depth);
+  }
+
+  private static long checkParsed(final long key) {
+    if (key == QuadKeys.NO_KEY) {
+      throw new IllegalArgumentException("QuadTree is invalid");
+    }
+    return key;
+  }
+
+  private static char[] createLetters() {
+    final char[] letters = new char[(QuadKeyText.BYTE_MASK + 1) * QuadKeyText.SECTORS_PER_BYTE];
+    for (int i = 0; i < letters.length; i++) {
+      final int sectors = i / QuadKeyText.SECTORS_PER_BYTE;
+      final int sector = (int) ((sectors >>> (2 * (i % QuadKeyText.SECTORS_PER_BYTE)))
+          & QuadKeys.SECTOR_MASK);
+      letters[i] = (char) (QuadTreeAddress.I + sector);
+    }
+    return letters;
+  }
+
+  private static byte[] createAsciiLetters() {
+    final byte[] letters = new byte[QuadKeyText.LETTERS.length];
+    for (int i = 0; i < letters.length; i++) {
+      letters[i] = (byte) QuadKeyText.LETTERS[i];
+    }
+    return letters;
+  }
+}
@@ -0,0 +1,433 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Encodes batches of packed keys, see {@link QuadKeys}, into a compact binary form for transfer
+ * and decodes them again. A batch is a multiset: the keys are sorted by their linear keys, see
+ * {@link LinearQuadKeys}, so nearby QuadTrees follow each other and only the small differences
+ * between consecutive keys are written.
+ * </p>
+ *
+ * <p>
+ * A batch consists of the number of keys, the depth of all keys or {@value #MIXED_DEPTHS} if the
+ * depths differ, the number of bytes of the differences and the differences. If all keys have the
+ * same depth, the differences are those of the paths at this depth, otherwise those of the linear
+ * keys. All numbers but the depth are unsigned LEB128 varints of 7 bits per byte, the lowest bits
+ * first. The keys of a batch of nearby QuadTrees therefore need one or two bytes each instead of
+ * the 8 bytes of a long.
+ * </p>
+ */
+public final class QuadKeyWireFormat {
+
+  /**
+   * The depth byte of a batch with keys of different depths.
+   */
+  public static final int MIXED_DEPTHS = 0xFF;
+
+  private static final int MAX_VARINT_LENGTH = 9;
+  private static final int MAX_HEADER_LENGTH = 5 + 1 + 5;
+  private static final int VARINT_BITS = 7;
+  private static final int VARINT_MASK = 0x7F;
+  private static final int STREAM_BUFFER_SIZE = 1 << 12;
+
+  private QuadKeyWireFormat() {
+    // static operations only
+  }
+
+  /**
+   * Returns the maximum length of an encoded batch.
+   *
+   * @param count the number of keys. Must not be negative
+   * @return the maximum number of bytes
+   * @throws IllegalArgumentException if count is negative or the batch may exceed 2 GB
+   */
+  public static int getMaxLength(final int count) {
+    if ((count < 0) || (count > ((Integer.MAX_VALUE - QuadKeyWireFormat.MAX_HEADER_LENGTH)
+        / QuadKeyWireFormat.MAX_VARINT_LENGTH))) {
+      throw new IllegalArgumentException("Invalid number of keys: " + count);
+    }
+    return QuadKeyWireFormat.MAX_HEADER_LENGTH + (count * QuadKeyWireFormat.MAX_VARINT_LENGTH);
+  }
+
+  /**
+   * Encodes the keys into a new array.
+   *
+   * @param keys the packed keys. Must not be null and every key must be valid
+   * @return the encoded batch
+   * @throws IllegalArgumentException if a key is invalid
+   */
+  public static byte[] encode(final long[] keys) {
+    final Batch batch = new Batch(keys, 0, keys.length);
+    final byte[] target = new byte[batch.length()];
+    batch.writeTo(ByteBuffer.wrap(target));
+    return target;
+  }
+
+  /**
+   * Encodes the keys at the position of the buffer and advances the position.
+   *
+   * @param keys the packed keys. Must not be null and every key within the range must be valid
+   * @param offset the index of the first key
+   * @param length the number of keys
+   * @param target the buffer to write to. Must not be null
+   * @return the number of written bytes
+   * @throws IllegalArgumentException if a key is invalid
+   * @throws IndexOutOfBoundsException if the range is out of the bounds of keys
+   * @throws java.nio.BufferOverflowException if the batch does not fit into the remaining bytes
+   *         of target. Nothing is written then
+   */
+  public static int encode(final long[] keys, final int offset, final int length,
+      final ByteBuffer target) {
+    Objects.requireNonNull(target);
+    final Batch batch = new Batch(keys, offset, length);
+    batch.writeTo(target);
+    return batch.length();
+  }
+
+  /**
+   * Encodes the keys into the stream.
+   *
+   * @param keys the packed keys. Must not be null and every key within the range must be valid
+   * @param offset the index of the first key
+   * @param length the number of keys
+   * @param target the stream to write to. Must not be null
+   * @return the number of written bytes
+   * @throws IllegalArgumentException if a key is invalid
+   * @throws IndexOutOfBoundsException if the range is out of the bounds of keys
+   * @throws IOException if the stream cannot be written
+   */
+  public static int encode(final long[] keys, final int offset, final int length,
+      final OutputStream target) throws IOException {
+    Objects.requireNonNull(target);
+    final Batch batch = new Batch(keys, offset, length);
+    batch.writeTo(target);
+    return batch.length();
+  }
+
+  /**
+   * Decodes a batch at the position of the buffer into a new array and advances the position
+   * behind the batch.
+   *
+   * @param source the buffer to read from. Must not be null
+   * @return the packed keys in the order of their linear keys
+   * @throws IllegalArgumentException if the bytes are no complete batch. The position of source is
+   *         not changed then
+   */
+  public static long[] decode(final ByteBuffer source) {
+    final ByteBuffer header = source.duplicate();
+    final long[] target = new long[QuadKeyWireFormat.getCount(header)];
+    QuadKeyWireFormat.decode(source, target, 0);
+    return target;
+  }
+
+  /**
+   * Decodes a batch at the position of the buffer into the array and advances the position behind
+   * the batch.
+   *
+   * @param source the buffer to read from. Must not be null
+   * @param target receives the packed keys in the order of their linear keys. Must not be null
+   * @param offset the index of the first key within target
+   * @return the number of keys
+   * @throws IllegalArgumentException if the bytes are no complete batch. The position of source is
+   *         not changed then
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int decode(final ByteBuffer source, final long[] target, final int offset) {
+    final ByteBuffer header = source.duplicate();
+    final int count = QuadKeyWireFormat.getCount(header);
+    Objects.checkFromIndexSize(offset, count, target.length);
+    final int depth = header.get() & 0xFF;
+    if ((depth > QuadTreeAddress.MAX_DEPTH) && (depth != QuadKeyWireFormat.MIXED_DEPTHS)) {
+      throw new IllegalArgumentException("Invalid depth " + depth);
+    }
+    final long differencesLength = QuadKeyWireFormat.getVarint(header);
+    if (differencesLength > header.remaining()) {
+      throw new IllegalArgumentException("Truncated batch");
+    }
+    final int end = header.position() + (int) differencesLength;
+    final int shift = QuadKeyWireFormat.shiftOf(depth);
+    // The largest value plus one
+    final long limit = (depth == QuadKeyWireFormat.MIXED_DEPTHS)
+        ? (1L << (LinearQuadKeys.PATH_SHIFT + (2 * QuadTreeAddress.MAX_DEPTH)))
+        : (1L << (2 * depth));
+    final long packedDepth = QuadKeys.pack(0, depth);
+
+    int position = header.position();
+    long value = 0;
+    for (int i = 0; i < count; i++) {
+      // An inlined varint, the hot loop of decoding
+      long difference = 0;
+      int bits = 0;
+      byte next;
+      do {
+        if ((position == end) || (bits > (Long.SIZE - QuadKeyWireFormat.VARINT_BITS))) {
+          throw new IllegalArgumentException("Truncated or malformed batch");
+        }
+        next = source.get(position++);
+        difference |= (long) (next & QuadKeyWireFormat.VARINT_MASK) << bits;
+        bits += QuadKeyWireFormat.VARINT_BITS;
+      } while (next < 0);
+      if (difference >= (limit - value)) {
+        throw new IllegalArgumentException("Key out of range in batch");
+      }
+      value += difference;
+      if (depth == QuadKeyWireFormat.MIXED_DEPTHS) {
+        if (!LinearQuadKeys.isValid(value)) {
+          throw new IllegalArgumentException("Invalid linear key " + value + " in batch");
+        }
+        target[offset + i] = LinearQuadKeys.toQuadKey(value);
+      } else {
+        target[offset + i] = packedDepth | LinearQuadKeys.reverseSectors(value << shift
+            >>> LinearQuadKeys.PATH_SHIFT);
+      }
+    }
+    if (position != end) {
+      throw new IllegalArgumentException("Malformed batch");
+    }
+    source.position(end);
+    return count;
+  }
+
+  /**
+   * Reads a batch from the stream.
+   *
+   * @param source the stream to read from. Must not be null
+   * @return the packed keys in the order of their linear keys
+   * @throws EOFException if the stream ends before the batch
+   * @throws IOException if the stream cannot be read or contains no valid batch
+   */
+  public static long[] decode(final InputStream source) throws IOException {
+    final byte[] header = new byte[QuadKeyWireFormat.MAX_HEADER_LENGTH];
+    int headerLength = QuadKeyWireFormat.readVarint(source, header, 0);
+    header[headerLength++] = (byte) QuadKeyWireFormat.readByte(source);
+    headerLength = QuadKeyWireFormat.readVarint(source, header, headerLength);
+    try {
+      final ByteBuffer fields = ByteBuffer.wrap(header, 0, headerLength);
+      QuadKeyWireFormat.getVarint(fields);
+      fields.get();
+      final long differencesLength = QuadKeyWireFormat.getVarint(fields);
+      if (differencesLength > (Integer.MAX_VALUE - QuadKeyWireFormat.MAX_HEADER_LENGTH)) {
+        throw new IllegalArgumentException("Invalid batch length " + differencesLength);
+      }
+      final int length = headerLength + (int) differencesLength;
+      byte[] batch = Arrays.copyOf(header, Math.min(length, QuadKeyWireFormat.STREAM_BUFFER_SIZE));
+      int position = headerLength;
+      while (position < length) {
+        if (position == batch.length) {
+          // Grows with the bytes that arrived, so a damaged length allocates no huge array
+          batch = Arrays.copyOf(batch, (int) Math.min(length, 2L * batch.length));
+        }
+        final int read = source.read(batch, position, batch.length - position);
+        if (read < 0) {
+          throw new EOFException("Truncated batch");
+        }
+        position += read;
+      }
+      return QuadKeyWireFormat.decode(ByteBuffer.wrap(batch));
+    } catch (final IllegalArgumentException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the shift of a linear key that yields the value written into a batch.
+   */
+  private static int shiftOf(final int depth) {
+    return (depth == QuadKeyWireFormat.MIXED_DEPTHS) ? 0
+        : (LinearQuadKeys.PATH_SHIFT + (2 * (QuadTreeAddress.MAX_DEPTH - depth)));
+  }
+
+  private static int getCount(final ByteBuffer header) {
+    final long count = QuadKeyWireFormat.getVarint(header);
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Invalid number of keys " + count);
+    }
+    // Each key needs at least one byte, so no array is allocated for a damaged count
+    if ((count + 2) > header.remaining()) {
+      throw new IllegalArgumentException("Truncated batch");
+    }
+    return (int) count;
+  }
+
+  private static int getVarintLength(final long value) {
+    final int bits = Long.SIZE - Long.numberOfLeadingZeros(value);
+    return Math.max(1, (bits + QuadKeyWireFormat.VARINT_BITS - 1) / QuadKeyWireFormat.VARINT_BITS);
+  }
+
+  private static void putVarint(final ByteBuffer target, final long value) {
+    long rest = value;
+    while ((rest & ~QuadKeyWireFormat.VARINT_MASK) != 0) {
+      target.put((byte) ((rest & QuadKeyWireFormat.VARINT_MASK) | 0x80));
+      rest >>>= QuadKeyWireFormat.VARINT_BITS;
+    }
+    target.put((byte) rest);
+  }
+
+  private static int putVarint(final byte[] target, final int position, final long value) {
+    int i = position;
+    long rest = value;
+    while ((rest & ~QuadKeyWireFormat.VARINT_MASK) != 0) {
+      target[i++] = (byte) ((rest & QuadKeyWireFormat.VARINT_MASK) | 0x80);
+      rest >>>= QuadKeyWireFormat.VARINT_BITS;
+    }
+    target[i++] = (byte) rest;
+    return i;
+  }
+
+  private static long getVarint(final ByteBuffer source) {
+    long value = 0;
+    for (int bits = 0; bits < (Integer.SIZE + QuadKeyWireFormat.VARINT_BITS);
+        bits += QuadKeyWireFormat.VARINT_BITS) {
+      if (!source.hasRemaining()) {
+        throw new IllegalArgumentException("Truncated batch");
+      }
+      final byte next = source.get();
+      value |= (long) (next & QuadKeyWireFormat.VARINT_MASK) << bits;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed batch header");
+  }
+
+  /**
+   * Copies the bytes of a header varint from the stream into the array.
+   *
+   * @return the position behind the varint
+   */
+  private static int readVarint(final InputStream source, final byte[] target, final int position)
+      throws IOException {
+    int i = position;
+    for (int length = 0; length < 5; length++) {
+      target[i] = (byte) QuadKeyWireFormat.readByte(source);
+      if (target[i++] >= 0) {
+        return i;
+      }
+    }
+    throw new IOException("Malformed batch header");
+  }
+
+  private static int readByte(final InputStream source) throws IOException {
+    final int next = source.read();
+    if (next < 0) {
+      throw new EOFException("Truncated batch");
+    }
+    return next;
+  }
+
+  /**
+   * The keys of a batch in the order of their linear keys and its header. The length of the batch
+   * is known before it is written, so the differences are written straight to the target.
+   */
+  private static final class Batch {
+
+    private final long[] keys;
+    private final int offset;
+    private final int count;
+    // The sorted linear keys, or null if the keys are already in this order
+    private final long[] linearKeys;
+    private final int shift;
+    private final byte[] header = new byte[QuadKeyWireFormat.MAX_HEADER_LENGTH];
+    private final int headerLength;
+    private final int differencesLength;
+
+    private Batch(final long[] keys, final int offset, final int count) {
+      Objects.checkFromIndexSize(offset, count, keys.length);
+      this.keys = keys;
+      this.offset = offset;
+      this.count = count;
+      boolean sorted = true;
+      long previous = Long.MIN_VALUE;
+      int depth = -1;
+      for (int i = 0; i < count; i++) {
+        final long linearKey = LinearQuadKeys.fromQuadKey(keys[offset + i]);
+        sorted &= (linearKey >= previous);
+        previous = linearKey;
+        final int keyDepth = LinearQuadKeys.depthOf(linearKey);
+        depth = ((depth < 0) || (depth == keyDepth)) ? keyDepth : QuadKeyWireFormat.MIXED_DEPTHS;
+      }
+      if (sorted) {
+        // E.g. a decoded batch, which needs no copy
+        this.linearKeys = null;
+      } else {
+        this.linearKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+          this.linearKeys[i] = LinearQuadKeys.fromQuadKey(keys[offset + i]);
+        }
+        Arrays.sort(this.linearKeys);
+      }
+      this.shift = QuadKeyWireFormat.shiftOf(Math.max(0, depth));
+
+      long length = 0;
+      long value = 0;
+      for (int i = 0; i < count; i++) {
+        final long next = this.value(i);
+        length += QuadKeyWireFormat.getVarintLength(next - value);
+        value = next;
+      }
+      if (length > (Integer.MAX_VALUE - QuadKeyWireFormat.MAX_HEADER_LENGTH)) {
+        throw new IllegalArgumentException("Batch of " + count + " keys exceeds 2 GB");
+      }
+      this.differencesLength = (int) length;
+      int position = QuadKeyWireFormat.putVarint(this.header, 0, count);
+      this.header[position++] = (byte) Math.max(0, depth);
+      this.headerLength =
+          QuadKeyWireFormat.putVarint(this.header, position, this.differencesLength);
+    }
+
+    /**
+     * Returns the value of the key at the given index of the sorted keys written into the batch.
+     */
+    private long value(final int index) {
+      final long linearKey = (this.linearKeys == null)
+          ? LinearQuadKeys.fromQuadKey(this.keys[this.offset + index])
+          : this.linearKeys[index];
+      return linearKey >>> this.shift;
+    }
+
+    private int length() {
+      return this.headerLength + this.differencesLength;
+    }
+
+    private void writeTo(final ByteBuffer target) {
+      if (target.remaining() < this.length()) {
+        throw new BufferOverflowException();
+      }
+      target.put(this.header, 0, this.headerLength);
+      long value = 0;
+      for (int i = 0; i < this.count; i++) {
+        final long next = this.value(i);
+        QuadKeyWireFormat.putVarint(target, next - value);
+        value = next;
+      }
+    }
+
+    private void writeTo(final OutputStream target) throws IOException {
+      final byte[] buffer =
+          new byte[Math.min(QuadKeyWireFormat.STREAM_BUFFER_SIZE, this.length())];
+      System.arraycopy(this.header, 0, buffer, 0, this.headerLength);
+      int position = this.headerLength;
+      long value = 0;
+      for (int i = 0; i < this.count; i++) {
+        // A buffer shorter than the stream buffer size holds the rest of the batch after a write
+        if (position > (buffer.length - QuadKeyWireFormat.MAX_VARINT_LENGTH)) {
+          target.write(buffer, 0, position);
+          position = 0;
+        }
+        final long next = this.value(i);
+        position = QuadKeyWireFormat.putVarint(buffer, position, next - value);
+        value = next;
+      }
+      target.write(buffer, 0, position);
+    }
+  }
+}
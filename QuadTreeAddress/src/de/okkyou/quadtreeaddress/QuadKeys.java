@@ -0,0 +1,613 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * Static operations on the packed 64 bit representation of a QuadTree as returned by
+ * {@link QuadTreeAddress#toNumberRepresentation()}. A packed key carries the depth in bits 62 - 58
+ * and 2 bits per depth where the sector of the 1st depth is stored in the bits 1 - 0. The sector
+ * '00' is the upper left, '01' the upper right, '10' the lower left and '11' the lower right tile.
+ * </p>
+ *
+ * <p>
+ * None of the methods creates an object unless it throws an exception, so they can be used on hot
+ * paths that only store the packed long value. Latitudes and longitudes are given in tenth micro
+ * degree like in {@link Wgs84Point#getLatitudeInTenthMicroDegree()}.
+ * </p>
+ *
+ * <p>
+ * At a depth d the QuadTrees form a grid of 2^d rows, counted from north to south, and 2^d columns,
+ * counted from west to east. Neighbors are computed on this grid. The grid wraps around at the
+ * antimeridian, so the eastern neighbor of the last column is the first column. At the poles the
+ * grid is clamped: there is no neighbor north of the first or south of the last row.
+ * </p>
+ */
+public final class QuadKeys {
+
+  /**
+   * The packed key of the QuadTree {@value QuadTreeAddress#START_CHAR} which covers the whole
+   * world.
+   */
+  public static final long ROOT = 0L;
+
+  /**
+   * Returned instead of a packed key where no QuadTree exists, e.g. for the northern neighbor of
+   * the first row. It is not a valid key.
+   */
+  public static final long NO_KEY = -1L;
+
+  /**
+   * The maximum number of neighbors written by {@link #getNeighbors(long, long[], int)}.
+   */
+  public static final int NEIGHBOR_COUNT = 8;
+
+  private static final int MAX_LAT = Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE;
+  private static final int MAX_LON = Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE;
+  private static final int MIN_LAT = Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE;
+  private static final int MIN_LON = Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE;
+
+  private static final double FACTOR_DEGREE_TO_TENTH_MICRO_DEGREE = 10000000.0;
+
+  private static final int DEPTH_SHIFT = 58;
+  private static final long SECTORS_MASK = (1L << (2 * QuadTreeAddress.MAX_DEPTH)) - 1;
+  static final long SECTOR_MASK = 0b11L;
+
+  // Row and column offsets of the neighbors clockwise, starting in the north
+  private static final int[] NEIGHBOR_ROW_OFFSETS = {-1, -1, 0, 1, 1, 1, 0, -1};
+  private static final int[] NEIGHBOR_COLUMN_OFFSETS = {0, 1, 1, 1, 0, -1, -1, -1};
+
+  private QuadKeys() {
+    // static operations only
+  }
+
+  /**
+   * Returns the packed key of the QuadTree with given depth that contains the given position.
+   *
+   * @param latitudeInTenthMicroDegree the latitude. Must be within
+   *        [{@value Wgs84Point#MIN_LATITUDE_TENTH_MICRO_DEGREE},
+   *        {@value Wgs84Point#MAX_LATITUDE_TENTH_MICRO_DEGREE}]
+   * @param longitudeInTenthMicroDegree the longitude. Must be within
+   *        [{@value Wgs84Point#MIN_LONGITUDE_TENTH_MICRO_DEGREE},
+   *        {@value Wgs84Point#MAX_LONGITUDE_TENTH_MICRO_DEGREE}]
+   * @param depth the depth of the QuadTree. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the packed key
+   * @throws IllegalArgumentException if the position or the depth is invalid
+   */
+  public static long encode(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree, final int depth) {
+    QuadKeys.checkPosition(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree);
+    QuadKeys.checkEncodeDepth(depth);
+
+    final long sectors = QuadGrid.toSectors(QuadGrid.latitudeToRow(latitudeInTenthMicroDegree),
+        QuadGrid.longitudeToColumn(longitudeInTenthMicroDegree));
+    return QuadKeys.pack(sectors & QuadKeys.sectorsMask(depth), depth);
+  }
+
+  /**
+   * Returns the packed key of the QuadTree with given depth that contains the given position. The
+   * degrees are converted to tenth micro degree the same way as {@link Wgs84Point} does.
+   *
+   * @param latitudeInDegree the latitude. Must be within [{@value Wgs84Point#MIN_LATITUDE_DEGREE},
+   *        {@value Wgs84Point#MAX_LATITUDE_DEGREE}]
+   * @param longitudeInDegree the longitude. Must be within
+   *        [{@value Wgs84Point#MIN_LONGITUDE_DEGREE}, {@value Wgs84Point#MAX_LONGITUDE_DEGREE}]
+   * @param depth the depth of the QuadTree. Must be within [1, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the packed key
+   * @throws IllegalArgumentException if the position or the depth is invalid
+   */
+  public static long encode(final double latitudeInDegree, final double longitudeInDegree,
+      final int depth) {
+    return QuadKeys.encode((int) (latitudeInDegree * QuadKeys.FACTOR_DEGREE_TO_TENTH_MICRO_DEGREE),
+        (int) (longitudeInDegree * QuadKeys.FACTOR_DEGREE_TO_TENTH_MICRO_DEGREE), depth);
+  }
+
+  /**
+   * Checks if the given long is a valid packed key. The unused and reserved bits as well as all
+   * sector bits below the depth have to be zero.
+   *
+   * @param key the packed key to check
+   * @return false if the key has not the expected form
+   */
+  public static boolean isValid(final long key) {
+    if (key < 0) {
+      return false;
+    }
+    final long depth = key >>> QuadKeys.DEPTH_SHIFT;
+    if (depth > QuadTreeAddress.MAX_DEPTH) {
+      return false;
+    }
+    return (key & ~(depth << QuadKeys.DEPTH_SHIFT) & ~QuadKeys.sectorsMask((int) depth)) == 0;
+  }
+
+  /**
+   * Returns the depth of the given packed key.
+   *
+   * @param key the packed key. Must be valid
+   * @return the depth within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getDepth(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.depthOf(key);
+  }
+
+  /**
+   * Returns the sector of the given depth.
+   *
+   * @param key the packed key. Must be valid
+   * @param depth the depth of the sector. Must be within [1, depth of key]
+   * @return 0 for the upper left, 1 for the upper right, 2 for the lower left and 3 for the lower
+   *         right tile
+   * @throws IllegalArgumentException if the key or the depth is invalid
+   */
+  public static int getSector(final long key, final int depth) {
+    QuadKeys.checkKey(key);
+    if ((depth < 1) || (depth > QuadKeys.depthOf(key))) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+    return (int) ((key >>> (2 * (depth - 1))) & QuadKeys.SECTOR_MASK);
+  }
+
+  /**
+   * Returns the packed key of the QuadTree that contains the given one and is one depth shorter.
+   *
+   * @param key the packed key. Must be valid and have a depth of at least 1
+   * @return the packed key of the parent
+   * @throws IllegalArgumentException if the key is invalid or the root
+   */
+  public static long getParent(final long key) {
+    QuadKeys.checkKey(key);
+    final int depth = QuadKeys.depthOf(key);
+    if (depth == 0) {
+      throw new IllegalArgumentException("The root has no parent");
+    }
+    return QuadKeys.ancestorOf(key, depth - 1);
+  }
+
+  /**
+   * Returns the packed key of the QuadTree that contains the given one at the given depth. If the
+   * key is already as short as the given depth, the key will be returned unchanged.
+   *
+   * @param key the packed key. Must be valid
+   * @param depth the depth of the ancestor. Must be within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the packed key of the ancestor or the already shorter key
+   * @throws IllegalArgumentException if the key or the depth is invalid
+   */
+  public static long getAncestor(final long key, final int depth) {
+    QuadKeys.checkKey(key);
+    if ((depth < 0) || (depth > QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+    if (depth >= QuadKeys.depthOf(key)) {
+      return key;
+    }
+    return QuadKeys.ancestorOf(key, depth);
+  }
+
+  /**
+   * Returns the packed key of the given sector one depth deeper than the given key.
+   *
+   * @param key the packed key. Must be valid and shorter than {@value QuadTreeAddress#MAX_DEPTH}
+   * @param sector the sector of the child within [0, 3], see {@link #getSector(long, int)}
+   * @return the packed key of the child
+   * @throws IllegalArgumentException if the key or the sector is invalid or the key is already at
+   *         {@value QuadTreeAddress#MAX_DEPTH}
+   */
+  public static long getChild(final long key, final int sector) {
+    QuadKeys.checkKey(key);
+    final int depth = QuadKeys.depthOf(key);
+    if (depth == QuadTreeAddress.MAX_DEPTH) {
+      throw new IllegalArgumentException("Key is already at maximum depth");
+    }
+    if ((sector < 0) || (sector > QuadKeys.SECTOR_MASK)) {
+      throw new IllegalArgumentException("Invalid sector: " + sector);
+    }
+    return QuadKeys.childOf(key, depth, sector);
+  }
+
+  /**
+   * Writes the packed keys of all 4 children of the given key in sector order into the given array.
+   *
+   * @param key the packed key. Must be valid and shorter than {@value QuadTreeAddress#MAX_DEPTH}
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the first child within target
+   * @throws IllegalArgumentException if the key is invalid or already at
+   *         {@value QuadTreeAddress#MAX_DEPTH}
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static void getChildren(final long key, final long[] target, final int offset) {
+    QuadKeys.checkKey(key);
+    final int depth = QuadKeys.depthOf(key);
+    if (depth == QuadTreeAddress.MAX_DEPTH) {
+      throw new IllegalArgumentException("Key is already at maximum depth");
+    }
+    if ((offset < 0) || (offset > (target.length - 4))) {
+      throw new IndexOutOfBoundsException("No space for 4 children at offset " + offset);
+    }
+    for (int sector = 0; sector < 4; sector++) {
+      target[offset + sector] = QuadKeys.childOf(key, depth, sector);
+    }
+  }
+
+  /**
+   * Checks if the QuadTree of key contains the QuadTree of otherKey. A QuadTree contains itself and
+   * all deeper QuadTrees that start with its sectors.
+   *
+   * @param key is tested to contain otherKey. Must be valid
+   * @param otherKey is tested to be within key. Must be valid
+   * @return true if otherKey is within key
+   * @throws IllegalArgumentException if key or otherKey is invalid
+   */
+  public static boolean contains(final long key, final long otherKey) {
+    QuadKeys.checkKey(key);
+    QuadKeys.checkKey(otherKey);
+    final int depth = QuadKeys.depthOf(key);
+    return (depth <= QuadKeys.depthOf(otherKey))
+        && (((key ^ otherKey) & QuadKeys.sectorsMask(depth)) == 0);
+  }
+
+  /**
+   * Checks if the given position is within the QuadTree of key. A position on a threshold belongs
+   * to the upper and right QuadTree like in {@link #encode(int, int, int)}.
+   *
+   * @param key the packed key. Must be valid
+   * @param latitudeInTenthMicroDegree the latitude. Must be valid
+   * @param longitudeInTenthMicroDegree the longitude. Must be valid
+   * @return true if the position is within key
+   * @throws IllegalArgumentException if key or the position is invalid
+   */
+  public static boolean contains(final long key, final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    QuadKeys.checkKey(key);
+    QuadKeys.checkPosition(latitudeInTenthMicroDegree, longitudeInTenthMicroDegree);
+    final long sectors = QuadGrid.toSectors(QuadGrid.latitudeToRow(latitudeInTenthMicroDegree),
+        QuadGrid.longitudeToColumn(longitudeInTenthMicroDegree));
+    return ((sectors ^ key) & QuadKeys.sectorsMask(QuadKeys.depthOf(key))) == 0;
+  }
+
+  /**
+   * Returns the row of the QuadTree within the grid of its depth.
+   *
+   * @param key the packed key. Must be valid
+   * @return the row within [0, 2^depth), counted from north to south
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getRow(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadGrid.toRow(QuadKeys.sectorsOf(key), QuadKeys.depthOf(key));
+  }
+
+  /**
+   * Returns the column of the QuadTree within the grid of its depth.
+   *
+   * @param key the packed key. Must be valid
+   * @return the column within [0, 2^depth), counted from west to east
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getColumn(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadGrid.toColumn(QuadKeys.sectorsOf(key), QuadKeys.depthOf(key));
+  }
+
+  /**
+   * Returns the packed key of the QuadTree at the given row and column of the grid of the given
+   * depth. Reverse operation of {@link #getRow(long)} and {@link #getColumn(long)}.
+   *
+   * @param row the row within [0, 2^depth)
+   * @param column the column within [0, 2^depth)
+   * @param depth the depth within [0, {@value QuadTreeAddress#MAX_DEPTH}]
+   * @return the packed key
+   * @throws IllegalArgumentException if row, column or depth is out of range
+   */
+  public static long fromRowAndColumn(final int row, final int column, final int depth) {
+    if ((depth < 0) || (depth > QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+    if (((row >>> depth) != 0) || ((column >>> depth) != 0)) {
+      throw new IllegalArgumentException(
+          "Row " + row + " or column " + column + " is not within depth " + depth);
+    }
+    return QuadKeys.fromValidRowAndColumn(row, column, depth);
+  }
+
+  /**
+   * Returns the northern neighbor of the QuadTree.
+   *
+   * @param key the packed key. Must be valid
+   * @return the packed key of the neighbor or {@link #NO_KEY} if key is in the first row
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long getNorthernNeighbor(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.neighborOf(key, -1, 0, false);
+  }
+
+  /**
+   * Returns the southern neighbor of the QuadTree.
+   *
+   * @param key the packed key. Must be valid
+   * @return the packed key of the neighbor or {@link #NO_KEY} if key is in the last row
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long getSouthernNeighbor(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.neighborOf(key, 1, 0, false);
+  }
+
+  /**
+   * Returns the eastern neighbor of the QuadTree. East of the last column follows the first one.
+   *
+   * @param key the packed key. Must be valid
+   * @return the packed key of the neighbor
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long getEasternNeighbor(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.neighborOf(key, 0, 1, false);
+  }
+
+  /**
+   * Returns the western neighbor of the QuadTree. West of the first column follows the last one.
+   *
+   * @param key the packed key. Must be valid
+   * @return the packed key of the neighbor
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static long getWesternNeighbor(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.neighborOf(key, 0, -1, false);
+  }
+
+  /**
+   * Writes the packed keys of all neighbors of the QuadTree clockwise, starting in the north, into
+   * the given array. The grid wraps around at the antimeridian and is clamped at the poles, so a
+   * QuadTree in the first or last row has only 5 neighbors. If the grid has less than 3 columns,
+   * a column reached in both directions is written once.
+   *
+   * @param key the packed key. Must be valid
+   * @param target the array to write to. Must not be null
+   * @param offset the index of the first neighbor within target. There must be space for
+   *        {@value #NEIGHBOR_COUNT} neighbors
+   * @return the number of written neighbors
+   * @throws IllegalArgumentException if the key is invalid
+   * @throws NullPointerException if target is null
+   * @throws IndexOutOfBoundsException if target has not enough space behind offset
+   */
+  public static int getNeighbors(final long key, final long[] target, final int offset) {
+    QuadKeys.checkKey(key);
+    if ((offset < 0) || (offset > (target.length - QuadKeys.NEIGHBOR_COUNT))) {
+      throw new IndexOutOfBoundsException("No space for 8 neighbors at offset " + offset);
+    }
+    final int columns = 1 << QuadKeys.depthOf(key);
+    int count = 0;
+    for (int i = 0; i < QuadKeys.NEIGHBOR_COUNT; i++) {
+      final int columnOffset = QuadKeys.NEIGHBOR_COLUMN_OFFSETS[i];
+      if (!QuadKeys.isDistinctColumnOffset(columnOffset, columns)) {
+        continue;
+      }
+      final long neighbor =
+          QuadKeys.neighborOf(key, QuadKeys.NEIGHBOR_ROW_OFFSETS[i], columnOffset, false);
+      if (neighbor != QuadKeys.NO_KEY) {
+        target[offset + count] = neighbor;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Passes the packed keys of all neighbors of the QuadTree to the given consumer in the same order
+   * and with the same handling of antimeridian and poles as
+   * {@link #getNeighbors(long, long[], int)}.
+   *
+   * @param key the packed key. Must be valid
+   * @param consumer receives the neighbors. Must not be null
+   * @throws IllegalArgumentException if the key is invalid
+   * @throws NullPointerException if consumer is null
+   */
+  public static void forEachNeighbor(final long key, final LongConsumer consumer) {
+    QuadKeys.checkKey(key);
+    Objects.requireNonNull(consumer);
+    final int columns = 1 << QuadKeys.depthOf(key);
+    for (int i = 0; i < QuadKeys.NEIGHBOR_COUNT; i++) {
+      final int columnOffset = QuadKeys.NEIGHBOR_COLUMN_OFFSETS[i];
+      if (!QuadKeys.isDistinctColumnOffset(columnOffset, columns)) {
+        continue;
+      }
+      final long neighbor =
+          QuadKeys.neighborOf(key, QuadKeys.NEIGHBOR_ROW_OFFSETS[i], columnOffset, false);
+      if (neighbor != QuadKeys.NO_KEY) {
+        consumer.accept(neighbor);
+      }
+    }
+  }
+
+  /**
+   * Returns the northern border of the QuadTree. It is the latitude of
+   * {@link QuadTreeAddress#getUpperLeftPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the latitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getUpperLatitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.latitudeBorder(key, true);
+  }
+
+  /**
+   * Returns the southern border of the QuadTree. It is the latitude of
+   * {@link QuadTreeAddress#getLowerLeftPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the latitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getLowerLatitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.latitudeBorder(key, false);
+  }
+
+  /**
+   * Returns the western border of the QuadTree. It is the longitude of
+   * {@link QuadTreeAddress#getUpperLeftPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the longitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getLeftLongitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.longitudeBorder(key, false);
+  }
+
+  /**
+   * Returns the eastern border of the QuadTree. It is the longitude of
+   * {@link QuadTreeAddress#getUpperRightPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the longitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getRightLongitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.longitudeBorder(key, true);
+  }
+
+  /**
+   * Returns the latitude of {@link QuadTreeAddress#getCenterPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the latitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getCenterLatitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.middle(QuadKeys.latitudeBorder(key, true),
+        QuadKeys.latitudeBorder(key, false));
+  }
+
+  /**
+   * Returns the longitude of {@link QuadTreeAddress#getCenterPoint()}.
+   *
+   * @param key the packed key. Must be valid
+   * @return the longitude in tenth micro degree
+   * @throws IllegalArgumentException if the key is invalid
+   */
+  public static int getCenterLongitude(final long key) {
+    QuadKeys.checkKey(key);
+    return QuadKeys.middle(QuadKeys.longitudeBorder(key, true),
+        QuadKeys.longitudeBorder(key, false));
+  }
+
+  static int depthOf(final long key) {
+    return (int) (key >>> QuadKeys.DEPTH_SHIFT);
+  }
+
+  static long sectorsOf(final long key) {
+    return key & QuadKeys.SECTORS_MASK;
+  }
+
+  static long pack(final long sectors, final int depth) {
+    return ((long) depth << QuadKeys.DEPTH_SHIFT) | sectors;
+  }
+
+  static long sectorsMask(final int depth) {
+    return (1L << (2 * depth)) - 1;
+  }
+
+  static long ancestorOf(final long key, final int depth) {
+    return QuadKeys.pack(key & QuadKeys.sectorsMask(depth), depth);
+  }
+
+  static long childOf(final long key, final int depth, final long sector) {
+    return QuadKeys.pack(QuadKeys.sectorsOf(key) | (sector << (2 * depth)), depth + 1);
+  }
+
+  static long fromValidRowAndColumn(final int row, final int column, final int depth) {
+    final int shift = QuadGrid.DEPTH - depth;
+    return QuadKeys.pack(
+        QuadGrid.toSectors(row << shift, column << shift) & QuadKeys.sectorsMask(depth), depth);
+  }
+
+  /**
+   * Moves the valid key by the given rows and columns. Columns wrap around at the antimeridian.
+   * Rows beyond the poles wrap around if wrapRows is set, otherwise {@link #NO_KEY} is returned.
+   */
+  static long neighborOf(final long key, final int rowOffset, final int columnOffset,
+      final boolean wrapRows) {
+    final int depth = QuadKeys.depthOf(key);
+    final long sectors = QuadKeys.sectorsOf(key);
+    final int mask = (1 << depth) - 1;
+    int row = QuadGrid.toRow(sectors, depth) + rowOffset;
+    if ((row & ~mask) != 0) {
+      if (!wrapRows) {
+        return QuadKeys.NO_KEY;
+      }
+      row &= mask;
+    }
+    final int column = (QuadGrid.toColumn(sectors, depth) + columnOffset) & mask;
+    return QuadKeys.fromValidRowAndColumn(row, column, depth);
+  }
+
+  /**
+   * Checks if the column offset reaches a column that is neither reached by an offset with a
+   * smaller absolute value nor by its negation. This is only false if the offset wraps around a
+   * grid with at most 2 times the offset columns.
+   */
+  static boolean isDistinctColumnOffset(final int columnOffset, final int columns) {
+    final long distance = 2L * Math.abs(columnOffset);
+    return (distance < columns) || ((distance == columns) && (columnOffset > 0));
+  }
+
+  /**
+   * The middle of two thresholds. The sum is calculated as long since the longitude thresholds may
+   * exceed the int range.
+   */
+  static int middle(final int upperThreshold, final int lowerThreshold) {
+    return (int) (((long) upperThreshold + lowerThreshold) / 2);
+  }
+
+  static void checkKey(final long key) {
+    if (!QuadKeys.isValid(key)) {
+      throw new IllegalArgumentException("Invalid quad key: " + key);
+    }
+  }
+
+  static void checkEncodeDepth(final int depth) {
+    if ((depth < 1) || (depth > QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+  }
+
+  static void checkPosition(final int latitudeInTenthMicroDegree,
+      final int longitudeInTenthMicroDegree) {
+    if ((latitudeInTenthMicroDegree > QuadKeys.MAX_LAT)
+        || (latitudeInTenthMicroDegree < QuadKeys.MIN_LAT)) {
+      throw new IllegalArgumentException(
+          "Latitude " + latitudeInTenthMicroDegree + " is not within allowed range");
+    }
+    if ((longitudeInTenthMicroDegree > QuadKeys.MAX_LON)
+        || (longitudeInTenthMicroDegree < QuadKeys.MIN_LON)) {
+      throw new IllegalArgumentException(
+          "Longitude " + longitudeInTenthMicroDegree + " is not within allowed range");
+    }
+  }
+
+  private static int latitudeBorder(final long key, final boolean upper) {
+    final int depth = QuadKeys.depthOf(key);
+    final int row = QuadGrid.toRow(QuadKeys.sectorsOf(key), depth);
+    return upper ? QuadGrid.rowToUpperLatitude(row, depth)
+        : QuadGrid.rowToLowerLatitude(row, depth);
+  }
+
+  private static int longitudeBorder(final long key, final boolean upper) {
+    final int depth = QuadKeys.depthOf(key);
+    final int column = QuadGrid.toColumn(QuadKeys.sectorsOf(key), depth);
+    return upper ? QuadGrid.columnToRightLongitude(column, depth)
+        : QuadGrid.columnToLeftLongitude(column, depth);
+  }
+}
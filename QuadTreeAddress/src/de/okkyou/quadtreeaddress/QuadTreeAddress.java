@@ -3,6 +3,7 @@ package de.okkyou.quadtreeaddress;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * <p>
@@ -22,47 +23,26 @@ import java.util.Objects;
  */
 public final class QuadTreeAddress {
 
-  private static final int MAX_LAT = 900000000;
-  private static final int MAX_LON = 1800000000;
-  private static final int MIN_LAT = -1 * QuadTreeAddress.MAX_LAT;
-  private static final int MIN_LON = -1 * QuadTreeAddress.MAX_LON;
+  static final char I = 'A';
+  static final char II = 'B';
+  static final char III = 'C';
+  static final char IV = 'D';
 
-  private static final byte I_SECTOR = 0b000;
-  private static final byte II_SECTOR = 0b001;
-  private static final byte III_SECTOR = 0b010;
-  private static final byte IV_SECTOR = 0b011;
-
-  private static final char I = 'A';
-  private static final char II = 'B';
-  private static final char III = 'C';
-  private static final char IV = 'D';
-
-  private static final long MINIMIZED_DEPTH_OFFSET = 288230376151711744L;
-  private static final long MINIMIZED_SECTOR_MASK = 0b011L;
   private static final long MINIMIZED_PRE_MASK = 8939645260330434559L;
 
-  private static final String VALID_PATTERN = "^\\+[ABCD]*$";
-
   public static final byte MAX_DEPTH = 26;
   public static final char START_CHAR = '+';
 
 
 
-  private final String quadTree;
-  private final Wgs84Point upperLeftPoint;
-  private final Wgs84Point upperRightPoint;
-  private final Wgs84Point lowerLeftPoint;
-  private final Wgs84Point lowerRightPoint;
-  private final Wgs84Point centerPoint;
+  /**
+   * The packed key of {@link #toNumberRepresentation()}. The String and the points are derived on
+   * demand, so an instance needs no more memory than the long.
+   */
+  private final long key;
 
-  private QuadTreeAddress(final String quadTree, final Wgs84Point point1, final Wgs84Point point2,
-      final Wgs84Point point3, final Wgs84Point point4, final Wgs84Point center) {
-    this.quadTree = Objects.requireNonNull(quadTree);
-    this.upperLeftPoint = Objects.requireNonNull(point1);
-    this.upperRightPoint = Objects.requireNonNull(point2);
-    this.lowerLeftPoint = Objects.requireNonNull(point3);
-    this.lowerRightPoint = Objects.requireNonNull(point4);
-    this.centerPoint = Objects.requireNonNull(center);
+  private QuadTreeAddress(final long key) {
+    this.key = key;
   }
 
   /**
@@ -82,62 +62,11 @@ public final class QuadTreeAddress {
       throw new IllegalArgumentException("Invalid depth: " + depth);
     }
 
-    String quadTreeString = String.valueOf(QuadTreeAddress.START_CHAR);
-
-    int latUpperThreshold = QuadTreeAddress.MAX_LAT;
-    int latLowerThreshold = QuadTreeAddress.MIN_LAT;
-    int lonUpperThreshold = QuadTreeAddress.MAX_LON;
-    int lonLowerThreshold = QuadTreeAddress.MIN_LON;
-
-    int latThreshold = 0;
-    int lonThreshold = 0;
-
-    byte latCurrentSector = 0;
-    byte lonCurrentSector = 0;
-
-    for (int i = 0; i < depth; i++) {
-
-      latThreshold = (latUpperThreshold + latLowerThreshold) / 2;
-      lonThreshold = (lonUpperThreshold + lonLowerThreshold) / 2;
-
-      if (point.getLatitudeInTenthMicroDegree() >= latThreshold) {
-        latLowerThreshold = latThreshold;
-        latCurrentSector = 0b000;
-      } else {
-        latUpperThreshold = latThreshold;
-        latCurrentSector = 0b010;
-      }
-
-      if (point.getLongitudeInTenthMicroDegree() >= lonThreshold) {
-        lonLowerThreshold = lonThreshold;
-        lonCurrentSector = 0b001;
-      } else {
-        lonUpperThreshold = lonThreshold;
-        lonCurrentSector = 0b000;
-      }
-
-      final int sector = latCurrentSector | lonCurrentSector;
-      if (sector == QuadTreeAddress.I_SECTOR) {
-        quadTreeString += QuadTreeAddress.I;
-      } else if (sector == QuadTreeAddress.II_SECTOR) {
-        quadTreeString += QuadTreeAddress.II;
-      } else if (sector == QuadTreeAddress.III_SECTOR) {
-        quadTreeString += QuadTreeAddress.III;
-      } else if (sector == QuadTreeAddress.IV_SECTOR) {
-        quadTreeString += QuadTreeAddress.IV;
-      }
-
-    }
-
-    return new QuadTreeAddress(quadTreeString, new Wgs84Point(latUpperThreshold, lonLowerThreshold),
-        new Wgs84Point(latUpperThreshold, lonUpperThreshold),
-        new Wgs84Point(latLowerThreshold, lonLowerThreshold),
-        new Wgs84Point(latLowerThreshold, lonUpperThreshold),
-        new Wgs84Point((latUpperThreshold + latLowerThreshold) / 2,
-            (lonUpperThreshold + lonLowerThreshold) / 2));
+    final long key = QuadKeys.encode(point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree(), depth);
+    return new QuadTreeAddress(key);
   }
 
-
   /**
    * Creates the QuadTree from given QuadTree String.
    *
@@ -152,49 +81,38 @@ public final class QuadTreeAddress {
    *         {@value QuadTreeAddress#IV}
    */
   public static QuadTreeAddress createFromQuadTreeString(final String quadTree) {
+    return new QuadTreeAddress(QuadTreeAddress.parse(quadTree));
+  }
 
-    if (!QuadTreeAddress.isValid(quadTree)) {
-      throw new IllegalArgumentException("QuadTree is invalid");
+  /**
+   * Creates the QuadTree from given QuadTree String if it is valid. Unlike
+   * {@link #createFromQuadTreeString(String)} it does not throw on malformed input.
+   *
+   * @param quadTree the QuadTree String. May be null
+   * @return the {@link QuadTreeAddress} or an empty optional if quadTree is null or invalid
+   */
+  public static Optional<QuadTreeAddress> tryParse(final String quadTree) {
+    if (quadTree == null) {
+      return Optional.empty();
     }
-
-    int latUpperThreshold = QuadTreeAddress.MAX_LAT;
-    int latLowerThreshold = QuadTreeAddress.MIN_LAT;
-    int lonUpperThreshold = QuadTreeAddress.MAX_LON;
-    int lonLowerThreshold = QuadTreeAddress.MIN_LON;
-
-    int centerLat = 0;
-    int centerLon = 0;
-
-    for (int i = 1; i < quadTree.length(); i++) {
-
-      centerLat = (latUpperThreshold + latLowerThreshold) / 2;
-      centerLon = (lonUpperThreshold + lonLowerThreshold) / 2;
-
-      final char quadTreeSector = quadTree.charAt(i);
-      if (quadTreeSector == QuadTreeAddress.I) {
-        latLowerThreshold = centerLat;
-        lonUpperThreshold = centerLon;
-      } else if (quadTreeSector == QuadTreeAddress.II) {
-        latLowerThreshold = centerLat;
-        lonLowerThreshold = centerLon;
-      } else if (quadTreeSector == QuadTreeAddress.III) {
-        latUpperThreshold = centerLat;
-        lonUpperThreshold = centerLon;
-      } else if (quadTreeSector == QuadTreeAddress.IV) {
-        latUpperThreshold = centerLat;
-        lonLowerThreshold = centerLon;
-      } else {
-        throw new IllegalArgumentException("Invalid char in quadTree string: " + quadTreeSector);
-      }
+    final long key = QuadKeyText.tryParse(quadTree);
+    if (key == QuadKeys.NO_KEY) {
+      return Optional.empty();
     }
+    return Optional.of(new QuadTreeAddress(key));
+  }
 
-    return new QuadTreeAddress(quadTree, new Wgs84Point(latUpperThreshold, lonLowerThreshold),
-        new Wgs84Point(latUpperThreshold, lonUpperThreshold),
-        new Wgs84Point(latLowerThreshold, lonLowerThreshold),
-        new Wgs84Point(latLowerThreshold, lonUpperThreshold),
-        new Wgs84Point((latUpperThreshold + latLowerThreshold) / 2,
-            (lonUpperThreshold + lonLowerThreshold) / 2));
-
+  /**
+   * Creates the QuadTree from given number representation.
+   *
+   * @param minimizedQuadTree the number representation, see {@link #toNumberRepresentation()}
+   * @return the {@link QuadTreeAddress}
+   * @throws IllegalArgumentException if minimizedQuadTree is not valid, see
+   *         {@link QuadKeys#isValid(long)}
+   */
+  public static QuadTreeAddress createFromNumberRepresentation(final long minimizedQuadTree) {
+    QuadKeys.checkKey(minimizedQuadTree);
+    return new QuadTreeAddress(minimizedQuadTree);
   }
 
   /**
@@ -206,11 +124,35 @@ public final class QuadTreeAddress {
    */
   public static boolean isValid(final String quadTree) {
     Objects.requireNonNull(quadTree);
+    final int length = quadTree.length();
     // Check if QuadTree is deeper than allowed
-    if ((quadTree.length() - 1) > QuadTreeAddress.MAX_DEPTH) {
+    if ((length == 0) || ((length - 1) > QuadTreeAddress.MAX_DEPTH)) {
       return false;
     }
-    return quadTree.matches(QuadTreeAddress.VALID_PATTERN);
+    if (quadTree.charAt(0) != QuadTreeAddress.START_CHAR) {
+      return false;
+    }
+    for (int i = 1; i < length; i++) {
+      final char sector = quadTree.charAt(i);
+      if ((sector < QuadTreeAddress.I) || (sector > QuadTreeAddress.IV)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void checkValid(final String quadTree) {
+    if (!QuadTreeAddress.isValid(quadTree)) {
+      throw new IllegalArgumentException("QuadTree is invalid");
+    }
+  }
+
+  /**
+   * Validates and converts the QuadTree in a single pass.
+   */
+  private static long parse(final String quadTree) {
+    Objects.requireNonNull(quadTree);
+    return QuadKeyText.parse(quadTree);
   }
 
   /**
@@ -222,7 +164,8 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if point is invalid
    */
   public boolean contains(final Wgs84Point point) {
-    return QuadTreeAddress.contains(this.quadTree, point);
+    return QuadKeys.contains(this.key, point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree());
   }
 
   /**
@@ -237,15 +180,12 @@ public final class QuadTreeAddress {
   public static boolean contains(final String quadTree, final Wgs84Point point) {
     Objects.requireNonNull(quadTree);
     Objects.requireNonNull(point);
-    if (!QuadTreeAddress.isValid(quadTree)) {
+    final long key = QuadKeyText.tryParse(quadTree);
+    if (key == QuadKeys.NO_KEY) {
       throw new IllegalArgumentException("Invalid point or quadTree");
     }
-    final String quadTreeOfPoint =
-        QuadTreeAddress.createFromPoint(point, QuadTreeAddress.MAX_DEPTH).quadTree;
-    if (quadTreeOfPoint.contains(quadTree)) {
-      return true;
-    }
-    return false;
+    return QuadKeys.contains(key, point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree());
   }
 
   /**
@@ -258,13 +198,12 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if quadTree or otherQuadTree is invalid
    */
   public static boolean contains(final String quadTree, final String otherQuadTree) {
-    if (!QuadTreeAddress.isValid(quadTree) || !QuadTreeAddress.isValid(otherQuadTree)) {
+    final long key = QuadKeyText.tryParse(quadTree);
+    final long otherKey = QuadKeyText.tryParse(otherQuadTree);
+    if ((key == QuadKeys.NO_KEY) || (otherKey == QuadKeys.NO_KEY)) {
       throw new IllegalArgumentException("At least one QuadTree is not valid");
     }
-    if (otherQuadTree.contains(quadTree)) {
-      return true;
-    }
-    return false;
+    return QuadKeys.contains(key, otherKey);
   }
 
   /**
@@ -276,7 +215,11 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if otherQuadTree is invalid
    */
   public boolean contains(final String otherQuadTree) {
-    return QuadTreeAddress.contains(this.quadTree, otherQuadTree);
+    final long otherKey = QuadKeyText.tryParse(otherQuadTree);
+    if (otherKey == QuadKeys.NO_KEY) {
+      throw new IllegalArgumentException("At least one QuadTree is not valid");
+    }
+    return QuadKeys.contains(this.key, otherKey);
   }
 
   /**
@@ -288,7 +231,7 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if otherQuadTree is invalid
    */
   public boolean contains(final QuadTreeAddress otherQuadTree) {
-    return this.contains(otherQuadTree.quadTree);
+    return QuadKeys.contains(this.key, otherQuadTree.key);
   }
 
   /**
@@ -300,17 +243,25 @@ public final class QuadTreeAddress {
    * @return the shortened QuadTree or the already shorter original QuadTree
    */
   public static QuadTreeAddress shortenToDepth(final String quadTree, final int shortenToDepth) {
-    if (!QuadTreeAddress.isValid(quadTree)) {
-      throw new IllegalArgumentException("QuadTree is invalid");
-    }
-    if (shortenToDepth > QuadTreeAddress.getDepth(quadTree)) {
-      return QuadTreeAddress.createFromQuadTreeString(quadTree);
-    }
-    return QuadTreeAddress.createFromQuadTreeString(quadTree.substring(0, shortenToDepth + 1));
+    return new QuadTreeAddress(QuadTreeAddress.parse(quadTree)).shortenTo(shortenToDepth);
   }
 
+  /**
+   * Shortens this QuadTree to given depth. If this QuadTree is already shorter, it will be returned
+   * unchanged.
+   *
+   * @param shortenToDepth the depth of the shortened QuadTree. Must not be negative
+   * @return the shortened QuadTree or this already shorter QuadTree
+   * @throws IllegalArgumentException if shortenToDepth is negative
+   */
   public QuadTreeAddress shortenTo(final int shortenToDepth) {
-    return QuadTreeAddress.shortenToDepth(this.quadTree, shortenToDepth);
+    if (shortenToDepth < 0) {
+      throw new IllegalArgumentException("Invalid depth: " + shortenToDepth);
+    }
+    if (shortenToDepth >= this.getDepth()) {
+      return this;
+    }
+    return new QuadTreeAddress(QuadKeys.ancestorOf(this.key, shortenToDepth));
   }
 
   /**
@@ -319,7 +270,7 @@ public final class QuadTreeAddress {
    * @return the depth of the quadTree.
    */
   public int getDepth() {
-    return QuadTreeAddress.getDepth(this.quadTree);
+    return QuadKeys.depthOf(this.key);
   }
 
   /**
@@ -329,9 +280,11 @@ public final class QuadTreeAddress {
    * @return the depth of the quadTree.
    */
   public static int getDepth(final String quadTree) {
-    if (!QuadTreeAddress.isValid(quadTree)) {
-      throw new IllegalArgumentException("QuadTree is invalid");
-    }
+    QuadTreeAddress.checkValid(quadTree);
+    return QuadTreeAddress.getDepthOfValid(quadTree);
+  }
+
+  private static int getDepthOfValid(final String quadTree) {
     return quadTree.length() - 1;
   }
 
@@ -344,19 +297,24 @@ public final class QuadTreeAddress {
    */
   public String toGeoJson() {
 
+    final Wgs84Point upperLeftPoint = this.getUpperLeftPoint();
+    final Wgs84Point upperRightPoint = this.getUpperRightPoint();
+    final Wgs84Point lowerLeftPoint = this.getLowerLeftPoint();
+    final Wgs84Point lowerRightPoint = this.getLowerRightPoint();
+
     final StringBuilder sb = new StringBuilder();
-    sb.append("{ \"type\": \"Feature\", \"properties\": {\"quadTree\": \"" + this.quadTree
+    sb.append("{ \"type\": \"Feature\", \"properties\": {\"quadTree\": \"" + this.getQuadTree()
         + "\"}, \"geometry\": " + "{ \"type\": \"Polygon\", \"coordinates\": [ [ ");
-    sb.append("[" + this.upperLeftPoint.getLongitudeInDegree() + ", "
-        + this.upperLeftPoint.getLatitudeInDegree() + "], ");
-    sb.append("[" + this.upperRightPoint.getLongitudeInDegree() + ", "
-        + this.upperRightPoint.getLatitudeInDegree() + "], ");
-    sb.append("[" + this.lowerRightPoint.getLongitudeInDegree() + ", "
-        + this.lowerRightPoint.getLatitudeInDegree() + "], ");
-    sb.append("[" + this.lowerLeftPoint.getLongitudeInDegree() + ", "
-        + this.lowerLeftPoint.getLatitudeInDegree() + "], ");
-    sb.append("[" + this.upperLeftPoint.getLongitudeInDegree() + ", "
-        + this.upperLeftPoint.getLatitudeInDegree() + "]");
+    sb.append("[" + upperLeftPoint.getLongitudeInDegree() + ", "
+        + upperLeftPoint.getLatitudeInDegree() + "], ");
+    sb.append("[" + upperRightPoint.getLongitudeInDegree() + ", "
+        + upperRightPoint.getLatitudeInDegree() + "], ");
+    sb.append("[" + lowerRightPoint.getLongitudeInDegree() + ", "
+        + lowerRightPoint.getLatitudeInDegree() + "], ");
+    sb.append("[" + lowerLeftPoint.getLongitudeInDegree() + ", "
+        + lowerLeftPoint.getLatitudeInDegree() + "], ");
+    sb.append("[" + upperLeftPoint.getLongitudeInDegree() + ", "
+        + upperLeftPoint.getLatitudeInDegree() + "]");
     sb.append("] ] } }");
 
     return sb.toString();
@@ -379,7 +337,11 @@ public final class QuadTreeAddress {
    */
   public static Collection<String> getNeighbors(final QuadTreeAddress quadTree)
       throws IllegalArgumentException {
-    return QuadTreeAddress.getNeighbors(quadTree.getQuadTree());
+    if (quadTree.getDepth() < 2) {
+      throw new IllegalArgumentException(
+          "QuadTree must have a depth of at least 2 to have 8 neighbors");
+    }
+    return QuadTreeAddress.getNeighborsOfValid(quadTree.key);
   }
 
   /**
@@ -389,31 +351,28 @@ public final class QuadTreeAddress {
    */
   public static Collection<String> getNeighbors(final String quadTree)
       throws IllegalArgumentException {
-    if (!QuadTreeAddress.isValid(quadTree) || (QuadTreeAddress.getDepth(quadTree) < 2)) {
+    final long key = QuadKeyText.tryParse(quadTree);
+    if ((key == QuadKeys.NO_KEY) || (QuadKeys.depthOf(key) < 2)) {
       throw new IllegalArgumentException(
           "QuadTree must have a depth of at least 2 to have 8 neighbors");
     }
-    final var returnSet = new HashSet<String>();
-
-    // North
-    final String northernNeighbor = QuadTreeAddress.getNorthernNeighbor(quadTree);
-    returnSet.add(northernNeighbor);
-    // NorthEast
-    returnSet.add(QuadTreeAddress.getEasternNeighbor(northernNeighbor));
-    // NorthWest
-    returnSet.add(QuadTreeAddress.getWesternNeighbor(northernNeighbor));
-    // South
-    final String southernNeighbor = QuadTreeAddress.getSouthernNeighbor(quadTree);
-    returnSet.add(southernNeighbor);
-    // SouthEast
-    returnSet.add(QuadTreeAddress.getEasternNeighbor(southernNeighbor));
-    // SouthWest
-    returnSet.add(QuadTreeAddress.getWesternNeighbor(southernNeighbor));
-    // East
-    returnSet.add(QuadTreeAddress.getEasternNeighbor(quadTree));
-    // West
-    returnSet.add(QuadTreeAddress.getWesternNeighbor(quadTree));
+    return QuadTreeAddress.getNeighborsOfValid(key);
+  }
 
+  /**
+   * Unlike {@link QuadKeys#getNeighbors(long, long[], int)} the rows wrap around at the poles, so
+   * there are always 8 neighbors.
+   */
+  private static Collection<String> getNeighborsOfValid(final long key) {
+    final var returnSet = new HashSet<String>();
+    for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+      for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+        if ((rowOffset != 0) || (columnOffset != 0)) {
+          returnSet.add(QuadKeyText.toString(
+              QuadKeys.neighborOf(key, rowOffset, columnOffset, true)));
+        }
+      }
+    }
     return returnSet;
   }
 
@@ -423,7 +382,7 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if QuadTree String is not valid
    */
   public static String getNorthernNeighbor(final String quadTree) throws IllegalArgumentException {
-    return QuadTreeAddress.shiftVertically(quadTree, false);
+    return QuadTreeAddress.shift(quadTree, -1, 0);
   }
 
   /**
@@ -432,7 +391,7 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if QuadTree String is not valid
    */
   public static String getSouthernNeighbor(final String quadTree) {
-    return QuadTreeAddress.shiftVertically(quadTree, true);
+    return QuadTreeAddress.shift(quadTree, 1, 0);
   }
 
   /**
@@ -441,7 +400,7 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if QuadTree String is not valid
    */
   public static String getEasternNeighbor(final String quadTree) {
-    return QuadTreeAddress.shiftHorizontal(quadTree, true);
+    return QuadTreeAddress.shift(quadTree, 0, -1);
   }
 
   /**
@@ -450,65 +409,20 @@ public final class QuadTreeAddress {
    * @throws IllegalArgumentException if QuadTree String is not valid
    */
   public static String getWesternNeighbor(final String quadTree) {
-    return QuadTreeAddress.shiftHorizontal(quadTree, false);
+    return QuadTreeAddress.shift(quadTree, 0, 1);
   }
 
-  private static String shiftHorizontal(final String quadTree, final boolean left) {
-    if (!QuadTreeAddress.isValid(quadTree) || (QuadTreeAddress.getDepth(quadTree) < 1)) {
-      throw new IllegalArgumentException("Not a valid QuadTree or QuadTree is not deep enough");
-    }
-    final char[] northernNeighbor = quadTree.toCharArray();
-    boolean shift = false;
-    for (int index = quadTree.length() - 1; index > 0; index--) {
-      final char coordinate = quadTree.charAt(index);
-      if (coordinate == QuadTreeAddress.I) {
-        northernNeighbor[index] = QuadTreeAddress.II;
-        shift = (true == left);
-      } else if (coordinate == QuadTreeAddress.II) {
-        northernNeighbor[index] = QuadTreeAddress.I;
-        shift = (false == left);
-      } else if (coordinate == QuadTreeAddress.III) {
-        northernNeighbor[index] = QuadTreeAddress.IV;
-        shift = (true == left);
-      } else if (coordinate == QuadTreeAddress.IV) {
-        northernNeighbor[index] = QuadTreeAddress.III;
-        shift = (false == left);
-      }
-
-      if (!shift || (index == 1)) {
-        break;
-      }
-    }
-    return String.valueOf(northernNeighbor);
-  }
-
-  private static String shiftVertically(final String quadTree, final boolean down) {
-    if (!QuadTreeAddress.isValid(quadTree) || (QuadTreeAddress.getDepth(quadTree) < 1)) {
+  /**
+   * Moves the QuadTree by one row or column. Unlike {@link QuadKeys} the rows wrap around at the
+   * poles. The column offsets keep the direction the String neighbors always had.
+   */
+  private static String shift(final String quadTree, final int rowOffset,
+      final int columnOffset) {
+    final long key = QuadKeyText.tryParse(quadTree);
+    if ((key == QuadKeys.NO_KEY) || (QuadKeys.depthOf(key) < 1)) {
       throw new IllegalArgumentException("Not a valid QuadTree or QuadTree is not deep enough");
     }
-    final char[] northernNeighbor = quadTree.toCharArray();
-    boolean shift = false;
-    for (int index = quadTree.length() - 1; index > 0; index--) {
-      final char coordinate = quadTree.charAt(index);
-      if (coordinate == QuadTreeAddress.I) {
-        northernNeighbor[index] = QuadTreeAddress.III;
-        shift = (false == down);
-      } else if (coordinate == QuadTreeAddress.II) {
-        northernNeighbor[index] = QuadTreeAddress.IV;
-        shift = (false == down);
-      } else if (coordinate == QuadTreeAddress.III) {
-        northernNeighbor[index] = QuadTreeAddress.I;
-        shift = (true == down);
-      } else if (coordinate == QuadTreeAddress.IV) {
-        northernNeighbor[index] = QuadTreeAddress.II;
-        shift = (true == down);
-      }
-
-      if (!shift || (index == 1)) {
-        break;
-      }
-    }
-    return String.valueOf(northernNeighbor);
+    return QuadKeyText.toString(QuadKeys.neighborOf(key, rowOffset, columnOffset, true));
   }
 
   /**
@@ -578,8 +492,7 @@ public final class QuadTreeAddress {
    * @see #toNumberRepresentation(QuadTreeAddress)
    */
   public static long toNumberRepresentation(final String quadTreeString) {
-    final QuadTreeAddress quadTree = QuadTreeAddress.createFromQuadTreeString(quadTreeString);
-    return QuadTreeAddress.toNumberRepresentation(quadTree);
+    return QuadTreeAddress.parse(quadTreeString);
   }
 
   /**
@@ -612,29 +525,10 @@ public final class QuadTreeAddress {
    *
    * @param quadTree the quad tree to minimize
    * @return a long representing the quad tree area
+   * @see QuadKeys
    */
   public static long toNumberRepresentation(final QuadTreeAddress quadTree) {
-    long sectors = 0;
-    final long depth = quadTree.getDepth() * QuadTreeAddress.MINIMIZED_DEPTH_OFFSET;
-    for (int i = quadTree.getDepth(); i > 0; i--) {
-      final char sector = quadTree.getQuadTree().charAt(i);
-      if (sector == QuadTreeAddress.I) {
-        sectors += QuadTreeAddress.I_SECTOR;
-      } else if (sector == QuadTreeAddress.II) {
-        sectors += QuadTreeAddress.II_SECTOR;
-      } else if (sector == QuadTreeAddress.III) {
-        sectors += QuadTreeAddress.III_SECTOR;
-      } else if (sector == QuadTreeAddress.IV) {
-        sectors += QuadTreeAddress.IV_SECTOR;
-      } else {
-        throw new IllegalStateException("Unknown sector, check implementation");
-      }
-      if ((i - 1) != 0) {
-        sectors <<= 2;
-      }
-
-    }
-    return depth + sectors;
+    return quadTree.key;
   }
 
   /**
@@ -649,68 +543,52 @@ public final class QuadTreeAddress {
       throw new IllegalArgumentException("Invalid minimized QuadTree");
     }
     final long preMaskedQuadTree = minimizedQuadTree & QuadTreeAddress.MINIMIZED_PRE_MASK;
-
-
-    final int depth = (int) (preMaskedQuadTree / QuadTreeAddress.MINIMIZED_DEPTH_OFFSET);
-
+    final int depth = QuadKeys.depthOf(preMaskedQuadTree);
     if (depth > QuadTreeAddress.MAX_DEPTH) {
       throw new IllegalArgumentException("Invalid minimized QuadTree");
     }
-
-    final char[] quadTreeChars = new char[depth];
-    for (int i = 0; i < depth; i++) {
-      final byte sector =
-          (byte) ((preMaskedQuadTree >> (2 * i)) & QuadTreeAddress.MINIMIZED_SECTOR_MASK);
-      if (sector == QuadTreeAddress.I_SECTOR) {
-        quadTreeChars[i] = QuadTreeAddress.I;
-      } else if (sector == QuadTreeAddress.II_SECTOR) {
-        quadTreeChars[i] = QuadTreeAddress.II;
-      } else if (sector == QuadTreeAddress.III_SECTOR) {
-        quadTreeChars[i] = QuadTreeAddress.III;
-      } else if (sector == QuadTreeAddress.IV_SECTOR) {
-        quadTreeChars[i] = QuadTreeAddress.IV;
-      } else {
-        throw new IllegalStateException("Unknown sector, check implementation");
-      }
-    }
-
-    return new String(new byte[] {QuadTreeAddress.START_CHAR}) + new String(quadTreeChars);
+    // Sectors below the depth are ignored
+    return QuadKeyText.toString(QuadKeys.ancestorOf(preMaskedQuadTree, depth));
   }
 
   public String getQuadTree() {
-    return this.quadTree;
+    return QuadKeyText.toString(this.key);
   }
 
   public Wgs84Point getUpperLeftPoint() {
-    return this.upperLeftPoint;
+    return new Wgs84Point(QuadKeys.getUpperLatitude(this.key), QuadKeys.getLeftLongitude(this.key));
   }
 
   public Wgs84Point getUpperRightPoint() {
-    return this.upperRightPoint;
+    return new Wgs84Point(QuadKeys.getUpperLatitude(this.key),
+        QuadKeys.getRightLongitude(this.key));
   }
 
   public Wgs84Point getLowerLeftPoint() {
-    return this.lowerLeftPoint;
+    return new Wgs84Point(QuadKeys.getLowerLatitude(this.key), QuadKeys.getLeftLongitude(this.key));
   }
 
   public Wgs84Point getLowerRightPoint() {
-    return this.lowerRightPoint;
+    return new Wgs84Point(QuadKeys.getLowerLatitude(this.key),
+        QuadKeys.getRightLongitude(this.key));
   }
 
   public Wgs84Point getCenterPoint() {
-    return this.centerPoint;
+    return new Wgs84Point(QuadKeys.getCenterLatitude(this.key),
+        QuadKeys.getCenterLongitude(this.key));
   }
 
   @Override
   public String toString() {
-    return "QuadTree [quadTree=" + this.quadTree + ", upperLeftPoint=" + this.upperLeftPoint
-        + ", upperRightPoint=" + this.upperRightPoint + ", lowerLeftPoint=" + this.lowerLeftPoint
-        + ", lowerRightPoint=" + this.lowerRightPoint + ", centerPoint=" + this.centerPoint + "]";
+    return "QuadTree [quadTree=" + this.getQuadTree() + ", upperLeftPoint="
+        + this.getUpperLeftPoint() + ", upperRightPoint=" + this.getUpperRightPoint()
+        + ", lowerLeftPoint=" + this.getLowerLeftPoint() + ", lowerRightPoint="
+        + this.getLowerRightPoint() + ", centerPoint=" + this.getCenterPoint() + "]";
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(this.quadTree);
+    return Long.hashCode(this.key);
   }
 
   @Override
@@ -725,7 +603,7 @@ public final class QuadTreeAddress {
       return false;
     }
     final QuadTreeAddress other = (QuadTreeAddress) obj;
-    return Objects.equals(this.quadTree, other.quadTree);
+    return this.key == other.key;
   }
 
 
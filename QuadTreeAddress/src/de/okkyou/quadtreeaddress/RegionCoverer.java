@@ -0,0 +1,232 @@
+package de.okkyou.quadtreeaddress;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Covers regions with QuadTrees of mixed depths. The region is subdivided from the root level by
+ * level, so large QuadTrees are refined before small ones. A QuadTree completely within the region
+ * is taken as is, a QuadTree on the border of the region is subdivided until the maximum depth or
+ * the maximum number of QuadTrees is reached.
+ * </p>
+ *
+ * <p>
+ * The exterior covering contains every position of the region and the interior covering only
+ * QuadTrees completely within the region. Four siblings of a covering are replaced by their parent
+ * unless it is above the minimum depth. The keys are returned in the order of
+ * {@link LinearQuadKeys}, so ancestors come first and neighbors tend to be close.
+ * </p>
+ *
+ * <p>
+ * The maximum number of QuadTrees is a budget and not a guarantee, since every QuadTree of the
+ * region at the minimum depth is part of the covering.
+ * </p>
+ */
+public final class RegionCoverer {
+
+  private final int minDepth;
+  private final int maxDepth;
+  private final int maxCells;
+
+  /**
+   * Creates a coverer.
+   *
+   * @param minDepth the minimum depth of the QuadTrees. Must be within [0, maxDepth]
+   * @param maxDepth the maximum depth of the QuadTrees. Must be within [minDepth,
+   *        {@value QuadTreeAddress#MAX_DEPTH}]
+   * @param maxCells the number of QuadTrees the covering should not exceed. Must be positive
+   * @throws IllegalArgumentException if a parameter is out of range
+   */
+  public RegionCoverer(final int minDepth, final int maxDepth, final int maxCells) {
+    if ((minDepth < 0) || (minDepth > maxDepth) || (maxDepth > QuadTreeAddress.MAX_DEPTH)) {
+      throw new IllegalArgumentException("Invalid depths: " + minDepth + " to " + maxDepth);
+    }
+    if (maxCells < 1) {
+      throw new IllegalArgumentException("Invalid maximum number of cells: " + maxCells);
+    }
+    this.minDepth = minDepth;
+    this.maxDepth = maxDepth;
+    this.maxCells = maxCells;
+  }
+
+  public int getMinDepth() {
+    return this.minDepth;
+  }
+
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  public int getMaxCells() {
+    return this.maxCells;
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees that contain every position of the given rectangle. The
+   * rectangle crosses the antimeridian if west is greater than east.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return the packed keys
+   * @throws IllegalArgumentException if a border is out of range or north is south of south
+   */
+  public long[] getCovering(final int north, final int south, final int west, final int east) {
+    return this.getCovering(new BoxRegion(north, south, west, east));
+  }
+
+  /**
+   * Returns the packed keys of QuadTrees that are completely within the given rectangle. The
+   * rectangle crosses the antimeridian if west is greater than east.
+   *
+   * @param north the northern border in tenth micro degree. Must not be south of south
+   * @param south the southern border in tenth micro degree
+   * @param west the western border in tenth micro degree
+   * @param east the eastern border in tenth micro degree
+   * @return the packed keys. Empty if no QuadTree up to the maximum depth fits in the rectangle
+   * @throws IllegalArgumentException if a border is out of range or north is south of south
+   */
+  public long[] getInteriorCovering(final int north, final int south, final int west,
+      final int east) {
+    return this.getInteriorCovering(new BoxRegion(north, south, west, east));
+  }
+
+  long[] getCovering(final CellRegion region) {
+    final LongList inside = new LongList();
+    final LongList boundary = new LongList();
+    this.cover(region, false, inside, boundary);
+    for (int i = 0; i < boundary.size(); i++) {
+      inside.add(boundary.get(i));
+    }
+    return this.normalize(inside);
+  }
+
+  long[] getInteriorCovering(final CellRegion region) {
+    final LongList inside = new LongList();
+    this.cover(region, true, inside, new LongList());
+    return this.normalize(inside);
+  }
+
+  RegionCovering getSeparateCovering(final CellRegion region) {
+    final LongList inside = new LongList();
+    final LongList boundary = new LongList();
+    this.cover(region, false, inside, boundary);
+    return new RegionCovering(this.normalize(inside), this.normalize(boundary));
+  }
+
+  /**
+   * Collects the QuadTrees within the region into inside and, for the exterior covering, the
+   * QuadTrees on the border of the region into boundary.
+   */
+  void cover(final CellRegion region, final boolean interior, final LongList inside,
+      final LongList boundary) {
+    LongList current = new LongList();
+    LongList next = new LongList();
+    final long[] children = new long[4];
+    final int[] relations = new int[4];
+
+    final int rootRelation = RegionCoverer.classify(region, QuadKeys.ROOT);
+    if ((rootRelation == CellRegion.INSIDE) && (this.minDepth == 0)) {
+      inside.add(QuadKeys.ROOT);
+      return;
+    }
+    if (rootRelation != CellRegion.OUTSIDE) {
+      current.add(QuadKeys.ROOT);
+    }
+
+    for (int depth = 0; !current.isEmpty(); depth++) {
+      final boolean budgeted = depth >= this.minDepth;
+      for (int i = 0; i < current.size(); i++) {
+        final long cell = current.get(i);
+        if (depth == this.maxDepth) {
+          if (!interior) {
+            boundary.add(cell);
+          }
+          continue;
+        }
+        if (budgeted && interior && (inside.size() >= this.maxCells)) {
+          return;
+        }
+
+        QuadKeys.getChildren(cell, children, 0);
+        int intersecting = 0;
+        for (int c = 0; c < children.length; c++) {
+          relations[c] = RegionCoverer.classify(region, children[c]);
+          if (relations[c] != CellRegion.OUTSIDE) {
+            intersecting++;
+          }
+        }
+        if (budgeted && !interior) {
+          final int count = inside.size() + boundary.size() + (current.size() - i) + next.size();
+          if (((count - 1) + intersecting) > this.maxCells) {
+            boundary.add(cell);
+            continue;
+          }
+        }
+
+        for (int c = 0; c < children.length; c++) {
+          if ((relations[c] == CellRegion.INSIDE) && ((depth + 1) >= this.minDepth)) {
+            if (!interior || (inside.size() < this.maxCells)) {
+              inside.add(children[c]);
+            }
+          } else if (relations[c] != CellRegion.OUTSIDE) {
+            next.add(children[c]);
+          }
+        }
+      }
+      final LongList processed = current;
+      current = next;
+      next = processed;
+      next.clear();
+    }
+  }
+
+  static int classify(final CellRegion region, final long key) {
+    final int depth = QuadKeys.depthOf(key);
+    final long sectors = QuadKeys.sectorsOf(key);
+    final int row = QuadGrid.toRow(sectors, depth);
+    final int column = QuadGrid.toColumn(sectors, depth);
+    return region.classify(QuadGrid.rowToUpperLatitude(row, depth),
+        QuadGrid.rowToLowerLatitude(row, depth), QuadGrid.columnToLeftLongitude(column, depth),
+        QuadGrid.columnToRightLongitude(column, depth));
+  }
+
+  /**
+   * Sorts the keys in linear order and replaces 4 siblings by their parent as long as the parent is
+   * not above the minimum depth.
+   */
+  long[] normalize(final LongList keys) {
+    final long[] linearKeys = new long[keys.size()];
+    for (int i = 0; i < linearKeys.length; i++) {
+      linearKeys[i] = LinearQuadKeys.fromQuadKey(keys.get(i));
+    }
+    Arrays.sort(linearKeys);
+
+    final LongList merged = new LongList(linearKeys.length);
+    for (final long linearKey : linearKeys) {
+      merged.add(LinearQuadKeys.toQuadKey(linearKey));
+      while (merged.size() >= 4) {
+        final long last = merged.get(merged.size() - 1);
+        final int depth = QuadKeys.depthOf(last);
+        if ((depth <= this.minDepth) || (QuadKeys.getSector(last, depth) != 3)) {
+          break;
+        }
+        final long parent = QuadKeys.ancestorOf(last, depth - 1);
+        boolean siblings = true;
+        for (int sector = 0; sector < 3; sector++) {
+          siblings &= merged.get(merged.size() - 4 + sector)
+              == QuadKeys.childOf(parent, depth - 1, sector);
+        }
+        if (!siblings) {
+          break;
+        }
+        for (int sector = 0; sector < 4; sector++) {
+          merged.removeLast();
+        }
+        merged.add(parent);
+      }
+    }
+    return merged.toArray();
+  }
+}
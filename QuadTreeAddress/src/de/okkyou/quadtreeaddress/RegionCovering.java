@@ -0,0 +1,44 @@
+package de.okkyou.quadtreeaddress;
+
+/**
+ * The result of a covering that distinguishes the QuadTrees completely within the region from the
+ * QuadTrees on its border. Both are packed keys in the order of {@link LinearQuadKeys}. Together
+ * they contain every position of the region.
+ */
+public final class RegionCovering {
+
+  private final long[] interior;
+  private final long[] boundary;
+
+  RegionCovering(final long[] interior, final long[] boundary) {
+    this.interior = interior;
+    this.boundary = boundary;
+  }
+
+  /**
+   * Returns the QuadTrees completely within the region.
+   *
+   * @return a copy of the packed keys
+   */
+  public long[] getInterior() {
+    return this.interior.clone();
+  }
+
+  /**
+   * Returns the QuadTrees that intersect the border of the region.
+   *
+   * @return a copy of the packed keys
+   */
+  public long[] getBoundary() {
+    return this.boundary.clone();
+  }
+
+  /**
+   * Returns the number of QuadTrees of the interior and the boundary.
+   *
+   * @return the total number of packed keys
+   */
+  public int size() {
+    return this.interior.length + this.boundary.length;
+  }
+}
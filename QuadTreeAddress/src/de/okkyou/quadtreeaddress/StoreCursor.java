@@ -0,0 +1,27 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.IOException;
+
+/**
+ * Iterates the records of a part of a {@link PointStore} in ascending order of their linear leaf
+ * keys and ids. A record without payload marks the deletion of older records with the same key and
+ * id.
+ */
+interface StoreCursor {
+
+  /**
+   * Moves to the next record.
+   *
+   * @return false if there is no further record
+   */
+  boolean next() throws IOException;
+
+  long leafKey();
+
+  long id();
+
+  /**
+   * Returns the payload of the current record, or null if the record is a deletion.
+   */
+  byte[] payload();
+}
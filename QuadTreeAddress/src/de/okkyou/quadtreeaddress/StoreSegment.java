@@ -0,0 +1,329 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * An immutable file of records of a {@link PointStore} sorted by their linear leaf keys and ids.
+ * The records are grouped into blocks of about {@link #BLOCK_SIZE} bytes, which are read as a
+ * whole. The first key and id of each block are kept in memory, so a lookup reads a single block.
+ * </p>
+ *
+ * <p>
+ * A record consists of the linear leaf key, the id, the length of the payload or -1 for a deletion
+ * and the payload. The blocks are followed by the block index and a footer of
+ * {@value #FOOTER_SIZE} bytes with the level, the range of sequence numbers of the merged
+ * memtables, the number of records, the smallest and the largest leaf key and the position of the
+ * index. A segment is written to a temporary file that is renamed when complete, so a crash never
+ * leaves a partial segment.
+ * </p>
+ */
+final class StoreSegment implements Closeable {
+
+  static final int BLOCK_SIZE = 1 << 16;
+  static final int FOOTER_SIZE = 64;
+
+  private static final int MAGIC = 0x51545353;
+  private static final int VERSION = 1;
+  private static final int RECORD_HEADER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int level;
+  private final long minSequence;
+  private final long maxSequence;
+  private final long minLeafKey;
+  private final long maxLeafKey;
+  // First leaf key, first id, position and length of each block
+  private final long[] firstLeafKeys;
+  private final long[] firstIds;
+  private final long[] positions;
+  private final int[] lengths;
+
+  private StoreSegment(final Path path, final FileChannel channel, final ByteBuffer footer,
+      final ByteBuffer index, final int blockCount) {
+    this.path = path;
+    this.channel = channel;
+    this.level = footer.getInt(8);
+    this.minSequence = footer.getLong(16);
+    this.maxSequence = footer.getLong(24);
+    this.minLeafKey = footer.getLong(40);
+    this.maxLeafKey = footer.getLong(48);
+    this.firstLeafKeys = new long[blockCount];
+    this.firstIds = new long[blockCount];
+    this.positions = new long[blockCount];
+    this.lengths = new int[blockCount];
+    for (int i = 0; i < blockCount; i++) {
+      this.firstLeafKeys[i] = index.getLong();
+      this.firstIds[i] = index.getLong();
+      this.positions[i] = index.getLong();
+      this.lengths[i] = index.getInt();
+    }
+  }
+
+  /**
+   * Writes the records of the cursor into a new segment. The segment is durable when this method
+   * returns, including its entry in the directory.
+   *
+   * @return the segment, or null if the cursor has no records and no file was written
+   */
+  static StoreSegment write(final Path path, final StoreCursor records, final int level,
+      final long minSequence, final long maxSequence) throws IOException {
+    final Path temporary = path.resolveSibling(path.getFileName() + PointStore.TEMPORARY_SUFFIX);
+    final LongList index = new LongList();
+    long recordCount = 0;
+    long minLeafKey = 0;
+    long maxLeafKey = 0;
+    try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer block = ByteBuffer.allocate(StoreSegment.BLOCK_SIZE);
+      while (records.next()) {
+        final byte[] payload = records.payload();
+        final int size =
+            StoreSegment.RECORD_HEADER_SIZE + ((payload == null) ? 0 : payload.length);
+        if ((block.position() > 0) && (size > block.remaining())) {
+          StoreSegment.writeBlock(output, block, index);
+          block.clear();
+        }
+        if (size > block.remaining()) {
+          block = ByteBuffer.allocate(size);
+        }
+        if (block.position() == 0) {
+          index.add(records.leafKey());
+          index.add(records.id());
+        }
+        block.putLong(records.leafKey()).putLong(records.id())
+            .putInt((payload == null) ? -1 : payload.length);
+        if (payload != null) {
+          block.put(payload);
+        }
+        minLeafKey = (recordCount == 0) ? records.leafKey() : minLeafKey;
+        maxLeafKey = records.leafKey();
+        recordCount++;
+      }
+      if (recordCount > 0) {
+        if (block.position() > 0) {
+          StoreSegment.writeBlock(output, block, index);
+        }
+
+        final long indexPosition = output.position();
+        final int blockCount = index.size() / 4;
+        final ByteBuffer indexBuffer =
+            ByteBuffer.allocate(blockCount * StoreSegment.INDEX_ENTRY_SIZE);
+        for (int i = 0; i < index.size(); i += 4) {
+          indexBuffer.putLong(index.get(i)).putLong(index.get(i + 1)).putLong(index.get(i + 2))
+              .putInt((int) index.get(i + 3));
+        }
+        StoreSegment.writeFully(output, indexBuffer.flip());
+        final ByteBuffer footer = ByteBuffer.allocate(StoreSegment.FOOTER_SIZE);
+        footer.putInt(StoreSegment.MAGIC).putInt(StoreSegment.VERSION).putInt(level)
+            .putInt(blockCount).putLong(minSequence).putLong(maxSequence).putLong(recordCount)
+            .putLong(minLeafKey).putLong(maxLeafKey).putLong(indexPosition).flip();
+        StoreSegment.writeFully(output, footer);
+        output.force(true);
+      }
+    }
+    if (recordCount == 0) {
+      Files.delete(temporary);
+      return null;
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    // The rename must be durable before the caller deletes the log or the merged segments
+    StoreSegment.syncDirectory(path.toAbsolutePath().getParent());
+    return StoreSegment.open(path);
+  }
+
+  /**
+   * Writes the entries of the directory to the disk, so renamed files survive a crash.
+   */
+  private static void syncDirectory(final Path directory) throws IOException {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+  }
+
+  private static void writeBlock(final FileChannel output, final ByteBuffer block,
+      final LongList index) throws IOException {
+    index.add(output.position());
+    index.add(block.position());
+    StoreSegment.writeFully(output, block.flip());
+  }
+
+  private static void writeFully(final FileChannel output, final ByteBuffer source)
+      throws IOException {
+    while (source.hasRemaining()) {
+      output.write(source);
+    }
+  }
+
+  /**
+   * Opens an existing segment.
+   *
+   * @throws IOException if the file cannot be read or is no complete segment
+   */
+  static StoreSegment open(final Path path) throws IOException {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      final long size = channel.size();
+      if (size < StoreSegment.FOOTER_SIZE) {
+        throw new IOException("No segment: " + path);
+      }
+      final ByteBuffer footer = StoreSegment.read(channel, size - StoreSegment.FOOTER_SIZE,
+          StoreSegment.FOOTER_SIZE);
+      if ((footer.getInt(0) != StoreSegment.MAGIC) || (footer.getInt(4) != StoreSegment.VERSION)) {
+        throw new IOException("No segment or unsupported version: " + path);
+      }
+      final int blockCount = footer.getInt(12);
+      final long indexPosition = footer.getLong(56);
+      final long indexSize = (long) blockCount * StoreSegment.INDEX_ENTRY_SIZE;
+      if ((blockCount <= 0) || (indexPosition < 0)
+          || ((indexPosition + indexSize + StoreSegment.FOOTER_SIZE) != size)) {
+        throw new IOException("Corrupt segment: " + path);
+      }
+      final ByteBuffer index = StoreSegment.read(channel, indexPosition, (int) indexSize);
+      return new StoreSegment(path, channel, footer, index, blockCount);
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static ByteBuffer read(final FileChannel channel, final long position,
+      final int length) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of segment");
+      }
+    }
+    return buffer.flip();
+  }
+
+  Path path() {
+    return this.path;
+  }
+
+  int level() {
+    return this.level;
+  }
+
+  long minSequence() {
+    return this.minSequence;
+  }
+
+  long maxSequence() {
+    return this.maxSequence;
+  }
+
+  /**
+   * Checks if this segment contains the records of all memtables of the other segment.
+   */
+  boolean covers(final StoreSegment other) {
+    return (this.minSequence <= other.minSequence) && (this.maxSequence >= other.maxSequence);
+  }
+
+  /**
+   * Returns a cursor over the records from the given key and id up to the given key. Segments
+   * whose key range does not overlap are not read.
+   */
+  StoreCursor cursor(final long fromLeafKey, final long fromId, final long toLeafKey) {
+    if ((toLeafKey < this.minLeafKey) || (fromLeafKey > this.maxLeafKey)) {
+      return new SegmentCursor(this.firstLeafKeys.length, fromLeafKey, fromId, toLeafKey);
+    }
+    // The last block that starts before the key, or the first block
+    int low = 0;
+    int high = this.firstLeafKeys.length;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if ((this.firstLeafKeys[middle] < fromLeafKey)
+          || ((this.firstLeafKeys[middle] == fromLeafKey) && (this.firstIds[middle] < fromId))) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return new SegmentCursor(Math.max(0, low - 1), fromLeafKey, fromId, toLeafKey);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  private final class SegmentCursor implements StoreCursor {
+
+    private final long fromLeafKey;
+    private final long fromId;
+    private final long toLeafKey;
+    private int block;
+    private ByteBuffer data;
+    private long leafKey;
+    private long id;
+    private byte[] payload;
+
+    private SegmentCursor(final int block, final long fromLeafKey, final long fromId,
+        final long toLeafKey) {
+      this.block = block;
+      this.fromLeafKey = fromLeafKey;
+      this.fromId = fromId;
+      this.toLeafKey = toLeafKey;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+      while (true) {
+        if ((this.data == null) || !this.data.hasRemaining()) {
+          if (this.block >= StoreSegment.this.positions.length) {
+            return false;
+          }
+          this.data = StoreSegment.read(StoreSegment.this.channel,
+              StoreSegment.this.positions[this.block], StoreSegment.this.lengths[this.block]);
+          this.block++;
+        }
+        this.leafKey = this.data.getLong();
+        this.id = this.data.getLong();
+        final int length = this.data.getInt();
+        if (length < 0) {
+          this.payload = null;
+        } else {
+          this.payload = new byte[length];
+          this.data.get(this.payload);
+        }
+        if (this.leafKey > this.toLeafKey) {
+          this.block = StoreSegment.this.positions.length;
+          this.data = null;
+          return false;
+        }
+        if ((this.leafKey > this.fromLeafKey)
+            || ((this.leafKey == this.fromLeafKey) && (this.id >= this.fromId))) {
+          return true;
+        }
+      }
+    }
+
+    @Override
+    public long leafKey() {
+      return this.leafKey;
+    }
+
+    @Override
+    public long id() {
+      return this.id;
+    }
+
+    @Override
+    public byte[] payload() {
+      return this.payload;
+    }
+  }
+}
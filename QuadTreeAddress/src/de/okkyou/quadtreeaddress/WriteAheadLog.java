@@ -0,0 +1,126 @@
+package de.okkyou.quadtreeaddress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * The append-only log of the records of a {@link Memtable}, so they survive a crash until the
+ * memtable is written to a segment. Each record is passed to the operating system when it is
+ * appended and written to the disk by {@link #sync()}.
+ * </p>
+ *
+ * <p>
+ * A record consists of its type, the linear leaf key, the id, the length of the payload, the
+ * payload and a CRC-32 of all of them. Replaying stops at the first incomplete or damaged record,
+ * which is the one that was being appended during a crash.
+ * </p>
+ */
+final class WriteAheadLog implements Closeable {
+
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final int HEADER_SIZE = 1 + Long.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileOutputStream file;
+  private final DataOutputStream output;
+  private final ByteBuffer header = ByteBuffer.allocate(WriteAheadLog.HEADER_SIZE);
+  private final CRC32 checksum = new CRC32();
+
+  /**
+   * Opens the log for appending and creates it if it does not exist.
+   */
+  WriteAheadLog(final Path path) throws IOException {
+    this.file = new FileOutputStream(path.toFile(), true);
+    this.output = new DataOutputStream(new BufferedOutputStream(this.file,
+        WriteAheadLog.BUFFER_SIZE));
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param payload the payload or null for a deletion
+   */
+  void append(final long leafKey, final long id, final byte[] payload) throws IOException {
+    this.header.clear();
+    this.header.put((payload == null) ? WriteAheadLog.DELETE : WriteAheadLog.PUT)
+        .putLong(leafKey).putLong(id).putInt((payload == null) ? 0 : payload.length);
+    this.checksum.reset();
+    this.checksum.update(this.header.array(), 0, WriteAheadLog.HEADER_SIZE);
+    this.output.write(this.header.array(), 0, WriteAheadLog.HEADER_SIZE);
+    if (payload != null) {
+      this.checksum.update(payload);
+      this.output.write(payload);
+    }
+    this.output.writeInt((int) this.checksum.getValue());
+    this.output.flush();
+  }
+
+  /**
+   * Writes the appended records to the disk.
+   */
+  void sync() throws IOException {
+    this.output.flush();
+    this.file.getFD().sync();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.output.close();
+  }
+
+  /**
+   * Closes the file without writing the buffered bytes, e.g. the rest of a record that failed to
+   * be appended, so they never follow a torn record.
+   */
+  void abort() throws IOException {
+    this.file.close();
+  }
+
+  /**
+   * Adds the complete records of the log to the memtable.
+   */
+  static void replay(final Path path, final Memtable memtable) throws IOException {
+    final byte[] header = new byte[WriteAheadLog.HEADER_SIZE];
+    final CRC32 checksum = new CRC32();
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(path), WriteAheadLog.BUFFER_SIZE))) {
+      while (true) {
+        input.readFully(header);
+        final ByteBuffer fields = ByteBuffer.wrap(header);
+        final byte type = fields.get();
+        final long leafKey = fields.getLong();
+        final long id = fields.getLong();
+        final int length = fields.getInt();
+        if (((type != WriteAheadLog.PUT) && (type != WriteAheadLog.DELETE)) || (length < 0)
+            || (length > PointStore.MAX_PAYLOAD_SIZE)) {
+          return;
+        }
+        final byte[] payload = (type == WriteAheadLog.PUT) ? new byte[length] : null;
+        checksum.reset();
+        checksum.update(header);
+        if (payload != null) {
+          input.readFully(payload);
+          checksum.update(payload);
+        }
+        if (input.readInt() != (int) checksum.getValue()) {
+          return;
+        }
+        memtable.put(leafKey, id, payload);
+      }
+    } catch (final EOFException e) {
+      // The last record is incomplete
+    }
+  }
+}
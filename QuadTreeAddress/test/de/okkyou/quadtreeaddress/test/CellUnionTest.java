@@ -0,0 +1,156 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.CellUnion;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CellUnionTest {
+
+  // Depth of the QuadTrees the random unions are compared with
+  private static final int LEAF_DEPTH = 5;
+
+  @Test
+  public void test_of_normalizes() {
+    final long parent = QuadKeys.encode(50.0, 8.0, 10);
+    final long[] children = new long[4];
+    QuadKeys.getChildren(parent, children, 0);
+    final long grandChild = QuadKeys.getChild(children[2], 1);
+
+    final CellUnion union = CellUnion.of(children[3], grandChild, children[0], children[1],
+        children[2], children[1]);
+    Assert.assertArrayEquals(new long[] {parent}, union.toArray());
+    Assert.assertEquals(CellUnion.of(parent), union);
+
+    final CellUnion partial = CellUnion.of(children[0], children[1], grandChild);
+    Assert.assertEquals(3, partial.size());
+  }
+
+  @Test
+  public void test_of_mergesRecursively() {
+    final long[] cells = new long[16];
+    for (int i = 0; i < 4; i++) {
+      QuadKeys.getChildren(QuadKeys.getChild(QuadKeys.ROOT, i), cells, 4 * i);
+    }
+    Assert.assertArrayEquals(new long[] {QuadKeys.ROOT}, CellUnion.of(cells).toArray());
+    Assert.assertTrue(CellUnion.of().isEmpty());
+  }
+
+  @Test
+  public void test_setOperations_matchLeaves() {
+    final Random random = new Random(17);
+    for (int round = 0; round < 200; round++) {
+      final CellUnion first = CellUnionTest.randomUnion(random);
+      final CellUnion second = CellUnionTest.randomUnion(random);
+      final boolean[] firstLeaves = CellUnionTest.toLeaves(first);
+      final boolean[] secondLeaves = CellUnionTest.toLeaves(second);
+      final boolean[] union = new boolean[firstLeaves.length];
+      final boolean[] intersection = new boolean[firstLeaves.length];
+      final boolean[] difference = new boolean[firstLeaves.length];
+      boolean intersects = false;
+      boolean contains = true;
+      for (int i = 0; i < firstLeaves.length; i++) {
+        union[i] = firstLeaves[i] || secondLeaves[i];
+        intersection[i] = firstLeaves[i] && secondLeaves[i];
+        difference[i] = firstLeaves[i] && !secondLeaves[i];
+        intersects |= intersection[i];
+        contains &= firstLeaves[i] || !secondLeaves[i];
+      }
+      Assert.assertArrayEquals(union, CellUnionTest.toLeaves(first.union(second)));
+      Assert.assertArrayEquals(intersection,
+          CellUnionTest.toLeaves(first.intersection(second)));
+      Assert.assertArrayEquals(difference, CellUnionTest.toLeaves(first.difference(second)));
+      Assert.assertEquals(intersects, first.intersects(second));
+      Assert.assertEquals(contains, first.contains(second));
+
+      // Normalized unions of the same leaves are equal
+      Assert.assertEquals(first.union(second), second.union(first));
+      Assert.assertEquals(first, first.union(first.intersection(second)));
+    }
+  }
+
+  @Test
+  public void test_contains_key() {
+    final long cell = QuadKeys.encode(50.0, 8.0, 10);
+    final CellUnion union = CellUnion.of(cell, QuadKeys.encode(-33.9, 151.2, 12));
+    Assert.assertTrue(union.contains(cell));
+    Assert.assertTrue(union.contains(QuadKeys.encode(50.0, 8.0, 20)));
+    Assert.assertFalse(union.contains(QuadKeys.getParent(cell)));
+    Assert.assertFalse(union.contains(QuadKeys.getEasternNeighbor(cell)));
+
+    Assert.assertTrue(union.intersects(QuadKeys.getParent(cell)));
+    Assert.assertTrue(union.intersects(QuadKeys.ROOT));
+    Assert.assertTrue(union.intersects(QuadKeys.encode(50.0, 8.0, 26)));
+    Assert.assertFalse(union.intersects(QuadKeys.getEasternNeighbor(cell)));
+  }
+
+  @Test
+  public void test_contains_point() {
+    final Wgs84Point point = new Wgs84Point(50.110924, 8.682127);
+    final CellUnion union = CellUnion.of(QuadKeys.encode(point.getLatitudeInTenthMicroDegree(),
+        point.getLongitudeInTenthMicroDegree(), 14));
+    Assert.assertTrue(union.contains(point));
+    Assert.assertFalse(union.contains(new Wgs84Point(50.2, 8.682127)));
+    Assert.assertFalse(CellUnion.EMPTY.contains(point));
+    Assert.assertTrue(CellUnion.of(QuadKeys.ROOT).contains(new Wgs84Point(90.0, 180.0)));
+  }
+
+  @Test
+  public void test_fromQuadTrees() {
+    final QuadTreeAddress address =
+        QuadTreeAddress.createFromPoint(new Wgs84Point(50.110924, 8.682127), 12);
+    final CellUnion neighbors = CellUnion.fromQuadTrees(address.getNeighbors());
+    Assert.assertEquals(8, neighbors.size());
+    Assert.assertFalse(neighbors.contains(address.toNumberRepresentation()));
+
+    final CellUnion block = neighbors.union(CellUnion.fromQuadTrees(
+        Arrays.asList(address.getQuadTree())));
+    Assert.assertTrue(block.contains(address.getCenterPoint()));
+    Assert.assertEquals(neighbors, block.difference(CellUnion.fromQuadTrees(
+        Arrays.asList(address.getQuadTree()))));
+    Assert.assertEquals(block.size(), block.toQuadTrees().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_of_invalidKey() {
+    CellUnion.of(QuadKeys.NO_KEY);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_fromLinearKeys_invalidKey() {
+    CellUnion.fromLinearKeys(-1L);
+  }
+
+  private static CellUnion randomUnion(final Random random) {
+    final long[] keys = new long[random.nextInt(12)];
+    for (int i = 0; i < keys.length; i++) {
+      long key = QuadKeys.ROOT;
+      final int depth = 1 + random.nextInt(CellUnionTest.LEAF_DEPTH);
+      for (int d = 0; d < depth; d++) {
+        // Prefer the same few branches, so the QuadTrees overlap
+        key = QuadKeys.getChild(key, (d < 2) ? random.nextInt(2) : random.nextInt(4));
+      }
+      keys[i] = key;
+    }
+    return CellUnion.of(keys);
+  }
+
+  /**
+   * Returns for every QuadTree at the leaf depth if it is within the union.
+   */
+  private static boolean[] toLeaves(final CellUnion union) {
+    final int size = 1 << CellUnionTest.LEAF_DEPTH;
+    final boolean[] leaves = new boolean[size * size];
+    for (int row = 0; row < size; row++) {
+      for (int column = 0; column < size; column++) {
+        leaves[(row * size) + column] =
+            union.contains(QuadKeys.fromRowAndColumn(row, column, CellUnionTest.LEAF_DEPTH));
+      }
+    }
+    return leaves;
+  }
+}
@@ -0,0 +1,110 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.CircleCoverer;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircleCovererTest {
+
+  @Test
+  public void test_cover_containsCircle() {
+    CircleCovererTest.assertCovered(new Wgs84Point(50.110924, 8.682127), 500, 11);
+  }
+
+  @Test
+  public void test_cover_nearPole() {
+    CircleCovererTest.assertCovered(new Wgs84Point(89.99, 40.0), 5000, 12);
+    CircleCovererTest.assertCovered(new Wgs84Point(-90.0, 0.0), 2000, 13);
+  }
+
+  @Test
+  public void test_cover_acrossAntimeridian() {
+    final Wgs84Point center = new Wgs84Point(-17.7, 179.99);
+    final long[] covering = CircleCovererTest.assertCovered(center, 3000, 17);
+    boolean east = false;
+    boolean west = false;
+    for (final long key : covering) {
+      east |= QuadKeys.getRightLongitude(key) == Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE;
+      west |= QuadKeys.getLeftLongitude(key) == Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE;
+    }
+    Assert.assertTrue(east && west);
+  }
+
+  @Test
+  public void test_cover_excludesFarCells() {
+    final Wgs84Point center = new Wgs84Point(48.137154, 11.576124);
+    final long[] covering = new CircleCoverer(64).cover(center, 1000);
+    for (final long key : covering) {
+      final Wgs84Point corner = new Wgs84Point(QuadKeys.getUpperLatitude(key),
+          QuadKeys.getLeftLongitude(key));
+      // Every QuadTree reaches into the circle, so it is not far away from it
+      Assert.assertTrue(CircleCoverer.getDistance(center, corner) < 5000);
+    }
+  }
+
+  @Test
+  public void test_cover_wholeEarth() {
+    final long[] covering = new CircleCoverer(8).cover(new Wgs84Point(0.0, 0.0), 30000000);
+    Assert.assertArrayEquals(new long[] {QuadKeys.ROOT}, covering);
+  }
+
+  @Test
+  public void test_getMaxDepth() {
+    Assert.assertEquals(QuadTreeAddress.MAX_DEPTH, CircleCoverer.getMaxDepth(0));
+    Assert.assertEquals(0, CircleCoverer.getMaxDepth(50000000));
+    Assert.assertTrue(CircleCoverer.getMaxDepth(500) > CircleCoverer.getMaxDepth(5000));
+  }
+
+  @Test
+  public void test_getDistance() {
+    final double distance =
+        CircleCoverer.getDistance(new Wgs84Point(0.0, 179.5), new Wgs84Point(0.0, -179.5));
+    Assert.assertEquals(111195, distance, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_cover_negativeRadius() {
+    new CircleCoverer(8).cover(new Wgs84Point(0.0, 0.0), -1);
+  }
+
+  private static long[] assertCovered(final Wgs84Point center, final double radius,
+      final int seed) {
+    final long[] covering = new CircleCoverer(64).cover(center, radius);
+    Assert.assertTrue(covering.length > 0);
+    Assert.assertTrue(covering.length <= 64);
+    final Random random = new Random(seed);
+    final double angle = radius / CircleCoverer.EARTH_RADIUS_METER;
+    final double latitude = Math.toRadians(center.getLatitudeInDegree());
+    final double longitude = Math.toRadians(center.getLongitudeInDegree());
+    for (int i = 0; i < 2000; i++) {
+      // Destination at a random bearing and distance within the radius
+      final double distance = angle * Math.sqrt(random.nextDouble()) * 0.999;
+      final double bearing = 2 * Math.PI * random.nextDouble();
+      final double lat = Math.asin((Math.sin(latitude) * Math.cos(distance))
+          + (Math.cos(latitude) * Math.sin(distance) * Math.cos(bearing)));
+      double lon = longitude
+          + Math.atan2(Math.sin(bearing) * Math.sin(distance) * Math.cos(latitude),
+              Math.cos(distance) - (Math.sin(latitude) * Math.sin(lat)));
+      lon = Math.IEEEremainder(lon, 2 * Math.PI);
+      final Wgs84Point point = new Wgs84Point(Math.toDegrees(lat),
+          Math.max(-180.0, Math.min(180.0, Math.toDegrees(lon))));
+      Assert.assertTrue(CircleCoverer.getDistance(center, point) <= radius);
+      Assert.assertTrue(point.toString(), CircleCovererTest.containsPoint(covering, point));
+    }
+    return covering;
+  }
+
+  private static boolean containsPoint(final long[] covering, final Wgs84Point point) {
+    for (final long key : covering) {
+      if (QuadKeys.contains(key, point.getLatitudeInTenthMicroDegree(),
+          point.getLongitudeInTenthMicroDegree())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
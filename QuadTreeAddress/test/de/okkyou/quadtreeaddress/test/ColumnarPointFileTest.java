@@ -0,0 +1,166 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.ColumnarPointFile;
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnarPointFileTest {
+
+  private static final int ROWS = (2 * ColumnarPointFile.BLOCK_ROWS) + 1000;
+  private static final long START = 1700000000000L;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void test_forEach_matchesBruteForce() throws IOException {
+    // Positions around Frankfurt am Main, recorded within a day
+    final Random random = new Random(61);
+    final int[] latitudes = new int[ColumnarPointFileTest.ROWS];
+    final int[] longitudes = new int[ColumnarPointFileTest.ROWS];
+    final long[] timestamps = new long[ColumnarPointFileTest.ROWS];
+    final long[] keys = new long[ColumnarPointFileTest.ROWS];
+    for (int i = 0; i < ColumnarPointFileTest.ROWS; i++) {
+      latitudes[i] = 495000000 + random.nextInt(10000000);
+      longitudes[i] = 80000000 + random.nextInt(15000000);
+      timestamps[i] = ColumnarPointFileTest.START + random.nextInt(86400000);
+      keys[i] = LinearQuadKeys.encode(latitudes[i], longitudes[i], 26);
+    }
+    final int[] order = IntStream.range(0, ColumnarPointFileTest.ROWS).boxed()
+        .sorted(Comparator.comparingLong(i -> keys[i])).mapToInt(Integer::intValue).toArray();
+    final Path file = this.folder.newFile().toPath();
+    try (ColumnarPointFile.Writer writer = new ColumnarPointFile.Writer(file)) {
+      for (final int i : order) {
+        writer.add(latitudes[i], longitudes[i], timestamps[i], i);
+      }
+    }
+
+    final ColumnarPointFile columns = ColumnarPointFile.open(file);
+    Assert.assertEquals(ColumnarPointFileTest.ROWS, columns.size());
+    Assert.assertEquals(3, columns.getBlockCount());
+    for (int block = 0; block < columns.getBlockCount(); block++) {
+      Assert.assertEquals(keys[order[block * ColumnarPointFile.BLOCK_ROWS]],
+          columns.getBlockMinKey(block));
+      Assert.assertEquals(keys[order[Math.min(ColumnarPointFileTest.ROWS,
+          (block + 1) * ColumnarPointFile.BLOCK_ROWS) - 1]], columns.getBlockMaxKey(block));
+    }
+    final int[] row = new int[1];
+    columns.forEach(QuadKeys.ROOT, (leafKey, latitude, longitude, timestamp, id) -> {
+      final int i = order[row[0]++];
+      Assert.assertEquals(keys[i], leafKey);
+      Assert.assertEquals(latitudes[i], latitude);
+      Assert.assertEquals(longitudes[i], longitude);
+      Assert.assertEquals(timestamps[i], timestamp);
+      Assert.assertEquals(i, id);
+    });
+    Assert.assertEquals(ColumnarPointFileTest.ROWS, row[0]);
+
+    for (int round = 0; round < 100; round++) {
+      final int i = random.nextInt(ColumnarPointFileTest.ROWS);
+      final long key = QuadKeys.encode(latitudes[i], longitudes[i], 1 + random.nextInt(26));
+      final long linearKey = LinearQuadKeys.fromQuadKey(key);
+      final long[] expected = IntStream.range(0, ColumnarPointFileTest.ROWS)
+          .filter(j -> LinearQuadKeys.contains(linearKey, keys[j])).asLongStream().toArray();
+      final LongStream.Builder ids = LongStream.builder();
+      columns.forEach(key, (leafKey, latitude, longitude, timestamp, id) -> ids.add(id));
+      final long[] actual = ids.build().sorted().toArray();
+      Assert.assertArrayEquals(expected, actual);
+
+      final int north = latitudes[i] + random.nextInt(1000000);
+      final int south = latitudes[i] - random.nextInt(1000000);
+      final int west = longitudes[i] - random.nextInt(1000000);
+      final int east = longitudes[i] + random.nextInt(1000000);
+      final long[] expectedInBox = IntStream.range(0, ColumnarPointFileTest.ROWS)
+          .filter(j -> (latitudes[j] <= north) && (latitudes[j] >= south)
+              && (longitudes[j] >= west) && (longitudes[j] <= east))
+          .asLongStream().toArray();
+      final LongStream.Builder idsInBox = LongStream.builder();
+      columns.forEachInBox(north, south, west, east,
+          (leafKey, latitude, longitude, timestamp, id) -> idsInBox.add(id));
+      Assert.assertArrayEquals(expectedInBox, idsInBox.build().sorted().toArray());
+    }
+  }
+
+  @Test
+  public void test_size_smallerThanCsv() throws IOException {
+    final Random random = new Random(67);
+    final int[] latitudes = new int[ColumnarPointFileTest.ROWS];
+    final int[] longitudes = new int[ColumnarPointFileTest.ROWS];
+    final long[] keys = new long[ColumnarPointFileTest.ROWS];
+    for (int i = 0; i < ColumnarPointFileTest.ROWS; i++) {
+      latitudes[i] = 495000000 + random.nextInt(10000000);
+      longitudes[i] = 80000000 + random.nextInt(15000000);
+      keys[i] = LinearQuadKeys.encode(latitudes[i], longitudes[i], 26);
+    }
+    final int[] order = IntStream.range(0, ColumnarPointFileTest.ROWS).boxed()
+        .sorted(Comparator.comparingLong(i -> keys[i])).mapToInt(Integer::intValue).toArray();
+    final Path file = this.folder.newFile().toPath();
+    long csvSize = 0;
+    try (ColumnarPointFile.Writer writer = new ColumnarPointFile.Writer(file)) {
+      for (final int i : order) {
+        // One position per second
+        final long timestamp = ColumnarPointFileTest.START + (i * 1000L);
+        writer.add(latitudes[i], longitudes[i], timestamp, i);
+        csvSize += (latitudes[i] + "," + longitudes[i] + "," + timestamp + "," + i + "\n")
+            .length();
+      }
+    }
+    Assert.assertTrue((Files.size(file) * 3) < csvSize);
+  }
+
+  @Test
+  public void test_forEach_quadTree() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    try (ColumnarPointFile.Writer writer = new ColumnarPointFile.Writer(file)) {
+      writer.add(400000000, 80000000, ColumnarPointFileTest.START, 1).add(0, 0, 0, 2);
+    }
+    final ColumnarPointFile columns = ColumnarPointFile.open(file);
+    final long[] ids = new long[2];
+    final int[] count = new int[1];
+    columns.forEach(QuadTreeAddress.createFromPoint(new Wgs84Point(40.0, 8.0), 20),
+        (leafKey, latitude, longitude, timestamp, id) -> ids[count[0]++] = id);
+    Assert.assertEquals(1, count[0]);
+    Assert.assertEquals(1, ids[0]);
+  }
+
+  @Test
+  public void test_forEachInBox_antimeridian() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    try (ColumnarPointFile.Writer writer = new ColumnarPointFile.Writer(file)) {
+      writer.add(100000000, -1795000000, 0, 1).add(100000000, 0, 0, 2)
+          .add(100000000, 1795000000, 0, 3);
+    }
+    final LongStream.Builder ids = LongStream.builder();
+    ColumnarPointFile.open(file).forEachInBox(110000000, 90000000, 1790000000, -1790000000,
+        (leafKey, latitude, longitude, timestamp, id) -> ids.add(id));
+    Assert.assertArrayEquals(new long[] {1, 3}, ids.build().sorted().toArray());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_add_descending() throws IOException {
+    try (ColumnarPointFile.Writer writer =
+        new ColumnarPointFile.Writer(this.folder.newFile().toPath())) {
+      writer.add(0, 0, 0, 1).add(400000000, 80000000, 0, 2);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void test_open_noColumnarPointFile() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    Files.write(file, new byte[ColumnarPointFile.HEADER_SIZE]);
+    ColumnarPointFile.open(file);
+  }
+}
@@ -0,0 +1,166 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.ConcurrentPointIndex;
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentPointIndexTest {
+
+  // Around Frankfurt am Main
+  private static final int SOUTH = 495000000;
+  private static final int WEST = 80000000;
+  private static final int EXTENT = 10000000;
+
+  @Test
+  public void test_insert_remove() {
+    final ConcurrentPointIndex index = new ConcurrentPointIndex();
+    Assert.assertTrue(index.insert(7, new Wgs84Point(50.0, 8.0)));
+    Assert.assertFalse(index.insert(7, new Wgs84Point(-33.9, 151.2)));
+    Assert.assertTrue(index.insert(9, new Wgs84Point(50.0, 8.0)));
+    Assert.assertEquals(2, index.size());
+    Assert.assertEquals(LinearQuadKeys.fromQuadKey(QuadKeys.encode(50.0, 8.0, 26)),
+        index.getLeafKey(7));
+
+    final long cell = QuadKeys.encode(50.0, 8.0, 26);
+    Assert.assertArrayEquals(new long[] {7, 9}, index.getIds(cell));
+    Assert.assertTrue(index.remove(7));
+    Assert.assertFalse(index.remove(7));
+    Assert.assertArrayEquals(new long[] {9}, index.getIds(cell));
+    Assert.assertEquals(QuadKeys.NO_KEY, index.getLeafKey(7));
+    Assert.assertEquals(1, index.size());
+  }
+
+  @Test
+  public void test_move() {
+    final ConcurrentPointIndex index = new ConcurrentPointIndex();
+    Assert.assertFalse(index.move(1, new Wgs84Point(50.0, 8.0)));
+    index.insert(1, new Wgs84Point(50.0, 8.0));
+    Assert.assertTrue(index.move(1, new Wgs84Point(50.0, 8.0)));
+    Assert.assertTrue(index.move(1, new Wgs84Point(-33.9, 151.2)));
+    Assert.assertEquals(0, index.count(QuadKeys.encode(50.0, 8.0, 10)));
+    Assert.assertEquals(1, index.count(QuadKeys.encode(-33.9, 151.2, 10)));
+    Assert.assertEquals(1, index.count(QuadKeys.ROOT));
+    Assert.assertEquals(1, index.size());
+  }
+
+  @Test
+  public void test_getIds_matchesBruteForce() {
+    final Random random = new Random(41);
+    final int points = 5000;
+    final int extent = ConcurrentPointIndexTest.EXTENT;
+    final int[] latitudes = new int[points];
+    final int[] longitudes = new int[points];
+    final ConcurrentPointIndex index = new ConcurrentPointIndex();
+    for (int i = 0; i < points; i++) {
+      latitudes[i] = ConcurrentPointIndexTest.SOUTH + random.nextInt(extent);
+      longitudes[i] = ConcurrentPointIndexTest.WEST + random.nextInt(extent);
+      index.insert(i, latitudes[i], longitudes[i]);
+    }
+    // Move every third point and remove every fifth
+    for (int i = 0; i < points; i += 3) {
+      latitudes[i] = ConcurrentPointIndexTest.SOUTH + random.nextInt(extent);
+      longitudes[i] = ConcurrentPointIndexTest.WEST + random.nextInt(extent);
+      index.move(i, latitudes[i], longitudes[i]);
+    }
+    for (int i = 0; i < points; i += 5) {
+      index.remove(i);
+    }
+    for (final int depth : new int[] {1, 8, 12, 16, 26}) {
+      final long cell = QuadKeys.encode(latitudes[1], longitudes[1], depth);
+      final LongStream.Builder expected = LongStream.builder();
+      for (int i = 0; i < points; i++) {
+        if (((i % 5) != 0) && QuadKeys.contains(cell, latitudes[i], longitudes[i])) {
+          expected.add(i);
+        }
+      }
+      final long[] actual = index.getIds(cell);
+      Arrays.sort(actual);
+      Assert.assertArrayEquals(expected.build().toArray(), actual);
+    }
+  }
+
+  @Test
+  public void test_forEach_quadTree() {
+    final ConcurrentPointIndex index = new ConcurrentPointIndex();
+    index.insert(3, new Wgs84Point(50.0, 8.0));
+    index.insert(4, new Wgs84Point(50.0, -8.0));
+    final QuadTreeAddress quadTree =
+        QuadTreeAddress.createFromPoint(new Wgs84Point(50.0, 8.0), 5);
+    final long[] ids = new long[2];
+    final int[] count = new int[1];
+    index.forEach(quadTree, id -> ids[count[0]++] = id);
+    Assert.assertEquals(1, count[0]);
+    Assert.assertEquals(3, ids[0]);
+  }
+
+  @Test
+  public void test_concurrentMoves_queriesSeeUnmovedPoints() throws InterruptedException {
+    // Odd ids move within the queried QuadTree, even ids stay, so a query must see every even id
+    final long cell = QuadKeys.encode(ConcurrentPointIndexTest.SOUTH, ConcurrentPointIndexTest.WEST,
+        8);
+    final int south = QuadKeys.getLowerLatitude(cell);
+    final int west = QuadKeys.getLeftLongitude(cell);
+    final int height = QuadKeys.getUpperLatitude(cell) - south;
+    final int width = QuadKeys.getRightLongitude(cell) - west;
+    final int points = 2000;
+    final int writers = 4;
+    final ConcurrentPointIndex index = new ConcurrentPointIndex();
+    for (int i = 0; i < points; i++) {
+      index.insert(i, south + (height / 2), west + (width / 2));
+    }
+
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch done = new CountDownLatch(writers);
+    for (int w = 0; w < writers; w++) {
+      final int writer = w;
+      new Thread(() -> {
+        final Random random = new Random(writer);
+        try {
+          for (int round = 0; round < 20000; round++) {
+            final long id = (2 * ((random.nextInt(points / (2 * writers)) * writers) + writer)) + 1;
+            Assert.assertTrue(index.move(id, south + random.nextInt(height),
+                west + random.nextInt(width)));
+          }
+        } catch (final Throwable e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          done.countDown();
+        }
+      }).start();
+    }
+    while (running.get()) {
+      final boolean[] seen = new boolean[points];
+      index.forEach(cell, id -> seen[(int) id] = true);
+      for (int i = 0; i < points; i += 2) {
+        Assert.assertTrue(seen[i]);
+      }
+      running.set(done.getCount() > 0);
+    }
+    done.await();
+    Assert.assertNull(failure.get());
+    Assert.assertEquals(points, index.size());
+    Assert.assertEquals(points, index.count(cell));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_insert_invalidPosition() {
+    new ConcurrentPointIndex().insert(1, 910000000, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_forEach_invalidKey() {
+    new ConcurrentPointIndex().forEach(QuadKeys.NO_KEY, id -> {
+    });
+  }
+}
@@ -0,0 +1,95 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.HilbertQuadKeys;
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HilbertQuadKeysTest {
+
+  @Test
+  public void test_fromIndex_firstDepth() {
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+A"),
+        HilbertQuadKeys.toQuadKey(HilbertQuadKeys.fromIndex(0, 1)));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+C"),
+        HilbertQuadKeys.toQuadKey(HilbertQuadKeys.fromIndex(1, 1)));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+D"),
+        HilbertQuadKeys.toQuadKey(HilbertQuadKeys.fromIndex(2, 1)));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+B"),
+        HilbertQuadKeys.toQuadKey(HilbertQuadKeys.fromIndex(3, 1)));
+  }
+
+  @Test
+  public void test_curve_consecutiveAreAdjacent() {
+    for (int depth = 1; depth <= 6; depth++) {
+      final Set<Long> keys = new HashSet<>();
+      long previous = QuadKeys.NO_KEY;
+      for (long index = 0; index < (1L << (2 * depth)); index++) {
+        final long hilbertKey = HilbertQuadKeys.fromIndex(index, depth);
+        Assert.assertEquals(index, HilbertQuadKeys.getIndex(hilbertKey));
+        final long key = HilbertQuadKeys.toQuadKey(hilbertKey);
+        Assert.assertEquals(hilbertKey, HilbertQuadKeys.fromQuadKey(key));
+        if (previous != QuadKeys.NO_KEY) {
+          Assert.assertEquals(1,
+              Math.abs(QuadKeys.getRow(key) - QuadKeys.getRow(previous))
+                  + Math.abs(QuadKeys.getColumn(key) - QuadKeys.getColumn(previous)));
+        }
+        Assert.assertTrue(keys.add(key));
+        previous = key;
+      }
+    }
+  }
+
+  @Test
+  public void test_roundTrip_maxDepth() {
+    final Random random = new Random(7);
+    for (int i = 0; i < 10000; i++) {
+      final int depth = 1 + random.nextInt(QuadTreeAddress.MAX_DEPTH);
+      final long key = QuadKeys.encode((random.nextDouble() * 180) - 90,
+          (random.nextDouble() * 360) - 180, depth);
+      final long hilbertKey = HilbertQuadKeys.fromQuadKey(key);
+      Assert.assertTrue(HilbertQuadKeys.isValid(hilbertKey));
+      Assert.assertEquals(depth, HilbertQuadKeys.getDepth(hilbertKey));
+      Assert.assertEquals(key, HilbertQuadKeys.toQuadKey(hilbertKey));
+      Assert.assertEquals(LinearQuadKeys.fromQuadKey(key), HilbertQuadKeys.toLinearKey(hilbertKey));
+    }
+  }
+
+  @Test
+  public void test_leafRange_containsDescendants() {
+    final long parent = QuadTreeAddress.toNumberRepresentation("+BCA");
+    final long hilbertParent = HilbertQuadKeys.fromQuadKey(parent);
+    final long[] children = new long[4];
+    QuadKeys.getChildren(parent, children, 0);
+    for (final long child : children) {
+      final long hilbertChild = HilbertQuadKeys.fromQuadKey(child);
+      Assert.assertTrue(hilbertChild > hilbertParent);
+      Assert.assertTrue(hilbertChild <= HilbertQuadKeys.getLeafMax(hilbertParent));
+      Assert.assertTrue(HilbertQuadKeys.getLeafMin(hilbertChild)
+          >= HilbertQuadKeys.getLeafMin(hilbertParent));
+    }
+  }
+
+  @Test
+  public void test_encode_sameAsQuadKeys() {
+    Assert.assertEquals(HilbertQuadKeys.fromQuadKey(QuadKeys.encode(49.721, 9.124, 18)),
+        HilbertQuadKeys.encode(49.721, 9.124, 18));
+    Assert.assertEquals(HilbertQuadKeys.fromQuadKey(QuadKeys.encode(497210000, 91240000, 18)),
+        HilbertQuadKeys.encode(497210000, 91240000, 18));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_fromIndex_outOfRange() {
+    HilbertQuadKeys.fromIndex(16, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_toQuadKey_invalid() {
+    HilbertQuadKeys.toQuadKey(-1L);
+  }
+}
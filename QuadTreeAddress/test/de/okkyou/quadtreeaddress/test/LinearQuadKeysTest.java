@@ -0,0 +1,91 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LinearQuadKeysTest {
+
+  private static final String VALID_QUADTREE = "+ACDCDCBADCDABCDAABCDCBD";
+
+  @Test
+  public void test_fromQuadKey_layout() {
+    Assert.assertEquals(0L, LinearQuadKeys.fromQuadKey(QuadKeys.ROOT));
+    Assert.assertEquals((0b11L << 55) | 1,
+        LinearQuadKeys.fromQuadKey(QuadTreeAddress.toNumberRepresentation("+D")));
+    Assert.assertEquals((0b01L << 55) | (0b10L << 53) | 2,
+        LinearQuadKeys.fromQuadKey(QuadTreeAddress.toNumberRepresentation("+BC")));
+    Assert.assertEquals((0b11L << 5) | QuadTreeAddress.MAX_DEPTH, LinearQuadKeys
+        .fromQuadKey(QuadTreeAddress.toNumberRepresentation("+AAAAAAAAAAAAAAAAAAAAAAAAAD")));
+  }
+
+  @Test
+  public void test_toQuadKey_roundTrip() {
+    for (int depth = 0; depth < LinearQuadKeysTest.VALID_QUADTREE.length(); depth++) {
+      final long key = QuadTreeAddress
+          .toNumberRepresentation(LinearQuadKeysTest.VALID_QUADTREE.substring(0, depth + 1));
+      final long linearKey = LinearQuadKeys.fromQuadKey(key);
+      Assert.assertTrue(LinearQuadKeys.isValid(linearKey));
+      Assert.assertEquals(depth, LinearQuadKeys.getDepth(linearKey));
+      Assert.assertEquals(key, LinearQuadKeys.toQuadKey(linearKey));
+    }
+  }
+
+  @Test
+  public void test_order_ancestorsFirst() {
+    final TreeSet<Long> sorted = new TreeSet<>();
+    for (int depth = LinearQuadKeysTest.VALID_QUADTREE.length() - 1; depth >= 0; depth--) {
+      sorted.add(LinearQuadKeys.fromQuadKey(QuadTreeAddress
+          .toNumberRepresentation(LinearQuadKeysTest.VALID_QUADTREE.substring(0, depth + 1))));
+    }
+    int depth = 0;
+    for (final long linearKey : sorted) {
+      Assert.assertEquals(depth++, LinearQuadKeys.getDepth(linearKey));
+    }
+  }
+
+  @Test
+  public void test_leafRange_containsExactlyDescendants() {
+    final long cell = LinearQuadKeys.fromQuadKey(QuadTreeAddress.toNumberRepresentation("+BC"));
+    final long[] range = LinearQuadKeys.toLeafRange(cell);
+    Assert.assertEquals(LinearQuadKeys
+        .fromQuadKey(QuadTreeAddress.toNumberRepresentation("+BCAAAAAAAAAAAAAAAAAAAAAAAA")),
+        range[0]);
+    Assert.assertEquals(LinearQuadKeys
+        .fromQuadKey(QuadTreeAddress.toNumberRepresentation("+BCDDDDDDDDDDDDDDDDDDDDDDDD")),
+        range[1]);
+
+    final String[] quadTrees = {"+", "+B", "+BB", "+BD", "+BCD", "+BCA", "+BCAA", "+BDA", "+C",
+        "+BBDDDDDD", "+BC"};
+    for (final String quadTree : quadTrees) {
+      final long key = QuadTreeAddress.toNumberRepresentation(quadTree);
+      final long linearKey = LinearQuadKeys.fromQuadKey(key);
+      final boolean inRange = (linearKey >= cell) && (linearKey <= range[1]);
+      Assert.assertEquals(quadTree, QuadTreeAddress.contains("+BC", quadTree), inRange);
+      Assert.assertEquals(quadTree, inRange, LinearQuadKeys.contains(cell, linearKey));
+    }
+  }
+
+  @Test
+  public void test_encode_sameAsQuadKeys() {
+    Assert.assertEquals(
+        LinearQuadKeys.fromQuadKey(QuadKeys.encode(497210000, 91240000, 20)),
+        LinearQuadKeys.encode(497210000, 91240000, 20));
+  }
+
+  @Test
+  public void test_isValid_invalid() {
+    Assert.assertFalse(LinearQuadKeys.isValid(-1L));
+    Assert.assertFalse(LinearQuadKeys.isValid(27));
+    Assert.assertFalse(LinearQuadKeys.isValid((0b01L << 53) | 1));
+    Assert.assertFalse(LinearQuadKeys.isValid(1L << 57));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_toQuadKey_invalid() {
+    LinearQuadKeys.toQuadKey((0b01L << 53) | 1);
+  }
+}
@@ -0,0 +1,144 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.OffHeapPointIndex;
+import de.okkyou.quadtreeaddress.PointIndex;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapPointIndexTest {
+
+  // More than two blocks
+  private static final int POINTS = (2 * OffHeapPointIndex.BLOCK_SIZE) + 1000;
+
+  // Points around Frankfurt am Main, the payload of a point is its id
+  private static final int[] LATITUDES = new int[OffHeapPointIndexTest.POINTS];
+  private static final int[] LONGITUDES = new int[OffHeapPointIndexTest.POINTS];
+
+  static {
+    final Random random = new Random(43);
+    for (int i = 0; i < OffHeapPointIndexTest.POINTS; i++) {
+      // Few distinct positions, so equal keys span the borders of blocks
+      OffHeapPointIndexTest.LATITUDES[i] = 495000000 + (random.nextInt(2000) * 5000);
+      OffHeapPointIndexTest.LONGITUDES[i] = 80000000 + (random.nextInt(20) * 750000);
+    }
+  }
+
+  private static final PointIndex SORTED = PointIndex.build(OffHeapPointIndexTest.LATITUDES,
+      OffHeapPointIndexTest.LONGITUDES,
+      LongStream.range(0, OffHeapPointIndexTest.POINTS).toArray());
+
+  private static final OffHeapPointIndex INDEX = OffHeapPointIndexTest.build();
+
+  private static OffHeapPointIndex build() {
+    final OffHeapPointIndex.Builder builder = new OffHeapPointIndex.Builder(Integer.BYTES);
+    for (int i = 0; i < OffHeapPointIndexTest.SORTED.size(); i++) {
+      final int id = (int) OffHeapPointIndexTest.SORTED.getId(i);
+      builder.add(OffHeapPointIndexTest.SORTED.getLeafKey(i),
+          ByteBuffer.allocate(Integer.BYTES).putInt(id).array());
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void test_build_sorted() {
+    Assert.assertEquals(OffHeapPointIndexTest.POINTS, OffHeapPointIndexTest.INDEX.size());
+    Assert.assertEquals(Integer.BYTES, OffHeapPointIndexTest.INDEX.getPayloadSize());
+    final byte[] payload = new byte[Integer.BYTES];
+    for (int i = 0; i < OffHeapPointIndexTest.POINTS; i++) {
+      Assert.assertEquals(OffHeapPointIndexTest.SORTED.getLeafKey(i),
+          OffHeapPointIndexTest.INDEX.getLeafKey(i));
+      OffHeapPointIndexTest.INDEX.getPayload(i, payload);
+      Assert.assertEquals(OffHeapPointIndexTest.SORTED.getId(i),
+          ByteBuffer.wrap(payload).getInt());
+    }
+  }
+
+  @Test
+  public void test_forEach_matchesPointIndex() {
+    final Random random = new Random(47);
+    for (int round = 0; round < 200; round++) {
+      final int i = random.nextInt(OffHeapPointIndexTest.POINTS);
+      final long key = QuadKeys.encode(OffHeapPointIndexTest.LATITUDES[i],
+          OffHeapPointIndexTest.LONGITUDES[i], 1 + random.nextInt(26));
+      final long[] expected = OffHeapPointIndexTest.SORTED.getIds(key);
+      Arrays.sort(expected);
+      final LongStream.Builder ids = LongStream.builder();
+      OffHeapPointIndexTest.INDEX.forEach(key, (leafKey, block, offset) -> {
+        Assert.assertTrue(LinearQuadKeys.contains(LinearQuadKeys.fromQuadKey(key), leafKey));
+        ids.add(block.getInt(offset));
+      });
+      final long[] actual = ids.build().toArray();
+      Arrays.sort(actual);
+      Assert.assertArrayEquals(expected, actual);
+      Assert.assertEquals(expected.length, OffHeapPointIndexTest.INDEX.count(key));
+    }
+    Assert.assertEquals(OffHeapPointIndexTest.POINTS,
+        OffHeapPointIndexTest.INDEX.count(QuadKeys.ROOT));
+    Assert.assertEquals(0, OffHeapPointIndexTest.INDEX.count(QuadKeys.encode(0, 0, 10)));
+  }
+
+  @Test
+  public void test_forEach_quadTree() {
+    final OffHeapPointIndex index = new OffHeapPointIndex.Builder(0)
+        .add(400000000, 80000000, new byte[0])
+        .add(LinearQuadKeys.encode(0, 0, 26), new byte[0]).build();
+    final QuadTreeAddress quadTree =
+        QuadTreeAddress.createFromPoint(new Wgs84Point(40.0, 8.0), 20);
+    final int[] count = new int[1];
+    index.forEach(quadTree, (leafKey, block, offset) -> count[0]++);
+    Assert.assertEquals(1, count[0]);
+  }
+
+  @Test
+  public void test_build_smallIndexWithLargePayloads() {
+    final OffHeapPointIndex.Builder builder =
+        new OffHeapPointIndex.Builder(OffHeapPointIndex.MAX_PAYLOAD_SIZE);
+    for (int i = 0; i < 3; i++) {
+      final byte[] payload = new byte[OffHeapPointIndex.MAX_PAYLOAD_SIZE];
+      Arrays.fill(payload, (byte) i);
+      builder.add(500000000, 80000000 + i, payload);
+    }
+    final OffHeapPointIndex index = builder.build();
+    Assert.assertEquals(3, index.size());
+    final byte[] payload = new byte[OffHeapPointIndex.MAX_PAYLOAD_SIZE];
+    for (int i = 0; i < 3; i++) {
+      index.getPayload(i, payload);
+      Assert.assertEquals(i, payload[0]);
+      Assert.assertEquals(i, payload[payload.length - 1]);
+    }
+    // The block only has the size of its 3 points
+    index.forEach(QuadKeys.ROOT, (leafKey, block, offset) -> Assert.assertEquals(
+        3 * (Long.BYTES + OffHeapPointIndex.MAX_PAYLOAD_SIZE), block.capacity()));
+  }
+
+  @Test
+  public void test_empty() {
+    final OffHeapPointIndex index = new OffHeapPointIndex.Builder(8).build();
+    Assert.assertEquals(0, index.size());
+    Assert.assertEquals(0, index.count(QuadKeys.ROOT));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_add_descending() {
+    // Northern rows come first
+    new OffHeapPointIndex.Builder(0).add(0, 0, new byte[0]).add(10000000, 0, new byte[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_add_wrongPayloadSize() {
+    new OffHeapPointIndex.Builder(4).add(0, 0, new byte[3]);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void test_getLeafKey_outOfRange() {
+    OffHeapPointIndexTest.INDEX.getLeafKey(OffHeapPointIndexTest.POINTS);
+  }
+}
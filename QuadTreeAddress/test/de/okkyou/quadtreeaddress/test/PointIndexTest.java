@@ -0,0 +1,158 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.PointIndex;
+import de.okkyou.quadtreeaddress.QuadKeyRanges;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PointIndexTest {
+
+  private static final int POINTS = 20000;
+
+  // Points around Frankfurt am Main, ids are the positions within the arrays
+  private static final int[] LATITUDES = new int[PointIndexTest.POINTS];
+  private static final int[] LONGITUDES = new int[PointIndexTest.POINTS];
+  private static final long[] IDS = new long[PointIndexTest.POINTS];
+
+  static {
+    final Random random = new Random(31);
+    for (int i = 0; i < PointIndexTest.POINTS; i++) {
+      PointIndexTest.LATITUDES[i] = 495000000 + random.nextInt(10000000);
+      PointIndexTest.LONGITUDES[i] = 80000000 + random.nextInt(15000000);
+      PointIndexTest.IDS[i] = i;
+    }
+    // Duplicate positions
+    PointIndexTest.LATITUDES[1] = PointIndexTest.LATITUDES[0];
+    PointIndexTest.LONGITUDES[1] = PointIndexTest.LONGITUDES[0];
+  }
+
+  private static final PointIndex INDEX = PointIndex.build(PointIndexTest.LATITUDES,
+      PointIndexTest.LONGITUDES, PointIndexTest.IDS);
+
+  @Test
+  public void test_build_sorted() {
+    Assert.assertEquals(PointIndexTest.POINTS, PointIndexTest.INDEX.size());
+    for (int i = 1; i < PointIndexTest.INDEX.size(); i++) {
+      Assert.assertTrue(
+          PointIndexTest.INDEX.getLeafKey(i - 1) <= PointIndexTest.INDEX.getLeafKey(i));
+    }
+    for (int i = 0; i < PointIndexTest.INDEX.size(); i++) {
+      final int id = (int) PointIndexTest.INDEX.getId(i);
+      Assert.assertEquals(LinearQuadKeys.encode(PointIndexTest.LATITUDES[id],
+          PointIndexTest.LONGITUDES[id], 26), PointIndexTest.INDEX.getLeafKey(i));
+    }
+  }
+
+  @Test
+  public void test_getIds_matchesBruteForce() {
+    for (final int depth : new int[] {0, 5, 9, 13, 17, 26}) {
+      final long key = QuadKeys.encode(PointIndexTest.LATITUDES[0], PointIndexTest.LONGITUDES[0],
+          Math.max(1, depth));
+      final long cell = (depth == 0) ? QuadKeys.ROOT : key;
+      final long[] expected = PointIndexTest.bruteForce(cell);
+      final long[] actual = PointIndexTest.INDEX.getIds(cell);
+      Arrays.sort(actual);
+      Assert.assertArrayEquals(expected, actual);
+      Assert.assertEquals(expected.length, PointIndexTest.INDEX.count(cell));
+    }
+    Assert.assertEquals(0, PointIndexTest.INDEX.count(QuadKeys.encode(0, 0, 10)));
+  }
+
+  @Test
+  public void test_forEach_quadTree() {
+    final QuadTreeAddress quadTree = QuadTreeAddress.createFromPoint(
+        new Wgs84Point(PointIndexTest.LATITUDES[5], PointIndexTest.LONGITUDES[5]), 12);
+    final long[] counter = new long[1];
+    PointIndexTest.INDEX.forEach(quadTree, id -> {
+      Assert.assertTrue(quadTree.contains(new Wgs84Point(PointIndexTest.LATITUDES[(int) id],
+          PointIndexTest.LONGITUDES[(int) id])));
+      counter[0]++;
+    });
+    Assert.assertEquals(PointIndexTest.bruteForce(quadTree.toNumberRepresentation()).length,
+        counter[0]);
+  }
+
+  @Test
+  public void test_getIdsInBox_matchesBruteForce() {
+    final Random random = new Random(37);
+    for (int round = 0; round < 50; round++) {
+      final int south = 495000000 + random.nextInt(10000000);
+      final int north = south + random.nextInt(3000000);
+      final int west = 80000000 + random.nextInt(15000000);
+      final int east = west + random.nextInt(3000000);
+      final LongStream.Builder expected = LongStream.builder();
+      for (int i = 0; i < PointIndexTest.POINTS; i++) {
+        final long leaf =
+            LinearQuadKeys.encode(PointIndexTest.LATITUDES[i], PointIndexTest.LONGITUDES[i], 26);
+        if (QuadKeyRanges.isInBox(leaf, north, south, west, east)) {
+          expected.add(i);
+          Assert.assertTrue(PointIndexTest.isNear(i, north, south, west, east));
+        } else {
+          Assert.assertFalse((PointIndexTest.LATITUDES[i] <= north)
+              && (PointIndexTest.LATITUDES[i] >= south) && (PointIndexTest.LONGITUDES[i] >= west)
+              && (PointIndexTest.LONGITUDES[i] <= east));
+        }
+      }
+      final long[] actual = PointIndexTest.INDEX.getIdsInBox(north, south, west, east);
+      Arrays.sort(actual);
+      Assert.assertArrayEquals(expected.build().toArray(), actual);
+    }
+  }
+
+  @Test
+  public void test_getIdsInBox_acrossAntimeridianWithinOneColumn() {
+    final long[] actual = PointIndexTest.INDEX.getIdsInBox(900000000, -900000000, 80000001,
+        80000000);
+    Arrays.sort(actual);
+    Assert.assertArrayEquals(PointIndexTest.IDS, actual);
+  }
+
+  @Test
+  public void test_builder() {
+    final PointIndex.Builder builder = new PointIndex.Builder(1);
+    builder.add(new Wgs84Point(50.0, 8.0), 7).add(new Wgs84Point(-33.9, 151.2), 3)
+        .add(new Wgs84Point(50.0, 8.0), 9);
+    Assert.assertEquals(3, builder.size());
+    final PointIndex index = builder.build();
+    Assert.assertEquals(0, builder.size());
+    Assert.assertEquals(3, index.size());
+    final long[] ids = index.getIds(QuadKeys.encode(50.0, 8.0, 26));
+    Arrays.sort(ids);
+    Assert.assertArrayEquals(new long[] {7, 9}, ids);
+    Assert.assertArrayEquals(new long[] {3}, index.getIdsInBox(-330000000, -340000000,
+        1510000000, 1520000000));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_build_differentLengths() {
+    PointIndex.build(new int[1], new int[1], new long[2]);
+  }
+
+  private static long[] bruteForce(final long key) {
+    final LongStream.Builder ids = LongStream.builder();
+    for (int i = 0; i < PointIndexTest.POINTS; i++) {
+      if (QuadKeys.contains(key, PointIndexTest.LATITUDES[i], PointIndexTest.LONGITUDES[i])) {
+        ids.add(i);
+      }
+    }
+    return ids.build().toArray();
+  }
+
+  /**
+   * Points of a border leaf may be outside of the box by less than the extent of a leaf.
+   */
+  private static boolean isNear(final int i, final int north, final int south, final int west,
+      final int east) {
+    return (PointIndexTest.LATITUDES[i] <= (north + 30))
+        && (PointIndexTest.LATITUDES[i] >= (south - 30))
+        && (PointIndexTest.LONGITUDES[i] >= (west - 60))
+        && (PointIndexTest.LONGITUDES[i] <= (east + 60));
+  }
+}
@@ -0,0 +1,131 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.PointIndex;
+import de.okkyou.quadtreeaddress.PointSnapshot;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PointSnapshotTest {
+
+  private static final int POINTS = 20000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void test_open_matchesPointIndex() throws IOException {
+    // Points all over the world, so the directory has many runs
+    final Random random = new Random(53);
+    final int[] latitudes = new int[PointSnapshotTest.POINTS];
+    final int[] longitudes = new int[PointSnapshotTest.POINTS];
+    for (int i = 0; i < PointSnapshotTest.POINTS; i++) {
+      latitudes[i] = random.nextInt(1700000001) - 850000000;
+      longitudes[i] = random.nextInt(2000000) + (((i % 2) == 0) ? 80000000 : -1799999999);
+    }
+    final PointIndex index = PointIndex.build(latitudes, longitudes,
+        LongStream.range(0, PointSnapshotTest.POINTS).toArray());
+    final Path file = this.folder.newFile().toPath();
+    try (PointSnapshot.Writer writer = new PointSnapshot.Writer(file)) {
+      for (int i = 0; i < index.size(); i++) {
+        // Payloads of different lengths
+        writer.add(index.getLeafKey(i), PointSnapshotTest.payload(index.getId(i)));
+      }
+    }
+
+    final PointSnapshot snapshot = PointSnapshot.open(file);
+    Assert.assertEquals(PointSnapshotTest.POINTS, snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      Assert.assertEquals(index.getLeafKey(i), snapshot.getLeafKey(i));
+      Assert.assertEquals(ByteBuffer.wrap(PointSnapshotTest.payload(index.getId(i))),
+          snapshot.getPayload(i));
+    }
+    for (int round = 0; round < 300; round++) {
+      final int i = random.nextInt(PointSnapshotTest.POINTS);
+      final long key = QuadKeys.encode(latitudes[i], longitudes[i], 1 + random.nextInt(26));
+      final long[] expected = index.getIds(key);
+      Arrays.sort(expected);
+      final LongStream.Builder ids = LongStream.builder();
+      snapshot.forEach(key, (leafKey, payloads, offset, length) -> {
+        final byte[] payload = new byte[length];
+        payloads.duplicate().position(offset).get(payload);
+        ids.add(Long.parseLong(new String(payload, StandardCharsets.US_ASCII)));
+      });
+      final long[] actual = ids.build().toArray();
+      Arrays.sort(actual);
+      Assert.assertArrayEquals(expected, actual);
+      Assert.assertEquals(expected.length, snapshot.count(key));
+    }
+    Assert.assertEquals(PointSnapshotTest.POINTS, snapshot.count(QuadKeys.ROOT));
+  }
+
+  @Test
+  public void test_forEach_quadTree() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    try (PointSnapshot.Writer writer = new PointSnapshot.Writer(file)) {
+      writer.add(400000000, 80000000, new byte[] {1, 2, 3}).add(0, 0, new byte[0]);
+    }
+    final PointSnapshot snapshot = PointSnapshot.open(file);
+    final int[] lengths = new int[2];
+    final int[] count = new int[1];
+    snapshot.forEach(QuadTreeAddress.createFromPoint(new Wgs84Point(40.0, 8.0), 20),
+        (leafKey, payloads, offset, length) -> lengths[count[0]++] = length);
+    Assert.assertEquals(1, count[0]);
+    Assert.assertEquals(3, lengths[0]);
+    Assert.assertEquals(0, snapshot.getPayload(1).remaining());
+  }
+
+  @Test
+  public void test_open_empty() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    new PointSnapshot.Writer(file).close();
+    final PointSnapshot snapshot = PointSnapshot.open(file);
+    Assert.assertEquals(0, snapshot.size());
+    Assert.assertEquals(0, snapshot.count(QuadKeys.ROOT));
+  }
+
+  @Test(expected = IOException.class)
+  public void test_open_otherVersion() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    new PointSnapshot.Writer(file).close();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(PointSnapshot.VERSION + 1).flip(),
+          Integer.BYTES);
+    }
+    PointSnapshot.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void test_open_noSnapshot() throws IOException {
+    final Path file = this.folder.newFile().toPath();
+    Files.write(file, new byte[PointSnapshot.HEADER_SIZE]);
+    PointSnapshot.open(file);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_add_descending() throws IOException {
+    try (PointSnapshot.Writer writer =
+        new PointSnapshot.Writer(this.folder.newFile().toPath())) {
+      // Northern rows come first
+      writer.add(0, 0, new byte[0]).add(10000000, 0, new byte[0]);
+    }
+  }
+
+  private static byte[] payload(final long id) {
+    return Long.toString(id).getBytes(StandardCharsets.US_ASCII);
+  }
+}
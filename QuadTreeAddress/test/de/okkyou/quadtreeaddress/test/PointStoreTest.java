@@ -0,0 +1,199 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.PointStore;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PointStoreTest {
+
+  private static final int IDS = 3000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void test_put_get_delete() throws IOException {
+    try (PointStore store = PointStore.open(this.folder.getRoot().toPath())) {
+      final long leafKey = LinearQuadKeys.encode(500000000, 80000000, 26);
+      store.put(500000000, 80000000, 1, PointStoreTest.bytes("first"));
+      store.put(leafKey, 2, PointStoreTest.bytes("second"));
+      Assert.assertArrayEquals(PointStoreTest.bytes("first"), store.get(leafKey, 1));
+      store.put(leafKey, 1, PointStoreTest.bytes("overwritten"));
+      Assert.assertArrayEquals(PointStoreTest.bytes("overwritten"), store.get(leafKey, 1));
+      store.delete(leafKey, 1);
+      Assert.assertNull(store.get(leafKey, 1));
+      Assert.assertArrayEquals(PointStoreTest.bytes("second"), store.get(leafKey, 2));
+      Assert.assertNull(store.get(leafKey + (1L << 5), 2));
+    }
+  }
+
+  @Test
+  public void test_forEach_matchesModelAcrossFlushesAndCompactions() throws IOException {
+    final Path directory = this.folder.getRoot().toPath();
+    final Map<Long, byte[]> model = new HashMap<>();
+    final Random random = new Random(59);
+    // A small memtable, so the records are spread over many segments and levels
+    try (PointStore store = PointStore.open(directory, 4096)) {
+      for (int round = 0; round < 20000; round++) {
+        final long id = random.nextInt(PointStoreTest.IDS);
+        if (random.nextInt(4) == 0) {
+          store.delete(PointStoreTest.leafKeyOf(id), id);
+          model.remove(id);
+        } else {
+          final byte[] payload = PointStoreTest.bytes(id + ":" + round);
+          store.put(PointStoreTest.leafKeyOf(id), id, payload);
+          model.put(id, payload);
+        }
+      }
+      PointStoreTest.assertMatches(model, store);
+      store.flush();
+      PointStoreTest.assertMatches(model, store);
+      // Levels with less than the fan-in segments each
+      Assert.assertTrue(store.getSegmentCount() < (4 * (PointStore.COMPACTION_FAN_IN - 1)));
+    }
+
+    try (PointStore store = PointStore.open(directory, 4096)) {
+      PointStoreTest.assertMatches(model, store);
+    }
+  }
+
+  @Test
+  public void test_open_replaysLog() throws IOException {
+    final Path directory = this.folder.getRoot().toPath();
+    final long leafKey = PointStoreTest.leafKeyOf(7);
+    try (PointStore store = PointStore.open(directory)) {
+      store.put(leafKey, 7, PointStoreTest.bytes("logged"));
+      store.put(leafKey, 8, PointStoreTest.bytes("deleted"));
+      store.delete(leafKey, 8);
+      store.sync();
+      Assert.assertEquals(0, store.getSegmentCount());
+    }
+    // A record that was being appended during a crash
+    try (Stream<Path> files = Files.list(directory)) {
+      final Path log = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+          .findFirst().get();
+      Files.write(log, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+    }
+    try (PointStore store = PointStore.open(directory)) {
+      Assert.assertEquals(1, store.getSegmentCount());
+      Assert.assertArrayEquals(PointStoreTest.bytes("logged"), store.get(leafKey, 7));
+      Assert.assertNull(store.get(leafKey, 8));
+    }
+  }
+
+  @Test
+  public void test_forEach_quadTree() throws IOException {
+    try (PointStore store = PointStore.open(this.folder.getRoot().toPath())) {
+      store.put(400000000, 80000000, 1, new byte[0]);
+      store.put(0, 0, 2, new byte[0]);
+      final long[] ids = new long[2];
+      final int[] count = new int[1];
+      store.forEach(QuadTreeAddress.createFromPoint(new Wgs84Point(40.0, 8.0), 20),
+          (leafKey, id, payload) -> ids[count[0]++] = id);
+      Assert.assertEquals(1, count[0]);
+      Assert.assertEquals(1, ids[0]);
+    }
+  }
+
+  @Test
+  public void test_put_failingLogRejectsLaterWrites() throws IOException {
+    final Path full = Paths.get("/dev/full");
+    Assume.assumeTrue(Files.isWritable(full));
+    final Path directory = this.folder.getRoot().toPath();
+    final long leafKey = PointStoreTest.leafKeyOf(1);
+    // Each write fills the memtable, so the second one is appended to the next log
+    try (PointStore store = PointStore.open(directory, 1)) {
+      Files.createSymbolicLink(directory.resolve("wal-0000000000000000001.log"), full);
+      store.put(leafKey, 1, PointStoreTest.bytes("stored"));
+      try {
+        store.put(leafKey, 2, PointStoreTest.bytes("failed"));
+        Assert.fail();
+      } catch (final IOException e) {
+        // The device is full
+      }
+      try {
+        store.put(leafKey, 3, PointStoreTest.bytes("rejected"));
+        Assert.fail();
+      } catch (final IOException e) {
+        Assert.assertNotNull(e.getCause());
+      }
+      Assert.assertArrayEquals(PointStoreTest.bytes("stored"), store.get(leafKey, 1));
+    }
+
+    try (PointStore store = PointStore.open(directory)) {
+      Assert.assertArrayEquals(PointStoreTest.bytes("stored"), store.get(leafKey, 1));
+      Assert.assertNull(store.get(leafKey, 2));
+      Assert.assertNull(store.get(leafKey, 3));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_put_noLeafKey() throws IOException {
+    try (PointStore store = PointStore.open(this.folder.getRoot().toPath())) {
+      store.put(LinearQuadKeys.encode(0, 0, 10), 1, new byte[0]);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void test_put_closed() throws IOException {
+    final PointStore store = PointStore.open(this.folder.getRoot().toPath());
+    store.close();
+    store.put(0, 0, 1, new byte[0]);
+  }
+
+  /**
+   * Positions around Frankfurt am Main derived from the id.
+   */
+  private static long leafKeyOf(final long id) {
+    final Random random = new Random(id);
+    return LinearQuadKeys.encode(495000000 + random.nextInt(10000000),
+        80000000 + random.nextInt(15000000), 26);
+  }
+
+  private static void assertMatches(final Map<Long, byte[]> model, final PointStore store)
+      throws IOException {
+    for (final long cell : new long[] {QuadKeys.ROOT, QuadKeys.encode(500000000, 85000000, 8),
+        QuadKeys.encode(500000000, 85000000, 12)}) {
+      final LongStream.Builder expected = LongStream.builder();
+      model.keySet().stream().sorted().forEach(id -> {
+        if (LinearQuadKeys.contains(LinearQuadKeys.fromQuadKey(cell),
+            PointStoreTest.leafKeyOf(id))) {
+          expected.add(id);
+        }
+      });
+      final LongStream.Builder actual = LongStream.builder();
+      final long[] previous = {-1};
+      store.forEach(cell, (leafKey, id, payload) -> {
+        Assert.assertTrue(leafKey >= previous[0]);
+        previous[0] = leafKey;
+        Assert.assertEquals(PointStoreTest.leafKeyOf(id), leafKey);
+        Assert.assertArrayEquals(model.get(id), payload);
+        actual.add(id);
+      });
+      final long[] actualIds = actual.build().sorted().toArray();
+      Assert.assertArrayEquals(expected.build().toArray(), actualIds);
+    }
+  }
+
+  private static byte[] bytes(final String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
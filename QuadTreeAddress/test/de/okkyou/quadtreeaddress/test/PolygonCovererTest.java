@@ -0,0 +1,100 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.PolygonCoverer;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.RegionCovering;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PolygonCovererTest {
+
+  private static final int DEGREE = 10000000;
+
+  private static final Wgs84Point[] OUTER = PolygonCovererTest.square(0, 10);
+  private static final Wgs84Point[] HOLE = PolygonCovererTest.square(4, 6);
+
+  @Test
+  public void test_cover_hole() {
+    final RegionCovering covering =
+        new PolygonCoverer(0, 10, 500).cover(PolygonCovererTest.OUTER, PolygonCovererTest.HOLE);
+    Assert.assertTrue(covering.size() <= 500);
+    Assert.assertTrue(covering.getInterior().length > 0);
+    Assert.assertTrue(covering.getBoundary().length > 0);
+
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 2, 2));
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 9.9, 0.1));
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 3.9, 5));
+    Assert.assertFalse(PolygonCovererTest.isCovered(covering, 5, 5));
+    Assert.assertFalse(PolygonCovererTest.isCovered(covering, 20, 20));
+    Assert.assertFalse(PolygonCovererTest.isCovered(covering, -1, 5));
+
+    for (final long key : covering.getInterior()) {
+      final double north = (double) QuadKeys.getUpperLatitude(key) / PolygonCovererTest.DEGREE;
+      final double south = (double) QuadKeys.getLowerLatitude(key) / PolygonCovererTest.DEGREE;
+      final double west = (double) QuadKeys.getLeftLongitude(key) / PolygonCovererTest.DEGREE;
+      final double east = (double) QuadKeys.getRightLongitude(key) / PolygonCovererTest.DEGREE;
+      Assert.assertTrue((south >= 0) && (north <= 10) && (west >= 0) && (east <= 10));
+      Assert.assertTrue((north <= 4) || (south >= 6) || (east <= 4) || (west >= 6));
+    }
+  }
+
+  @Test
+  public void test_cover_multipolygon() {
+    final RegionCovering covering = new PolygonCoverer(0, 12, 200)
+        .cover(PolygonCovererTest.square(0, 1), PolygonCovererTest.square(40, 41));
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 0.5, 0.5));
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 40.5, 40.5));
+    Assert.assertFalse(PolygonCovererTest.isCovered(covering, 20, 20));
+  }
+
+  @Test
+  public void test_cover_triangle() {
+    final int[][] latitudes = {{0, 0, 30 * PolygonCovererTest.DEGREE}};
+    final int[][] longitudes = {{0, 30 * PolygonCovererTest.DEGREE, 0}};
+    final RegionCovering covering = new PolygonCoverer(0, 9, 300).cover(latitudes, longitudes);
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 5, 5));
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 14.9, 14.9));
+    Assert.assertFalse(PolygonCovererTest.isCovered(covering, 25, 25));
+  }
+
+  @Test
+  public void test_cover_budget() {
+    final RegionCovering covering =
+        new PolygonCoverer(0, 26, 20).cover(PolygonCovererTest.OUTER, PolygonCovererTest.HOLE);
+    Assert.assertTrue(covering.size() <= 20);
+    Assert.assertTrue(PolygonCovererTest.isCovered(covering, 2, 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_cover_tooFewVertices() {
+    new PolygonCoverer(0, 10, 10).cover(new int[][] {{0, 1}}, new int[][] {{0, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_cover_noRing() {
+    new PolygonCoverer(0, 10, 10).cover(new int[0][], new int[0][]);
+  }
+
+  private static Wgs84Point[] square(final double min, final double max) {
+    return new Wgs84Point[] {new Wgs84Point(min, min), new Wgs84Point(min, max),
+        new Wgs84Point(max, max), new Wgs84Point(max, min)};
+  }
+
+  private static boolean isCovered(final RegionCovering covering, final double latitude,
+      final double longitude) {
+    final int lat = (int) (latitude * PolygonCovererTest.DEGREE);
+    final int lon = (int) (longitude * PolygonCovererTest.DEGREE);
+    for (final long key : covering.getInterior()) {
+      if (QuadKeys.contains(key, lat, lon)) {
+        return true;
+      }
+    }
+    for (final long key : covering.getBoundary()) {
+      if (QuadKeys.contains(key, lat, lon)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,182 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.CircleCoverer;
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.PolylineCoverer;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PolylineCovererTest {
+
+  @Test
+  public void test_cover_alongRow() {
+    final long[] covering = new PolylineCoverer(10)
+        .cover(new Wgs84Point(10.1, 10.1), new Wgs84Point(10.1, 20.1));
+    final long first = QuadKeys.encode(10.1, 10.1, 10);
+    final long last = QuadKeys.encode(10.1, 20.1, 10);
+    Assert.assertEquals(QuadKeys.getColumn(last) - QuadKeys.getColumn(first) + 1,
+        covering.length);
+    for (final long key : covering) {
+      Assert.assertEquals(QuadKeys.getRow(first), QuadKeys.getRow(key));
+    }
+  }
+
+  @Test
+  public void test_cover_singleVertex() {
+    final long[] covering = new PolylineCoverer(26).cover(new Wgs84Point(50.0, 8.0));
+    Assert.assertArrayEquals(new long[] {QuadKeys.encode(50.0, 8.0, 26)}, covering);
+  }
+
+  @Test
+  public void test_cover_containsRoute() {
+    final Random random = new Random(5);
+    final Wgs84Point[] route = PolylineCovererTest.randomRoute(random, 200);
+    final long[] covering = new PolylineCoverer(16).cover(route);
+    PolylineCovererTest.assertOrdered(covering);
+    for (int i = 1; i < route.length; i++) {
+      for (int s = 0; s <= 20; s++) {
+        final double fraction = s / 20.0;
+        final Wgs84Point point = new Wgs84Point(
+            PolylineCovererTest.interpolate(route[i - 1].getLatitudeInDegree(),
+                route[i].getLatitudeInDegree(), fraction),
+            PolylineCovererTest.interpolate(route[i - 1].getLongitudeInDegree(),
+                route[i].getLongitudeInDegree(), fraction));
+        Assert.assertTrue(PolylineCovererTest.isCovered(covering, point, 16));
+      }
+    }
+  }
+
+  @Test
+  public void test_cover_acrossAntimeridian() {
+    final long[] covering = new PolylineCoverer(8)
+        .cover(new Wgs84Point(0.5, 179.0), new Wgs84Point(0.5, -179.0));
+    Assert.assertEquals(2, covering.length);
+    for (final long key : covering) {
+      Assert.assertTrue(Math.abs(QuadKeys.getCenterLongitude(key)) > 1780000000);
+    }
+  }
+
+  @Test
+  public void test_cover_buffer() {
+    final Random random = new Random(7);
+    final Wgs84Point[] route = PolylineCovererTest.randomRoute(random, 50);
+    final PolylineCoverer coverer = new PolylineCoverer(17);
+    final long[] line = coverer.cover(route);
+    final long[] corridor = coverer.cover(route, 300);
+    Assert.assertTrue(corridor.length > line.length);
+    for (final long key : line) {
+      Assert.assertTrue(PolylineCovererTest.isCovered(corridor, key));
+    }
+    for (int i = 0; i < 2000; i++) {
+      final Wgs84Point vertex = route[random.nextInt(route.length)];
+      final Wgs84Point point = new Wgs84Point(
+          vertex.getLatitudeInDegree() + ((random.nextDouble() - 0.5) * 0.006),
+          vertex.getLongitudeInDegree() + ((random.nextDouble() - 0.5) * 0.01));
+      if (CircleCoverer.getDistance(vertex, point) <= 300) {
+        Assert.assertTrue(PolylineCovererTest.isCovered(corridor, point, 17));
+      }
+    }
+  }
+
+  @Test
+  public void test_cover_bufferAtPole() {
+    final long[] corridor =
+        new PolylineCoverer(6).cover(new Wgs84Point[] {new Wgs84Point(89.9, 0.0)}, 50000);
+    Assert.assertTrue(PolylineCovererTest.isCovered(corridor, new Wgs84Point(89.9, 180.0), 6));
+  }
+
+  @Test
+  public void test_cover_longRoute() {
+    final Wgs84Point[] route = PolylineCovererTest.randomRoute(new Random(9), 50000);
+    final PolylineCoverer coverer = new PolylineCoverer(20);
+    final long[] covering = coverer.cover(route, 50);
+    Assert.assertArrayEquals(PolylineCovererTest.dilate(coverer.cover(route), 20, 50), covering);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_cover_noVertex() {
+    new PolylineCoverer(10).cover(new Wgs84Point[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_cover_negativeBuffer() {
+    new PolylineCoverer(10).cover(new Wgs84Point[] {new Wgs84Point(0.0, 0.0)}, -1);
+  }
+
+  private static Wgs84Point[] randomRoute(final Random random, final int vertices) {
+    final Wgs84Point[] route = new Wgs84Point[vertices];
+    double latitude = 52.5;
+    double longitude = 13.4;
+    for (int i = 0; i < vertices; i++) {
+      route[i] = new Wgs84Point(latitude, longitude);
+      latitude += (random.nextDouble() - 0.5) * 0.004;
+      longitude += (random.nextDouble() - 0.5) * 0.006;
+    }
+    return route;
+  }
+
+  /**
+   * Dilates each QuadTree of the line on its own by the rows and columns of the buffer, see the
+   * class documentation of {@link PolylineCoverer}. A row gets the columns of the most poleward
+   * row within the row radius.
+   */
+  private static long[] dilate(final long[] line, final int depth, final double bufferInMeter) {
+    final int cells = 1 << depth;
+    final double buffer = bufferInMeter / CircleCoverer.EARTH_RADIUS_METER;
+    final int rowRadius = (int) Math.ceil(buffer / (Math.PI / cells));
+    final LongStream.Builder keys = LongStream.builder();
+    for (final long key : line) {
+      final int row = QuadKeys.getRow(key);
+      final int column = QuadKeys.getColumn(key);
+      for (int r = Math.max(0, row - rowRadius); r <= Math.min(cells - 1, row + rowRadius); r++) {
+        final int columnRadius = Math.max(
+            PolylineCovererTest.columnRadius(Math.max(0, r - rowRadius), cells, buffer),
+            PolylineCovererTest.columnRadius(Math.min(cells - 1, r + rowRadius), cells, buffer));
+        for (int c = column - columnRadius; c <= (column + columnRadius); c++) {
+          keys.add(LinearQuadKeys.fromQuadKey(
+              QuadKeys.fromRowAndColumn(r, Math.floorMod(c, cells), depth)));
+        }
+      }
+    }
+    return keys.build().sorted().distinct().map(LinearQuadKeys::toQuadKey).toArray();
+  }
+
+  private static int columnRadius(final int row, final int cells, final double buffer) {
+    final double upper = (Math.PI / 2) - ((Math.PI * row) / cells);
+    final double lower = upper - (Math.PI / cells);
+    final double cosine = Math.cos(Math.max(Math.abs(upper), Math.abs(lower)));
+    final double longitudes = Math.asin(Math.sin(buffer) / cosine);
+    return (int) Math.ceil(longitudes / ((2 * Math.PI) / cells));
+  }
+
+  private static double interpolate(final double start, final double end,
+      final double fraction) {
+    return start + ((end - start) * fraction);
+  }
+
+  private static void assertOrdered(final long[] covering) {
+    for (int i = 1; i < covering.length; i++) {
+      Assert.assertTrue(LinearQuadKeys.fromQuadKey(covering[i - 1])
+          < LinearQuadKeys.fromQuadKey(covering[i]));
+    }
+  }
+
+  private static boolean isCovered(final long[] covering, final Wgs84Point point,
+      final int depth) {
+    return PolylineCovererTest.isCovered(covering, QuadKeys.encode(
+        point.getLatitudeInTenthMicroDegree(), point.getLongitudeInTenthMicroDegree(), depth));
+  }
+
+  private static boolean isCovered(final long[] covering, final long key) {
+    final long[] linearKeys = new long[covering.length];
+    for (int i = 0; i < covering.length; i++) {
+      linearKeys[i] = LinearQuadKeys.fromQuadKey(covering[i]);
+    }
+    return Arrays.binarySearch(linearKeys, LinearQuadKeys.fromQuadKey(key)) >= 0;
+  }
+}
@@ -0,0 +1,91 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.QuadKeyBatch;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeyBatchTest {
+
+  private static final int COUNT = 1000;
+
+  @Test
+  public void test_encode_sameAsCreateFromPoint() {
+    final Random random = new Random(42);
+    final int[] latitudes = new int[QuadKeyBatchTest.COUNT];
+    final int[] longitudes = new int[QuadKeyBatchTest.COUNT];
+    for (int i = 0; i < QuadKeyBatchTest.COUNT; i++) {
+      latitudes[i] = (int) (Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE
+          * ((2 * random.nextDouble()) - 1));
+      longitudes[i] = (int) (Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE
+          * ((2 * random.nextDouble()) - 1));
+    }
+    latitudes[0] = Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE;
+    longitudes[0] = Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE;
+    latitudes[1] = Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE;
+    longitudes[1] = Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE;
+
+    final long[] keys = new long[QuadKeyBatchTest.COUNT];
+    for (final int depth : new int[] {1, 13, QuadTreeAddress.MAX_DEPTH}) {
+      QuadKeyBatch.encode(latitudes, longitudes, depth, keys);
+      for (int i = 0; i < QuadKeyBatchTest.COUNT; i++) {
+        Assert.assertEquals(QuadTreeAddress
+            .createFromPoint(new Wgs84Point(latitudes[i], longitudes[i]), depth)
+            .toNumberRepresentation(), keys[i]);
+      }
+    }
+  }
+
+  @Test
+  public void test_decodeBounds_sameAsQuadKeys() {
+    final long[] keys = {QuadKeys.ROOT, QuadTreeAddress.toNumberRepresentation("+ACDCDCBADCD"),
+        QuadTreeAddress.toNumberRepresentation("+DDDDDDDDDDDDDDDDDDDDDDDDDD")};
+    final int[] upper = new int[keys.length];
+    final int[] lower = new int[keys.length];
+    final int[] left = new int[keys.length];
+    final int[] right = new int[keys.length];
+    QuadKeyBatch.decodeBounds(keys, upper, lower, left, right);
+    final int[] latitudes = new int[keys.length];
+    final int[] longitudes = new int[keys.length];
+    QuadKeyBatch.decodeCenters(keys, latitudes, longitudes);
+    for (int i = 0; i < keys.length; i++) {
+      Assert.assertEquals(QuadKeys.getUpperLatitude(keys[i]), upper[i]);
+      Assert.assertEquals(QuadKeys.getLowerLatitude(keys[i]), lower[i]);
+      Assert.assertEquals(QuadKeys.getLeftLongitude(keys[i]), left[i]);
+      Assert.assertEquals(QuadKeys.getRightLongitude(keys[i]), right[i]);
+      Assert.assertEquals(QuadKeys.getCenterLatitude(keys[i]), latitudes[i]);
+      Assert.assertEquals(QuadKeys.getCenterLongitude(keys[i]), longitudes[i]);
+    }
+  }
+
+  @Test
+  public void test_encode_invalidPositionWritesNothing() {
+    final long[] keys = new long[2];
+    try {
+      QuadKeyBatch.encode(new int[] {0, Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE + 1},
+          new int[] {0, 0}, 5, keys);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+    Assert.assertArrayEquals(new long[2], keys);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_encode_lengthMismatch() {
+    QuadKeyBatch.encode(new int[2], new int[3], 5, new long[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_encode_targetTooShort() {
+    QuadKeyBatch.encode(new int[2], new int[2], 5, new long[1]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_decodeCenters_invalidKey() {
+    QuadKeyBatch.decodeCenters(new long[] {QuadKeys.NO_KEY}, new int[1], new int[1]);
+  }
+}
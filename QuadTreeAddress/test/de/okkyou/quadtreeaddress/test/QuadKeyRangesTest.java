@@ -0,0 +1,207 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeyRanges;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeyRangesTest {
+
+  // Around Frankfurt am Main
+  private static final int NORTH = 502000000;
+  private static final int SOUTH = 499500000;
+  private static final int WEST = 84000000;
+  private static final int EAST = 88500000;
+
+  private static final int MIDDLE = 1 << (QuadTreeAddress.MAX_DEPTH - 1);
+  private static final long LEAF_STEP = 1L << 5;
+
+  @Test
+  public void test_nextInBox_matchesBruteForce() {
+    final Random random = new Random(23);
+    for (int round = 0; round < 300; round++) {
+      // Around the middle of the grid, so the boxes cross the borders of large QuadTrees
+      final int firstRow = (QuadKeyRangesTest.MIDDLE - 4) + random.nextInt(6);
+      final int firstColumn = (QuadKeyRangesTest.MIDDLE - 4) + random.nextInt(6);
+      final int lastRow = firstRow + random.nextInt(6);
+      final int lastColumn = firstColumn + random.nextInt(6);
+      final long[] inside = QuadKeyRangesTest.leafKeys(firstRow, lastRow, firstColumn, lastColumn);
+      final int[] box = QuadKeyRangesTest.toBox(firstRow, lastRow, firstColumn, lastColumn);
+
+      // The leaves of the box, their surroundings and random leaves in between
+      final long[] keys = new long[(inside.length * 7) + 200];
+      int count = 0;
+      for (final long leaf : inside) {
+        for (int offset = -3; offset <= 3; offset++) {
+          keys[count++] = leaf + (offset * QuadKeyRangesTest.LEAF_STEP);
+        }
+      }
+      final long steps = (inside[inside.length - 1] - inside[0]) / QuadKeyRangesTest.LEAF_STEP;
+      while (count < keys.length) {
+        final long step = (random.nextLong() >>> 1) % (steps + 1);
+        keys[count++] = inside[0] + (step * QuadKeyRangesTest.LEAF_STEP);
+      }
+      for (final long key : keys) {
+        final int index = Arrays.binarySearch(inside, key);
+        final int ceiling = (index >= 0) ? index : (-index - 1);
+        final int floor = (index >= 0) ? index : (-index - 2);
+        Assert.assertEquals(index >= 0,
+            QuadKeyRanges.isInBox(key, box[0], box[1], box[2], box[3]));
+        Assert.assertEquals((ceiling < inside.length) ? inside[ceiling] : QuadKeys.NO_KEY,
+            QuadKeyRanges.nextInBox(key, box[0], box[1], box[2], box[3]));
+        Assert.assertEquals((floor >= 0) ? inside[floor] : QuadKeys.NO_KEY,
+            QuadKeyRanges.previousInBox(key, box[0], box[1], box[2], box[3]));
+      }
+    }
+  }
+
+  @Test
+  public void test_nextInBox_skipsGap() {
+    // The box spans the middle column, so its leaves lie in the western and the eastern half
+    final int[] box = QuadKeyRangesTest.toBox(10, 11, QuadKeyRangesTest.MIDDLE - 1,
+        QuadKeyRangesTest.MIDDLE);
+    final long westernLast = LinearQuadKeys
+        .fromQuadKey(QuadKeys.fromRowAndColumn(11, QuadKeyRangesTest.MIDDLE - 1, 26));
+    final long easternFirst = LinearQuadKeys
+        .fromQuadKey(QuadKeys.fromRowAndColumn(10, QuadKeyRangesTest.MIDDLE, 26));
+    Assert.assertEquals(easternFirst, QuadKeyRanges.nextInBox(
+        westernLast + QuadKeyRangesTest.LEAF_STEP, box[0], box[1], box[2], box[3]));
+    Assert.assertEquals(westernLast, QuadKeyRanges.previousInBox(
+        easternFirst - QuadKeyRangesTest.LEAF_STEP, box[0], box[1], box[2], box[3]));
+  }
+
+  @Test
+  public void test_nextInBox_acrossAntimeridian() {
+    final int north = 10000000;
+    final int south = -10000000;
+    final int west = 1790000000;
+    final int east = -1790000000;
+    final long first = LinearQuadKeys.encode(north, 1795000000, 26);
+    final long second = LinearQuadKeys.encode(0, -1795000000, 26);
+    for (final long key : new long[] {first, second}) {
+      Assert.assertTrue(QuadKeyRanges.isInBox(key, north, south, west, east));
+      Assert.assertEquals(key, QuadKeyRanges.nextInBox(key, north, south, west, east));
+      Assert.assertEquals(key, QuadKeyRanges.previousInBox(key, north, south, west, east));
+    }
+    final long outside = LinearQuadKeys.encode(0, 0, 26);
+    Assert.assertFalse(QuadKeyRanges.isInBox(outside, north, south, west, east));
+    final long next = QuadKeyRanges.nextInBox(outside, north, south, west, east);
+    Assert.assertTrue(next > outside);
+    Assert.assertTrue(QuadKeyRanges.isInBox(next, north, south, west, east));
+  }
+
+  @Test
+  public void test_isInBox_acrossAntimeridianWithinOneColumn() {
+    // West is east of east, but both are within the same leaf column
+    final int west = 80000001;
+    final int east = 80000000;
+    for (final long key : new long[] {LinearQuadKeys.encode(0, 0, 26),
+        LinearQuadKeys.encode(500000000, 80000000, 26),
+        LinearQuadKeys.encode(-500000000, -1795000000, 26)}) {
+      Assert.assertTrue(QuadKeyRanges.isInBox(key, 900000000, -900000000, west, east));
+      Assert.assertEquals(key, QuadKeyRanges.nextInBox(key, 900000000, -900000000, west, east));
+      Assert.assertEquals(key,
+          QuadKeyRanges.previousInBox(key, 900000000, -900000000, west, east));
+      // Touching borders around the antimeridian
+      Assert.assertTrue(QuadKeyRanges.isInBox(key, 900000000, -900000000,
+          Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE + 1,
+          Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE));
+    }
+  }
+
+  @Test
+  public void test_getRanges_containBox() {
+    final long[] ranges = QuadKeyRanges.getRanges(QuadKeyRangesTest.NORTH,
+        QuadKeyRangesTest.SOUTH, QuadKeyRangesTest.WEST, QuadKeyRangesTest.EAST, 16);
+    Assert.assertEquals(0, ranges.length % 2);
+    Assert.assertTrue(ranges.length <= 32);
+    for (int i = 0; i < ranges.length; i += 2) {
+      Assert.assertTrue(ranges[i] <= ranges[i + 1]);
+      if (i > 0) {
+        // Sorted and neither overlapping nor adjacent
+        Assert.assertTrue(ranges[i] > (ranges[i - 1] + QuadKeyRangesTest.LEAF_STEP));
+      }
+    }
+    final Random random = new Random(29);
+    for (int i = 0; i < 1000; i++) {
+      final long key = LinearQuadKeys.encode(
+          QuadKeyRangesTest.SOUTH
+              + random.nextInt((QuadKeyRangesTest.NORTH - QuadKeyRangesTest.SOUTH) + 1),
+          QuadKeyRangesTest.WEST
+              + random.nextInt((QuadKeyRangesTest.EAST - QuadKeyRangesTest.WEST) + 1),
+          26);
+      Assert.assertTrue(QuadKeyRangesTest.isInRanges(ranges, key));
+    }
+    Assert.assertFalse(QuadKeyRangesTest.isInRanges(ranges, LinearQuadKeys.encode(0, 0, 26)));
+  }
+
+  @Test
+  public void test_getRanges_moreRangesScanLess() {
+    final long[] coarse = QuadKeyRanges.getRanges(QuadKeyRangesTest.NORTH,
+        QuadKeyRangesTest.SOUTH, QuadKeyRangesTest.WEST, QuadKeyRangesTest.EAST, 1);
+    final long[] fine = QuadKeyRanges.getRanges(QuadKeyRangesTest.NORTH, QuadKeyRangesTest.SOUTH,
+        QuadKeyRangesTest.WEST, QuadKeyRangesTest.EAST, 64);
+    Assert.assertEquals(2, coarse.length);
+    Assert.assertTrue(QuadKeyRangesTest.length(fine) < QuadKeyRangesTest.length(coarse));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_nextInBox_noLeaf() {
+    QuadKeyRanges.nextInBox(LinearQuadKeys.encode(0, 0, 10), QuadKeyRangesTest.NORTH,
+        QuadKeyRangesTest.SOUTH, QuadKeyRangesTest.WEST, QuadKeyRangesTest.EAST);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getRanges_invalidBox() {
+    QuadKeyRanges.getRanges(QuadKeyRangesTest.SOUTH, QuadKeyRangesTest.NORTH,
+        QuadKeyRangesTest.WEST, QuadKeyRangesTest.EAST, 16);
+  }
+
+  private static long[] leafKeys(final int firstRow, final int lastRow, final int firstColumn,
+      final int lastColumn) {
+    final long[] keys = new long[((lastRow - firstRow) + 1) * ((lastColumn - firstColumn) + 1)];
+    int i = 0;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        keys[i++] = LinearQuadKeys.fromQuadKey(QuadKeys.fromRowAndColumn(row, column, 26));
+      }
+    }
+    Arrays.sort(keys);
+    return keys;
+  }
+
+  /**
+   * Returns north, south, west and east of a box that contains positions of exactly the given
+   * leaves.
+   */
+  private static int[] toBox(final int firstRow, final int lastRow, final int firstColumn,
+      final int lastColumn) {
+    final long northWest = QuadKeys.fromRowAndColumn(firstRow, firstColumn, 26);
+    final long southEast = QuadKeys.fromRowAndColumn(lastRow, lastColumn, 26);
+    return new int[] {QuadKeys.getUpperLatitude(northWest) - 1,
+        QuadKeys.getLowerLatitude(southEast), QuadKeys.getLeftLongitude(northWest),
+        QuadKeys.getRightLongitude(southEast) - 1};
+  }
+
+  private static boolean isInRanges(final long[] ranges, final long key) {
+    for (int i = 0; i < ranges.length; i += 2) {
+      if ((key >= ranges[i]) && (key <= ranges[i + 1])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long length(final long[] ranges) {
+    long length = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      length += (ranges[i + 1] - ranges[i]) / QuadKeyRangesTest.LEAF_STEP;
+    }
+    return length;
+  }
+}
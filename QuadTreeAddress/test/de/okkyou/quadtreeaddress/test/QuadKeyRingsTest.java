@@ -0,0 +1,162 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.QuadKeyRings;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeyRingsTest {
+
+  private static final long VALID_KEY = QuadTreeAddress.toNumberRepresentation("+ACDCDCBADCD");
+
+  @Test
+  public void test_getRing_radiusZeroIsKey() {
+    final long[] ring = new long[1];
+    Assert.assertEquals(1, QuadKeyRings.getRing(QuadKeyRingsTest.VALID_KEY, 0, ring, 0));
+    Assert.assertEquals(QuadKeyRingsTest.VALID_KEY, ring[0]);
+  }
+
+  @Test
+  public void test_getRing_radiusOneAreNeighbors() {
+    final long[] ring = new long[QuadKeyRings.getRingSize(1)];
+    final long[] neighbors = new long[QuadKeys.NEIGHBOR_COUNT];
+    Assert.assertEquals(QuadKeys.NEIGHBOR_COUNT,
+        QuadKeyRings.getRing(QuadKeyRingsTest.VALID_KEY, 1, ring, 0));
+    QuadKeys.getNeighbors(QuadKeyRingsTest.VALID_KEY, neighbors, 0);
+    Assert.assertEquals(QuadKeyRingsTest.toSet(neighbors, neighbors.length),
+        QuadKeyRingsTest.toSet(ring, ring.length));
+  }
+
+  @Test
+  public void test_getRing_chebyshevDistance() {
+    final int row = QuadKeys.getRow(QuadKeyRingsTest.VALID_KEY);
+    final int column = QuadKeys.getColumn(QuadKeyRingsTest.VALID_KEY);
+    for (int radius = 1; radius <= 5; radius++) {
+      final long[] ring = new long[QuadKeyRings.getRingSize(radius)];
+      Assert.assertEquals(ring.length,
+          QuadKeyRings.getRing(QuadKeyRingsTest.VALID_KEY, radius, ring, 0));
+      for (final long key : ring) {
+        Assert.assertEquals(radius, Math.max(Math.abs(QuadKeys.getRow(key) - row),
+            Math.abs(QuadKeys.getColumn(key) - column)));
+      }
+      Assert.assertEquals(ring.length, QuadKeyRingsTest.toSet(ring, ring.length).size());
+    }
+  }
+
+  @Test
+  public void test_getRing_startsNorthWestClockwise() {
+    final long key = QuadKeys.fromRowAndColumn(5, 5, 4);
+    final long[] ring = new long[QuadKeyRings.getRingSize(1)];
+    QuadKeyRings.getRing(key, 1, ring, 0);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(4, 4, 4), ring[0]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(4, 5, 4), ring[1]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(4, 6, 4), ring[2]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(5, 6, 4), ring[3]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(6, 6, 4), ring[4]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(6, 4, 4), ring[6]);
+    Assert.assertEquals(QuadKeys.fromRowAndColumn(5, 4, 4), ring[7]);
+  }
+
+  @Test
+  public void test_getDisk_matchesRings() {
+    final int radius = 5;
+    final long[] disk = new long[QuadKeyRings.getDiskSize(radius) + 3];
+    Assert.assertEquals(QuadKeyRings.getDiskSize(radius),
+        QuadKeyRings.getDisk(QuadKeyRingsTest.VALID_KEY, radius, disk, 3));
+    int index = 3;
+    for (int r = 0; r <= radius; r++) {
+      final long[] ring = new long[QuadKeyRings.getRingSize(r)];
+      final int count = QuadKeyRings.getRing(QuadKeyRingsTest.VALID_KEY, r, ring, 0);
+      for (int i = 0; i < count; i++) {
+        Assert.assertEquals(ring[i], disk[index++]);
+      }
+    }
+  }
+
+  @Test
+  public void test_getDisk_antimeridian() {
+    final long key = QuadKeys.fromRowAndColumn(3, 0, 3);
+    final long[] disk = new long[QuadKeyRings.getDiskSize(2)];
+    Assert.assertEquals(disk.length, QuadKeyRings.getDisk(key, 2, disk, 0));
+    final Set<Long> keys = QuadKeyRingsTest.toSet(disk, disk.length);
+    Assert.assertEquals(disk.length, keys.size());
+    Assert.assertTrue(keys.contains(QuadKeys.fromRowAndColumn(1, 6, 3)));
+    Assert.assertTrue(keys.contains(QuadKeys.fromRowAndColumn(5, 2, 3)));
+  }
+
+  @Test
+  public void test_getDisk_pole() {
+    final long key = QuadKeys.fromRowAndColumn(0, 8, 5);
+    final long[] disk = new long[QuadKeyRings.getDiskSize(2)];
+    Assert.assertEquals(3 * 5, QuadKeyRings.getDisk(key, 2, disk, 0));
+    for (int i = 0; i < (3 * 5); i++) {
+      Assert.assertTrue(QuadKeys.getRow(disk[i]) <= 2);
+    }
+  }
+
+  @Test
+  public void test_getDisk_wholeGrid() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+AD");
+    final long[] disk = new long[QuadKeyRings.getDiskSize(10)];
+    Assert.assertEquals(16, QuadKeyRings.getDisk(key, 10, disk, 0));
+    Assert.assertEquals(16, QuadKeyRingsTest.toSet(disk, 16).size());
+    Assert.assertEquals(0, QuadKeyRings.getRing(key, 4, disk, 0));
+  }
+
+  @Test
+  public void test_diskIterator_matchesGetDisk() {
+    final long[] disk = new long[QuadKeyRings.getDiskSize(3)];
+    final int count = QuadKeyRings.getDisk(QuadKeyRingsTest.VALID_KEY, 3, disk, 0);
+    final PrimitiveIterator.OfLong iterator =
+        QuadKeyRings.diskIterator(QuadKeyRingsTest.VALID_KEY, 3);
+    for (int i = 0; i < count; i++) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(disk[i], iterator.nextLong());
+    }
+    Assert.assertFalse(iterator.hasNext());
+    try {
+      iterator.nextLong();
+      Assert.fail();
+    } catch (final NoSuchElementException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void test_forEachInDisk_matchesGetDisk() {
+    final long[] disk = new long[QuadKeyRings.getDiskSize(2)];
+    final int count = QuadKeyRings.getDisk(QuadKeyRingsTest.VALID_KEY, 2, disk, 0);
+    final long[] consumed = new long[count];
+    final int[] index = new int[1];
+    QuadKeyRings.forEachInDisk(QuadKeyRingsTest.VALID_KEY, 2, key -> consumed[index[0]++] = key);
+    Assert.assertArrayEquals(disk, consumed);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getRing_negativeRadius() {
+    QuadKeyRings.getRing(QuadKeyRingsTest.VALID_KEY, -1, new long[1], 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getDisk_invalidKey() {
+    QuadKeyRings.getDisk(QuadKeys.NO_KEY, 1, new long[9], 0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void test_getDisk_noSpace() {
+    QuadKeyRings.getDisk(QuadKeyRingsTest.VALID_KEY, 1, new long[9], 1);
+  }
+
+  private static Set<Long> toSet(final long[] keys, final int count) {
+    final Set<Long> set = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      set.add(keys[i]);
+    }
+    return set;
+  }
+}
@@ -0,0 +1,92 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.QuadKeyText;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeyTextTest {
+
+  private static final String VALID_QUADTREE = "+ACDCDCBADCDABCDAABCDCBD";
+  private static final long VALID_KEY = 6629359005329988536L;
+
+  @Test
+  public void test_toString_valid() {
+    Assert.assertEquals(QuadKeyTextTest.VALID_QUADTREE,
+        QuadKeyText.toString(QuadKeyTextTest.VALID_KEY));
+    Assert.assertEquals("+", QuadKeyText.toString(QuadKeys.ROOT));
+  }
+
+  @Test
+  public void test_toString_allDepths() {
+    final String deepest = "+DCBAABCDDCBAABCDDCBAABCDDC";
+    for (int depth = 0; depth <= QuadTreeAddress.MAX_DEPTH; depth++) {
+      final String quadTree = deepest.substring(0, depth + 1);
+      final long key = QuadTreeAddress.toNumberRepresentation(quadTree);
+      Assert.assertEquals(quadTree, QuadKeyText.toString(key));
+      Assert.assertEquals(key, QuadKeyText.parse(quadTree));
+    }
+  }
+
+  @Test
+  public void test_write_chars() {
+    final char[] chars = new char[QuadKeyText.MAX_LENGTH + 2];
+    Assert.assertEquals(QuadKeyTextTest.VALID_QUADTREE.length(),
+        QuadKeyText.write(QuadKeyTextTest.VALID_KEY, chars, 2));
+    Assert.assertEquals(QuadKeyTextTest.VALID_QUADTREE,
+        new String(chars, 2, QuadKeyTextTest.VALID_QUADTREE.length()));
+  }
+
+  @Test
+  public void test_write_bytes() {
+    final byte[] bytes = new byte[QuadKeyText.MAX_LENGTH];
+    final int length = QuadKeyText.write(QuadKeyTextTest.VALID_KEY, bytes, 0);
+    Assert.assertEquals(QuadKeyTextTest.VALID_QUADTREE,
+        new String(bytes, 0, length, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void test_append() {
+    final StringBuilder builder = new StringBuilder("id,");
+    QuadKeyText.append(QuadKeyTextTest.VALID_KEY, builder).append(',');
+    Assert.assertEquals("id," + QuadKeyTextTest.VALID_QUADTREE + ",", builder.toString());
+  }
+
+  @Test
+  public void test_parse_range() {
+    final String line = "1," + QuadKeyTextTest.VALID_QUADTREE + ",x";
+    Assert.assertEquals(QuadKeyTextTest.VALID_KEY,
+        QuadKeyText.parse(line, 2, 2 + QuadKeyTextTest.VALID_QUADTREE.length()));
+    final byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+    Assert.assertEquals(QuadKeyTextTest.VALID_KEY,
+        QuadKeyText.parse(bytes, 2, QuadKeyTextTest.VALID_QUADTREE.length()));
+  }
+
+  @Test
+  public void test_tryParse_invalid() {
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeyText.tryParse(""));
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeyText.tryParse("ABCD"));
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeyText.tryParse("+ABCE"));
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeyText.tryParse("+AB@"));
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeyText.tryParse("+AAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+    Assert.assertEquals(QuadKeys.NO_KEY,
+        QuadKeyText.tryParse(new byte[] {'+', 'A', (byte) 0xC1}, 0, 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_parse_invalid() {
+    QuadKeyText.parse("+ABX");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_write_invalidKey() {
+    QuadKeyText.write(QuadKeys.NO_KEY, new char[QuadKeyText.MAX_LENGTH], 0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void test_write_noSpace() {
+    QuadKeyText.write(QuadKeyTextTest.VALID_KEY, new char[QuadKeyText.MAX_LENGTH], 10);
+  }
+}
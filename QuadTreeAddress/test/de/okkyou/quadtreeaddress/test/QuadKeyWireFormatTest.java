@@ -0,0 +1,130 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.LinearQuadKeys;
+import de.okkyou.quadtreeaddress.QuadKeyWireFormat;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeyWireFormatTest {
+
+  private static final int COUNT = 10000;
+
+  @Test
+  public void test_encode_decode_roundTrip() {
+    final Random random = new Random(71);
+    for (final boolean mixedDepths : new boolean[] {false, true}) {
+      final long[] keys = new long[QuadKeyWireFormatTest.COUNT];
+      for (int i = 0; i < keys.length; i++) {
+        final int depth = mixedDepths ? random.nextInt(QuadTreeAddress.MAX_DEPTH + 1) : 17;
+        keys[i] = QuadKeys.encode(random.nextInt(1700000001) - 850000000,
+            random.nextInt(2000000001) - 1000000000, Math.max(1, depth));
+      }
+      keys[0] = mixedDepths ? QuadKeys.ROOT : keys[0];
+      // A duplicate is kept
+      keys[1] = keys[2];
+
+      final byte[] batch = QuadKeyWireFormat.encode(keys);
+      final long[] decoded = QuadKeyWireFormat.decode(ByteBuffer.wrap(batch));
+      Assert.assertArrayEquals(QuadKeyWireFormatTest.sortedByLinearKey(keys), decoded);
+      // Sorted keys are encoded without a copy
+      Assert.assertArrayEquals(batch, QuadKeyWireFormat.encode(decoded));
+    }
+  }
+
+  @Test
+  public void test_encode_nearbyCells() throws IOException {
+    // QuadTrees of 20th depth within a few kilometers of Frankfurt am Main
+    final Random random = new Random(73);
+    final long[] keys = new long[QuadKeyWireFormatTest.COUNT];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = QuadKeys.encode(500600000 + random.nextInt(1000000),
+          86300000 + random.nextInt(1500000), 20);
+    }
+    final byte[] batch = QuadKeyWireFormat.encode(keys);
+    Assert.assertTrue((batch.length * 5) < (keys.length * Long.BYTES));
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Assert.assertEquals(batch.length, QuadKeyWireFormat.encode(keys, 0, keys.length, output));
+    Assert.assertArrayEquals(batch, output.toByteArray());
+    Assert.assertArrayEquals(QuadKeyWireFormatTest.sortedByLinearKey(keys),
+        QuadKeyWireFormat.decode(new ByteArrayInputStream(batch)));
+    Assert.assertArrayEquals(QuadKeyWireFormatTest.sortedByLinearKey(keys),
+        QuadKeyWireFormat.decode(ByteBuffer.wrap(batch)));
+  }
+
+  @Test
+  public void test_encode_decode_consecutiveBatches() throws IOException {
+    final long[] keys = {QuadKeys.encode(500000000, 80000000, 26),
+        QuadKeys.encode(-335000000, 1512000000, 26), QuadKeys.encode(0, 0, 26)};
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Assert.assertEquals(QuadKeyWireFormat.encode(keys, 0, 2, output), output.size());
+    QuadKeyWireFormat.encode(keys, 0, 0, output);
+    QuadKeyWireFormat.encode(keys, 2, 1, output);
+
+    final ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+    Assert.assertArrayEquals(QuadKeyWireFormatTest.sortedByLinearKey(
+        Arrays.copyOfRange(keys, 0, 2)), QuadKeyWireFormat.decode(input));
+    Assert.assertEquals(0, QuadKeyWireFormat.decode(input).length);
+    Assert.assertArrayEquals(new long[] {keys[2]}, QuadKeyWireFormat.decode(input));
+    Assert.assertEquals(0, input.available());
+
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(QuadKeyWireFormat.getMaxLength(3) * 2);
+    QuadKeyWireFormat.encode(keys, 0, 3, buffer);
+    QuadKeyWireFormat.encode(keys, 1, 1, buffer);
+    buffer.flip();
+    final long[] target = new long[4];
+    Assert.assertEquals(3, QuadKeyWireFormat.decode(buffer, target, 0));
+    Assert.assertEquals(1, QuadKeyWireFormat.decode(buffer, target, 3));
+    Assert.assertFalse(buffer.hasRemaining());
+    Assert.assertEquals(keys[1], target[3]);
+  }
+
+  @Test
+  public void test_decode_truncated() {
+    final byte[] batch = QuadKeyWireFormat.encode(new long[] {QuadKeys.encode(0, 0, 26),
+        QuadKeys.encode(500000000, 80000000, 26)});
+    final ByteBuffer buffer = ByteBuffer.wrap(batch, 0, batch.length - 1);
+    try {
+      QuadKeyWireFormat.decode(buffer);
+      Assert.fail();
+    } catch (final IllegalArgumentException e) {
+      Assert.assertEquals(0, buffer.position());
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void test_decode_truncatedStream() throws IOException {
+    final byte[] batch = QuadKeyWireFormat.encode(new long[] {QuadKeys.encode(0, 0, 26)});
+    QuadKeyWireFormat.decode(new ByteArrayInputStream(Arrays.copyOf(batch, batch.length - 1)));
+  }
+
+  @Test(expected = EOFException.class)
+  public void test_decode_streamWithHugeLength() throws IOException {
+    // One key of 26th depth and differences of almost 2 GB, of which 3 bytes follow
+    QuadKeyWireFormat.decode(new ByteArrayInputStream(new byte[] {1, 26, (byte) 0xF0, (byte) 0xFF,
+        (byte) 0xFF, (byte) 0xFF, 0x07, 1, 2, 3}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_decode_invalidDepth() {
+    QuadKeyWireFormat.decode(ByteBuffer.wrap(new byte[] {1, 27, 1, 0}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_encode_invalidKey() {
+    QuadKeyWireFormat.encode(new long[] {QuadKeys.NO_KEY});
+  }
+
+  private static long[] sortedByLinearKey(final long[] keys) {
+    return Arrays.stream(keys).map(LinearQuadKeys::fromQuadKey).sorted()
+        .map(LinearQuadKeys::toQuadKey).toArray();
+  }
+}
@@ -0,0 +1,242 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QuadKeysTest {
+
+  private static final Wgs84Point VALID_POINT1 = new Wgs84Point(49.721, 9.124);
+  private static final Wgs84Point VALID_POINT2 = new Wgs84Point(-49.721, -9.124);
+  private static final String VALID_QUADTREE = "+ACDCDCBADCDABCDAABCDCBD";
+  private static final long VALID_KEY = 6629359005329988536L;
+
+  @Test
+  public void test_encode_sameAsCreateFromPoint() {
+    for (int depth = 1; depth <= QuadTreeAddress.MAX_DEPTH; depth++) {
+      Assert.assertEquals(QuadTreeAddress.createFromPoint(QuadKeysTest.VALID_POINT1, depth)
+          .toNumberRepresentation(),
+          QuadKeys.encode(QuadKeysTest.VALID_POINT1.getLatitudeInTenthMicroDegree(),
+              QuadKeysTest.VALID_POINT1.getLongitudeInTenthMicroDegree(), depth));
+      Assert.assertEquals(QuadTreeAddress.createFromPoint(QuadKeysTest.VALID_POINT2, depth)
+          .toNumberRepresentation(),
+          QuadKeys.encode(QuadKeysTest.VALID_POINT2.getLatitudeInDegree(),
+              QuadKeysTest.VALID_POINT2.getLongitudeInDegree(), depth));
+    }
+  }
+
+  @Test
+  public void test_encode_corners() {
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+DDD"),
+        QuadKeys.encode(Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE,
+            Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE, 3));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+AAA"),
+        QuadKeys.encode(Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE,
+            Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE, 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_encode_invalidDepth() {
+    QuadKeys.encode(0, 0, QuadTreeAddress.MAX_DEPTH + 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_encode_invalidLatitude() {
+    QuadKeys.encode(90.0000001, 0.0, 5);
+  }
+
+  @Test
+  public void test_isValid() {
+    Assert.assertTrue(QuadKeys.isValid(QuadKeysTest.VALID_KEY));
+    Assert.assertTrue(QuadKeys.isValid(QuadKeys.ROOT));
+    Assert.assertFalse(QuadKeys.isValid(-12));
+    Assert.assertFalse(QuadKeys.isValid(QuadKeysTest.VALID_KEY | (1L << 55)));
+    Assert.assertFalse(QuadKeys.isValid(QuadKeysTest.VALID_KEY | (1L << 50)));
+  }
+
+  @Test
+  public void test_getDepth() {
+    Assert.assertEquals(QuadTreeAddress.getDepth(QuadKeysTest.VALID_QUADTREE),
+        QuadKeys.getDepth(QuadKeysTest.VALID_KEY));
+  }
+
+  @Test
+  public void test_getSector() {
+    Assert.assertEquals(0, QuadKeys.getSector(QuadKeysTest.VALID_KEY, 1));
+    Assert.assertEquals(2, QuadKeys.getSector(QuadKeysTest.VALID_KEY, 2));
+    Assert.assertEquals(3, QuadKeys.getSector(QuadKeysTest.VALID_KEY, 23));
+  }
+
+  @Test
+  public void test_getParent() {
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACDCDCBADCDABCDAABCDCB"),
+        QuadKeys.getParent(QuadKeysTest.VALID_KEY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getParent_root() {
+    QuadKeys.getParent(QuadKeys.ROOT);
+  }
+
+  @Test
+  public void test_getAncestor() {
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACDCD"),
+        QuadKeys.getAncestor(QuadKeysTest.VALID_KEY, 5));
+    Assert.assertEquals(QuadKeys.ROOT, QuadKeys.getAncestor(QuadKeysTest.VALID_KEY, 0));
+    Assert.assertEquals(QuadKeysTest.VALID_KEY,
+        QuadKeys.getAncestor(QuadKeysTest.VALID_KEY, QuadTreeAddress.MAX_DEPTH));
+  }
+
+  @Test
+  public void test_getChildren() {
+    final long[] children = new long[5];
+    QuadKeys.getChildren(QuadTreeAddress.toNumberRepresentation("+AC"), children, 1);
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACA"), children[1]);
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACB"), children[2]);
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACC"), children[3]);
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACD"), children[4]);
+    Assert.assertEquals(children[4],
+        QuadKeys.getChild(QuadTreeAddress.toNumberRepresentation("+AC"), 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getChild_maxDepth() {
+    QuadKeys.getChild(QuadKeys.encode(0, 0, QuadTreeAddress.MAX_DEPTH), 0);
+  }
+
+  @Test
+  public void test_contains_key() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+ACDC");
+    Assert.assertTrue(QuadKeys.contains(key, key));
+    Assert.assertTrue(QuadKeys.contains(key, QuadKeysTest.VALID_KEY));
+    Assert.assertTrue(QuadKeys.contains(QuadKeys.ROOT, key));
+    Assert.assertFalse(QuadKeys.contains(QuadKeysTest.VALID_KEY, key));
+    Assert.assertFalse(
+        QuadKeys.contains(QuadTreeAddress.toNumberRepresentation("+ACDD"), QuadKeysTest.VALID_KEY));
+  }
+
+  @Test
+  public void test_contains_position() {
+    final long key = QuadTreeAddress.createFromPoint(QuadKeysTest.VALID_POINT1, 12)
+        .toNumberRepresentation();
+    Assert.assertTrue(
+        QuadKeys.contains(key, QuadKeysTest.VALID_POINT1.getLatitudeInTenthMicroDegree(),
+            QuadKeysTest.VALID_POINT1.getLongitudeInTenthMicroDegree()));
+    Assert.assertTrue(QuadKeys.contains(key, QuadKeys.getLowerLatitude(key),
+        QuadKeys.getLeftLongitude(key)));
+    Assert.assertFalse(QuadKeys.contains(key, QuadKeys.getUpperLatitude(key),
+        QuadKeys.getLeftLongitude(key)));
+    Assert.assertFalse(QuadKeys.contains(key, QuadKeys.getLowerLatitude(key),
+        QuadKeys.getRightLongitude(key)));
+    Assert.assertFalse(
+        QuadKeys.contains(key, QuadKeysTest.VALID_POINT2.getLatitudeInTenthMicroDegree(),
+            QuadKeysTest.VALID_POINT2.getLongitudeInTenthMicroDegree()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_contains_invalidKey() {
+    QuadKeys.contains(-1L, QuadKeysTest.VALID_KEY);
+  }
+
+  @Test
+  public void test_rowAndColumn() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+ACAB");
+    Assert.assertEquals(0b0100, QuadKeys.getRow(key));
+    Assert.assertEquals(0b0001, QuadKeys.getColumn(key));
+    Assert.assertEquals(key, QuadKeys.fromRowAndColumn(0b0100, 0b0001, 4));
+    Assert.assertEquals(QuadKeys.ROOT, QuadKeys.fromRowAndColumn(0, 0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_fromRowAndColumn_outOfRange() {
+    QuadKeys.fromRowAndColumn(16, 0, 4);
+  }
+
+  @Test
+  public void test_neighbors() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+ACAB");
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+AACD"),
+        QuadKeys.getNorthernNeighbor(key));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACAD"),
+        QuadKeys.getSouthernNeighbor(key));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACBA"),
+        QuadKeys.getEasternNeighbor(key));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+ACAA"),
+        QuadKeys.getWesternNeighbor(key));
+
+    final long[] neighbors = new long[QuadKeys.NEIGHBOR_COUNT];
+    Assert.assertEquals(QuadKeys.NEIGHBOR_COUNT, QuadKeys.getNeighbors(key, neighbors, 0));
+    final Set<String> expected = (Set<String>) QuadTreeAddress.getNeighbors("+ACAB");
+    for (final long neighbor : neighbors) {
+      Assert.assertTrue(expected.contains(QuadTreeAddress.toLetterRepresentation(neighbor)));
+    }
+  }
+
+  @Test
+  public void test_neighbors_antimeridian() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+CBBB");
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+DAAA"),
+        QuadKeys.getEasternNeighbor(key));
+    Assert.assertEquals(key,
+        QuadKeys.getWesternNeighbor(QuadTreeAddress.toNumberRepresentation("+DAAA")));
+  }
+
+  @Test
+  public void test_neighbors_pole() {
+    final long key = QuadTreeAddress.toNumberRepresentation("+AAAA");
+    Assert.assertEquals(QuadKeys.NO_KEY, QuadKeys.getNorthernNeighbor(key));
+    final long[] neighbors = new long[QuadKeys.NEIGHBOR_COUNT + 1];
+    Assert.assertEquals(5, QuadKeys.getNeighbors(key, neighbors, 1));
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+AAAB"), neighbors[1]);
+    Assert.assertEquals(QuadTreeAddress.toNumberRepresentation("+BBBB"), neighbors[5]);
+  }
+
+  @Test
+  public void test_forEachNeighbor_depth1() {
+    final List<Long> neighbors = new ArrayList<>();
+    QuadKeys.forEachNeighbor(QuadTreeAddress.toNumberRepresentation("+A"), neighbors::add);
+    Assert.assertEquals(Arrays.asList(QuadTreeAddress.toNumberRepresentation("+B"),
+        QuadTreeAddress.toNumberRepresentation("+D"), QuadTreeAddress.toNumberRepresentation("+C")),
+        neighbors);
+  }
+
+  @Test
+  public void test_borders_sameAsCreateFromQuadTreeString() {
+    final QuadTreeAddress quadTree =
+        QuadTreeAddress.createFromPoint(QuadKeysTest.VALID_POINT1, QuadTreeAddress.MAX_DEPTH);
+    final long key = quadTree.toNumberRepresentation();
+    Assert.assertEquals(quadTree.getUpperLeftPoint().getLatitudeInTenthMicroDegree(),
+        QuadKeys.getUpperLatitude(key));
+    Assert.assertEquals(quadTree.getUpperLeftPoint().getLongitudeInTenthMicroDegree(),
+        QuadKeys.getLeftLongitude(key));
+    Assert.assertEquals(quadTree.getLowerRightPoint().getLatitudeInTenthMicroDegree(),
+        QuadKeys.getLowerLatitude(key));
+    Assert.assertEquals(quadTree.getLowerRightPoint().getLongitudeInTenthMicroDegree(),
+        QuadKeys.getRightLongitude(key));
+    Assert.assertEquals(quadTree.getCenterPoint().getLatitudeInTenthMicroDegree(),
+        QuadKeys.getCenterLatitude(key));
+    Assert.assertEquals(quadTree.getCenterPoint().getLongitudeInTenthMicroDegree(),
+        QuadKeys.getCenterLongitude(key));
+  }
+
+  @Test
+  public void test_borders_root() {
+    Assert.assertEquals(Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE,
+        QuadKeys.getUpperLatitude(QuadKeys.ROOT));
+    Assert.assertEquals(Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE,
+        QuadKeys.getLeftLongitude(QuadKeys.ROOT));
+    Assert.assertEquals(0, QuadKeys.getCenterLongitude(QuadKeys.ROOT));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getUpperLatitude_invalidKey() {
+    QuadKeys.getUpperLatitude(-1);
+  }
+
+}
@@ -45,6 +45,36 @@ public class QuadTreeAddressTest {
     Assert.assertEquals(depth, quadTreeAddress.getDepth());
   }
 
+  @Test
+  public void test_toQuadTreeString_farEastAndWest() {
+    for (final Wgs84Point point : new Wgs84Point[] {new Wgs84Point(12.5, 170.25),
+        new Wgs84Point(-12.5, -170.25), new Wgs84Point(-89.9, 179.99)}) {
+      final QuadTreeAddress quadTreeAddress =
+          QuadTreeAddress.createFromPoint(point, QuadTreeAddress.MAX_DEPTH);
+      Assert.assertTrue(quadTreeAddress.getUpperLeftPoint()
+          .getLongitudeInTenthMicroDegree() <= point.getLongitudeInTenthMicroDegree());
+      Assert.assertTrue(quadTreeAddress.getUpperRightPoint()
+          .getLongitudeInTenthMicroDegree() > point.getLongitudeInTenthMicroDegree());
+      Assert.assertTrue(quadTreeAddress.getLowerLeftPoint()
+          .getLatitudeInTenthMicroDegree() <= point.getLatitudeInTenthMicroDegree());
+      Assert.assertTrue(quadTreeAddress.getUpperLeftPoint()
+          .getLatitudeInTenthMicroDegree() > point.getLatitudeInTenthMicroDegree());
+    }
+  }
+
+  /**
+   * A point on a threshold belongs to the upper or right tile.
+   */
+  @Test
+  public void test_toQuadTreeString_pointOnThreshold() {
+    final QuadTreeAddress quadTreeAddress =
+        QuadTreeAddress.createFromPoint(QuadTreeAddressTest.VALID_POINT1, 20);
+    Assert.assertEquals(quadTreeAddress,
+        QuadTreeAddress.createFromPoint(quadTreeAddress.getLowerLeftPoint(), 20));
+    Assert.assertEquals(quadTreeAddress,
+        QuadTreeAddress.createFromPoint(quadTreeAddress.getCenterPoint(), 20));
+  }
+
   @Test(expected = NullPointerException.class)
   public void test_getPolygonOfQuadTree_null() {
     QuadTreeAddress.createFromQuadTreeString(null);
@@ -80,6 +110,35 @@ public class QuadTreeAddressTest {
     Assert.assertTrue(QuadTreeAddress.isValid(QuadTreeAddressTest.VALID_QUADTREE));
   }
 
+  @Test
+  public void test_isValid_edgeCases() {
+    Assert.assertTrue(QuadTreeAddress.isValid("+"));
+    Assert.assertTrue(QuadTreeAddress.isValid("+DDDDDDDDDDDDDDDDDDDDDDDDDD"));
+    Assert.assertFalse(QuadTreeAddress.isValid(""));
+    Assert.assertFalse(QuadTreeAddress.isValid("+DDDDDDDDDDDDDDDDDDDDDDDDDDD"));
+    Assert.assertFalse(QuadTreeAddress.isValid("+ABa"));
+    Assert.assertFalse(QuadTreeAddress.isValid("+AB+"));
+    Assert.assertFalse(QuadTreeAddress.isValid("-ABC"));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void test_isValid_null() {
+    QuadTreeAddress.isValid(null);
+  }
+
+  @Test
+  public void test_tryParse_valid() {
+    Assert.assertEquals(QuadTreeAddressTest.ACAB_QUAD_TREE,
+        QuadTreeAddress.tryParse("+ACAB").orElseThrow());
+  }
+
+  @Test
+  public void test_tryParse_invalid() {
+    Assert.assertTrue(QuadTreeAddress.tryParse(QuadTreeAddressTest.INVALID_QUADTREE_1).isEmpty());
+    Assert.assertTrue(QuadTreeAddress.tryParse(QuadTreeAddressTest.INVALID_QUADTREE_2).isEmpty());
+    Assert.assertTrue(QuadTreeAddress.tryParse(null).isEmpty());
+  }
+
   @Test
   public void test_containsPoint_true1() {
     Assert.assertTrue(QuadTreeAddress.createFromPoint(QuadTreeAddressTest.VALID_POINT1, 15)
@@ -145,6 +204,18 @@ public class QuadTreeAddressTest {
             .getQuadTree()));
   }
 
+  @Test
+  public void test_shortenTo_alreadyShorter() {
+    Assert.assertEquals(QuadTreeAddressTest.ACAB_QUAD_TREE,
+        QuadTreeAddressTest.ACAB_QUAD_TREE.shortenTo(QuadTreeAddress.MAX_DEPTH));
+    Assert.assertEquals("+AC", QuadTreeAddress.shortenToDepth("+ACAB", 2).getQuadTree());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_shortenTo_negative() {
+    QuadTreeAddressTest.ACAB_QUAD_TREE.shortenTo(-1);
+  }
+
   @Test
   public void test_northernNeighbor() {
     Assert.assertEquals("+AACD",
@@ -241,6 +312,32 @@ public class QuadTreeAddressTest {
         QuadTreeAddress.toLetterRepresentation(6629359005329988536L));
   }
 
+  @Test
+  public void test_createFromNumberRepresentation_valid() {
+    final QuadTreeAddress quadTree =
+        QuadTreeAddress.createFromNumberRepresentation(6629359005329988536L);
+    Assert.assertEquals("+ACDCDCBADCDABCDAABCDCBD", quadTree.getQuadTree());
+    Assert.assertEquals(
+        QuadTreeAddress.createFromQuadTreeString("+ACDCDCBADCDABCDAABCDCBD").getCenterPoint(),
+        quadTree.getCenterPoint());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_createFromNumberRepresentation_invalid() {
+    QuadTreeAddress.createFromNumberRepresentation(-12);
+  }
+
+  @Test
+  public void test_equals() {
+    final QuadTreeAddress quadTree =
+        QuadTreeAddress.createFromPoint(QuadTreeAddressTest.VALID_POINT1, 5);
+    Assert.assertEquals(quadTree, QuadTreeAddress.createFromQuadTreeString(quadTree.getQuadTree()));
+    Assert.assertEquals(quadTree.hashCode(),
+        QuadTreeAddress.createFromQuadTreeString(quadTree.getQuadTree()).hashCode());
+    Assert.assertNotEquals(quadTree,
+        QuadTreeAddress.createFromPoint(QuadTreeAddressTest.VALID_POINT1, 6));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void test_toLetterRepresentation_negative() {
     QuadTreeAddress.toLetterRepresentation(-12);
@@ -0,0 +1,132 @@
+package de.okkyou.quadtreeaddress.test;
+
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.RegionCoverer;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegionCovererTest {
+
+  // Around Frankfurt am Main
+  private static final int NORTH = 502000000;
+  private static final int SOUTH = 499500000;
+  private static final int WEST = 84000000;
+  private static final int EAST = 88500000;
+
+  @Test
+  public void test_getCovering_containsBox() {
+    final RegionCoverer coverer = new RegionCoverer(2, 20, 16);
+    final long[] covering = coverer.getCovering(RegionCovererTest.NORTH, RegionCovererTest.SOUTH,
+        RegionCovererTest.WEST, RegionCovererTest.EAST);
+    Assert.assertTrue(covering.length <= 16);
+    final Random random = new Random(3);
+    for (int i = 0; i < 1000; i++) {
+      final int latitude = RegionCovererTest.SOUTH
+          + random.nextInt(RegionCovererTest.NORTH - RegionCovererTest.SOUTH + 1);
+      final int longitude = RegionCovererTest.WEST
+          + random.nextInt(RegionCovererTest.EAST - RegionCovererTest.WEST + 1);
+      Assert.assertTrue(RegionCovererTest.containsPoint(covering, latitude, longitude));
+    }
+    Assert.assertTrue(RegionCovererTest.containsPoint(covering, RegionCovererTest.NORTH,
+        RegionCovererTest.EAST));
+    Assert.assertFalse(RegionCovererTest.containsPoint(covering, 0, 0));
+    for (final long key : covering) {
+      Assert.assertTrue(QuadKeys.getDepth(key) >= 2);
+      Assert.assertTrue(QuadKeys.getDepth(key) <= 20);
+    }
+  }
+
+  @Test
+  public void test_getCovering_largerBudgetIsTighter() {
+    final long[] coarse = new RegionCoverer(0, 26, 4).getCovering(RegionCovererTest.NORTH,
+        RegionCovererTest.SOUTH, RegionCovererTest.WEST, RegionCovererTest.EAST);
+    final long[] fine = new RegionCoverer(0, 26, 64).getCovering(RegionCovererTest.NORTH,
+        RegionCovererTest.SOUTH, RegionCovererTest.WEST, RegionCovererTest.EAST);
+    Assert.assertTrue(coarse.length <= 4);
+    Assert.assertTrue(fine.length <= 64);
+    Assert.assertTrue(RegionCovererTest.area(fine) < RegionCovererTest.area(coarse));
+  }
+
+  @Test
+  public void test_getInteriorCovering_withinBox() {
+    final long[] interior = new RegionCoverer(0, 16, 50).getInteriorCovering(
+        RegionCovererTest.NORTH, RegionCovererTest.SOUTH, RegionCovererTest.WEST,
+        RegionCovererTest.EAST);
+    Assert.assertTrue(interior.length > 0);
+    Assert.assertTrue(interior.length <= 50);
+    for (final long key : interior) {
+      Assert.assertTrue(QuadKeys.getUpperLatitude(key) <= RegionCovererTest.NORTH);
+      Assert.assertTrue(QuadKeys.getLowerLatitude(key) >= RegionCovererTest.SOUTH);
+      Assert.assertTrue(QuadKeys.getLeftLongitude(key) >= RegionCovererTest.WEST);
+      Assert.assertTrue(QuadKeys.getRightLongitude(key) <= RegionCovererTest.EAST);
+    }
+  }
+
+  @Test
+  public void test_getCovering_antimeridian() {
+    final long[] covering =
+        new RegionCoverer(1, 12, 20).getCovering(100000000, -100000000, 1700000000, -1700000000);
+    Assert.assertTrue(RegionCovererTest.containsPoint(covering, 0, 1750000000));
+    Assert.assertTrue(RegionCovererTest.containsPoint(covering, 0, -1750000000));
+    Assert.assertTrue(RegionCovererTest.containsPoint(covering, 0,
+        Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE));
+    Assert.assertFalse(RegionCovererTest.containsPoint(covering, 0, 0));
+  }
+
+  @Test
+  public void test_getCovering_wholeWorldIsRoot() {
+    Assert.assertArrayEquals(new long[] {QuadKeys.ROOT},
+        new RegionCoverer(0, 10, 8).getCovering(Wgs84Point.MAX_LATITUDE_TENTH_MICRO_DEGREE,
+            Wgs84Point.MIN_LATITUDE_TENTH_MICRO_DEGREE,
+            Wgs84Point.MIN_LONGITUDE_TENTH_MICRO_DEGREE,
+            Wgs84Point.MAX_LONGITUDE_TENTH_MICRO_DEGREE));
+  }
+
+  @Test
+  public void test_getCovering_minDepthKeepsSiblings() {
+    final long cell = QuadTreeAddress.toNumberRepresentation("+AB");
+    final int north = QuadKeys.getUpperLatitude(cell);
+    final int south = QuadKeys.getLowerLatitude(cell);
+    final int west = QuadKeys.getLeftLongitude(cell);
+    final int east = QuadKeys.getRightLongitude(cell) - 1;
+    Assert.assertArrayEquals(new long[] {cell},
+        new RegionCoverer(0, 10, 8).getInteriorCovering(north, south, west, east));
+    final long[] children = new long[4];
+    QuadKeys.getChildren(cell, children, 0);
+    Assert.assertArrayEquals(children,
+        new RegionCoverer(3, 10, 8).getInteriorCovering(north, south, west, east));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_getCovering_northSouthOfSouth() {
+    new RegionCoverer(0, 10, 8).getCovering(RegionCovererTest.SOUTH, RegionCovererTest.NORTH,
+        RegionCovererTest.WEST, RegionCovererTest.EAST);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void test_constructor_invalidDepths() {
+    new RegionCoverer(5, 4, 8);
+  }
+
+  private static boolean containsPoint(final long[] keys, final int latitude,
+      final int longitude) {
+    for (final long key : keys) {
+      if (QuadKeys.contains(key, latitude, longitude)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static double area(final long[] keys) {
+    double area = 0;
+    for (final long key : keys) {
+      area += ((double) QuadKeys.getUpperLatitude(key) - QuadKeys.getLowerLatitude(key))
+          * ((double) QuadKeys.getRightLongitude(key) - QuadKeys.getLeftLongitude(key));
+    }
+    return area;
+  }
+}
@@ -0,0 +1,42 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs the benchmarks twice with the GC profiler, once for the throughput in operations per second
+ * and once for the latency percentiles in nanoseconds. The GC profiler reports the allocation rate
+ * and the allocated bytes per operation.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [regex]} where the optional regex selects the
+ * benchmarks, e.g. {@code NeighborBenchmark} or {@code createFromPoint}. The JMH command line
+ * remains available through {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main}.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    // static operations only
+  }
+
+  public static void main(final String[] args) throws RunnerException {
+    final String include = (args.length > 0) ? args[0] : "de.okkyou.quadtreeaddress.benchmark";
+    new Runner(BenchmarkRunner.options(include, Mode.Throughput, TimeUnit.SECONDS).build()).run();
+    new Runner(BenchmarkRunner.options(include, Mode.SampleTime, TimeUnit.NANOSECONDS).build())
+        .run();
+  }
+
+  private static ChainedOptionsBuilder options(final String include, final Mode mode,
+      final TimeUnit timeUnit) {
+    return new OptionsBuilder().include(include).mode(mode).timeUnit(timeUnit)
+        .addProfiler(GCProfiler.class);
+  }
+}
@@ -0,0 +1,97 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import de.okkyou.quadtreeaddress.ConcurrentPointIndex;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * <p>
+ * Benchmarks a {@link ConcurrentPointIndex} shared by all threads. Each thread moves its own
+ * points between the positions of {@link Coordinates} and counts the points within QuadTrees at
+ * the given depth. Run it with {@link ThreadScalingRunner} to measure the throughput with 1 to 64
+ * threads.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentPointIndexBenchmark {
+
+  @Param({"13"})
+  private int depth;
+
+  private ConcurrentPointIndex index;
+  private Wgs84Point[] points;
+  private long[] cells;
+
+  @Setup
+  public void setUp() {
+    this.index = new ConcurrentPointIndex();
+    this.points = Coordinates.createPoints();
+    this.cells = new long[Coordinates.COUNT];
+    for (int i = 0; i < Coordinates.COUNT; i++) {
+      this.index.insert(i, this.points[i]);
+      this.cells[i] = QuadKeys.encode(this.points[i].getLatitudeInTenthMicroDegree(),
+          this.points[i].getLongitudeInTenthMicroDegree(), this.depth);
+    }
+  }
+
+  /**
+   * The position of a thread within the positions. Threads only move the ids that are congruent
+   * to their index modulo the number of threads, so no two threads move the same point. The number
+   * of passes over the positions selects the target of a move, so every visit of an id moves it to
+   * another position.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int threadCount;
+    private int index;
+    private int pass;
+
+    @Setup
+    public void setUp(final ThreadParams threadParams) {
+      this.threadCount = threadParams.getThreadCount();
+      this.index = threadParams.getThreadIndex();
+    }
+
+    private int next() {
+      this.index += this.threadCount;
+      if (this.index > Coordinates.MASK) {
+        this.index &= Coordinates.MASK;
+        this.pass++;
+      }
+      return this.index;
+    }
+  }
+
+  @Benchmark
+  public boolean move(final Cursor cursor) {
+    final int i = cursor.next();
+    // Moves the point to the position of another one, so the distribution stays roughly the same.
+    // The point is at the position of the previous pass, which differs from the target.
+    return this.index.move(i, this.points[(i + cursor.pass + 1) & Coordinates.MASK]);
+  }
+
+  @Benchmark
+  public void query(final Cursor cursor, final Blackhole blackhole) {
+    this.index.forEach(this.cells[cursor.next()], blackhole::consume);
+  }
+}
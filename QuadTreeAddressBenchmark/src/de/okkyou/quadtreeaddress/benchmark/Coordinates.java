@@ -0,0 +1,68 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Random;
+
+/**
+ * <p>
+ * Creates reproducible positions that resemble real data. Most positions are clustered around
+ * large cities, the rest is spread uniformly over the sphere so that polar and antimeridian cells
+ * appear as well.
+ * </p>
+ */
+final class Coordinates {
+
+  /**
+   * Number of positions per benchmark. A power of 2, so the next index can be masked.
+   */
+  static final int COUNT = 1 << 14;
+  static final int MASK = Coordinates.COUNT - 1;
+
+  private static final long SEED = 20201018L;
+  private static final double CLUSTERED_SHARE = 0.9;
+  private static final double CLUSTER_SIGMA_DEGREE = 0.3;
+
+  // Latitude and longitude in degree
+  private static final double[][] CITIES = {
+      {52.520, 13.405}, // Berlin
+      {40.713, -74.006}, // New York
+      {35.690, 139.692}, // Tokyo
+      {-23.551, -46.633}, // Sao Paulo
+      {6.524, 3.379}, // Lagos
+      {19.076, 72.878}, // Mumbai
+      {-33.869, 151.209}, // Sydney
+      {-36.849, 174.763}, // Auckland
+      {61.218, -149.900}, // Anchorage
+      {64.147, -21.943}, // Reykjavik
+  };
+
+  private Coordinates() {
+    // static operations only
+  }
+
+  static Wgs84Point[] createPoints() {
+    final Random random = new Random(Coordinates.SEED);
+    final Wgs84Point[] points = new Wgs84Point[Coordinates.COUNT];
+    for (int i = 0; i < Coordinates.COUNT; i++) {
+      final double latitude;
+      final double longitude;
+      if (random.nextDouble() < Coordinates.CLUSTERED_SHARE) {
+        final double[] city = Coordinates.CITIES[random.nextInt(Coordinates.CITIES.length)];
+        latitude = city[0] + (random.nextGaussian() * Coordinates.CLUSTER_SIGMA_DEGREE);
+        longitude = city[1] + (random.nextGaussian() * Coordinates.CLUSTER_SIGMA_DEGREE);
+      } else {
+        // Uniform per area, so latitudes near the poles are rarer
+        latitude = Math.toDegrees(Math.asin((2 * random.nextDouble()) - 1));
+        longitude = (360 * random.nextDouble()) - 180;
+      }
+      points[i] = new Wgs84Point(
+          Coordinates.clamp(latitude, Wgs84Point.MAX_LATITUDE_DEGREE),
+          Coordinates.clamp(longitude, Wgs84Point.MAX_LONGITUDE_DEGREE));
+    }
+    return points;
+  }
+
+  private static double clamp(final double value, final double max) {
+    return Math.max(-max, Math.min(max, value));
+  }
+}
@@ -0,0 +1,65 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmarks {@link QuadTreeAddress#getNeighbors(String)}. A QuadTree needs a depth of at least 2
+ * to have 8 neighbors, so the smallest depth is 2 instead of 1.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeighborBenchmark {
+
+  @Param({"2", "13", "26"})
+  private int depth;
+
+  private QuadTreeAddress[] addresses;
+  private String[] quadTrees;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    this.addresses = new QuadTreeAddress[Coordinates.COUNT];
+    this.quadTrees = new String[Coordinates.COUNT];
+    final Wgs84Point[] points = Coordinates.createPoints();
+    for (int i = 0; i < Coordinates.COUNT; i++) {
+      this.addresses[i] = QuadTreeAddress.createFromPoint(points[i], this.depth);
+      this.quadTrees[i] = this.addresses[i].getQuadTree();
+    }
+  }
+
+  private int next() {
+    this.index = (this.index + 1) & Coordinates.MASK;
+    return this.index;
+  }
+
+  @Benchmark
+  public Collection<String> getNeighborsOfString() {
+    return QuadTreeAddress.getNeighbors(this.quadTrees[this.next()]);
+  }
+
+  @Benchmark
+  public Collection<String> getNeighbors() {
+    return this.addresses[this.next()].getNeighbors();
+  }
+}
@@ -0,0 +1,63 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import de.okkyou.quadtreeaddress.QuadKeyWireFormat;
+import de.okkyou.quadtreeaddress.QuadKeys;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmarks {@link QuadKeyWireFormat} with a batch of the QuadTrees of all positions. The
+ * positions are clustered around cities, so most keys of a batch are close to the previous key.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuadKeyWireFormatBenchmark {
+
+  @Param({"13", "20", "26"})
+  private int depth;
+
+  private long[] keys;
+  private ByteBuffer batch;
+  private long[] decoded;
+
+  @Setup
+  public void setUp() {
+    this.keys = new long[Coordinates.COUNT];
+    final Wgs84Point[] points = Coordinates.createPoints();
+    for (int i = 0; i < Coordinates.COUNT; i++) {
+      this.keys[i] = QuadKeys.encode(points[i].getLatitudeInTenthMicroDegree(),
+          points[i].getLongitudeInTenthMicroDegree(), this.depth);
+    }
+    this.batch = ByteBuffer.wrap(QuadKeyWireFormat.encode(this.keys));
+    this.decoded = new long[Coordinates.COUNT];
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return QuadKeyWireFormat.encode(this.keys);
+  }
+
+  @Benchmark
+  public long[] decode() {
+    QuadKeyWireFormat.decode(this.batch.clear(), this.decoded, 0);
+    return this.decoded;
+  }
+}
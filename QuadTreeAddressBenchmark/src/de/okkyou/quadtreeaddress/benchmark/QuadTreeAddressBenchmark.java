@@ -0,0 +1,113 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import de.okkyou.quadtreeaddress.QuadTreeAddress;
+import de.okkyou.quadtreeaddress.Wgs84Point;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmarks the public operations of {@link QuadTreeAddress} at the depths 1, 13 and 26. Every
+ * invocation takes the next of {@value Coordinates#COUNT} prepared inputs, so branch prediction
+ * and caches see a realistic mix instead of a single constant.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuadTreeAddressBenchmark {
+
+  @Param({"1", "13", "26"})
+  private int depth;
+
+  private Wgs84Point[] points;
+  private QuadTreeAddress[] addresses;
+  private QuadTreeAddress[] deepestAddresses;
+  private String[] quadTrees;
+  private String[] deepestQuadTrees;
+  private long[] keys;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    this.points = Coordinates.createPoints();
+    this.addresses = new QuadTreeAddress[Coordinates.COUNT];
+    this.deepestAddresses = new QuadTreeAddress[Coordinates.COUNT];
+    this.quadTrees = new String[Coordinates.COUNT];
+    this.deepestQuadTrees = new String[Coordinates.COUNT];
+    this.keys = new long[Coordinates.COUNT];
+    for (int i = 0; i < Coordinates.COUNT; i++) {
+      this.addresses[i] = QuadTreeAddress.createFromPoint(this.points[i], this.depth);
+      this.deepestAddresses[i] =
+          QuadTreeAddress.createFromPoint(this.points[i], QuadTreeAddress.MAX_DEPTH);
+      this.quadTrees[i] = this.addresses[i].getQuadTree();
+      this.deepestQuadTrees[i] = this.deepestAddresses[i].getQuadTree();
+      this.keys[i] = this.addresses[i].toNumberRepresentation();
+    }
+  }
+
+  private int next() {
+    this.index = (this.index + 1) & Coordinates.MASK;
+    return this.index;
+  }
+
+  @Benchmark
+  public QuadTreeAddress createFromPoint() {
+    return QuadTreeAddress.createFromPoint(this.points[this.next()], this.depth);
+  }
+
+  @Benchmark
+  public QuadTreeAddress createFromQuadTreeString() {
+    return QuadTreeAddress.createFromQuadTreeString(this.quadTrees[this.next()]);
+  }
+
+  @Benchmark
+  public boolean isValid() {
+    return QuadTreeAddress.isValid(this.quadTrees[this.next()]);
+  }
+
+  @Benchmark
+  public boolean containsPoint() {
+    final int i = this.next();
+    return this.addresses[i].contains(this.points[i]);
+  }
+
+  @Benchmark
+  public boolean containsQuadTree() {
+    final int i = this.next();
+    return this.addresses[i].contains(this.deepestAddresses[i]);
+  }
+
+  @Benchmark
+  public QuadTreeAddress shortenToDepth() {
+    return QuadTreeAddress.shortenToDepth(this.deepestQuadTrees[this.next()], this.depth);
+  }
+
+  @Benchmark
+  public long toNumberRepresentation() {
+    return QuadTreeAddress.toNumberRepresentation(this.quadTrees[this.next()]);
+  }
+
+  @Benchmark
+  public String toLetterRepresentation() {
+    return QuadTreeAddress.toLetterRepresentation(this.keys[this.next()]);
+  }
+
+  @Benchmark
+  public String toGeoJson() {
+    return this.addresses[this.next()].toGeoJson();
+  }
+}
@@ -0,0 +1,35 @@
+package de.okkyou.quadtreeaddress.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs benchmarks of shared state with 1, 2, 4, ... 64 threads to show how the throughput scales.
+ * The throughput is reported per thread count, so the runs can be compared directly.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * {@code java -cp target/benchmarks.jar de.okkyou.quadtreeaddress.benchmark.ThreadScalingRunner}
+ * {@code [regex]} where the optional regex selects the benchmarks and defaults to
+ * {@link ConcurrentPointIndexBenchmark}.
+ * </p>
+ */
+public final class ThreadScalingRunner {
+
+  private static final int MAX_THREADS = 64;
+
+  private ThreadScalingRunner() {
+    // static operations only
+  }
+
+  public static void main(final String[] args) throws RunnerException {
+    final String include =
+        (args.length > 0) ? args[0] : ConcurrentPointIndexBenchmark.class.getSimpleName();
+    for (int threads = 1; threads <= ThreadScalingRunner.MAX_THREADS; threads *= 2) {
+      new Runner(new OptionsBuilder().include(include).threads(threads).build()).run();
+    }
+  }
+}